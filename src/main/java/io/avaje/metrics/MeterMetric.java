@@ -0,0 +1,55 @@
+package io.avaje.metrics;
+
+/**
+ * Metric that measures the rate of events with exponentially weighted moving average
+ * 1, 5 and 15 minute rates.
+ * <p>
+ * Unlike {@link CounterMetric} the rates are not reset on collection and provide a smoothed
+ * throughput signal. The rates are in events per second.
+ * <pre>
+ * <code>
+ *  // Declare the meter (typically as a static field)
+ *  static final MeterMetric requestMeter = MetricManager.meter(MyService.class, "requests");
+ *  ...
+ *
+ *  void handleRequest() {
+ *
+ *    requestMeter.mark();
+ *    ...
+ *  }
+ *
+ * </code>
+ * </pre>
+ */
+public interface MeterMetric extends Metric {
+
+  /**
+   * Mark that 1 event has occurred.
+   */
+  void mark();
+
+  /**
+   * Mark that the given number of events have occurred.
+   */
+  void mark(long events);
+
+  /**
+   * Return the count of events since the last collection.
+   */
+  long getCount();
+
+  /**
+   * Return the one minute exponentially weighted moving average rate (events per second).
+   */
+  double getOneMinuteRate();
+
+  /**
+   * Return the five minute exponentially weighted moving average rate (events per second).
+   */
+  double getFiveMinuteRate();
+
+  /**
+   * Return the fifteen minute exponentially weighted moving average rate (events per second).
+   */
+  double getFifteenMinuteRate();
+}
@@ -0,0 +1,39 @@
+package io.avaje.metrics;
+
+/**
+ * Metrics that share a name and differ by their tags.
+ * <p>
+ * The metrics are cached by tag key and value such that looking up an existing metric does not
+ * build a name or tags.
+ * </p>
+ * <pre>{@code
+ *
+ *   static final MetricFamily<TimedMetric> requests = MetricManager.timedFamily("web.api.requests");
+ *
+ *   ...
+ *   requests.tagged("status", statusCode).add(startNanos);
+ *
+ * }</pre>
+ */
+public interface MetricFamily<T extends Metric> {
+
+  /**
+   * Return the base name of the metrics (without tags).
+   */
+  MetricName getName();
+
+  /**
+   * Return the metric with the given tag.
+   */
+  T tagged(String key, String value);
+
+  /**
+   * Return the metric with the given two tags.
+   */
+  T tagged(String key1, String value1, String key2, String value2);
+
+  /**
+   * Return the metric with the given tags.
+   */
+  T tagged(Tags tags);
+}
@@ -1,6 +1,7 @@
 package io.avaje.metrics;
 
 import io.avaje.metrics.core.DefaultMetricManager;
+import io.avaje.metrics.spi.Clock;
 import io.avaje.metrics.spi.SpiMetricManager;
 import io.avaje.metrics.statistics.MetricStatistics;
 import io.avaje.metrics.statistics.MetricStatisticsAsJson;
@@ -69,6 +70,13 @@ public class MetricManager {
     return mgr.name(name);
   }
 
+  /**
+   * Create a Metric name with the given tags.
+   */
+  public static MetricName name(String name, Tags tags) {
+    return mgr.name(name, tags);
+  }
+
   /**
    * Return a MetricNameCache for the given class.
    * <p>
@@ -112,6 +120,31 @@ public class MetricManager {
     return timed(name(name), bucketRanges);
   }
 
+  /**
+   * Return a BucketTimedMetric given the name and bucket ranges in microseconds.
+   * <p>
+   * Use this rather than timed() with millisecond bucket ranges when the bucket
+   * ranges need microsecond precision.
+   * </p>
+   */
+  public static TimedMetric timedMicros(MetricName name, long... bucketRangesMicros) {
+    return mgr.timedMicros(name, bucketRangesMicros);
+  }
+
+  /**
+   * Return a BucketTimedMetric given the name and bucket ranges in microseconds.
+   */
+  public static TimedMetric timedMicros(Class<?> cls, String name, long... bucketRangesMicros) {
+    return timedMicros(name(cls, name), bucketRangesMicros);
+  }
+
+  /**
+   * Return a BucketTimedMetric given the name and bucket ranges in microseconds.
+   */
+  public static TimedMetric timedMicros(String name, long... bucketRangesMicros) {
+    return timedMicros(name(name), bucketRangesMicros);
+  }
+
   /**
    * Return a TimedMetric given the name.
    */
@@ -133,6 +166,109 @@ public class MetricManager {
     return timed(name(name));
   }
 
+  /**
+   * Return a TimedMetric given the name that uses the given clock.
+   * <p>
+   * Typically this is used with {@link #coarseClock()} when millisecond precision is enough and
+   * the timed code path is short such that reading System.nanoTime() is relatively expensive.
+   * </p>
+   * <pre>{@code
+   *
+   *   TimedMetric metric = MetricManager.timed(MetricName.of("app.cache.lookup"), MetricManager.coarseClock());
+   *
+   * }</pre>
+   */
+  public static TimedMetric timed(MetricName name, Clock clock) {
+    return mgr.timed(name, clock);
+  }
+
+  /**
+   * Return the clock used by the metrics.
+   */
+  public static Clock clock() {
+    return mgr.clock();
+  }
+
+  /**
+   * Return the coarse clock that has cached time values updated every millisecond by a ticker thread.
+   */
+  public static Clock coarseClock() {
+    return mgr.coarseClock();
+  }
+
+  /**
+   * Shutdown stopping the ticker thread of the coarse clock (if it was started).
+   * <p>
+   * After shutdown the coarse clock time no longer advances.
+   * </p>
+   */
+  public static void shutdown() {
+    mgr.shutdown();
+  }
+
+  /**
+   * Return a histogram based TimedMetric given the name.
+   * <p>
+   * The statistics collected include p50, p95, p99 and p999 percentiles of the
+   * successful event durations.
+   * </p>
+   */
+  public static TimedMetric timedHistogram(MetricName name) {
+    return mgr.timedHistogram(name);
+  }
+
+  /**
+   * Return a histogram based TimedMetric using the Class, name to derive the MetricName.
+   */
+  public static TimedMetric timedHistogram(Class<?> cls, String eventName) {
+    return timedHistogram(name(cls, eventName));
+  }
+
+  /**
+   * Return a histogram based TimedMetric given the name.
+   */
+  public static TimedMetric timedHistogram(String name) {
+    return timedHistogram(name(name));
+  }
+
+  /**
+   * Return a sampled TimedMetric given the name and sample rate.
+   * <p>
+   * Only a random sample of the events are recorded (for example a sampleRate of 0.01 records 1 in
+   * 100 events) and the reported count and total are scaled back up. Events that are not sampled
+   * do not read the clock so this is intended for very hot code paths.
+   * </p>
+   * <pre>{@code
+   *
+   *   TimedMetric metric = MetricManager.timedSampled(MetricName.of("app.parser.token"), 1d / 64);
+   *
+   *   long start = metric.start();
+   *   ...
+   *   metric.end(start);
+   *
+   * }</pre>
+   *
+   * @param name       The metric name
+   * @param sampleRate The probability that an event is recorded (greater than 0 and at most 1)
+   */
+  public static TimedMetric timedSampled(MetricName name, double sampleRate) {
+    return mgr.timedSampled(name, sampleRate);
+  }
+
+  /**
+   * Return a sampled TimedMetric using the Class, name to derive the MetricName.
+   */
+  public static TimedMetric timedSampled(Class<?> cls, String eventName, double sampleRate) {
+    return timedSampled(name(cls, eventName), sampleRate);
+  }
+
+  /**
+   * Return a sampled TimedMetric given the name.
+   */
+  public static TimedMetric timedSampled(String name, double sampleRate) {
+    return timedSampled(name(name), sampleRate);
+  }
+
   /**
    * Return a CounterMetric given the name.
    */
@@ -154,6 +290,30 @@ public class MetricManager {
     return counter(name(cls, eventName));
   }
 
+  /**
+   * Return a MeterMetric given the name.
+   * <p>
+   * The meter reports 1, 5 and 15 minute moving average rates in events per second.
+   * </p>
+   */
+  public static MeterMetric meter(MetricName name) {
+    return mgr.meter(name);
+  }
+
+  /**
+   * Return a MeterMetric given the name.
+   */
+  public static MeterMetric meter(String name) {
+    return meter(name(name));
+  }
+
+  /**
+   * Return a MeterMetric using the Class, name to derive the MetricName.
+   */
+  public static MeterMetric meter(Class<?> cls, String eventName) {
+    return meter(name(cls, eventName));
+  }
+
   /**
    * Return a ValueMetric given the name.
    */
@@ -201,6 +361,48 @@ public class MetricManager {
     return timedGroup(MetricName.of(name));
   }
 
+  /**
+   * Return the family of TimedMetrics with the given base name that differ by their tags.
+   */
+  public static MetricFamily<TimedMetric> timedFamily(MetricName baseName) {
+    return mgr.timedFamily(baseName);
+  }
+
+  /**
+   * Return the family of TimedMetrics with the given base name that differ by their tags.
+   */
+  public static MetricFamily<TimedMetric> timedFamily(String baseName) {
+    return timedFamily(name(baseName));
+  }
+
+  /**
+   * Return the family of CounterMetrics with the given base name that differ by their tags.
+   */
+  public static MetricFamily<CounterMetric> counterFamily(MetricName baseName) {
+    return mgr.counterFamily(baseName);
+  }
+
+  /**
+   * Return the family of CounterMetrics with the given base name that differ by their tags.
+   */
+  public static MetricFamily<CounterMetric> counterFamily(String baseName) {
+    return counterFamily(name(baseName));
+  }
+
+  /**
+   * Return the family of ValueMetrics with the given base name that differ by their tags.
+   */
+  public static MetricFamily<ValueMetric> valueFamily(MetricName baseName) {
+    return mgr.valueFamily(baseName);
+  }
+
+  /**
+   * Return the family of ValueMetrics with the given base name that differ by their tags.
+   */
+  public static MetricFamily<ValueMetric> valueFamily(String baseName) {
+    return valueFamily(name(baseName));
+  }
+
   /**
    * Create and register a GaugeMetric using the gauge supplied.
    */
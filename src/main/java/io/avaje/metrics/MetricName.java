@@ -41,4 +41,28 @@ public interface MetricName extends Comparable<io.avaje.metrics.MetricName> {
    * Return true if the metric is considered an "error" metric with a name ending in ".error".
    */
   boolean isError();
+
+  /**
+   * Return the tags of this metric name (empty if the metric has no tags).
+   */
+  default Tags getTags() {
+    return Tags.EMPTY;
+  }
+
+  /**
+   * Return the MetricName with the same simple name and the given tags.
+   * <p>
+   * Defaults to obtaining the name with tags from the MetricManager.
+   * </p>
+   */
+  default MetricName tagged(Tags tags) {
+    return MetricManager.name(getSimpleName(), tags);
+  }
+
+  /**
+   * Return the MetricName with the additional tag.
+   */
+  default MetricName tagged(String key, String value) {
+    return tagged(getTags().and(key, value));
+  }
 }
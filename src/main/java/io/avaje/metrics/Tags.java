@@ -0,0 +1,234 @@
+package io.avaje.metrics;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable set of tags (key value pairs) used to add dimensions to a metric name.
+ * <p>
+ * Tags are ordered by key and interned (weakly) such that equal tag sets in use are the same
+ * instance and the hash code is computed once. Tag sets that are no longer used can be garbage
+ * collected.
+ * </p>
+ * <pre>{@code
+ *
+ *   Tags tags = Tags.of("status", "200", "tenant", "acme");
+ *
+ *   MetricFamily<TimedMetric> requests = MetricManager.timedFamily("web.api.requests");
+ *   requests.tagged("status", "200").add(startNanos);
+ *
+ * }</pre>
+ */
+public final class Tags {
+
+  private static final ConcurrentHashMap<List<String>, TagsRef> INTERNED = new ConcurrentHashMap<>();
+
+  private static final ReferenceQueue<Tags> COLLECTED = new ReferenceQueue<>();
+
+  /**
+   * No tags.
+   */
+  public static final Tags EMPTY = new Tags(new String[0]);
+
+  /**
+   * Alternating keys and values ordered by key.
+   */
+  private final String[] keyValues;
+
+  private final int hash;
+
+  private final String text;
+
+  private Tags(String[] keyValues) {
+    this.keyValues = keyValues;
+    this.hash = Arrays.hashCode(keyValues);
+    this.text = text(keyValues);
+  }
+
+  private static String text(String[] keyValues) {
+    if (keyValues.length == 0) {
+      return "";
+    }
+    StringBuilder sb = new StringBuilder(keyValues.length * 8).append('{');
+    for (int i = 0; i < keyValues.length; i += 2) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(keyValues[i]).append('=').append(keyValues[i + 1]);
+    }
+    return sb.append('}').toString();
+  }
+
+  /**
+   * Return the tags for a single key and value.
+   */
+  public static Tags of(String key, String value) {
+    return of(new String[]{key, value});
+  }
+
+  /**
+   * Return the tags given alternating keys and values.
+   */
+  public static Tags of(String... keyValues) {
+    if (keyValues.length == 0) {
+      return EMPTY;
+    }
+    if ((keyValues.length & 1) != 0) {
+      throw new IllegalArgumentException("Expected alternating keys and values but got " + keyValues.length + " strings");
+    }
+    String[] sorted = new String[keyValues.length];
+    int size = 0;
+    for (int i = 0; i < keyValues.length; i += 2) {
+      size = put(sorted, size, keyValues[i], keyValues[i + 1]);
+    }
+    return intern((size == sorted.length) ? sorted : Arrays.copyOf(sorted, size));
+  }
+
+  /**
+   * Insert the key and value keeping the keys ordered (replacing an existing value for the key).
+   */
+  private static int put(String[] sorted, int size, String key, String value) {
+    if (key == null || value == null) {
+      throw new IllegalArgumentException("Tag key and value must not be null");
+    }
+    int pos = 0;
+    while (pos < size && sorted[pos].compareTo(key) < 0) {
+      pos += 2;
+    }
+    if (pos < size && sorted[pos].equals(key)) {
+      sorted[pos + 1] = value;
+      return size;
+    }
+    System.arraycopy(sorted, pos, sorted, pos + 2, size - pos);
+    sorted[pos] = key;
+    sorted[pos + 1] = value;
+    return size + 2;
+  }
+
+  private static Tags intern(String[] keyValues) {
+    List<String> key = Arrays.asList(keyValues);
+    TagsRef ref = INTERNED.get(key);
+    if (ref != null) {
+      Tags tags = ref.get();
+      if (tags != null) {
+        return tags;
+      }
+    }
+    expungeCollected();
+    Tags tags = new Tags(keyValues);
+    ref = new TagsRef(tags, key);
+    while (true) {
+      TagsRef existing = INTERNED.putIfAbsent(key, ref);
+      if (existing == null) {
+        return tags;
+      }
+      Tags existingTags = existing.get();
+      if (existingTags != null) {
+        return existingTags;
+      }
+      if (INTERNED.replace(key, existing, ref)) {
+        return tags;
+      }
+    }
+  }
+
+  /**
+   * Remove the entries for tags that have been garbage collected.
+   */
+  private static void expungeCollected() {
+    TagsRef ref;
+    while ((ref = (TagsRef) COLLECTED.poll()) != null) {
+      INTERNED.remove(ref.key, ref);
+    }
+  }
+
+  /**
+   * Return tags with the additional key and value (replacing the value if the key exists).
+   */
+  public Tags and(String key, String value) {
+    String[] sorted = Arrays.copyOf(keyValues, keyValues.length + 2);
+    int size = put(sorted, keyValues.length, key, value);
+    return intern((size == sorted.length) ? sorted : Arrays.copyOf(sorted, size));
+  }
+
+  /**
+   * Return true if there are no tags.
+   */
+  public boolean isEmpty() {
+    return keyValues.length == 0;
+  }
+
+  /**
+   * Return the number of tags.
+   */
+  public int size() {
+    return keyValues.length >> 1;
+  }
+
+  /**
+   * Return the key of the tag at the given index.
+   */
+  public String key(int index) {
+    return keyValues[index << 1];
+  }
+
+  /**
+   * Return the value of the tag at the given index.
+   */
+  public String value(int index) {
+    return keyValues[(index << 1) + 1];
+  }
+
+  /**
+   * Return the value for the given key or null if there is no tag with that key.
+   */
+  public String get(String key) {
+    for (int i = 0; i < keyValues.length; i += 2) {
+      if (keyValues[i].equals(key)) {
+        return keyValues[i + 1];
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Tags)) {
+      return false;
+    }
+    Tags that = (Tags) o;
+    return hash == that.hash && Arrays.equals(keyValues, that.keyValues);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  /**
+   * Return the tags in the form <code>{key=value,key2=value2}</code> (empty string for no tags).
+   */
+  @Override
+  public String toString() {
+    return text;
+  }
+
+  /**
+   * Weak reference to interned tags that removes itself from the table once collected.
+   */
+  private static final class TagsRef extends WeakReference<Tags> {
+
+    private final List<String> key;
+
+    TagsRef(Tags tags, List<String> key) {
+      super(tags, COLLECTED);
+      this.key = key;
+    }
+  }
+}
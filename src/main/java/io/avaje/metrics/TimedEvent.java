@@ -4,7 +4,9 @@ package io.avaje.metrics;
  * A TimedEvent that is ended with either success or error.
  * <p>
  * Note that it is generally preferred to use {@link TimedMetric#addEventSince(boolean, long)} as
- * that avoids an object creation and the associated GC so has slightly less overhead.
+ * that avoids an object creation and the associated GC so has slightly less overhead. Similarly
+ * {@link TimedMetric#start()} with {@link TimedMetric#end(long)} is the allocation free
+ * equivalent of using TimedEvent.
  * <p>
  * Example:
  *
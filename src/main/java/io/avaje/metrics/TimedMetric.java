@@ -1,5 +1,7 @@
 package io.avaje.metrics;
 
+import io.avaje.metrics.statistics.WindowStatistics;
+
 import java.util.Map;
 import java.util.function.Supplier;
 
@@ -63,6 +65,26 @@ import java.util.function.Supplier;
  *
  * </code>
  * </pre>
+ *
+ * <p>
+ * For callers that can not use <code>time(Runnable)</code> the start token methods provide the same
+ * as TimedEvent without allocating an object per event:
+ * </p>
+ *
+ * <pre>
+ * <code>
+ *  long start = metric.start();
+ *  try {
+ *    ...
+ *    metric.end(start);
+ *
+ *  } catch (RuntimeException e) {
+ *    metric.endWithError(start);
+ *    throw e;
+ *  }
+ *
+ * </code>
+ * </pre>
  */
 public interface TimedMetric extends Metric {
 
@@ -86,10 +108,42 @@ public interface TimedMetric extends Metric {
    * This is an alternative to using {@link #addEventSince(boolean, long)} or
    * {@link #addEventDuration(boolean, long)}. Note that this startEvent() method has slightly
    * higher overhead as it instantiates a TimedEvent object which must be later GC'ed. In this sense
-   * generally addEventSince() is the preferred method to use.
+   * generally addEventSince() or {@link #start()} is the preferred method to use.
    */
   TimedEvent startEvent();
 
+  /**
+   * Start an event returning a start token that is later passed to {@link #end(long)} or
+   * {@link #endWithError(long)}.
+   * <p>
+   * This is the allocation free alternative to {@link #startEvent()}.
+   * </p>
+   */
+  default long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * End the event started via {@link #start()} with successful execution.
+   */
+  default void end(long startToken) {
+    addEventSince(true, startToken);
+  }
+
+  /**
+   * End the event started via {@link #start()} with an error or fault execution.
+   */
+  default void endWithError(long startToken) {
+    addEventSince(false, startToken);
+  }
+
+  /**
+   * End the event started via {@link #start()} specifying whether the event was successful or in error.
+   */
+  default void end(long startToken, boolean withSuccess) {
+    addEventSince(withSuccess, startToken);
+  }
+
   /**
    * Add an successful event duration.
    */
@@ -137,6 +191,48 @@ public interface TimedMetric extends Metric {
    */
   void addEventDuration(boolean success, long durationNanos);
 
+  /**
+   * Add a batch of event durations in nanoseconds from the array noting if they were success or
+   * failure results.
+   * <p>
+   * This is equivalent to calling {@link #addEventDuration(boolean, long)} for each duration but
+   * the durations are aggregated locally and added to the metric once.
+   * </p>
+   *
+   * @param success       true if the events were successful
+   * @param durationNanos the array containing the durations in nanoseconds
+   * @param offset        the index of the first duration to add
+   * @param len           the number of durations to add
+   */
+  default void addEventDurations(boolean success, long[] durationNanos, int offset, int len) {
+    for (int i = offset, end = offset + len; i < end; i++) {
+      addEventDuration(success, durationNanos[i]);
+    }
+  }
+
+  /**
+   * Enable rolling window statistics of the successful events covering up to the given number of
+   * seconds (typically 60).
+   * <p>
+   * The rolling window statistics are then available via {@link #rollingWindow(int)} at any time
+   * without resetting the metric.
+   * </p>
+   */
+  default void enableRollingWindow(int maxSeconds) {
+    throw new UnsupportedOperationException("Rolling window not supported by " + getClass().getName());
+  }
+
+  /**
+   * Return the statistics of the successful events over the last given number of seconds.
+   * <p>
+   * This does not reset the metric or affect the collected statistics. The rolling window must
+   * have been enabled via {@link #enableRollingWindow(int)}.
+   * </p>
+   */
+  default WindowStatistics rollingWindow(int seconds) {
+    throw new UnsupportedOperationException("Rolling window not supported by " + getClass().getName());
+  }
+
   /**
    * Return true if this timed metric is part of a bucket range (and hence only hold statistics for the
    * bucket range returned by <code>bucketRange()</code>.
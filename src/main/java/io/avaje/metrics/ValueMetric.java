@@ -1,5 +1,7 @@
 package io.avaje.metrics;
 
+import io.avaje.metrics.statistics.WindowStatistics;
+
 /**
  * Metric that collects long values (e.g. total bytes sent).
  * <p>
@@ -28,6 +30,45 @@ public interface ValueMetric extends Metric {
    */
   void addEvent(long value);
 
+  /**
+   * Add a batch of values from the array.
+   * <p>
+   * This is equivalent to calling {@link #addEvent(long)} for each value but the values are
+   * aggregated locally and added to the metric once.
+   * </p>
+   *
+   * @param values the array containing the values
+   * @param offset the index of the first value to add
+   * @param len    the number of values to add
+   */
+  default void addEvents(long[] values, int offset, int len) {
+    for (int i = offset, end = offset + len; i < end; i++) {
+      addEvent(values[i]);
+    }
+  }
+
+  /**
+   * Enable rolling window statistics covering up to the given number of seconds (typically 60).
+   * <p>
+   * The rolling window statistics are then available via {@link #rollingWindow(int)} at any time
+   * without resetting the metric.
+   * </p>
+   */
+  default void enableRollingWindow(int maxSeconds) {
+    throw new UnsupportedOperationException("Rolling window not supported by " + getClass().getName());
+  }
+
+  /**
+   * Return the statistics of the values over the last given number of seconds.
+   * <p>
+   * This does not reset the metric or affect the collected statistics. The rolling window must
+   * have been enabled via {@link #enableRollingWindow(int)}.
+   * </p>
+   */
+  default WindowStatistics rollingWindow(int seconds) {
+    throw new UnsupportedOperationException("Rolling window not supported by " + getClass().getName());
+  }
+
   /**
    * Return the count of values collected (since the last reset/collection).
    */
@@ -0,0 +1,941 @@
+package io.avaje.metrics.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enhances the timed methods of a class file (using only the class file format, no bytecode library).
+ * <p>
+ * Each timed method <code>m</code> is renamed to a private synthetic <code>m$timed</code> and a new
+ * method <code>m</code> (with the original access, annotations and signature) is added that does:
+ * </p>
+ * <pre>{@code
+ *
+ *   TimedMetric metric = <invokedynamic constant>;
+ *   long start = System.nanoTime();
+ *   boolean requestTiming = metric.isRequestTiming();
+ *   try {
+ *     result = m$timed(args);
+ *     metric.add(start, requestTiming);
+ *     return result;
+ *   } catch (Throwable e) {
+ *     metric.addErr(start, requestTiming);
+ *     throw e;
+ *   }
+ *
+ * }</pre>
+ * <p>
+ * The metric is obtained via an invokedynamic constant call site (see {@link TimedBootstrap}) so
+ * no field or static initialiser is added and class files from version 51 (Java 7) are supported.
+ * The class is marked with {@link io.avaje.metrics.spi.MetricsEnhanced}.
+ * </p>
+ */
+final class ClassEnhancer {
+
+  static final String TIMED = "Lio/avaje/metrics/annotation/Timed;";
+  static final String NOT_TIMED = "Lio/avaje/metrics/annotation/NotTimed;";
+  static final String ENHANCED = "Lio/avaje/metrics/spi/MetricsEnhanced;";
+
+  /**
+   * Suffix of the renamed original methods.
+   */
+  static final String SUFFIX = "$timed";
+
+  private static final String RUNTIME_ANNOTATIONS = "RuntimeVisibleAnnotations";
+  private static final String BOOTSTRAP_METHODS = "BootstrapMethods";
+  private static final String CODE = "Code";
+
+  private static final String TIMED_METRIC = "io/avaje/metrics/TimedMetric";
+  private static final String BOOTSTRAP = "io/avaje/metrics/agent/TimedBootstrap";
+  private static final String BOOTSTRAP_DESC = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/String;[I)Ljava/lang/invoke/CallSite;";
+
+  /**
+   * Class file version that supports invokedynamic.
+   */
+  private static final int MIN_MAJOR_VERSION = 51;
+
+  /**
+   * Methods using more local slots need wide instructions and are not enhanced.
+   */
+  private static final int MAX_LOCALS = 250;
+
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_PRIVATE = 0x0002;
+  private static final int ACC_STATIC = 0x0008;
+  private static final int ACC_SYNCHRONIZED = 0x0020;
+  private static final int ACC_BRIDGE = 0x0040;
+  private static final int ACC_NATIVE = 0x0100;
+  private static final int ACC_INTERFACE = 0x0200;
+  private static final int ACC_ABSTRACT = 0x0400;
+  private static final int ACC_STRICT = 0x0800;
+  private static final int ACC_SYNTHETIC = 0x1000;
+  private static final int ACC_ANNOTATION = 0x2000;
+
+  private static final int REF_INVOKE_STATIC = 6;
+
+  private final byte[] bytes;
+
+  /**
+   * Utf8 constants by index.
+   */
+  private String[] strings;
+
+  /**
+   * Integer constant values and class name indexes by index.
+   */
+  private int[] values;
+
+  private int constantCount;
+
+  private int constantEnd;
+
+  private int thisClass;
+
+  private String className;
+
+  private final List<MemberInfo> methods = new ArrayList<>();
+
+  private final List<Attribute> attributes = new ArrayList<>();
+
+  ClassEnhancer(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  /**
+   * Return the enhanced class file or null if the class has no methods to enhance.
+   */
+  byte[] enhance() {
+    if (u4(0) != 0xCAFEBABE || u2(6) < MIN_MAJOR_VERSION) {
+      return null;
+    }
+    readConstants();
+    if (!hasString(TIMED)) {
+      // fast path, the class does not use @Timed at all
+      return null;
+    }
+    int access = u2(constantEnd);
+    if ((access & (ACC_INTERFACE | ACC_ANNOTATION)) != 0) {
+      return null;
+    }
+    thisClass = u2(constantEnd + 2);
+    className = strings[values[thisClass]];
+    int pos = constantEnd + 8 + 2 * u2(constantEnd + 6);
+    pos = skipMembers(pos);
+    int fieldsEnd = pos;
+    pos = readMembers(pos, methods);
+    readAttributes(pos, attributes);
+
+    Annotations classAnnotations = annotations(attributes);
+    if (classAnnotations.enhanced) {
+      return null;
+    }
+    List<TimedTarget> targets = targets(classAnnotations);
+    if (targets.isEmpty()) {
+      return null;
+    }
+    return write(fieldsEnd, targets);
+  }
+
+  private List<TimedTarget> targets(Annotations classAnnotations) {
+    int lastSlash = className.lastIndexOf('/');
+    String prefix = lastSlash < 0 ? "" : className.substring(0, lastSlash).replace('/', '.');
+    String typeName = className.substring(lastSlash + 1);
+    typeName = typeName.substring(typeName.lastIndexOf('$') + 1);
+    if (!classAnnotations.prefix.isEmpty()) {
+      prefix = classAnnotations.prefix;
+    }
+    if (!classAnnotations.name.isEmpty()) {
+      typeName = classAnnotations.name;
+    }
+
+    List<TimedTarget> targets = new ArrayList<>();
+    Map<String, Integer> overloads = new HashMap<>();
+    for (MemberInfo method : methods) {
+      String name = strings[method.name];
+      if (name.startsWith("<") || (method.access & (ACC_ABSTRACT | ACC_NATIVE | ACC_BRIDGE | ACC_SYNTHETIC)) != 0) {
+        continue;
+      }
+      Annotations annotations = annotations(method.attributes);
+      boolean timed = annotations.timed || (classAnnotations.timed && (method.access & ACC_PUBLIC) != 0);
+      if (annotations.notTimed || !timed) {
+        continue;
+      }
+      // overloaded methods have the count appended (unless named explicitly)
+      int count = overloads.merge(name, 1, Integer::sum);
+      String metricName = (count == 1) ? name : name + count;
+      String methodPrefix = prefix;
+      int[] buckets = classAnnotations.buckets;
+      if (annotations.timed) {
+        if (!annotations.name.isEmpty()) {
+          metricName = annotations.name;
+        }
+        if (!annotations.prefix.isEmpty()) {
+          methodPrefix = annotations.prefix;
+        }
+        if (annotations.buckets.length > 0) {
+          buckets = annotations.buckets;
+        }
+      }
+      String fullName = methodPrefix.isEmpty() ? typeName + "." + metricName : methodPrefix + "." + typeName + "." + metricName;
+      TimedTarget target = new TimedTarget(method, name, strings[method.descriptor], fullName, buckets);
+      if (target.baseSlot() + 5 <= MAX_LOCALS) {
+        targets.add(target);
+      }
+    }
+    return targets;
+  }
+
+  private byte[] write(int fieldsEnd, List<TimedTarget> targets) {
+    Constants constants = new Constants(constantCount);
+    Map<MemberInfo, TimedTarget> targetByMethod = new HashMap<>();
+    for (TimedTarget target : targets) {
+      targetByMethod.put(target.method, target);
+    }
+    Attribute bootstrapAttribute = attribute(attributes, BOOTSTRAP_METHODS);
+    int bootstrapCount = (bootstrapAttribute == null) ? 0 : u2(bootstrapAttribute.start);
+    ByteArrayOutputStream bootstrapEntries = new ByteArrayOutputStream();
+    DataOutputStream bootstrap = new DataOutputStream(bootstrapEntries);
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length + 200 * targets.size());
+    DataOutputStream out = new DataOutputStream(buffer);
+    try {
+      out.writeShort(methods.size() + targets.size());
+      for (MemberInfo method : methods) {
+        TimedTarget target = targetByMethod.get(method);
+        if (target == null) {
+          out.write(bytes, method.start, method.end - method.start);
+        } else {
+          bootstrap.writeShort(constants.methodHandle(REF_INVOKE_STATIC, constants.methodRef(BOOTSTRAP, "timed", BOOTSTRAP_DESC)));
+          bootstrap.writeShort(1 + target.buckets.length);
+          bootstrap.writeShort(constants.string(target.metricName));
+          for (int bucket : target.buckets) {
+            bootstrap.writeShort(constants.integer(bucket));
+          }
+          writeOriginal(out, constants, target);
+          writeTimed(out, constants, target, bootstrapCount++);
+        }
+      }
+      Attribute annotationsAttribute = attribute(attributes, RUNTIME_ANNOTATIONS);
+      out.writeShort(attributes.size() + (annotationsAttribute == null ? 1 : 0) + (bootstrapAttribute == null ? 1 : 0));
+      for (Attribute attribute : attributes) {
+        if (attribute == annotationsAttribute) {
+          out.writeShort(attribute.name);
+          out.writeInt(attribute.length + 4);
+          out.writeShort(u2(attribute.start) + 1);
+          out.write(bytes, attribute.start + 2, attribute.length - 2);
+          out.writeShort(constants.utf8(ENHANCED));
+          out.writeShort(0);
+        } else if (attribute == bootstrapAttribute) {
+          out.writeShort(attribute.name);
+          out.writeInt(attribute.length + bootstrapEntries.size());
+          out.writeShort(bootstrapCount);
+          out.write(bytes, attribute.start + 2, attribute.length - 2);
+          bootstrapEntries.writeTo(out);
+        } else {
+          out.write(bytes, attribute.start - 6, attribute.length + 6);
+        }
+      }
+      if (annotationsAttribute == null) {
+        out.writeShort(constants.utf8(RUNTIME_ANNOTATIONS));
+        out.writeInt(6);
+        out.writeShort(1);
+        out.writeShort(constants.utf8(ENHANCED));
+        out.writeShort(0);
+      }
+      if (bootstrapAttribute == null) {
+        out.writeShort(constants.utf8(BOOTSTRAP_METHODS));
+        out.writeInt(2 + bootstrapEntries.size());
+        out.writeShort(bootstrapCount);
+        bootstrapEntries.writeTo(out);
+      }
+
+      ByteArrayOutputStream result = new ByteArrayOutputStream(bytes.length + constants.size() + buffer.size());
+      DataOutputStream classFile = new DataOutputStream(result);
+      classFile.write(bytes, 0, 8);
+      classFile.writeShort(constants.count());
+      classFile.write(bytes, 10, constantEnd - 10);
+      constants.writeTo(classFile);
+      classFile.write(bytes, constantEnd, fieldsEnd - constantEnd);
+      buffer.writeTo(classFile);
+      return result.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Write the original method renamed, private and synthetic with only its Code attribute.
+   */
+  private void writeOriginal(DataOutputStream out, Constants constants, TimedTarget target) throws IOException {
+    MemberInfo method = target.method;
+    Attribute code = attribute(method.attributes, CODE);
+    out.writeShort((method.access & (ACC_STATIC | ACC_SYNCHRONIZED | ACC_STRICT)) | ACC_PRIVATE | ACC_SYNTHETIC);
+    out.writeShort(constants.utf8(target.name + SUFFIX));
+    out.writeShort(method.descriptor);
+    out.writeShort(1);
+    out.write(bytes, code.start - 6, code.length + 6);
+  }
+
+  /**
+   * Write the timed method with the original access, name and attributes (other than Code).
+   */
+  private void writeTimed(DataOutputStream out, Constants constants, TimedTarget target, int bootstrapIndex) throws IOException {
+    MemberInfo method = target.method;
+    out.writeShort(method.access & ~(ACC_SYNCHRONIZED | ACC_STRICT));
+    out.writeShort(method.name);
+    out.writeShort(method.descriptor);
+    out.writeShort(method.attributes.size());
+    for (Attribute attribute : method.attributes) {
+      if (!CODE.equals(strings[attribute.name])) {
+        out.write(bytes, attribute.start - 6, attribute.length + 6);
+      }
+    }
+    byte[] code = code(constants, target, bootstrapIndex);
+    out.writeShort(constants.utf8(CODE));
+    out.writeInt(code.length);
+    out.write(code);
+  }
+
+  /**
+   * Return the Code attribute content for the timed method.
+   */
+  private byte[] code(Constants constants, TimedTarget target, int bootstrapIndex) throws IOException {
+    boolean isStatic = (target.method.access & ACC_STATIC) != 0;
+    int base = target.baseSlot();
+    int metricSlot = base;
+    int startSlot = base + 1;
+    int requestSlot = base + 3;
+    int errorSlot = base + 4;
+    int metric = constants.invokeDynamic(bootstrapIndex, "timed", "()L" + TIMED_METRIC + ";");
+    int add = constants.interfaceMethodRef(TIMED_METRIC, "add", "(JZ)V");
+    int addErr = constants.interfaceMethodRef(TIMED_METRIC, "addErr", "(JZ)V");
+
+    ByteArrayOutputStream codeBytes = new ByteArrayOutputStream(64);
+    DataOutputStream code = new DataOutputStream(codeBytes);
+    code.writeByte(0xba); // invokedynamic
+    code.writeShort(metric);
+    code.writeShort(0);
+    code.writeByte(0x3a); // astore
+    code.writeByte(metricSlot);
+    code.writeByte(0xb8); // invokestatic
+    code.writeShort(constants.methodRef("java/lang/System", "nanoTime", "()J"));
+    code.writeByte(0x37); // lstore
+    code.writeByte(startSlot);
+    code.writeByte(0x19); // aload
+    code.writeByte(metricSlot);
+    code.writeByte(0xb9); // invokeinterface
+    code.writeShort(constants.interfaceMethodRef(TIMED_METRIC, "isRequestTiming", "()Z"));
+    code.writeByte(1);
+    code.writeByte(0);
+    code.writeByte(0x36); // istore
+    code.writeByte(requestSlot);
+
+    int tryStart = code.size();
+    int slot = 0;
+    if (!isStatic) {
+      code.writeByte(0x2a); // aload_0
+      slot++;
+    }
+    for (String parameter : target.parameters) {
+      code.writeByte(loadOpcode(parameter));
+      code.writeByte(slot);
+      slot += slots(parameter);
+    }
+    code.writeByte(isStatic ? 0xb8 : 0xb7); // invokestatic or invokespecial (private method)
+    code.writeShort(constants.methodRef(className, target.name + SUFFIX, target.descriptor));
+    int tryEnd = code.size();
+    addMetric(code, metricSlot, startSlot, requestSlot, add);
+    code.writeByte(returnOpcode(target.returnType));
+
+    int handler = code.size();
+    code.writeByte(0x3a); // astore
+    code.writeByte(errorSlot);
+    addMetric(code, metricSlot, startSlot, requestSlot, addErr);
+    code.writeByte(0x19); // aload
+    code.writeByte(errorSlot);
+    code.writeByte(0xbf); // athrow
+
+    ByteArrayOutputStream attributeBytes = new ByteArrayOutputStream(codeBytes.size() + 64);
+    DataOutputStream attribute = new DataOutputStream(attributeBytes);
+    attribute.writeShort(Math.max(base, slots(target.returnType) + 4));
+    attribute.writeShort(base + 5);
+    attribute.writeInt(codeBytes.size());
+    codeBytes.writeTo(attribute);
+    attribute.writeShort(1);
+    attribute.writeShort(tryStart);
+    attribute.writeShort(tryEnd);
+    attribute.writeShort(handler);
+    attribute.writeShort(0);
+
+    // a single full frame at the exception handler
+    ByteArrayOutputStream frameBytes = new ByteArrayOutputStream(32);
+    DataOutputStream frame = new DataOutputStream(frameBytes);
+    frame.writeShort(1);
+    frame.writeByte(255);
+    frame.writeShort(handler);
+    frame.writeShort((isStatic ? 0 : 1) + target.parameters.size() + 3);
+    if (!isStatic) {
+      frame.writeByte(7);
+      frame.writeShort(thisClass);
+    }
+    for (String parameter : target.parameters) {
+      verificationType(frame, constants, parameter);
+    }
+    frame.writeByte(7);
+    frame.writeShort(constants.classRef(TIMED_METRIC));
+    frame.writeByte(4); // long
+    frame.writeByte(1); // int
+    frame.writeShort(1);
+    frame.writeByte(7);
+    frame.writeShort(constants.classRef("java/lang/Throwable"));
+
+    attribute.writeShort(1);
+    attribute.writeShort(constants.utf8("StackMapTable"));
+    attribute.writeInt(frameBytes.size());
+    frameBytes.writeTo(attribute);
+    return attributeBytes.toByteArray();
+  }
+
+  private static void addMetric(DataOutputStream code, int metricSlot, int startSlot, int requestSlot, int method) throws IOException {
+    code.writeByte(0x19); // aload
+    code.writeByte(metricSlot);
+    code.writeByte(0x16); // lload
+    code.writeByte(startSlot);
+    code.writeByte(0x15); // iload
+    code.writeByte(requestSlot);
+    code.writeByte(0xb9); // invokeinterface
+    code.writeShort(method);
+    code.writeByte(4);
+    code.writeByte(0);
+  }
+
+  private static void verificationType(DataOutputStream frame, Constants constants, String type) throws IOException {
+    switch (type.charAt(0)) {
+      case 'Z':
+      case 'B':
+      case 'C':
+      case 'S':
+      case 'I':
+        frame.writeByte(1);
+        break;
+      case 'F':
+        frame.writeByte(2);
+        break;
+      case 'D':
+        frame.writeByte(3);
+        break;
+      case 'J':
+        frame.writeByte(4);
+        break;
+      case 'L':
+        frame.writeByte(7);
+        frame.writeShort(constants.classRef(type.substring(1, type.length() - 1)));
+        break;
+      default:
+        // array
+        frame.writeByte(7);
+        frame.writeShort(constants.classRef(type));
+    }
+  }
+
+  private static int loadOpcode(String type) {
+    switch (type.charAt(0)) {
+      case 'Z':
+      case 'B':
+      case 'C':
+      case 'S':
+      case 'I':
+        return 0x15; // iload
+      case 'J':
+        return 0x16; // lload
+      case 'F':
+        return 0x17; // fload
+      case 'D':
+        return 0x18; // dload
+      default:
+        return 0x19; // aload
+    }
+  }
+
+  private static int returnOpcode(String type) {
+    switch (type.charAt(0)) {
+      case 'V':
+        return 0xb1;
+      case 'Z':
+      case 'B':
+      case 'C':
+      case 'S':
+      case 'I':
+        return 0xac;
+      case 'J':
+        return 0xad;
+      case 'F':
+        return 0xae;
+      case 'D':
+        return 0xaf;
+      default:
+        return 0xb0;
+    }
+  }
+
+  static int slots(String type) {
+    switch (type.charAt(0)) {
+      case 'V':
+        return 0;
+      case 'J':
+      case 'D':
+        return 2;
+      default:
+        return 1;
+    }
+  }
+
+  /**
+   * Return the parameter types of the method descriptor.
+   */
+  static List<String> parameters(String descriptor) {
+    List<String> parameters = new ArrayList<>();
+    int pos = 1;
+    while (descriptor.charAt(pos) != ')') {
+      int start = pos;
+      while (descriptor.charAt(pos) == '[') {
+        pos++;
+      }
+      if (descriptor.charAt(pos) == 'L') {
+        pos = descriptor.indexOf(';', pos);
+      }
+      pos++;
+      parameters.add(descriptor.substring(start, pos));
+    }
+    return parameters;
+  }
+
+  private Annotations annotations(List<Attribute> attributes) {
+    Annotations annotations = new Annotations();
+    Attribute attribute = attribute(attributes, RUNTIME_ANNOTATIONS);
+    if (attribute != null) {
+      int count = u2(attribute.start);
+      int pos = attribute.start + 2;
+      for (int i = 0; i < count; i++) {
+        pos = annotation(pos, annotations);
+      }
+    }
+    return annotations;
+  }
+
+  private int annotation(int pos, Annotations annotations) {
+    String type = strings[u2(pos)];
+    int pairs = u2(pos + 2);
+    pos += 4;
+    boolean timed = annotations != null && TIMED.equals(type);
+    if (annotations != null) {
+      annotations.timed |= timed;
+      annotations.notTimed |= NOT_TIMED.equals(type);
+      annotations.enhanced |= ENHANCED.equals(type);
+    }
+    for (int i = 0; i < pairs; i++) {
+      String element = strings[u2(pos)];
+      pos = elementValue(pos + 2, element, timed ? annotations : null);
+    }
+    return pos;
+  }
+
+  private int elementValue(int pos, String element, Annotations timed) {
+    int tag = bytes[pos] & 0xff;
+    switch (tag) {
+      case 'e':
+        return pos + 5;
+      case '@':
+        return annotation(pos + 1, null);
+      case '[':
+        int count = u2(pos + 1);
+        int[] ints = new int[count];
+        pos += 3;
+        for (int i = 0; i < count; i++) {
+          if (bytes[pos] == 'I') {
+            ints[i] = values[u2(pos + 1)];
+          }
+          pos = elementValue(pos, null, null);
+        }
+        if (timed != null && "buckets".equals(element)) {
+          timed.buckets = ints;
+        }
+        return pos;
+      case 's':
+        if (timed != null) {
+          if ("prefix".equals(element)) {
+            timed.prefix = strings[u2(pos + 1)];
+          } else if ("name".equals(element)) {
+            timed.name = strings[u2(pos + 1)];
+          }
+        }
+        return pos + 3;
+      default:
+        return pos + 3;
+    }
+  }
+
+  private Attribute attribute(List<Attribute> attributes, String name) {
+    for (Attribute attribute : attributes) {
+      if (name.equals(strings[attribute.name])) {
+        return attribute;
+      }
+    }
+    return null;
+  }
+
+  private boolean hasString(String value) {
+    for (String string : strings) {
+      if (value.equals(string)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void readConstants() {
+    constantCount = u2(8);
+    strings = new String[constantCount];
+    values = new int[constantCount];
+    int pos = 10;
+    for (int i = 1; i < constantCount; i++) {
+      int tag = bytes[pos] & 0xff;
+      switch (tag) {
+        case 1:
+          int length = u2(pos + 1);
+          strings[i] = utf8(pos + 3, length);
+          pos += 3 + length;
+          break;
+        case 3:
+          values[i] = u4(pos + 1);
+          pos += 5;
+          break;
+        case 7:
+          values[i] = u2(pos + 1);
+          pos += 3;
+          break;
+        case 8:
+        case 16:
+        case 19:
+        case 20:
+          pos += 3;
+          break;
+        case 4:
+        case 9:
+        case 10:
+        case 11:
+        case 12:
+        case 17:
+        case 18:
+          pos += 5;
+          break;
+        case 5:
+        case 6:
+          pos += 9;
+          i++;
+          break;
+        case 15:
+          pos += 4;
+          break;
+        default:
+          throw new IllegalStateException("Unknown constant tag " + tag + " at " + pos);
+      }
+    }
+    constantEnd = pos;
+  }
+
+  private int skipMembers(int pos) {
+    int count = u2(pos);
+    pos += 2;
+    for (int i = 0; i < count; i++) {
+      pos = readAttributes(pos + 6, null);
+    }
+    return pos;
+  }
+
+  private int readMembers(int pos, List<MemberInfo> members) {
+    int count = u2(pos);
+    pos += 2;
+    for (int i = 0; i < count; i++) {
+      MemberInfo member = new MemberInfo(pos, u2(pos), u2(pos + 2), u2(pos + 4));
+      pos = readAttributes(pos + 6, member.attributes);
+      member.end = pos;
+      members.add(member);
+    }
+    return pos;
+  }
+
+  private int readAttributes(int pos, List<Attribute> attributes) {
+    int count = u2(pos);
+    pos += 2;
+    for (int i = 0; i < count; i++) {
+      int length = u4(pos + 2);
+      if (attributes != null) {
+        attributes.add(new Attribute(u2(pos), pos + 6, length));
+      }
+      pos += 6 + length;
+    }
+    return pos;
+  }
+
+  /**
+   * Decode modified UTF-8.
+   */
+  private String utf8(int pos, int length) {
+    char[] chars = new char[length];
+    int count = 0;
+    int end = pos + length;
+    while (pos < end) {
+      int c = bytes[pos++] & 0xff;
+      if (c < 0x80) {
+        chars[count++] = (char) c;
+      } else if (c < 0xe0) {
+        chars[count++] = (char) (((c & 0x1f) << 6) | (bytes[pos++] & 0x3f));
+      } else {
+        chars[count++] = (char) (((c & 0x0f) << 12) | ((bytes[pos++] & 0x3f) << 6) | (bytes[pos++] & 0x3f));
+      }
+    }
+    return new String(chars, 0, count);
+  }
+
+  private int u2(int pos) {
+    return ((bytes[pos] & 0xff) << 8) | (bytes[pos + 1] & 0xff);
+  }
+
+  private int u4(int pos) {
+    return ((bytes[pos] & 0xff) << 24) | ((bytes[pos + 1] & 0xff) << 16) | ((bytes[pos + 2] & 0xff) << 8) | (bytes[pos + 3] & 0xff);
+  }
+
+  /**
+   * Annotation values of interest on a class or method.
+   */
+  private static final class Annotations {
+
+    boolean timed;
+    boolean notTimed;
+    boolean enhanced;
+    String prefix = "";
+    String name = "";
+    int[] buckets = new int[0];
+  }
+
+  /**
+   * A field or method with the attribute locations.
+   */
+  private static final class MemberInfo {
+
+    final int start;
+    final int access;
+    final int name;
+    final int descriptor;
+    final List<Attribute> attributes = new ArrayList<>();
+    int end;
+
+    MemberInfo(int start, int access, int name, int descriptor) {
+      this.start = start;
+      this.access = access;
+      this.name = name;
+      this.descriptor = descriptor;
+    }
+  }
+
+  /**
+   * Attribute name index with the start and length of the attribute content.
+   */
+  private static final class Attribute {
+
+    final int name;
+    final int start;
+    final int length;
+
+    Attribute(int name, int start, int length) {
+      this.name = name;
+      this.start = start;
+      this.length = length;
+    }
+  }
+
+  /**
+   * A method to enhance with the metric name and buckets.
+   */
+  private static final class TimedTarget {
+
+    final MemberInfo method;
+    final String name;
+    final String descriptor;
+    final String metricName;
+    final int[] buckets;
+    final List<String> parameters;
+    final String returnType;
+
+    TimedTarget(MemberInfo method, String name, String descriptor, String metricName, int[] buckets) {
+      this.method = method;
+      this.name = name;
+      this.descriptor = descriptor;
+      this.metricName = metricName;
+      this.buckets = buckets;
+      this.parameters = parameters(descriptor);
+      this.returnType = descriptor.substring(descriptor.indexOf(')') + 1);
+    }
+
+    /**
+     * Return the first local slot after this and the parameters.
+     */
+    int baseSlot() {
+      int slot = (method.access & ACC_STATIC) != 0 ? 0 : 1;
+      for (String parameter : parameters) {
+        slot += slots(parameter);
+      }
+      return slot;
+    }
+  }
+
+  /**
+   * The constants appended to the constant pool.
+   */
+  private static final class Constants {
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    private final Map<String, Integer> added = new HashMap<>();
+
+    private int next;
+
+    Constants(int next) {
+      this.next = next;
+    }
+
+    int count() {
+      return next;
+    }
+
+    int size() {
+      return buffer.size();
+    }
+
+    void writeTo(DataOutputStream classFile) throws IOException {
+      buffer.writeTo(classFile);
+    }
+
+    int utf8(String value) {
+      String key = "1:" + value;
+      Integer index = added.get(key);
+      if (index == null) {
+        index = add(key);
+        write(() -> {
+          out.writeByte(1);
+          out.writeUTF(value);
+        });
+      }
+      return index;
+    }
+
+    int integer(int value) {
+      String key = "3:" + value;
+      Integer index = added.get(key);
+      if (index == null) {
+        index = add(key);
+        write(() -> {
+          out.writeByte(3);
+          out.writeInt(value);
+        });
+      }
+      return index;
+    }
+
+    int classRef(String name) {
+      return ref(7, utf8(name));
+    }
+
+    int string(String value) {
+      return ref(8, utf8(value));
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+      return ref(10, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+      return ref(11, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    int invokeDynamic(int bootstrapIndex, String name, String descriptor) {
+      return ref(18, bootstrapIndex, nameAndType(name, descriptor));
+    }
+
+    int methodHandle(int kind, int reference) {
+      String key = "15:" + kind + ":" + reference;
+      Integer index = added.get(key);
+      if (index == null) {
+        index = add(key);
+        write(() -> {
+          out.writeByte(15);
+          out.writeByte(kind);
+          out.writeShort(reference);
+        });
+      }
+      return index;
+    }
+
+    private int nameAndType(String name, String descriptor) {
+      return ref(12, utf8(name), utf8(descriptor));
+    }
+
+    private int ref(int tag, int reference) {
+      String key = tag + ":" + reference;
+      Integer index = added.get(key);
+      if (index == null) {
+        index = add(key);
+        write(() -> {
+          out.writeByte(tag);
+          out.writeShort(reference);
+        });
+      }
+      return index;
+    }
+
+    private int ref(int tag, int first, int second) {
+      String key = tag + ":" + first + ":" + second;
+      Integer index = added.get(key);
+      if (index == null) {
+        index = add(key);
+        write(() -> {
+          out.writeByte(tag);
+          out.writeShort(first);
+          out.writeShort(second);
+        });
+      }
+      return index;
+    }
+
+    private int add(String key) {
+      if (next >= 0xffff) {
+        throw new IllegalStateException("Constant pool too large to enhance");
+      }
+      int index = next++;
+      added.put(key, index);
+      return index;
+    }
+
+    private void write(Write write) {
+      try {
+        write.write();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private interface Write {
+
+    void write() throws IOException;
+  }
+}
@@ -0,0 +1,35 @@
+package io.avaje.metrics.agent;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * Java agent that enhances classes using {@link io.avaje.metrics.annotation.Timed} as they are loaded.
+ * <p>
+ * Use via <code>-javaagent:avaje-metrics.jar</code>. Classes already marked with
+ * {@link io.avaje.metrics.spi.MetricsEnhanced} (for example the subclasses generated by the
+ * TimedProcessor) are not enhanced again.
+ * </p>
+ * <p>
+ * When attached to a running JVM only the classes loaded after attaching are enhanced (enhancement
+ * adds methods which is not supported for classes that are already loaded).
+ * </p>
+ */
+public final class MetricsAgent {
+
+  private MetricsAgent() {
+  }
+
+  /**
+   * Register the transformer when started via -javaagent.
+   */
+  public static void premain(String args, Instrumentation instrumentation) {
+    instrumentation.addTransformer(new TimedTransformer());
+  }
+
+  /**
+   * Register the transformer when attached to a running JVM.
+   */
+  public static void agentmain(String args, Instrumentation instrumentation) {
+    premain(args, instrumentation);
+  }
+}
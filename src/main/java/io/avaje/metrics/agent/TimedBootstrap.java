@@ -0,0 +1,30 @@
+package io.avaje.metrics.agent;
+
+import io.avaje.metrics.MetricManager;
+import io.avaje.metrics.TimedMetric;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Bootstrap method for the invokedynamic call sites of enhanced timed methods.
+ * <p>
+ * Each call site links once to a constant TimedMetric such that the enhanced method has no
+ * name building or registry lookup per invocation.
+ * </p>
+ */
+public final class TimedBootstrap {
+
+  private TimedBootstrap() {
+  }
+
+  /**
+   * Return a constant call site for the timed metric with the given name and bucket ranges.
+   */
+  public static CallSite timed(MethodHandles.Lookup lookup, String name, MethodType type, String metricName, int... bucketRanges) {
+    TimedMetric metric = bucketRanges.length == 0 ? MetricManager.timed(metricName) : MetricManager.timed(metricName, bucketRanges);
+    return new ConstantCallSite(MethodHandles.constant(TimedMetric.class, metric));
+  }
+}
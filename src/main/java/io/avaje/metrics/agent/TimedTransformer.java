@@ -0,0 +1,44 @@
+package io.avaje.metrics.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+
+/**
+ * Transformer that enhances the timed methods of classes as they are loaded.
+ */
+final class TimedTransformer implements ClassFileTransformer {
+
+  private static final Logger logger = LoggerFactory.getLogger(TimedTransformer.class);
+
+  private static final String[] SKIP_PREFIX = {"java/", "javax/", "jdk/", "sun/", "com/sun/"};
+
+  @Override
+  public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+    if (className == null || classBeingRedefined != null || isSkip(className)) {
+      // redefinition can not add methods so only enhance classes as they are first loaded
+      return null;
+    }
+    try {
+      byte[] enhanced = new ClassEnhancer(classfileBuffer).enhance();
+      if (enhanced != null && logger.isDebugEnabled()) {
+        logger.debug("enhanced timed methods of " + className);
+      }
+      return enhanced;
+    } catch (RuntimeException e) {
+      logger.warn("Failed to enhance timed methods of " + className, e);
+      return null;
+    }
+  }
+
+  private static boolean isSkip(String className) {
+    for (String prefix : SKIP_PREFIX) {
+      if (className.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -3,18 +3,21 @@ package io.avaje.metrics.core;
 import io.avaje.metrics.TimedMetric;
 
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Common implementation for TimedMetric and BucketTimedMetric.
  */
 abstract class BaseTimedMetric implements TimedMetric {
 
+  private static final AtomicIntegerFieldUpdater<BaseTimedMetric> REQUEST_COLLECTION =
+    AtomicIntegerFieldUpdater.newUpdater(BaseTimedMetric.class, "requestCollection");
+
   /**
    * Holds a count of the number of requests that we want request level
    * timing collected on.  This is decremented down to 0.
    */
-  private final AtomicInteger requestCollection = new AtomicInteger();
+  private volatile int requestCollection;
 
   /**
    * Flag set to true when we want to actively turn on 'request' level
@@ -28,7 +31,7 @@ abstract class BaseTimedMetric implements TimedMetric {
    */
   @Override
   public int getRequestTiming() {
-    return requestCollection.get();
+    return requestCollection;
   }
 
   /**
@@ -46,7 +49,7 @@ abstract class BaseTimedMetric implements TimedMetric {
     // so being safe wrt decrementCollectionCount()
 
     synchronized (this) {
-      requestCollection.set(collectionCount);
+      requestCollection = collectionCount;
       requestTiming = (collectionCount > 0);
     }
   }
@@ -70,7 +73,7 @@ abstract class BaseTimedMetric implements TimedMetric {
       // reading and setting requestTiming here ..
       if (requestTiming) {
         // only place where requestCollection is decremented
-        int count = requestCollection.decrementAndGet();
+        int count = REQUEST_COLLECTION.decrementAndGet(this);
         if (count < 1) {
           // only place where requestTiming is set back to false
           requestTiming = false;
@@ -0,0 +1,153 @@
+package io.avaje.metrics.core;
+
+/**
+ * Determines the bucket an event duration goes into given ascending bucket boundaries in microseconds.
+ * <p>
+ * The bucket index is the number of boundaries that are less than or equal to the duration such that
+ * with boundaries of 100, 200, 300 a duration of 150 goes into bucket 1 and 350 into bucket 3.
+ * </p>
+ * <p>
+ * When all the boundaries are multiples of a common step and span relatively few steps a precomputed
+ * lookup table is used (one division and one array read). Otherwise a branch free binary search over
+ * the boundaries is used.
+ * </p>
+ */
+final class BucketIndex {
+
+  /**
+   * Maximum number of entries in the lookup table.
+   */
+  private static final int MAX_TABLE_SIZE = 1024;
+
+  private final long[] boundaries;
+
+  /**
+   * The lookup table (null when using binary search).
+   */
+  private final byte[] table;
+
+  /**
+   * The duration in micros that each lookup table entry covers.
+   */
+  private final long step;
+
+  /**
+   * The index of the last bucket (number of boundaries).
+   */
+  private final int last;
+
+  /**
+   * Create given ascending boundaries in microseconds.
+   */
+  BucketIndex(long[] boundaries) {
+    this.boundaries = boundaries;
+    this.last = boundaries.length;
+    this.step = tableStep(boundaries);
+    this.table = (step == 0) ? null : createTable(boundaries, step);
+  }
+
+  /**
+   * Return the step size of a lookup table or 0 if a lookup table is not suitable.
+   */
+  private static long tableStep(long[] boundaries) {
+    if (boundaries.length == 0 || boundaries.length > Byte.MAX_VALUE) {
+      return 0;
+    }
+    long gcd = 0;
+    for (long boundary : boundaries) {
+      if (boundary <= 0) {
+        return 0;
+      }
+      gcd = gcd(boundary, gcd);
+    }
+    long tableSize = boundaries[boundaries.length - 1] / gcd;
+    return tableSize <= MAX_TABLE_SIZE ? gcd : 0;
+  }
+
+  private static long gcd(long a, long b) {
+    while (b != 0) {
+      long t = a % b;
+      a = b;
+      b = t;
+    }
+    return a;
+  }
+
+  /**
+   * Create the table with an extra last entry for durations beyond the last boundary.
+   */
+  private static byte[] createTable(long[] boundaries, long step) {
+    byte[] table = new byte[(int) (boundaries[boundaries.length - 1] / step) + 1];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (byte) search(boundaries, i * step);
+    }
+    return table;
+  }
+
+  /**
+   * Return the number of buckets (one more than the number of boundaries).
+   */
+  int size() {
+    return last + 1;
+  }
+
+  /**
+   * Return true if a lookup table is used to find the bucket.
+   */
+  boolean isLookupTable() {
+    return table != null;
+  }
+
+  /**
+   * Return the bucket index for the given duration in microseconds.
+   */
+  int index(long micros) {
+    if (micros < 0) {
+      return 0;
+    }
+    if (table != null) {
+      return table[(int) Math.min(micros / step, table.length - 1)];
+    }
+    return search(boundaries, micros);
+  }
+
+  /**
+   * Set the bucket indexes for the values divided by the divisor (e.g. 1000 for nanos to micros).
+   * <p>
+   * The lookup table loop has no branches (negative values are clamped to 0 and values beyond
+   * the last boundary to the last table entry).
+   * </p>
+   */
+  void indexAll(long[] values, int offset, int len, long divisor, int[] indexes) {
+    if (table != null) {
+      byte[] table = this.table;
+      long step = this.step * divisor;
+      long lastSlot = table.length - 1;
+      for (int i = 0; i < len; i++) {
+        long slot = Math.max(values[offset + i], 0) / step;
+        indexes[i] = table[(int) Math.min(slot, lastSlot)];
+      }
+    } else {
+      for (int i = 0; i < len; i++) {
+        indexes[i] = index(values[offset + i] / divisor);
+      }
+    }
+  }
+
+  /**
+   * Branch free binary search returning the number of boundaries less than or equal to the value.
+   */
+  static int search(long[] boundaries, long value) {
+    int length = boundaries.length;
+    if (length == 0) {
+      return 0;
+    }
+    int base = 0;
+    while (length > 1) {
+      int half = length >>> 1;
+      base = (boundaries[base + half] <= value) ? base + half : base;
+      length -= half;
+    }
+    return base + (boundaries[base] <= value ? 1 : 0);
+  }
+}
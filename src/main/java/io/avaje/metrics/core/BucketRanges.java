@@ -0,0 +1,54 @@
+package io.avaje.metrics.core;
+
+/**
+ * Validation and conversion of bucket ranges.
+ */
+final class BucketRanges {
+
+  private static final long MICROS_PER_MILLI = 1000L;
+
+  private BucketRanges() {
+  }
+
+  /**
+   * Check the bucket ranges (in milliseconds) are positive and ascending.
+   */
+  static void validate(int[] bucketRanges) {
+    long previous = 0;
+    for (int range : bucketRanges) {
+      previous = check(previous, range, "");
+    }
+  }
+
+  /**
+   * Check the bucket ranges (in microseconds) are positive and ascending.
+   */
+  static void validate(long[] bucketRangesMicros) {
+    long previous = 0;
+    for (long range : bucketRangesMicros) {
+      previous = check(previous, range, "us");
+    }
+  }
+
+  private static long check(long previous, long range, String unit) {
+    if (range <= previous) {
+      throw new IllegalArgumentException("Bucket ranges must be positive and ascending but got " + range + unit + " after " + previous + unit);
+    }
+    return range;
+  }
+
+  /**
+   * Return the bucket ranges in milliseconds given whole millisecond ranges in microseconds.
+   */
+  static int[] toMillis(long[] bucketRangesMicros) {
+    int[] millis = new int[bucketRangesMicros.length];
+    for (int i = 0; i < bucketRangesMicros.length; i++) {
+      long micros = bucketRangesMicros[i];
+      if (micros % MICROS_PER_MILLI != 0 || micros / MICROS_PER_MILLI > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Bucket range " + micros + "us is not a whole number of milliseconds");
+      }
+      millis[i] = (int) (micros / MICROS_PER_MILLI);
+    }
+    return millis;
+  }
+}
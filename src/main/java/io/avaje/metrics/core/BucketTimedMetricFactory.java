@@ -2,30 +2,86 @@ package io.avaje.metrics.core;
 
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
 
 class BucketTimedMetricFactory implements MetricFactory<TimedMetric> {
 
+  private static final long MICROS_PER_MILLI = 1000L;
+
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  BucketTimedMetricFactory() {
+    this(SystemClock.INSTANCE);
+  }
+
+  BucketTimedMetricFactory(Clock clock) {
+    this(clock, false);
+  }
+
+  BucketTimedMetricFactory(Clock clock, boolean cumulative) {
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
+  /**
+   * Create with bucket ranges in milliseconds.
+   */
   @Override
   public TimedMetric createMetric(MetricName name, int[] bucketRanges) {
+    long[] micros = new long[bucketRanges.length];
+    for (int i = 0; i < bucketRanges.length; i++) {
+      micros[i] = bucketRanges[i] * MICROS_PER_MILLI;
+    }
+    return createMetric(name, micros);
+  }
 
-    int rangeBottom = 0;
+  /**
+   * Create with bucket ranges in microseconds.
+   * <p>
+   * When all the ranges are whole milliseconds the bucket names are in milliseconds (as
+   * per createMetric with int ranges) and otherwise they are in microseconds with a "us" suffix.
+   * </p>
+   */
+  @Override
+  public TimedMetric createMetric(MetricName name, long[] bucketRangesMicros) {
 
-    TimedMetric[] buckets = new TimedMetric[bucketRanges.length + 1];
+    boolean millis = isWholeMillis(bucketRangesMicros);
+    long rangeBottom = 0;
 
-    for (int i = 0; i < bucketRanges.length; i++) {
-      int rangeTop = bucketRanges[i];
-      buckets[i] = createTimedMetric(name, rangeBottom, rangeTop);
+    DefaultTimedMetric[] buckets = new DefaultTimedMetric[bucketRangesMicros.length + 1];
+
+    for (int i = 0; i < bucketRangesMicros.length; i++) {
+      long rangeTop = bucketRangesMicros[i];
+      buckets[i] = createTimedMetric(name, rangeBottom, rangeTop, millis);
       // move the range bottom up to the last rangeTop
       rangeBottom = rangeTop;
     }
-    buckets[bucketRanges.length] = createTimedMetric(name, rangeBottom, 0);
+    buckets[bucketRangesMicros.length] = createTimedMetric(name, rangeBottom, 0, millis);
 
-    return new DefaultBucketTimedMetric(name, bucketRanges, buckets);
+    return new DefaultBucketTimedMetric(name, clock, new BucketIndex(bucketRangesMicros), buckets);
   }
 
-  private static TimedMetric createTimedMetric(MetricName name, int rangeBottom, int rangeTop) {
-    String suffix = (rangeTop == 0) ? String.valueOf(rangeBottom) : rangeBottom + "-" + rangeTop;
-    return new DefaultTimedMetric(name, suffix);
+  private static boolean isWholeMillis(long[] bucketRangesMicros) {
+    for (long micros : bucketRangesMicros) {
+      if (micros % MICROS_PER_MILLI != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private DefaultTimedMetric createTimedMetric(MetricName name, long rangeBottom, long rangeTop, boolean millis) {
+    String suffix;
+    if (millis) {
+      rangeBottom = rangeBottom / MICROS_PER_MILLI;
+      rangeTop = rangeTop / MICROS_PER_MILLI;
+      suffix = (rangeTop == 0) ? String.valueOf(rangeBottom) : rangeBottom + "-" + rangeTop;
+    } else {
+      suffix = (rangeTop == 0) ? rangeBottom + "us" : rangeBottom + "-" + rangeTop + "us";
+    }
+    return new DefaultTimedMetric(name, suffix, clock, cumulative);
   }
 
 }
@@ -0,0 +1,164 @@
+package io.avaje.metrics.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of metrics created overall and per metric name prefix.
+ * <p>
+ * This protects against a bug that puts unbounded values (like user ids) into metric names
+ * exhausting the heap and making each collection slow. The limiter is only used when a metric is
+ * created, looking up an existing metric does not touch it.
+ * </p>
+ * <p>
+ * Configured via <code>metrics.maxMetrics</code> (overall limit) and
+ * <code>metrics.maxMetricsPerPrefix</code> in the form <code>web.api.=500,db.=200</code>.
+ * </p>
+ */
+final class CardinalityLimiter {
+
+  /**
+   * Limiter that allows any number of metrics.
+   */
+  static final CardinalityLimiter UNLIMITED = new CardinalityLimiter(0, new ArrayList<>());
+
+  private final Limit overall;
+
+  private final Prefix[] prefixes;
+
+  CardinalityLimiter(int maxMetrics, List<Prefix> prefixes) {
+    this.overall = (maxMetrics > 0) ? new Limit(maxMetrics) : null;
+    this.prefixes = prefixes.toArray(new Prefix[0]);
+  }
+
+  /**
+   * Parse the limiter configuration returning UNLIMITED when no limits are defined.
+   *
+   * @param maxMetrics  The overall maximum number of metrics (null or 0 for no limit)
+   * @param perPrefix   Comma delimited prefix=max pairs (can be null)
+   */
+  static CardinalityLimiter parse(String maxMetrics, String perPrefix) {
+    int max = (maxMetrics == null || maxMetrics.trim().isEmpty()) ? 0 : Integer.parseInt(maxMetrics.trim());
+    List<Prefix> prefixes = new ArrayList<>();
+    if (perPrefix != null) {
+      for (String entry : perPrefix.split(",")) {
+        String trimmed = entry.trim();
+        if (!trimmed.isEmpty()) {
+          int pos = trimmed.lastIndexOf('=');
+          if (pos < 1) {
+            throw new IllegalArgumentException("Expected prefix=max but got " + trimmed);
+          }
+          prefixes.add(new Prefix(trimmed.substring(0, pos).trim(), Integer.parseInt(trimmed.substring(pos + 1).trim())));
+        }
+      }
+    }
+    if (max <= 0 && prefixes.isEmpty()) {
+      return UNLIMITED;
+    }
+    return new CardinalityLimiter(max, prefixes);
+  }
+
+  /**
+   * Return true if the limiter allows any number of metrics.
+   */
+  boolean isUnlimited() {
+    return overall == null && prefixes.length == 0;
+  }
+
+  /**
+   * Return true if a metric with the given name can be created (and count it).
+   * <p>
+   * Each limit that applies to the name must have room, otherwise nothing is counted.
+   * </p>
+   */
+  boolean tryAcquire(String name) {
+    if (overall != null && !overall.tryAcquire()) {
+      return false;
+    }
+    for (int i = 0; i < prefixes.length; i++) {
+      Prefix prefix = prefixes[i];
+      if (name.startsWith(prefix.prefix) && !prefix.limit.tryAcquire()) {
+        // undo the limits already acquired
+        for (int j = 0; j < i; j++) {
+          if (name.startsWith(prefixes[j].prefix)) {
+            prefixes[j].limit.release();
+          }
+        }
+        if (overall != null) {
+          overall.release();
+        }
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Release the count for a metric that has been removed.
+   */
+  void release(String name) {
+    if (overall != null) {
+      overall.release();
+    }
+    for (Prefix prefix : prefixes) {
+      if (name.startsWith(prefix.prefix)) {
+        prefix.limit.release();
+      }
+    }
+  }
+
+  /**
+   * Reset all the counts (all metrics removed).
+   */
+  void reset() {
+    if (overall != null) {
+      overall.count.set(0);
+    }
+    for (Prefix prefix : prefixes) {
+      prefix.limit.count.set(0);
+    }
+  }
+
+  /**
+   * Maximum number of metrics with names starting with the prefix.
+   */
+  static final class Prefix {
+
+    private final String prefix;
+
+    private final Limit limit;
+
+    Prefix(String prefix, int max) {
+      this.prefix = prefix;
+      this.limit = new Limit(max);
+    }
+  }
+
+  private static final class Limit {
+
+    private final int max;
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    Limit(int max) {
+      this.max = max;
+    }
+
+    boolean tryAcquire() {
+      while (true) {
+        int current = count.get();
+        if (current >= max) {
+          return false;
+        }
+        if (count.compareAndSet(current, current + 1)) {
+          return true;
+        }
+      }
+    }
+
+    void release() {
+      count.decrementAndGet();
+    }
+  }
+}
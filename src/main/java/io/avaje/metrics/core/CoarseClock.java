@@ -0,0 +1,91 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.spi.Clock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Clock that returns cached time values that are updated periodically by a ticker thread.
+ * <p>
+ * Reading the time is a volatile read rather than a call to the OS time source. The trade off is
+ * that the time has a resolution of the tick interval (default 1 millisecond) so this is only
+ * suitable for metrics where millisecond precision is enough.
+ * </p>
+ * <p>
+ * Both the start and end of a duration are read from the cached time such that durations are
+ * consistently coarse (a multiple of the tick interval) rather than biased in one direction. A
+ * start time obtained from System.nanoTime() can be ahead of the cached time in which case the
+ * duration is clamped to 0.
+ * </p>
+ */
+final class CoarseClock implements Clock, Runnable {
+
+  private static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final long tickNanos;
+
+  private final Thread ticker;
+
+  private volatile boolean running = true;
+
+  private volatile long nanoTime;
+
+  private volatile long currentTimeMillis;
+
+  /**
+   * Create with the default tick interval of 1 millisecond.
+   */
+  CoarseClock() {
+    this(DEFAULT_TICK_NANOS);
+  }
+
+  /**
+   * Create with the given tick interval in nanoseconds.
+   */
+  CoarseClock(long tickNanos) {
+    this.tickNanos = tickNanos;
+    tick();
+    this.ticker = new Thread(this, "metrics-clock");
+    this.ticker.setDaemon(true);
+    this.ticker.start();
+  }
+
+  private void tick() {
+    nanoTime = System.nanoTime();
+    currentTimeMillis = System.currentTimeMillis();
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      LockSupport.parkNanos(this, tickNanos);
+      tick();
+    }
+  }
+
+  /**
+   * Stop the ticker thread (the time values no longer advance).
+   */
+  void stop() {
+    running = false;
+    LockSupport.unpark(ticker);
+  }
+
+  /**
+   * Return true if the ticker thread has stopped.
+   */
+  boolean isStopped() {
+    return !ticker.isAlive();
+  }
+
+  @Override
+  public long nanoTime() {
+    return nanoTime;
+  }
+
+  @Override
+  public long currentTimeMillis() {
+    return currentTimeMillis;
+  }
+}
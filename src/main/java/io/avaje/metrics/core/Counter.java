@@ -1,46 +1,102 @@
 package io.avaje.metrics.core;
 
 import io.avaje.metrics.MetricName;
+import io.avaje.metrics.spi.Clock;
 import io.avaje.metrics.statistics.CounterStatistics;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.atomic.LongAdder;
 
 /**
- * A statistics collection Counter based on LongAdder.
+ * A statistics collection Counter that adapts to contention.
  * <p>
  * It is intended for high (potentially concurrent) updates and low read use
  * cases.
  * </p>
+ * <p>
+ * The count starts as a single long updated by compare and set. Only when a compare and set
+ * fails (another thread updated the count concurrently) is a LongAdder created and from then on
+ * updates go to the striped cells of the LongAdder. This keeps the footprint small for the
+ * majority of counters that are rarely or never contended.
+ * </p>
+ * <p>
+ * In cumulative mode collection reads the count without resetting it such that the
+ * collected count increases monotonically from when the counter was created.
+ * </p>
  */
 class Counter {
 
-  private final LongAdder count = new LongAdder();
+  private static final AtomicLongFieldUpdater<Counter> COUNT =
+    AtomicLongFieldUpdater.newUpdater(Counter.class, "count");
+
+  private static final AtomicLongFieldUpdater<Counter> START_TIME =
+    AtomicLongFieldUpdater.newUpdater(Counter.class, "startTime");
 
-  private final AtomicLong startTime;
+  private static final AtomicReferenceFieldUpdater<Counter, LongAdder> CELLS =
+    AtomicReferenceFieldUpdater.newUpdater(Counter.class, LongAdder.class, "cells");
 
   private final MetricName name;
 
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  /**
+   * The uncontended count.
+   */
+  private volatile long count;
+
+  /**
+   * Striped cells created when contention is first detected.
+   */
+  private volatile LongAdder cells;
+
+  private volatile long startTime;
+
+  /**
+   * Set when values are recorded, reset by {@link #checkRecorded()}.
+   */
+  private volatile boolean recorded;
+
   Counter(MetricName name) {
+    this(name, SystemClock.INSTANCE);
+  }
+
+  Counter(MetricName name, Clock clock) {
+    this(name, clock, false);
+  }
+
+  Counter(MetricName name, Clock clock, boolean cumulative) {
     this.name = name;
-    this.startTime = new AtomicLong(System.currentTimeMillis());
+    this.clock = clock;
+    this.cumulative = cumulative;
+    this.startTime = clock.currentTimeMillis();
   }
 
   /**
    * Return true if there have been no statistics collected.
    */
   public boolean isEmpty() {
-    return count.sum() == 0;
+    return getCount() == 0;
   }
 
   /**
    * Collect statistics and reset underlying counters in the process. This will
    * return null if no statistics were collected since the last collection.
+   * <p>
+   * In cumulative mode the counter is not reset and this returns null only when
+   * the count is zero.
+   * </p>
    */
   CounterStatistics collectStatistics() {
+    if (cumulative) {
+      long sum = getCount();
+      return (sum == 0) ? null : new DefaultCounterStatistics(name, startTime, sum);
+    }
     boolean empty = isEmpty();
     if (empty) {
-      startTime.set(System.currentTimeMillis());
+      startTime = clock.currentTimeMillis();
       return null;
     } else {
       return getStatistics();
@@ -51,21 +107,53 @@ class Counter {
    * Add a number of events to the counter.
    */
   public void add(long eventCount) {
-    count.add(eventCount);
+    LongAdder adder = cells;
+    if (adder != null) {
+      adder.add(eventCount);
+    } else {
+      long current = count;
+      if (!COUNT.compareAndSet(this, current, current + eventCount)) {
+        inflate().add(eventCount);
+      }
+    }
+    if (!recorded) {
+      // read before write such that recording does not write the flag each time
+      recorded = true;
+    }
   }
 
   /**
    * Increment the counter by 1.
    */
   public void increment() {
-    count.increment();
+    add(1);
   }
 
   /**
    * Decrement the counter by 1.
    */
   public void decrement() {
-    count.decrement();
+    add(-1);
+  }
+
+  /**
+   * Return the striped cells creating them if necessary (contention detected).
+   */
+  private LongAdder inflate() {
+    LongAdder adder = cells;
+    if (adder == null) {
+      // if this fails another thread has created the cells
+      CELLS.compareAndSet(this, null, new LongAdder());
+      adder = cells;
+    }
+    return adder;
+  }
+
+  /**
+   * Return true if contention was detected and striped cells are in use.
+   */
+  boolean isInflated() {
+    return cells != null;
   }
 
   /**
@@ -73,29 +161,47 @@ class Counter {
    */
   private CounterStatistics getStatistics() {
 
-    long now = System.currentTimeMillis();
-    return new DefaultCounterStatistics(name, startTime.getAndSet(now), count.sumThenReset());
+    long now = clock.currentTimeMillis();
+    return new DefaultCounterStatistics(name, START_TIME.getAndSet(this, now), sumThenReset());
+  }
+
+  private long sumThenReset() {
+    long sum = COUNT.getAndSet(this, 0);
+    LongAdder adder = cells;
+    return (adder == null) ? sum : sum + adder.sumThenReset();
   }
 
   /**
    * Reset the counter.
    */
   void reset() {
-    startTime.set(System.currentTimeMillis());
-    count.reset();
+    startTime = clock.currentTimeMillis();
+    sumThenReset();
+  }
+
+  /**
+   * Return true if values have been recorded since the last call resetting the flag.
+   */
+  boolean checkRecorded() {
+    if (!recorded) {
+      return false;
+    }
+    recorded = false;
+    return true;
   }
 
   /**
    * Return the current count.
    */
   public long getCount() {
-    return count.sum();
+    LongAdder adder = cells;
+    return (adder == null) ? count : count + adder.sum();
   }
 
   /**
    * Return the time this counter was last reset.
    */
   public long getStartTime() {
-    return startTime.get();
+    return startTime;
   }
 }
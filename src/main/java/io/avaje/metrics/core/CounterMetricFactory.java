@@ -2,13 +2,27 @@ package io.avaje.metrics.core;
 
 import io.avaje.metrics.CounterMetric;
 import io.avaje.metrics.MetricName;
+import io.avaje.metrics.spi.Clock;
 
 class CounterMetricFactory implements MetricFactory<CounterMetric> {
 
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  CounterMetricFactory(Clock clock) {
+    this(clock, false);
+  }
+
+  CounterMetricFactory(Clock clock, boolean cumulative) {
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
   @Override
   public CounterMetric createMetric(MetricName name, int[] bucketRanges) {
 
-    return new DefaultCounterMetric(name);
+    return new DefaultCounterMetric(name, clock, cumulative);
   }
 
 }
@@ -2,6 +2,7 @@ package io.avaje.metrics.core;
 
 
 import io.avaje.metrics.MetricName;
+import io.avaje.metrics.Tags;
 import io.avaje.metrics.statistics.GaugeDoubleStatistics;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 
@@ -30,6 +31,11 @@ class DGaugeDoubleStatistic implements GaugeDoubleStatistics {
     return name.getSimpleName();
   }
 
+  @Override
+  public Tags getTags() {
+    return name.getTags();
+  }
+
   @Override
   public long getStartTime() {
     return 0;
@@ -2,6 +2,7 @@ package io.avaje.metrics.core;
 
 
 import io.avaje.metrics.MetricName;
+import io.avaje.metrics.Tags;
 import io.avaje.metrics.statistics.GaugeLongStatistics;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 
@@ -30,6 +31,11 @@ class DGaugeLongStatistic implements GaugeLongStatistics {
     return name.getSimpleName();
   }
 
+  @Override
+  public Tags getTags() {
+    return name.getTags();
+  }
+
   @Override
   public long getStartTime() {
     return 0;
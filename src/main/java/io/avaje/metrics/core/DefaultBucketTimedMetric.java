@@ -3,28 +3,34 @@ package io.avaje.metrics.core;
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.TimedEvent;
 import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+import io.avaje.metrics.statistics.WindowStatistics;
 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
  * Default implementation of BucketTimedMetric.
  */
-class DefaultBucketTimedMetric extends BaseTimedMetric implements TimedMetric {
+class DefaultBucketTimedMetric extends BaseTimedMetric implements TimedMetric, IdleTracked {
+
+  private static final long NANOS_PER_MICRO = 1000L;
 
   private final MetricName metricName;
 
-  private final int[] bucketRanges;
+  private final Clock clock;
 
-  private final TimedMetric[] buckets;
+  private final BucketIndex bucketIndex;
 
-  private final int lastBucketIndex;
+  private final DefaultTimedMetric[] buckets;
 
-  DefaultBucketTimedMetric(MetricName metricName, int[] bucketRanges, TimedMetric[] buckets) {
+  DefaultBucketTimedMetric(MetricName metricName, Clock clock, BucketIndex bucketIndex, DefaultTimedMetric[] buckets) {
     this.metricName = metricName;
-    this.bucketRanges = bucketRanges;
+    this.clock = clock;
+    this.bucketIndex = bucketIndex;
     this.buckets = buckets;
-    this.lastBucketIndex = bucketRanges.length;
   }
 
   public String toString() {
@@ -41,9 +47,40 @@ class DefaultBucketTimedMetric extends BaseTimedMetric implements TimedMetric {
     return null;
   }
 
+  /**
+   * Enable the rolling window on all the buckets.
+   */
+  @Override
+  public void enableRollingWindow(int maxSeconds) {
+    for (DefaultTimedMetric bucket : buckets) {
+      bucket.enableRollingWindow(maxSeconds);
+    }
+  }
+
+  /**
+   * Return the rolling window statistics summed over all the buckets.
+   */
+  @Override
+  public WindowStatistics rollingWindow(int seconds) {
+    int covered = seconds;
+    long count = 0;
+    long total = 0;
+    long max = Long.MIN_VALUE;
+    for (DefaultTimedMetric bucket : buckets) {
+      WindowStatistics stats = bucket.rollingWindow(seconds);
+      covered = stats.getSeconds();
+      if (stats.getCount() > 0) {
+        count += stats.getCount();
+        total += stats.getTotal();
+        max = Math.max(max, stats.getMax());
+      }
+    }
+    return new DefaultWindowStatistics(covered, count, total, max);
+  }
+
   @Override
   public void time(Runnable event) {
-    long start = System.nanoTime();
+    long start = clock.nanoTime();
     try {
       event.run();
       add(start);
@@ -55,7 +92,7 @@ class DefaultBucketTimedMetric extends BaseTimedMetric implements TimedMetric {
 
   @Override
   public <T> T time(Supplier<T> event) {
-    long start = System.nanoTime();
+    long start = clock.nanoTime();
     try {
       final T result = event.get();
       add(start);
@@ -66,6 +103,11 @@ class DefaultBucketTimedMetric extends BaseTimedMetric implements TimedMetric {
     }
   }
 
+  @Override
+  public long start() {
+    return clock.nanoTime();
+  }
+
   @Override
   public TimedEvent startEvent() {
     return new DefaultTimedMetricEvent(this);
@@ -81,23 +123,59 @@ class DefaultBucketTimedMetric extends BaseTimedMetric implements TimedMetric {
       // always add errors to the first bucket
       buckets[0].addEventDuration(false, durationNanos);
     } else {
-      // convert to millis to find which bucket the event goes into
-      long durationMillis = durationNanos / 1000000L;
-      for (int i = 0; i < lastBucketIndex; i++) {
-        if (durationMillis < bucketRanges[i]) {
-          // found the bucket to put the event into
-          buckets[i].addEventDuration(true, durationNanos);
-          return;
-        }
+      // bucket boundaries are in micros
+      int index = bucketIndex.index(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+      buckets[index].addEventDuration(true, durationNanos);
+    }
+  }
+
+  /**
+   * Add a batch of event durations.
+   * <p>
+   * The bucket indexes are determined in one pass and then the durations are aggregated per bucket
+   * such that each bucket has its statistics updated once.
+   * </p>
+   */
+  @Override
+  public void addEventDurations(boolean success, long[] durationNanos, int offset, int len) {
+    if (!success) {
+      // always add errors to the first bucket
+      buckets[0].addEventDurations(false, durationNanos, offset, len);
+      return;
+    }
+    if (len <= 0) {
+      return;
+    }
+    int[] indexes = new int[len];
+    bucketIndex.indexAll(durationNanos, offset, len, NANOS_PER_MICRO, indexes);
+
+    int size = buckets.length;
+    long[] count = new long[size];
+    long[] total = new long[size];
+    long[] max = new long[size];
+    long[] min = new long[size];
+    double[] sumSquares = new double[size];
+    Arrays.fill(max, Long.MIN_VALUE);
+    Arrays.fill(min, Long.MAX_VALUE);
+    for (int i = 0; i < len; i++) {
+      int bucket = indexes[i];
+      long micros = durationNanos[offset + i] / NANOS_PER_MICRO;
+      count[bucket]++;
+      total[bucket] += micros;
+      max[bucket] = Math.max(max[bucket], micros);
+      min[bucket] = Math.min(min[bucket], micros);
+      sumSquares[bucket] += (double) micros * micros;
+    }
+    for (int bucket = 0; bucket < size; bucket++) {
+      if (count[bucket] > 0) {
+        buckets[bucket].addBatch(count[bucket], total[bucket], max[bucket], min[bucket], sumSquares[bucket]);
       }
-      // add it to the last bucket
-      buckets[lastBucketIndex].addEventDuration(true, durationNanos);
     }
   }
 
   @Override
   public void addEventSince(boolean success, long startNanos) {
-    long durationNanos = System.nanoTime() - startNanos;
+    long durationNanos = clock.nanosSince(startNanos);
     addEventDuration(success, durationNanos);
   }
 
@@ -139,6 +217,15 @@ class DefaultBucketTimedMetric extends BaseTimedMetric implements TimedMetric {
     }
   }
 
+  @Override
+  public boolean checkRecorded() {
+    boolean recorded = false;
+    for (DefaultTimedMetric bucket : buckets) {
+      recorded |= bucket.checkRecorded();
+    }
+    return recorded;
+  }
+
   @Override
   public void clear() {
     for (TimedMetric bucket : buckets) {
@@ -157,7 +244,7 @@ class DefaultBucketTimedMetric extends BaseTimedMetric implements TimedMetric {
      */
     DefaultTimedMetricEvent(DefaultBucketTimedMetric metric) {
       this.metric = metric;
-      this.startNanos = System.nanoTime();
+      this.startNanos = metric.clock.nanoTime();
     }
 
     public String toString() {
@@ -195,7 +282,7 @@ class DefaultBucketTimedMetric extends BaseTimedMetric implements TimedMetric {
      * Return the duration in nanos.
      */
     private long getDuration() {
-      return System.nanoTime() - startNanos;
+      return metric.clock.nanosSince(startNanos);
     }
 
   }
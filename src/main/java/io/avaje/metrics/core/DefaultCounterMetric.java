@@ -2,6 +2,7 @@ package io.avaje.metrics.core;
 
 import io.avaje.metrics.CounterMetric;
 import io.avaje.metrics.MetricName;
+import io.avaje.metrics.spi.Clock;
 import io.avaje.metrics.statistics.CounterStatistics;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 
@@ -13,7 +14,7 @@ import io.avaje.metrics.statistics.MetricStatisticsVisitor;
  * via log4j or logback.
  * </p>
  */
-final class DefaultCounterMetric implements CounterMetric {
+final class DefaultCounterMetric implements CounterMetric, IdleTracked {
 
   private final MetricName name;
 
@@ -27,8 +28,27 @@ final class DefaultCounterMetric implements CounterMetric {
    * </p>
    */
   DefaultCounterMetric(MetricName name) {
+    this(name, SystemClock.INSTANCE);
+  }
+
+  /**
+   * Create the metric with a name and clock.
+   */
+  DefaultCounterMetric(MetricName name, Clock clock) {
+    this(name, clock, false);
+  }
+
+  /**
+   * Create the metric with a name, clock and whether collection resets the count.
+   */
+  DefaultCounterMetric(MetricName name, Clock clock, boolean cumulative) {
     this.name = name;
-    this.counter = new Counter(name);
+    this.counter = new Counter(name, clock, cumulative);
+  }
+
+  @Override
+  public boolean checkRecorded() {
+    return counter.checkRecorded();
   }
 
   /**
@@ -1,6 +1,7 @@
 package io.avaje.metrics.core;
 
 import io.avaje.metrics.MetricName;
+import io.avaje.metrics.Tags;
 import io.avaje.metrics.statistics.CounterStatistics;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 
@@ -38,6 +39,11 @@ class DefaultCounterStatistics implements CounterStatistics {
     return name.getSimpleName();
   }
 
+  @Override
+  public Tags getTags() {
+    return name.getTags();
+  }
+
   /**
    * Return the time the counter started statistics collection.
    */
@@ -0,0 +1,57 @@
+package io.avaje.metrics.core;
+
+/**
+ * Snapshot of the statistics for a histogram based TimedMetric including percentiles.
+ */
+final class DefaultHistogramStatistics extends DefaultValueStatistics {
+
+  private final long p50;
+
+  private final long p95;
+
+  private final long p99;
+
+  private final long p999;
+
+  /**
+   * Construct with the base statistics and the p50, p95, p99 and p999 percentile values.
+   */
+  DefaultHistogramStatistics(ValueCounter owner, DefaultValueStatistics base, long[] percentiles) {
+    super(owner, base.startTime, base.count, base.total, base.max, base.min, base.sumOfSquares);
+    // percentiles are the highest value of their bucket so cap at the actual max
+    this.p50 = Math.min(percentiles[0], max);
+    this.p95 = Math.min(percentiles[1], max);
+    this.p99 = Math.min(percentiles[2], max);
+    this.p999 = Math.min(percentiles[3], max);
+  }
+
+  @Override
+  public String toString() {
+    return super.toString() + " p50:" + p50 + " p95:" + p95 + " p99:" + p99 + " p999:" + p999;
+  }
+
+  @Override
+  public boolean isPercentiles() {
+    return true;
+  }
+
+  @Override
+  public long getP50() {
+    return p50;
+  }
+
+  @Override
+  public long getP95() {
+    return p95;
+  }
+
+  @Override
+  public long getP99() {
+    return p99;
+  }
+
+  @Override
+  public long getP999() {
+    return p999;
+  }
+}
@@ -0,0 +1,290 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedEvent;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+import io.avaje.metrics.statistics.TimedStatistics;
+import io.avaje.metrics.statistics.WindowStatistics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Supplier;
+
+/**
+ * TimedMetric that additionally records successful durations into a log-linear histogram
+ * such that the statistics include p50, p95, p99 and p999 percentiles.
+ * <p>
+ * Error durations are collected as per DefaultTimedMetric without percentiles.
+ * </p>
+ */
+final class DefaultHistogramTimedMetric extends BaseTimedMetric implements TimedMetric, IdleTracked {
+
+  private static final AtomicReferenceFieldUpdater<DefaultHistogramTimedMetric, ValueCounter> ERROR_COUNTER =
+    AtomicReferenceFieldUpdater.newUpdater(DefaultHistogramTimedMetric.class, ValueCounter.class, "errorCounter");
+
+  private static final double[] PERCENTILES = {50d, 95d, 99d, 99.9d};
+
+  private static final long NANOS_PER_MICRO = 1000L;
+
+  private final MetricName name;
+
+  private final ValueCounter successCounter;
+
+  /**
+   * The error counter, null until the first error.
+   */
+  private volatile ValueCounter errorCounter;
+
+  private final LogLinearHistogram histogram = new LogLinearHistogram();
+
+  private final Clock clock;
+
+  /**
+   * Optional rolling window of the successful events.
+   */
+  private volatile RollingWindow window;
+
+  DefaultHistogramTimedMetric(MetricName name) {
+    this(name, SystemClock.INSTANCE);
+  }
+
+  DefaultHistogramTimedMetric(MetricName name, Clock clock) {
+    this(name, clock, false);
+  }
+
+  /**
+   * Create with a name, clock and whether collection resets the statistics. When cumulative the
+   * percentiles are over all the events since creation.
+   */
+  DefaultHistogramTimedMetric(MetricName name, Clock clock, boolean cumulative) {
+    this.name = name;
+    this.clock = clock;
+    this.successCounter = new ValueCounter(name, clock, cumulative);
+  }
+
+  public String toString() {
+    return name.toString();
+  }
+
+  @Override
+  public MetricName getName() {
+    return name;
+  }
+
+  @Override
+  public boolean isBucket() {
+    return false;
+  }
+
+  @Override
+  public String getBucketRange() {
+    return "";
+  }
+
+  @Override
+  public void enableRollingWindow(int maxSeconds) {
+    synchronized (this) {
+      if (window == null || window.getMaxSeconds() != maxSeconds) {
+        window = new RollingWindow(clock, maxSeconds);
+      }
+    }
+  }
+
+  @Override
+  public WindowStatistics rollingWindow(int seconds) {
+    RollingWindow current = window;
+    if (current == null) {
+      throw new IllegalStateException("Rolling window not enabled on " + name);
+    }
+    return current.statistics(seconds);
+  }
+
+  @Override
+  public boolean checkRecorded() {
+    ValueCounter errors = errorCounter;
+    boolean recorded = successCounter.checkRecorded();
+    return (errors != null && errors.checkRecorded()) || recorded;
+  }
+
+  @Override
+  public void clear() {
+    successCounter.reset();
+    ValueCounter errors = errorCounter;
+    if (errors != null) {
+      errors.reset();
+    }
+    histogram.reset();
+  }
+
+  /**
+   * Return the error counter creating it on the first error.
+   */
+  private ValueCounter errorCounter() {
+    ValueCounter errors = errorCounter;
+    if (errors == null) {
+      // if this fails another thread has created the error counter
+      ERROR_COUNTER.compareAndSet(this, null, successCounter.newErrorCounter(name));
+      errors = errorCounter;
+    }
+    return errors;
+  }
+
+  @Override
+  public void collect(MetricStatisticsVisitor collector) {
+
+    ValueCounter errors = errorCounter;
+    if (errors != null) {
+      TimedStatistics errStats = errors.collectStatistics();
+      if (errStats != null) {
+        collector.visit(errStats);
+      }
+    }
+    DefaultValueStatistics successStats = successCounter.collectStatistics();
+    if (successStats != null) {
+      long[] percentiles = successCounter.isCumulative() ? histogram.percentiles(PERCENTILES) : histogram.percentilesThenReset(PERCENTILES);
+      collector.visit(new DefaultHistogramStatistics(successCounter, successStats, percentiles));
+    }
+  }
+
+  @Override
+  public void time(Runnable event) {
+    long start = clock.nanoTime();
+    try {
+      event.run();
+      add(start);
+    } catch (RuntimeException e) {
+      addErr(start);
+      throw e;
+    }
+  }
+
+  @Override
+  public <T> T time(Supplier<T> event) {
+    long start = clock.nanoTime();
+    try {
+      final T result = event.get();
+      add(start);
+      return result;
+    } catch (Exception e) {
+      addErr(start);
+      throw e;
+    }
+  }
+
+  @Override
+  public long start() {
+    return clock.nanoTime();
+  }
+
+  @Override
+  public TimedEvent startEvent() {
+    return new Event(this);
+  }
+
+  @Override
+  public void addEventDuration(boolean success, long durationNanos) {
+    if (success) {
+      addSuccess(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    } else {
+      errorCounter().add(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+  }
+
+  @Override
+  public void addEventDurations(boolean success, long[] durationNanos, int offset, int len) {
+    if (success) {
+      successCounter.addAll(durationNanos, offset, len, NANOS_PER_MICRO);
+      long total = 0;
+      long max = Long.MIN_VALUE;
+      for (int i = offset, end = offset + len; i < end; i++) {
+        long micros = durationNanos[i] / NANOS_PER_MICRO;
+        histogram.add(micros);
+        total += micros;
+        max = Math.max(max, micros);
+      }
+      RollingWindow current = window;
+      if (current != null && len > 0) {
+        current.addBatch(len, total, max);
+      }
+    } else {
+      errorCounter().addAll(durationNanos, offset, len, NANOS_PER_MICRO);
+    }
+  }
+
+  @Override
+  public void addEventSince(boolean success, long startNanos) {
+    addEventDuration(success, clock.nanosSince(startNanos));
+  }
+
+  @Override
+  public void add(long startNanos) {
+    addSuccess(TimeUnit.NANOSECONDS.toMicros(clock.nanosSince(startNanos)));
+  }
+
+  @Override
+  public void add(long startNanos, boolean activeThreadContext) {
+    addSuccess(TimeUnit.NANOSECONDS.toMicros(clock.nanosSince(startNanos)));
+    if (activeThreadContext) {
+      NestedContext.pop();
+    }
+  }
+
+  @Override
+  public void addErr(long startNanos) {
+    errorCounter().add(TimeUnit.NANOSECONDS.toMicros(clock.nanosSince(startNanos)));
+  }
+
+  @Override
+  public void addErr(long startNanos, boolean activeThreadContext) {
+    errorCounter().add(TimeUnit.NANOSECONDS.toMicros(clock.nanosSince(startNanos)));
+    if (activeThreadContext) {
+      NestedContext.pop();
+    }
+  }
+
+  private void addSuccess(long micros) {
+    successCounter.add(micros);
+    histogram.add(micros);
+    RollingWindow current = window;
+    if (current != null) {
+      current.add(micros);
+    }
+  }
+
+  private static final class Event implements TimedEvent {
+
+    private final DefaultHistogramTimedMetric metric;
+
+    private final long startNanos;
+
+    Event(DefaultHistogramTimedMetric metric) {
+      this.metric = metric;
+      this.startNanos = metric.clock.nanoTime();
+    }
+
+    public String toString() {
+      return metric.toString() + " durationMillis:" + getDuration();
+    }
+
+    @Override
+    public void end(boolean withSuccess) {
+      metric.addEventDuration(withSuccess, getDuration());
+    }
+
+    @Override
+    public void end() {
+      end(true);
+    }
+
+    @Override
+    public void endWithError() {
+      end(false);
+    }
+
+    private long getDuration() {
+      return metric.clock.nanosSince(startNanos);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MeterMetric;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.spi.Clock;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Meter with 1, 5 and 15 minute exponentially weighted moving average rates.
+ * <p>
+ * Marking an event is a single LongAdder increment. The moving averages are ticked lazily when
+ * the rates are read or collected (catching up on the 5 second ticks that have elapsed) rather
+ * than using a thread per meter.
+ * </p>
+ */
+final class DefaultMeterMetric implements MeterMetric, IdleTracked {
+
+  private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(Ewma.TICK_SECONDS);
+
+  /**
+   * The one minute rate below which an idle meter is no longer reported.
+   */
+  private static final double MIN_REPORT_RATE = 0.001;
+
+  private final MetricName name;
+
+  private final Clock clock;
+
+  /**
+   * The total events (never reset).
+   */
+  private final LongAdder total = new LongAdder();
+
+  private final Ewma m1 = new Ewma(1);
+
+  private final Ewma m5 = new Ewma(5);
+
+  private final Ewma m15 = new Ewma(15);
+
+  /**
+   * The nanos of the last tick, guarded by this.
+   */
+  private long lastTick;
+
+  /**
+   * The total at the last tick, guarded by this.
+   */
+  private long tickedTotal;
+
+  /**
+   * The total at the last collection, guarded by this.
+   */
+  private long collectedTotal;
+
+  private long startTime;
+
+  /**
+   * When true collection does not reset the count.
+   */
+  private final boolean cumulative;
+
+  /**
+   * Set when values are recorded, reset by {@link #checkRecorded()}.
+   */
+  private volatile boolean recorded;
+
+  DefaultMeterMetric(MetricName name, Clock clock) {
+    this(name, clock, false);
+  }
+
+  DefaultMeterMetric(MetricName name, Clock clock, boolean cumulative) {
+    this.name = name;
+    this.clock = clock;
+    this.cumulative = cumulative;
+    this.lastTick = clock.nanoTime();
+    this.startTime = clock.currentTimeMillis();
+  }
+
+  @Override
+  public MetricName getName() {
+    return name;
+  }
+
+  @Override
+  public void mark() {
+    total.increment();
+    if (!recorded) {
+      recorded = true;
+    }
+  }
+
+  @Override
+  public void mark(long events) {
+    total.add(events);
+    if (!recorded) {
+      recorded = true;
+    }
+  }
+
+  @Override
+  public boolean checkRecorded() {
+    if (!recorded) {
+      return false;
+    }
+    recorded = false;
+    return true;
+  }
+
+  /**
+   * Tick the moving averages for the 5 second intervals that have elapsed since the last tick.
+   * <p>
+   * The events since the last tick all go into the first elapsed interval.
+   * </p>
+   */
+  private void tickIfNecessary() {
+    long now = clock.nanoTime();
+    long ticks = (now - lastTick) / TICK_NANOS;
+    if (ticks > 0) {
+      lastTick += ticks * TICK_NANOS;
+      long current = total.sum();
+      long events = current - tickedTotal;
+      tickedTotal = current;
+      tick(events);
+      for (long i = 1; i < ticks; i++) {
+        tick(0);
+      }
+    }
+  }
+
+  private void tick(long events) {
+    m1.tick(events);
+    m5.tick(events);
+    m15.tick(events);
+  }
+
+  @Override
+  public synchronized void collect(MetricStatisticsVisitor collector) {
+    tickIfNecessary();
+    long current = total.sum();
+    long count = current - collectedTotal;
+    long collectionStart = startTime;
+    if (!cumulative) {
+      collectedTotal = current;
+      startTime = clock.currentTimeMillis();
+    }
+    if (count != 0 || m1.getRate() >= MIN_REPORT_RATE) {
+      collector.visit(new DefaultMeterStatistics(name, collectionStart, count, m1.getRate(), m5.getRate(), m15.getRate()));
+    }
+  }
+
+  @Override
+  public synchronized void clear() {
+    collectedTotal = total.sum();
+    startTime = clock.currentTimeMillis();
+  }
+
+  @Override
+  public synchronized long getCount() {
+    return total.sum() - collectedTotal;
+  }
+
+  @Override
+  public synchronized double getOneMinuteRate() {
+    tickIfNecessary();
+    return m1.getRate();
+  }
+
+  @Override
+  public synchronized double getFiveMinuteRate() {
+    tickIfNecessary();
+    return m5.getRate();
+  }
+
+  @Override
+  public synchronized double getFifteenMinuteRate() {
+    tickIfNecessary();
+    return m15.getRate();
+  }
+}
@@ -0,0 +1,77 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.Tags;
+import io.avaje.metrics.statistics.MeterStatistics;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+
+/**
+ * Snapshot of the statistics for a MeterMetric.
+ */
+final class DefaultMeterStatistics implements MeterStatistics {
+
+  private final MetricName name;
+
+  private final long startTime;
+
+  private final long count;
+
+  private final double oneMinuteRate;
+
+  private final double fiveMinuteRate;
+
+  private final double fifteenMinuteRate;
+
+  DefaultMeterStatistics(MetricName name, long startTime, long count, double oneMinuteRate, double fiveMinuteRate, double fifteenMinuteRate) {
+    this.name = name;
+    this.startTime = startTime;
+    this.count = count;
+    this.oneMinuteRate = oneMinuteRate;
+    this.fiveMinuteRate = fiveMinuteRate;
+    this.fifteenMinuteRate = fifteenMinuteRate;
+  }
+
+  @Override
+  public void visit(MetricStatisticsVisitor visitor) {
+    visitor.visit(this);
+  }
+
+  public String toString() {
+    return "count:" + count + " m1:" + oneMinuteRate + " m5:" + fiveMinuteRate + " m15:" + fifteenMinuteRate;
+  }
+
+  @Override
+  public String getName() {
+    return name.getSimpleName();
+  }
+
+  @Override
+  public Tags getTags() {
+    return name.getTags();
+  }
+
+  @Override
+  public long getStartTime() {
+    return startTime;
+  }
+
+  @Override
+  public long getCount() {
+    return count;
+  }
+
+  @Override
+  public double getOneMinuteRate() {
+    return oneMinuteRate;
+  }
+
+  @Override
+  public double getFiveMinuteRate() {
+    return fiveMinuteRate;
+  }
+
+  @Override
+  public double getFifteenMinuteRate() {
+    return fifteenMinuteRate;
+  }
+}
@@ -0,0 +1,160 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.Metric;
+import io.avaje.metrics.MetricFamily;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.Tags;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics with a common base name that differ by tags.
+ * <p>
+ * Metrics looked up by tag keys and values are cached in a tree of maps keyed by each key and
+ * value in turn. Looking up an existing metric is then a few hash lookups using the (already hashed)
+ * key and value strings without building a name or tags. A miss creates the tags and obtains the
+ * metric from the registry.
+ * </p>
+ * <p>
+ * Only metrics registered with the requested tags are cached. When the cardinality limits reject
+ * the tags the registry returns a shared overflow metric which is not cached (and no tree nodes
+ * are added) such that rejected tag values do not grow the family.
+ * </p>
+ */
+final class DefaultMetricFamily<T extends Metric> implements MetricFamily<T> {
+
+  private final MetricName baseName;
+
+  private final Function<MetricName, T> registry;
+
+  /**
+   * The eviction generation of the metric manager.
+   */
+  private final IntSupplier currentGeneration;
+
+  private volatile Node<T> root = new Node<>();
+
+  private final ConcurrentHashMap<Tags, T> byTags = new ConcurrentHashMap<>();
+
+  /**
+   * The eviction generation the cached metrics are valid for.
+   */
+  private volatile int generation;
+
+  /**
+   * Create with the base name, function that obtains the metric from the registry and the
+   * eviction generation of the registry.
+   */
+  DefaultMetricFamily(MetricName baseName, Function<MetricName, T> registry, IntSupplier currentGeneration) {
+    this.baseName = baseName;
+    this.registry = registry;
+    this.currentGeneration = currentGeneration;
+    this.generation = currentGeneration.getAsInt();
+  }
+
+  @Override
+  public MetricName getName() {
+    return baseName;
+  }
+
+  @Override
+  public T tagged(String key, String value) {
+    Node<T> root = root();
+    Node<T> node = root.find(key, value);
+    T metric = (node == null) ? null : node.metric;
+    if (metric == null) {
+      Tags tags = Tags.of(key, value);
+      metric = tagged(tags);
+      if (isRegistered(metric, tags)) {
+        root.child(key).child(value).metric = metric;
+      }
+    }
+    return metric;
+  }
+
+  @Override
+  public T tagged(String key1, String value1, String key2, String value2) {
+    Node<T> root = root();
+    Node<T> node = root.find(key1, value1, key2, value2);
+    T metric = (node == null) ? null : node.metric;
+    if (metric == null) {
+      Tags tags = Tags.of(key1, value1, key2, value2);
+      metric = tagged(tags);
+      if (isRegistered(metric, tags)) {
+        root.child(key1).child(value1).child(key2).child(value2).metric = metric;
+      }
+    }
+    return metric;
+  }
+
+  @Override
+  public T tagged(Tags tags) {
+    root();
+    T metric = byTags.get(tags);
+    if (metric == null) {
+      // the registry returns the same instance for the same name
+      metric = registry.apply(baseName.tagged(tags));
+      if (isRegistered(metric, tags)) {
+        byTags.putIfAbsent(tags, metric);
+      }
+    }
+    return metric;
+  }
+
+  /**
+   * Return true if the metric was registered with the tags (false for an overflow metric).
+   */
+  private static boolean isRegistered(Metric metric, Tags tags) {
+    return tags.equals(metric.getName().getTags());
+  }
+
+  /**
+   * Return the root of the tree clearing the cached metrics when metrics have been evicted.
+   */
+  private Node<T> root() {
+    int current = currentGeneration.getAsInt();
+    if (current != generation) {
+      generation = current;
+      root = new Node<>();
+      byTags.clear();
+    }
+    return root;
+  }
+
+  /**
+   * Node in the tree of tag keys and values.
+   */
+  private static final class Node<T> {
+
+    private final ConcurrentHashMap<String, Node<T>> children = new ConcurrentHashMap<>();
+
+    /**
+     * The metric for the path of keys and values to this node (if it has been looked up).
+     */
+    private volatile T metric;
+
+    /**
+     * Return the node for the path of keys and values or null if there is no such node.
+     */
+    Node<T> find(String... path) {
+      Node<T> node = this;
+      for (String keyOrValue : path) {
+        node = node.children.get(keyOrValue);
+        if (node == null) {
+          return null;
+        }
+      }
+      return node;
+    }
+
+    Node<T> child(String keyOrValue) {
+      Node<T> child = children.get(keyOrValue);
+      if (child == null) {
+        child = children.computeIfAbsent(keyOrValue, k -> new Node<>());
+      }
+      return child;
+    }
+  }
+}
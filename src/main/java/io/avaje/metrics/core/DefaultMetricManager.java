@@ -6,11 +6,14 @@ import io.avaje.metrics.GaugeDoubleMetric;
 import io.avaje.metrics.GaugeLong;
 import io.avaje.metrics.GaugeLongMetric;
 import io.avaje.metrics.JvmMetrics;
+import io.avaje.metrics.MeterMetric;
 import io.avaje.metrics.Metric;
+import io.avaje.metrics.MetricFamily;
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.MetricNameCache;
 import io.avaje.metrics.MetricSupplier;
 import io.avaje.metrics.RequestTiming;
+import io.avaje.metrics.Tags;
 import io.avaje.metrics.TimedMetric;
 import io.avaje.metrics.TimedMetricGroup;
 import io.avaje.metrics.TimingMetricInfo;
@@ -19,9 +22,11 @@ import io.avaje.metrics.core.log4j.Log4JMetricRegister;
 import io.avaje.metrics.core.logback.LogbackMetricRegister;
 import io.avaje.metrics.core.noop.NoopBucketTimedFactory;
 import io.avaje.metrics.core.noop.NoopCounterMetricFactory;
+import io.avaje.metrics.core.noop.NoopMeterMetricFactory;
 import io.avaje.metrics.core.noop.NoopTimedMetricFactory;
 import io.avaje.metrics.core.noop.NoopValueMetricFactory;
 import io.avaje.metrics.core.spi.ExternalRequestIdAdapter;
+import io.avaje.metrics.spi.Clock;
 import io.avaje.metrics.spi.SpiMetricManager;
 import io.avaje.metrics.statistics.MetricStatistics;
 import io.avaje.metrics.statistics.MetricStatisticsAsJson;
@@ -29,13 +34,21 @@ import io.avaje.metrics.util.LikeMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 /**
  * Default implementation of the PluginMetricManager.
@@ -46,12 +59,59 @@ public class DefaultMetricManager implements SpiMetricManager {
 
   private static final String METRICS_MDC_REQUEST_ID = "metrics.mdc.requestId";
 
+  private static final String METRICS_CLOCK = "metrics.clock";
+
+  private static final String METRICS_CUMULATIVE = "metrics.cumulative";
+
+  private static final String METRICS_MAPPED_FILE = "metrics.mapped.file";
+
+  private static final String METRICS_MAPPED_CAPACITY = "metrics.mapped.capacity";
+
+  private static final int DEFAULT_MAPPED_CAPACITY = 4096;
+
+  private static final String METRICS_MAX_METRICS = "metrics.maxMetrics";
+
+  private static final String METRICS_IDLE_INTERVALS = "metrics.idleIntervals";
+
+  private static final String METRICS_PARALLEL_THRESHOLD = "metrics.parallelThreshold";
+
+  private static final String METRICS_MAX_METRICS_PER_PREFIX = "metrics.maxMetricsPerPrefix";
+
+  /**
+   * Name of the counter of metrics not created due to the cardinality limits.
+   */
+  static final String METRICS_REJECTED = "metrics.cardinality.rejected";
+
+  /**
+   * Prefix of the shared metrics used for metrics not created due to the cardinality limits.
+   */
+  static final String METRICS_OVERFLOW = "metrics.overflow.";
+
+  private static final String OVERFLOW_TIMED = METRICS_OVERFLOW + "timed";
+
+  private static final String OVERFLOW_BUCKET = METRICS_OVERFLOW + "timed.bucket";
+
+  private static final String OVERFLOW_HISTOGRAM = METRICS_OVERFLOW + "timed.histogram";
+
+  private static final String OVERFLOW_SAMPLED = METRICS_OVERFLOW + "timed.sampled";
+
+  private static final String OVERFLOW_COUNTER = METRICS_OVERFLOW + "counter";
+
+  private static final String OVERFLOW_VALUE = METRICS_OVERFLOW + "value";
+
+  private static final String OVERFLOW_METER = METRICS_OVERFLOW + "meter";
+
   private static final String JVM = "jvm.";
 
   private final NameComp sortByName = new NameComp();
 
   private final Object monitor = new Object();
 
+  /**
+   * Serialises collection (which resets the metrics) without blocking metric creation.
+   */
+  private final Object collectMonitor = new Object();
+
   private boolean withDetails;
   private boolean reportChangesOnly;
 
@@ -60,15 +120,36 @@ public class DefaultMetricManager implements SpiMetricManager {
   private String logWarnName = "app.log.warn";
 
   /**
-   * Cache of the code JVM metrics.
+   * The core JVM metrics. The array is replaced (copy on write) holding the monitor such that
+   * collection iterates a stable array without locking.
+   */
+  private volatile Metric[] coreJvmMetrics = new Metric[0];
+
+  /**
+   * JVM metric groups registered but not yet created (created on first collection), guarded by monitor.
+   */
+  private final List<LazyJvmGroup> lazyJvmMetrics = new ArrayList<>();
+
+  /**
+   * Set when there are lazy JVM metric groups to create.
    */
-  private final List<Metric> coreJvmMetrics = new ArrayList<>();
+  private volatile boolean lazyJvmPending;
 
   /**
    * Cache of the created metrics (excluding JVM metrics).
    */
   private final ConcurrentHashMap<String, Metric> metricsCache = new ConcurrentHashMap<>();
 
+  /**
+   * The clock used by the metrics.
+   */
+  private final Clock clock;
+
+  /**
+   * The coarse clock (lazily created as it starts a ticker thread).
+   */
+  private CoarseClock coarseClock;
+
   /**
    * Factory for creating TimedMetrics.
    */
@@ -79,6 +160,11 @@ public class DefaultMetricManager implements SpiMetricManager {
    */
   private final MetricFactory<TimedMetric> timedMetricFactory;
 
+  /**
+   * Factory for creating histogram based TimedMetrics (with percentiles).
+   */
+  private final MetricFactory<TimedMetric> histogramTimedMetricFactory;
+
   /**
    * Factory for creating CounterMetrics.
    */
@@ -89,6 +175,11 @@ public class DefaultMetricManager implements SpiMetricManager {
    */
   private final MetricFactory<ValueMetric> valueMetricFactory;
 
+  /**
+   * Factory for creating MeterMetrics.
+   */
+  private final MetricFactory<MeterMetric> meterMetricFactory;
+
   /**
    * Cache of the metric names.
    */
@@ -96,7 +187,10 @@ public class DefaultMetricManager implements SpiMetricManager {
 
   private final ConcurrentLinkedQueue<RequestTiming> requestTimings = new ConcurrentLinkedQueue<>();
 
-  private final List<MetricSupplier> suppliers = new ArrayList<>();
+  /**
+   * The metric suppliers, replaced (copy on write) holding the monitor.
+   */
+  private volatile MetricSupplier[] suppliers = new MetricSupplier[0];
 
   /**
    * Adapter that can obtain a request id to associate with request timings.
@@ -108,15 +202,164 @@ public class DefaultMetricManager implements SpiMetricManager {
    */
   protected final boolean disable;
 
+  /**
+   * Set to true if collection should not reset the metrics (counts and totals are cumulative).
+   */
+  protected final boolean cumulative;
+
+  /**
+   * Optional memory mapped storage for counter, value and timed metrics (null when not used).
+   */
+  private final MappedMetricStore mappedStore;
+
+  /**
+   * Limits the number of metrics created (overall and per name prefix).
+   */
+  private final CardinalityLimiter limiter;
+
+  /**
+   * Set when the cardinality limit has been logged.
+   */
+  private volatile boolean limitLogged;
+
+  /**
+   * Eviction of idle metrics (null when not used).
+   */
+  private final IdleMetricEviction idleEviction;
+
+  /**
+   * The number of metrics at which collection is split across the ForkJoin common pool
+   * (0 for always serial). Collection is serial when the common pool has no parallelism.
+   */
+  private volatile int parallelThreshold;
+
   public DefaultMetricManager() {
+    this(initCardinalityLimiter(), initIdleIntervals());
+  }
+
+  /**
+   * Create with the given cardinality limiter and number of idle collections before a metric
+   * is evicted (0 for no eviction).
+   */
+  DefaultMetricManager(CardinalityLimiter limiter, int idleIntervals) {
+    this.limiter = limiter;
+    this.idleEviction = (idleIntervals > 0) ? new IdleMetricEviction(idleIntervals, limiter) : null;
+    this.parallelThreshold = initParallelThreshold();
     this.disable = isDisableCollection();
-    this.bucketTimedMetricFactory = initBucketTimedFactory(disable);
-    this.timedMetricFactory = initTimedMetricFactory(disable);
-    this.valueMetricFactory = initValueMetricFactory(disable);
-    this.counterMetricFactory = initCounterMetricFactory(disable);
+    this.cumulative = isCumulativeCollection();
+    this.clock = initClock(disable);
+    this.mappedStore = initMappedStore(disable, clock);
+    this.bucketTimedMetricFactory = initBucketTimedFactory(disable, clock, cumulative);
+    this.histogramTimedMetricFactory = initHistogramTimedMetricFactory(disable, clock, cumulative);
+    if (mappedStore != null) {
+      this.timedMetricFactory = new MappedTimedMetricFactory(mappedStore, clock, cumulative);
+      this.valueMetricFactory = new MappedValueMetricFactory(mappedStore, clock, cumulative);
+      this.counterMetricFactory = new MappedCounterMetricFactory(mappedStore, clock, cumulative);
+    } else {
+      this.timedMetricFactory = initTimedMetricFactory(disable, clock, cumulative);
+      this.valueMetricFactory = initValueMetricFactory(disable, clock, cumulative);
+      this.counterMetricFactory = initCounterMetricFactory(disable, clock, cumulative);
+    }
+    this.meterMetricFactory = initMeterMetricFactory(disable, clock, cumulative);
     this.externalRequestIdAdapter = initExternalRequestIdAdapter(disable);
   }
 
+  /**
+   * Return the clock to use based on the <code>metrics.clock</code> system property
+   * or service loader (defaulting to using System.nanoTime()).
+   */
+  private Clock initClock(boolean disable) {
+
+    if (disable) return SystemClock.INSTANCE;
+
+    String clockType = System.getProperty(METRICS_CLOCK, System.getenv("METRICS_CLOCK"));
+    if ("coarse".equalsIgnoreCase(clockType)) {
+      return coarseClock();
+    }
+    Iterator<Clock> it = ServiceLoader.load(Clock.class).iterator();
+    if (it.hasNext()) {
+      return it.next();
+    }
+    return SystemClock.INSTANCE;
+  }
+
+  /**
+   * Return the memory mapped store if the <code>metrics.mapped.file</code> system property is set.
+   * <p>
+   * Counter, value and timed metrics then hold their values in the mapped file such that they
+   * can be read by an external process using {@link MappedMetricReader}.
+   * </p>
+   */
+  private static MappedMetricStore initMappedStore(boolean disable, Clock clock) {
+
+    if (disable) return null;
+
+    String file = System.getProperty(METRICS_MAPPED_FILE, System.getenv("METRICS_MAPPED_FILE"));
+    if (file == null || file.trim().isEmpty()) {
+      return null;
+    }
+    String capacity = System.getProperty(METRICS_MAPPED_CAPACITY, System.getenv("METRICS_MAPPED_CAPACITY"));
+    try {
+      int slots = (capacity == null) ? DEFAULT_MAPPED_CAPACITY : Integer.parseInt(capacity.trim());
+      return MappedMetricStore.create(new File(file.trim()), slots, clock.currentTimeMillis());
+    } catch (IOException | IllegalArgumentException e) {
+      logger.warn("Unable to use memory mapped metrics file " + file + ", using heap metrics", e);
+      return null;
+    }
+  }
+
+  /**
+   * Return the limiter based on the <code>metrics.maxMetrics</code> and
+   * <code>metrics.maxMetricsPerPrefix</code> system properties (unlimited by default).
+   */
+  private static CardinalityLimiter initCardinalityLimiter() {
+
+    String maxMetrics = System.getProperty(METRICS_MAX_METRICS, System.getenv("METRICS_MAX_METRICS"));
+    String perPrefix = System.getProperty(METRICS_MAX_METRICS_PER_PREFIX, System.getenv("METRICS_MAX_METRICS_PER_PREFIX"));
+    try {
+      return CardinalityLimiter.parse(maxMetrics, perPrefix);
+    } catch (IllegalArgumentException e) {
+      logger.warn("Invalid metric cardinality limits " + maxMetrics + " " + perPrefix + ", using no limit", e);
+      return CardinalityLimiter.UNLIMITED;
+    }
+  }
+
+  /**
+   * Return the number of collections a metric can record nothing before it is evicted based on
+   * the <code>metrics.idleIntervals</code> system property (0, no eviction by default).
+   */
+  private static int initIdleIntervals() {
+
+    String intervals = System.getProperty(METRICS_IDLE_INTERVALS, System.getenv("METRICS_IDLE_INTERVALS"));
+    if (intervals == null || intervals.trim().isEmpty()) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(intervals.trim());
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid " + METRICS_IDLE_INTERVALS + " " + intervals + ", idle metrics are not evicted", e);
+      return 0;
+    }
+  }
+
+  /**
+   * Return the number of metrics at which collection is done in parallel based on the
+   * <code>metrics.parallelThreshold</code> system property (0, serial by default).
+   */
+  private static int initParallelThreshold() {
+
+    String threshold = System.getProperty(METRICS_PARALLEL_THRESHOLD, System.getenv("METRICS_PARALLEL_THRESHOLD"));
+    if (threshold == null || threshold.trim().isEmpty()) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(threshold.trim());
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid " + METRICS_PARALLEL_THRESHOLD + " " + threshold + ", collecting serially", e);
+      return 0;
+    }
+  }
+
   private static ExternalRequestIdAdapter initExternalRequestIdAdapter(boolean disable) {
 
     if (disable) return null;
@@ -139,6 +382,19 @@ public class DefaultMetricManager implements SpiMetricManager {
     return "true".equalsIgnoreCase(disable);
   }
 
+  /**
+   * Return true if collection should be cumulative rather than resetting the metrics.
+   * <p>
+   * This suits pull based scrapers that compute rates themselves and means the metrics can
+   * be collected by more than one consumer.
+   * </p>
+   */
+  private static boolean isCumulativeCollection() {
+
+    String cumulative = System.getProperty(METRICS_CUMULATIVE, System.getenv("METRICS_CUMULATIVE"));
+    return "true".equalsIgnoreCase(cumulative);
+  }
+
   @Override
   public void reportTiming(RequestTiming requestTiming) {
 
@@ -155,29 +411,43 @@ public class DefaultMetricManager implements SpiMetricManager {
   /**
    * Return the factory used to create TimedMetric instances.
    */
-  protected static MetricFactory<TimedMetric> initBucketTimedFactory(boolean disableCollection) {
-    return (disableCollection) ? new NoopBucketTimedFactory() : new BucketTimedMetricFactory();
+  protected static MetricFactory<TimedMetric> initBucketTimedFactory(boolean disableCollection, Clock clock, boolean cumulative) {
+    return (disableCollection) ? new NoopBucketTimedFactory() : new BucketTimedMetricFactory(clock, cumulative);
   }
 
   /**
    * Return the factory used to create TimedMetric instances.
    */
-  protected static MetricFactory<TimedMetric> initTimedMetricFactory(boolean disableCollection) {
-    return (disableCollection) ? new NoopTimedMetricFactory() : new TimedMetricFactory();
+  protected static MetricFactory<TimedMetric> initTimedMetricFactory(boolean disableCollection, Clock clock, boolean cumulative) {
+    return (disableCollection) ? new NoopTimedMetricFactory() : new TimedMetricFactory(clock, cumulative);
+  }
+
+  /**
+   * Return the factory used to create histogram based TimedMetric instances.
+   */
+  protected static MetricFactory<TimedMetric> initHistogramTimedMetricFactory(boolean disableCollection, Clock clock, boolean cumulative) {
+    return (disableCollection) ? new NoopTimedMetricFactory() : new HistogramTimedMetricFactory(clock, cumulative);
   }
 
   /**
    * Return the factory used to create CounterMetric instances.
    */
-  protected static MetricFactory<CounterMetric> initCounterMetricFactory(boolean disableCollection) {
-    return (disableCollection) ? new NoopCounterMetricFactory() : new CounterMetricFactory();
+  protected static MetricFactory<CounterMetric> initCounterMetricFactory(boolean disableCollection, Clock clock, boolean cumulative) {
+    return (disableCollection) ? new NoopCounterMetricFactory() : new CounterMetricFactory(clock, cumulative);
+  }
+
+  /**
+   * Return the factory used to create MeterMetric instances.
+   */
+  protected static MetricFactory<MeterMetric> initMeterMetricFactory(boolean disableCollection, Clock clock, boolean cumulative) {
+    return (disableCollection) ? new NoopMeterMetricFactory() : new MeterMetricFactory(clock, cumulative);
   }
 
   /**
    * Return the factory used to create ValueMetric instances.
    */
-  protected static MetricFactory<ValueMetric> initValueMetricFactory(boolean disableCollection) {
-    return (disableCollection) ? new NoopValueMetricFactory() : new ValueMetricFactory();
+  protected static MetricFactory<ValueMetric> initValueMetricFactory(boolean disableCollection, Clock clock, boolean cumulative) {
+    return (disableCollection) ? new NoopValueMetricFactory() : new ValueMetricFactory(clock, cumulative);
   }
 
   @Override
@@ -232,71 +502,164 @@ public class DefaultMetricManager implements SpiMetricManager {
 
   @Override
   public JvmMetrics registerProcessMemoryMetrics() {
-    registerAll(JvmProcessMemory.createGauges(reportChangesOnly));
+    final boolean reportChangesOnly = this.reportChangesOnly;
+    registerLazy("process memory", () -> JvmProcessMemory.createGauges(reportChangesOnly));
     return this;
   }
 
   @Override
   public JvmMetrics registerCGroupMetrics() {
-    registerAll(JvmCGroupCpuMetricGroup.createGauges(reportChangesOnly));
-    registerAll(JvmCGroupMemoryMetricGroup.createGauges(reportChangesOnly));
+    final boolean reportChangesOnly = this.reportChangesOnly;
+    registerLazy("cgroup cpu", () -> JvmCGroupCpuMetricGroup.createGauges(reportChangesOnly));
+    registerLazy("cgroup memory", () -> JvmCGroupMemoryMetricGroup.createGauges(reportChangesOnly));
     return this;
   }
 
   @Override
   public JvmMetrics registerJvmOsLoadMetric() {
-    GaugeLongMetric osLoadAvgMetric = JvmSystemMetricGroup.getOsLoadAvgMetric();
-    if (osLoadAvgMetric.getValue() >= 0) {
-      // OS Load Average is supported on this system
-      registerJvmMetric(osLoadAvgMetric);
-    }
+    registerLazy("os load", () -> {
+      GaugeLongMetric osLoadAvgMetric = JvmSystemMetricGroup.getOsLoadAvgMetric();
+      if (osLoadAvgMetric.getValue() >= 0) {
+        // OS Load Average is supported on this system
+        return Collections.singletonList(osLoadAvgMetric);
+      }
+      return Collections.emptyList();
+    });
     return this;
   }
 
   @Override
   public JvmMetrics registerJvmThreadMetrics() {
-    registerAll(JvmThreadMetricGroup.createThreadMetricGroup(reportChangesOnly, withDetails));
+    final boolean reportChangesOnly = this.reportChangesOnly;
+    final boolean withDetails = this.withDetails;
+    registerLazy("threads", () -> JvmThreadMetricGroup.createThreadMetricGroup(reportChangesOnly, withDetails));
     return this;
   }
 
   @Override
   public JvmMetrics registerJvmGCMetrics() {
-    registerAll(JvmGarbageCollectionMetricGroup.createGauges(withDetails));
+    final boolean withDetails = this.withDetails;
+    registerLazy("gc", () -> JvmGarbageCollectionMetricGroup.createGauges(withDetails));
     return this;
   }
 
   @Override
   public JvmMetrics registerJvmMemoryMetrics() {
-    registerAll(JvmMemoryMetricGroup.createHeapGroup(reportChangesOnly));
-    registerAll(JvmMemoryMetricGroup.createNonHeapGroup(reportChangesOnly));
+    final boolean reportChangesOnly = this.reportChangesOnly;
+    registerLazy("heap memory", () -> JvmMemoryMetricGroup.createHeapGroup(reportChangesOnly));
+    registerLazy("non-heap memory", () -> JvmMemoryMetricGroup.createNonHeapGroup(reportChangesOnly));
     return this;
   }
 
-  private void registerAll(List<Metric> groups) {
-    for (Metric metric : groups) {
-      registerJvmMetric(metric);
+  /**
+   * Register a group of JVM metrics that is created when the JVM metrics are first collected.
+   * <p>
+   * This defers the MXBean and file system access to the first collection rather than
+   * application startup.
+   * </p>
+   */
+  void registerLazy(String name, Supplier<List<Metric>> group) {
+    synchronized (monitor) {
+      lazyJvmMetrics.add(new LazyJvmGroup(name, group));
+      lazyJvmPending = true;
     }
   }
 
+  /**
+   * Create the JVM metrics for groups registered lazily returning the JVM metrics.
+   * <p>
+   * A group that fails to create its metrics is logged and dropped such that the other groups
+   * are still reported.
+   * </p>
+   */
+  private Metric[] initLazyJvmMetrics() {
+    if (lazyJvmPending) {
+      synchronized (monitor) {
+        try {
+          if (!lazyJvmMetrics.isEmpty()) {
+            List<Metric> metrics = new ArrayList<>(Arrays.asList(coreJvmMetrics));
+            for (LazyJvmGroup group : lazyJvmMetrics) {
+              try {
+                metrics.addAll(group.metrics.get());
+              } catch (RuntimeException | LinkageError e) {
+                logger.warn("Failed to register JVM " + group.name + " metrics", e);
+              }
+            }
+            coreJvmMetrics = metrics.toArray(new Metric[0]);
+          }
+        } finally {
+          lazyJvmMetrics.clear();
+          lazyJvmPending = false;
+        }
+      }
+    }
+    return coreJvmMetrics;
+  }
+
   private void registerJvmMetric(Metric m) {
     synchronized (monitor) {
-      coreJvmMetrics.add(m);
+      if (lazyJvmMetrics.isEmpty()) {
+        coreJvmMetrics = append(coreJvmMetrics, m);
+      } else {
+        // maintain registration order
+        lazyJvmMetrics.add(new LazyJvmGroup(m.getName().getSimpleName(), () -> Collections.singletonList(m)));
+      }
+    }
+  }
+
+  /**
+   * Return a copy of the array with the element appended.
+   */
+  private static <T> T[] append(T[] array, T element) {
+    T[] copy = Arrays.copyOf(array, array.length + 1);
+    copy[array.length] = element;
+    return copy;
+  }
+
+  @Override
+  public Clock clock() {
+    return clock;
+  }
+
+  @Override
+  public Clock coarseClock() {
+    synchronized (monitor) {
+      if (coarseClock == null) {
+        coarseClock = new CoarseClock();
+      }
+      return coarseClock;
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    synchronized (monitor) {
+      if (coarseClock != null) {
+        coarseClock.stop();
+      }
     }
   }
 
   @Override
   public void addSupplier(MetricSupplier supplier) {
-    suppliers.add(supplier);
+    synchronized (monitor) {
+      suppliers = append(suppliers, supplier);
+    }
   }
 
   @Override
   public MetricName name(String name) {
-    return new DefaultMetricName(name);
+    return DefaultMetricName.of(name);
+  }
+
+  @Override
+  public MetricName name(String name, Tags tags) {
+    return DefaultMetricName.of(name, tags);
   }
 
   @Override
   public MetricName name(Class<?> cls, String name) {
-    return new DefaultMetricName(cls, name);
+    return DefaultMetricName.of(cls, name);
   }
 
   @Override
@@ -310,7 +673,7 @@ public class DefaultMetricManager implements SpiMetricManager {
     String key = baseName.getSimpleName();
     MetricNameCache metricNameCache = nameCache.get(key);
     if (metricNameCache == null) {
-      metricNameCache = new DefaultMetricNameCache(baseName);
+      metricNameCache = new DefaultMetricNameCache(baseName, this::generation);
       MetricNameCache oldNameCache = nameCache.putIfAbsent(key, metricNameCache);
       if (oldNameCache != null) {
         return oldNameCache;
@@ -319,29 +682,88 @@ public class DefaultMetricManager implements SpiMetricManager {
     return metricNameCache;
   }
 
+  /**
+   * Return the eviction generation which changes when idle metrics are evicted.
+   */
+  int generation() {
+    return (idleEviction == null) ? 0 : idleEviction.generation();
+  }
+
   @Override
   public TimedMetricGroup timedGroup(MetricName baseName) {
-    return new DefaultTimedMetricGroup(baseName);
+    return new DefaultTimedMetricGroup(this, baseName);
+  }
+
+  @Override
+  public MetricFamily<TimedMetric> timedFamily(MetricName baseName) {
+    return new DefaultMetricFamily<>(baseName, this::timed, this::generation);
+  }
+
+  @Override
+  public MetricFamily<CounterMetric> counterFamily(MetricName baseName) {
+    return new DefaultMetricFamily<>(baseName, this::counter, this::generation);
+  }
+
+  @Override
+  public MetricFamily<ValueMetric> valueFamily(MetricName baseName) {
+    return new DefaultMetricFamily<>(baseName, this::value, this::generation);
   }
 
   @Override
   public TimedMetric timed(MetricName name) {
-    return (TimedMetric) getMetric(name, timedMetricFactory);
+    return (TimedMetric) getMetric(name, timedMetricFactory, OVERFLOW_TIMED);
+  }
+
+  @Override
+  public TimedMetric timed(MetricName name, Clock clock) {
+    Metric metric = metricsCache.get(key(name));
+    if (metric == null) {
+      MetricFactory<TimedMetric> factory = disable ? timedMetricFactory : new TimedMetricFactory(clock, cumulative);
+      metric = getMetric(name, factory, OVERFLOW_TIMED);
+    }
+    return (TimedMetric) metric;
   }
 
   @Override
   public TimedMetric timed(MetricName name, int... bucketRanges) {
-    return (TimedMetric) getMetric(name, bucketTimedMetricFactory, bucketRanges);
+    BucketRanges.validate(bucketRanges);
+    return (TimedMetric) getMetric(name, bucketTimedMetricFactory, bucketRanges, null, OVERFLOW_BUCKET);
+  }
+
+  @Override
+  public TimedMetric timedMicros(MetricName name, long... bucketRangesMicros) {
+    BucketRanges.validate(bucketRangesMicros);
+    return (TimedMetric) getMetric(name, bucketTimedMetricFactory, null, bucketRangesMicros, OVERFLOW_BUCKET);
+  }
+
+  @Override
+  public TimedMetric timedHistogram(MetricName name) {
+    return (TimedMetric) getMetric(name, histogramTimedMetricFactory, OVERFLOW_HISTOGRAM);
+  }
+
+  @Override
+  public TimedMetric timedSampled(MetricName name, double sampleRate) {
+    Metric metric = metricsCache.get(key(name));
+    if (metric == null) {
+      MetricFactory<TimedMetric> factory = disable ? timedMetricFactory : new SampledTimedMetricFactory(clock, sampleRate, cumulative);
+      metric = getMetric(name, factory, OVERFLOW_SAMPLED);
+    }
+    return (TimedMetric) metric;
   }
 
   @Override
   public CounterMetric counter(MetricName name) {
-    return (CounterMetric) getMetric(name, counterMetricFactory);
+    return (CounterMetric) getMetric(name, counterMetricFactory, OVERFLOW_COUNTER);
+  }
+
+  @Override
+  public MeterMetric meter(MetricName name) {
+    return (MeterMetric) getMetric(name, meterMetricFactory, OVERFLOW_METER);
   }
 
   @Override
   public ValueMetric value(MetricName name) {
-    return (ValueMetric) getMetric(name, valueMetricFactory);
+    return (ValueMetric) getMetric(name, valueMetricFactory, OVERFLOW_VALUE);
   }
 
   @Override
@@ -358,49 +780,105 @@ public class DefaultMetricManager implements SpiMetricManager {
     if (name.startsWith(JVM)) {
       registerJvmMetric(metric);
     } else {
-      metricsCache.put(name.getSimpleName(), metric);
+      metricsCache.put(key(name), metric);
     }
     return metric;
   }
 
-  private Metric getMetric(MetricName name, MetricFactory<?> factory) {
-    return getMetric(name, factory, null);
+  /**
+   * Return the registry key for the metric name which includes the tags (if any).
+   */
+  private static String key(MetricName name) {
+    return name.getTags().isEmpty() ? name.getSimpleName() : name.toString();
+  }
+
+  private Metric getMetric(MetricName name, MetricFactory<?> factory, String overflowName) {
+    return getMetric(name, factory, null, null, overflowName);
   }
 
-  private Metric getMetric(MetricName name, MetricFactory<?> factory, int[] bucketRanges) {
+  /**
+   * Return the metric creating it if necessary with bucket ranges in milliseconds or microseconds
+   * (bucketRangesMicros is null unless using microsecond ranges).
+   */
+  private Metric getMetric(MetricName name, MetricFactory<?> factory, int[] bucketRanges, long[] bucketRangesMicros, String overflowName) {
 
-    String cacheKey = name.getSimpleName();
+    String cacheKey = key(name);
     // try lock free get first
     Metric metric = metricsCache.get(cacheKey);
     if (metric == null) {
-      synchronized (monitor) {
-        // use synchronized block
-        metric = metricsCache.get(cacheKey);
-        if (metric == null) {
-          metric = factory.createMetric(name, bucketRanges);
-          metricsCache.put(cacheKey, metric);
-        }
+      // atomic per key such that creation does not block other metrics or collection
+      metric = metricsCache.computeIfAbsent(cacheKey, key -> create(key, () -> createMetric(factory, name, bucketRanges, bucketRangesMicros)));
+      if (metric == null) {
+        metric = overflow(cacheKey, overflowName, () -> createMetric(factory, DefaultMetricName.of(overflowName), bucketRanges, bucketRangesMicros));
       }
     }
     return metric;
   }
 
+  private static Metric createMetric(MetricFactory<?> factory, MetricName name, int[] bucketRanges, long[] bucketRangesMicros) {
+    return (bucketRangesMicros != null) ? factory.createMetric(name, bucketRangesMicros) : factory.createMetric(name, bucketRanges);
+  }
+
+  /**
+   * Return the metric to register for the key or null if rejected by the cardinality limits.
+   * <p>
+   * Called by computeIfAbsent so this must not modify the metrics cache.
+   * </p>
+   */
+  private Metric create(String cacheKey, Supplier<Metric> factory) {
+    if (idleEviction != null) {
+      Metric evicted = idleEviction.revive(cacheKey);
+      if (evicted != null) {
+        return evicted;
+      }
+    }
+    if (!limiter.tryAcquire(cacheKey)) {
+      return null;
+    }
+    try {
+      return factory.get();
+    } catch (RuntimeException e) {
+      limiter.release(cacheKey);
+      throw e;
+    }
+  }
+
+  /**
+   * Return the shared overflow metric for a metric rejected by the cardinality limits.
+   * <p>
+   * There is an overflow metric per type of metric (timed, bucket, histogram, sampled, counter,
+   * value and meter) such that the overflow metric is of the type the caller expects.
+   * </p>
+   */
+  private Metric overflow(String rejectedKey, String overflowName, Supplier<Metric> create) {
+    if (!limitLogged) {
+      limitLogged = true;
+      logger.warn("Metric cardinality limit reached, metric {} and subsequent new metrics use {}", rejectedKey, overflowName);
+    }
+    Metric rejected = metricsCache.computeIfAbsent(METRICS_REJECTED, key -> counterMetricFactory.createMetric(DefaultMetricName.of(key), (int[]) null));
+    ((CounterMetric) rejected).inc();
+    return metricsCache.computeIfAbsent(overflowName, key -> create.get());
+  }
+
   private Metric getMetricWithoutCreate(MetricName name) {
 
-    return metricsCache.get(name.getSimpleName());
+    return metricsCache.get(key(name));
   }
 
   public void clear() {
-    synchronized (monitor) {
+    synchronized (collectMonitor) {
       metricsCache.clear();
+      limiter.reset();
+      if (idleEviction != null) {
+        idleEviction.clear();
+      }
+      limitLogged = false;
     }
   }
 
   @Override
   public Collection<Metric> getMetrics() {
-    synchronized (monitor) {
-      return Collections.unmodifiableCollection(metricsCache.values());
-    }
+    return Collections.unmodifiableCollection(metricsCache.values());
   }
 
   @Override
@@ -517,7 +995,7 @@ public class DefaultMetricManager implements SpiMetricManager {
 
   @Override
   public Collection<Metric> getJvmMetrics() {
-    return Collections.unmodifiableList(coreJvmMetrics);
+    return Collections.unmodifiableList(Arrays.asList(initLazyJvmMetrics()));
   }
 
   /**
@@ -534,23 +1012,65 @@ public class DefaultMetricManager implements SpiMetricManager {
   }
 
   private void collectJvmMetrics(DStatsCollector collector) {
-    for (Metric metric : coreJvmMetrics) {
+    for (Metric metric : initLazyJvmMetrics()) {
       metric.collect(collector);
     }
   }
 
+  /**
+   * Set the number of metrics at which collection is split across the ForkJoin common pool
+   * (0 for always serial).
+   */
+  void setParallelThreshold(int parallelThreshold) {
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * Collect the application metrics iterating the (weakly consistent) metrics cache such that
+   * metrics can be created concurrently.
+   */
   private void collectAppMetrics(DStatsCollector collector) {
-    for (Metric metric : metricsCache.values()) {
-      metric.collect(collector);
+    if (idleEviction != null) {
+      idleEviction.collectEvicted(metricsCache, collector);
+    }
+    if (parallelThreshold > 0 && metricsCache.size() >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1) {
+      collectParallel(collector);
+    } else if (idleEviction != null) {
+      idleEviction.collect(metricsCache, collector);
+    } else {
+      for (Metric metric : metricsCache.values()) {
+        metric.collect(collector);
+      }
     }
     for (MetricSupplier supplier : suppliers) {
       collector.addAll(supplier.collectMetrics());
     }
   }
 
+  /**
+   * Collect a snapshot of the metrics cache splitting it across the ForkJoin common pool.
+   */
+  private void collectParallel(DStatsCollector collector) {
+    List<String> keys = new ArrayList<>(metricsCache.size());
+    List<Metric> metrics = new ArrayList<>(metricsCache.size());
+    for (Map.Entry<String, Metric> entry : metricsCache.entrySet()) {
+      keys.add(entry.getKey());
+      metrics.add(entry.getValue());
+    }
+    Metric[] snapshot = metrics.toArray(new Metric[0]);
+    // check what recorded values before collecting such that no recorded values are missed
+    boolean[] recorded = (idleEviction == null) ? null : IdleMetricEviction.checkRecorded(snapshot);
+
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    collector.addAll(pool.invoke(new ParallelCollectTask(snapshot, pool.getParallelism())));
+    if (idleEviction != null) {
+      idleEviction.evictIdle(keys.toArray(new String[0]), snapshot, recorded, metricsCache);
+    }
+  }
+
   @Override
   public List<MetricStatistics> collectNonEmptyMetrics() {
-    synchronized (monitor) {
+    synchronized (collectMonitor) {
       DStatsCollector collector = new DStatsCollector();
       collectAppMetrics(collector);
       return collector.getList();
@@ -559,7 +1079,7 @@ public class DefaultMetricManager implements SpiMetricManager {
 
   @Override
   public List<MetricStatistics> collectNonEmptyJvmMetrics() {
-    synchronized (monitor) {
+    synchronized (collectMonitor) {
       DStatsCollector collector = new DStatsCollector();
       collectJvmMetrics(collector);
       return collector.getList();
@@ -568,7 +1088,7 @@ public class DefaultMetricManager implements SpiMetricManager {
 
   @Override
   public List<MetricStatistics> collectMetrics() {
-    synchronized (monitor) {
+    synchronized (collectMonitor) {
       DStatsCollector collector = new DStatsCollector();
       collectJvmMetrics(collector);
       collectAppMetrics(collector);
@@ -592,4 +1112,19 @@ public class DefaultMetricManager implements SpiMetricManager {
     }
 
   }
+
+  /**
+   * A group of JVM metrics created on first collection.
+   */
+  private static final class LazyJvmGroup {
+
+    private final String name;
+
+    private final Supplier<List<Metric>> metrics;
+
+    LazyJvmGroup(String name, Supplier<List<Metric>> metrics) {
+      this.name = name;
+      this.metrics = metrics;
+    }
+  }
 }
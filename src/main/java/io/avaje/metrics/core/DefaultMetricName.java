@@ -1,8 +1,11 @@
 package io.avaje.metrics.core;
 
 import io.avaje.metrics.MetricName;
+import io.avaje.metrics.Tags;
 
-import java.util.regex.Pattern;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -10,48 +13,195 @@ import java.util.regex.Pattern;
  * <p>
  * Typically names are based on a class and method name.
  * </p>
+ * <p>
+ * The name can have tags in which case metrics with the same simple name and different tags
+ * are different metrics. The toString() form includes the tags and is used as the registry key.
+ * </p>
+ * <p>
+ * Names obtained via the static <code>of()</code> methods are interned (weakly) such that equal
+ * names are the same instance. Each name has a precomputed hash and derived names (via append)
+ * are cached on the parent name.
+ * </p>
  */
-class DefaultMetricName implements MetricName {
+final class DefaultMetricName implements MetricName {
 
   private static final String ERROR = ".error";
 
+  private static final String ERROR_SUFFIX = "error";
+
+  /**
+   * The maximum number of appended names cached on a name (dynamic names go via the intern table).
+   */
+  private static final int MAX_CACHED_APPENDED = 16;
+
+  private static final ConcurrentHashMap<String, NameRef> INTERNED = new ConcurrentHashMap<>();
+
+  private static final ReferenceQueue<DefaultMetricName> COLLECTED = new ReferenceQueue<>();
+
+  /**
+   * The package and type part of names for classes (without the regex replacement per name).
+   */
+  private static final ClassValue<String> CLASS_NAMES = new ClassValue<String>() {
+    @Override
+    protected String computeValue(Class<?> klass) {
+      String typeName = klass.getSimpleName();
+      if (typeName.endsWith("$")) {
+        typeName = typeName.substring(0, typeName.length() - 1);
+      }
+      return klass.getPackage() == null ? typeName : klass.getPackage().getName() + "." + typeName;
+    }
+  };
+
   private final String simpleName;
 
+  private final Tags tags;
+
   /**
-   * Compiled Regex for finding replacing symbols in metric names.
+   * The simple name with the tags (same as simpleName when there are no tags).
    */
-  private static final Pattern REPLACE_METRIC_NAME = Pattern.compile("\\$$");
+  private final String fullName;
+
+  private final int hash;
 
   /**
-   * Creates a new MetricNamegiven the class and method/name.
+   * The error name derived via append("error").
    */
-  DefaultMetricName(Class<?> klass, String name) {
-    this(klassName(klass, name));
+  private volatile DefaultMetricName errorName;
+
+  /**
+   * Names derived via append (lazily created).
+   */
+  private volatile ConcurrentHashMap<String, DefaultMetricName> appended;
+
+  /**
+   * Return the interned name for the class and method/name.
+   */
+  static DefaultMetricName of(Class<?> klass, String name) {
+    return of(klassName(klass, name));
   }
 
-  private static String klassName(Class<?> klass, String name) {
+  /**
+   * Return the interned name.
+   */
+  static DefaultMetricName of(String simpleName) {
+    return of(simpleName, Tags.EMPTY);
+  }
 
-    String typeName = REPLACE_METRIC_NAME.matcher(klass.getSimpleName()).replaceAll("");
-    String metricName = klass.getPackage() == null ? typeName : klass.getPackage().getName() + "." + typeName;
-    if (name != null && !name.isEmpty()) {
-      metricName += "." + name;
+  /**
+   * Return the interned name with tags.
+   */
+  static DefaultMetricName of(String simpleName, Tags tags) {
+    String fullName = tags.isEmpty() ? simpleName : simpleName + tags;
+    NameRef ref = INTERNED.get(fullName);
+    if (ref != null) {
+      DefaultMetricName name = ref.get();
+      if (name != null) {
+        return name;
+      }
+    }
+    return intern(new DefaultMetricName(simpleName, tags, fullName));
+  }
+
+  private static DefaultMetricName intern(DefaultMetricName name) {
+    expungeCollected();
+    NameRef ref = new NameRef(name);
+    while (true) {
+      NameRef existing = INTERNED.putIfAbsent(name.fullName, ref);
+      if (existing == null) {
+        return name;
+      }
+      DefaultMetricName existingName = existing.get();
+      if (existingName != null) {
+        return existingName;
+      }
+      if (INTERNED.replace(name.fullName, existing, ref)) {
+        return name;
+      }
+    }
+  }
+
+  /**
+   * Remove the entries for names that have been garbage collected.
+   */
+  private static void expungeCollected() {
+    NameRef ref;
+    while ((ref = (NameRef) COLLECTED.poll()) != null) {
+      INTERNED.remove(ref.key, ref);
     }
-    return metricName;
+  }
+
+  private static String klassName(Class<?> klass, String name) {
+    String metricName = CLASS_NAMES.get(klass);
+    return (name == null || name.isEmpty()) ? metricName : metricName + "." + name;
+  }
+
+  /**
+   * Creates a new MetricNamegiven the class and method/name.
+   */
+  DefaultMetricName(Class<?> klass, String name) {
+    this(klassName(klass, name));
   }
 
   /**
    * Creates a new MetricName.
    */
   DefaultMetricName(String simpleName) {
+    this(simpleName, Tags.EMPTY);
+  }
+
+  /**
+   * Creates a new MetricName with tags.
+   */
+  DefaultMetricName(String simpleName, Tags tags) {
+    this(simpleName, tags, tags.isEmpty() ? simpleName : simpleName + tags);
+  }
+
+  private DefaultMetricName(String simpleName, Tags tags, String fullName) {
     this.simpleName = simpleName;
+    this.tags = tags;
+    this.fullName = fullName;
+    this.hash = 31 * simpleName.hashCode() + tags.hashCode();
   }
 
   /**
-   * Create a MetricName with the nameSuffix appended to the original name.
+   * Create a MetricName with the nameSuffix appended to the original name (keeping the tags).
    */
   @Override
   public MetricName append(String suffix) {
-    return new DefaultMetricName(simpleName + "." + suffix);
+    if (ERROR_SUFFIX.equals(suffix)) {
+      DefaultMetricName error = errorName;
+      if (error == null) {
+        error = of(simpleName + ERROR, tags);
+        errorName = error;
+      }
+      return error;
+    }
+    ConcurrentHashMap<String, DefaultMetricName> cached = appended;
+    if (cached != null) {
+      DefaultMetricName name = cached.get(suffix);
+      if (name != null) {
+        return name;
+      }
+    }
+    DefaultMetricName name = of(simpleName + "." + suffix, tags);
+    if (cached == null) {
+      cached = new ConcurrentHashMap<>(4);
+      appended = cached;
+    }
+    if (cached.size() < MAX_CACHED_APPENDED) {
+      cached.putIfAbsent(suffix, name);
+    }
+    return name;
+  }
+
+  @Override
+  public Tags getTags() {
+    return tags;
+  }
+
+  @Override
+  public MetricName tagged(Tags tags) {
+    return of(simpleName, tags);
   }
 
   /**
@@ -81,22 +231,41 @@ class DefaultMetricName implements MetricName {
       return false;
     }
     final DefaultMetricName that = (DefaultMetricName) o;
-    return simpleName.equals(that.simpleName);
+    return hash == that.hash && simpleName.equals(that.simpleName) && tags.equals(that.tags);
   }
 
   @Override
   public int hashCode() {
-    return simpleName.hashCode();
+    return hash;
   }
 
+  /**
+   * Return the simple name including the tags (if any).
+   */
   @Override
   public String toString() {
-    return simpleName;
+    return fullName;
   }
 
   @Override
   public int compareTo(MetricName o) {
-    return simpleName.compareTo(o.getSimpleName());
+    if (this == o) {
+      return 0;
+    }
+    int compare = simpleName.compareTo(o.getSimpleName());
+    return (compare != 0) ? compare : tags.toString().compareTo(o.getTags().toString());
   }
 
+  /**
+   * Weak reference to an interned name that removes itself from the table once collected.
+   */
+  private static final class NameRef extends WeakReference<DefaultMetricName> {
+
+    private final String key;
+
+    NameRef(DefaultMetricName name) {
+      super(name, COLLECTED);
+      this.key = name.fullName;
+    }
+  }
 }
@@ -4,6 +4,7 @@ import io.avaje.metrics.MetricName;
 import io.avaje.metrics.MetricNameCache;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
 
 /**
  * Provides a cache of MetricNames with a common base name derived from a class
@@ -20,18 +21,30 @@ final class DefaultMetricNameCache implements MetricNameCache {
 
   private final ConcurrentHashMap<String, MetricName> cache = new ConcurrentHashMap<>();
 
+  /**
+   * The eviction generation of the metric manager.
+   */
+  private final IntSupplier currentGeneration;
+
+  /**
+   * The eviction generation the cache is valid for.
+   */
+  private volatile int generation;
+
   /**
    * Create basing the name off the Class.
    */
   DefaultMetricNameCache(Class<?> klass) {
-    this(new DefaultMetricName(klass, ""));
+    this(DefaultMetricName.of(klass, ""), () -> 0);
   }
 
   /**
-   * Create providing a base MetricName.
+   * Create providing a base MetricName and the eviction generation of the metric manager.
    */
-  DefaultMetricNameCache(MetricName baseName) {
+  DefaultMetricNameCache(MetricName baseName, IntSupplier currentGeneration) {
     this.baseName = baseName;
+    this.currentGeneration = currentGeneration;
+    this.generation = currentGeneration.getAsInt();
   }
 
   /**
@@ -43,6 +56,13 @@ final class DefaultMetricNameCache implements MetricNameCache {
   @Override
   public MetricName get(String name) {
 
+    int current = currentGeneration.getAsInt();
+    if (current != generation) {
+      // metrics have been evicted, drop the names of dynamically named metrics
+      generation = current;
+      cache.clear();
+    }
+
     MetricName metricName = cache.get(name);
     if (metricName == null) {
       metricName = deriveWithName(name);
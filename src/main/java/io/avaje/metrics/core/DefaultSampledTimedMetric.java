@@ -0,0 +1,354 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedEvent;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+import io.avaje.metrics.statistics.WindowStatistics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Supplier;
+
+/**
+ * TimedMetric that only records a random sample of the events.
+ * <p>
+ * Each event is sampled with the given probability (for example 0.01 to sample 1 in 100) using
+ * ThreadLocalRandom. Events that are not sampled do not read the clock at all. The reported count
+ * and total are scaled back up by the inverse of the probability such that they estimate the full
+ * rate. The mean, max, min and standard deviation are those of the sampled events.
+ * </p>
+ * <p>
+ * When using {@link #start()} the returned token is {@link #NOT_SAMPLED} for events that are not
+ * sampled and ending that event does nothing.
+ * </p>
+ */
+final class DefaultSampledTimedMetric extends BaseTimedMetric implements TimedMetric, IdleTracked {
+
+  private static final AtomicReferenceFieldUpdater<DefaultSampledTimedMetric, ValueCounter> ERROR_COUNTER =
+    AtomicReferenceFieldUpdater.newUpdater(DefaultSampledTimedMetric.class, ValueCounter.class, "errorCounter");
+
+  /**
+   * The start token returned for events that are not sampled.
+   */
+  static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+  private static final TimedEvent UNSAMPLED_EVENT = new UnsampledEvent();
+
+  private final MetricName name;
+
+  private final Clock clock;
+
+  /**
+   * Sample when a random positive int is below this threshold.
+   */
+  private final long threshold;
+
+  /**
+   * The factor used to scale the count and total back up.
+   */
+  private final double scale;
+
+  private final ValueCounter successCounter;
+
+  /**
+   * The error counter, null until the first error.
+   */
+  private volatile ValueCounter errorCounter;
+
+  /**
+   * Optional rolling window of the sampled successful events.
+   */
+  private volatile RollingWindow window;
+
+  DefaultSampledTimedMetric(MetricName name, Clock clock, double sampleRate) {
+    this(name, clock, sampleRate, false);
+  }
+
+  DefaultSampledTimedMetric(MetricName name, Clock clock, double sampleRate, boolean cumulative) {
+    if (sampleRate <= 0 || sampleRate > 1) {
+      throw new IllegalArgumentException("sampleRate " + sampleRate + " must be greater than 0 and at most 1");
+    }
+    this.name = name;
+    this.clock = clock;
+    this.threshold = (long) Math.ceil(sampleRate * (1L << 31));
+    this.scale = 1d / sampleRate;
+    this.successCounter = new ValueCounter(name, clock, cumulative);
+  }
+
+  public String toString() {
+    return name.toString();
+  }
+
+  @Override
+  public MetricName getName() {
+    return name;
+  }
+
+  @Override
+  public boolean isBucket() {
+    return false;
+  }
+
+  @Override
+  public String getBucketRange() {
+    return "";
+  }
+
+  /**
+   * Return the factor by which the count and total are scaled.
+   */
+  double getScale() {
+    return scale;
+  }
+
+  @Override
+  public void enableRollingWindow(int maxSeconds) {
+    synchronized (this) {
+      if (window == null || window.getMaxSeconds() != maxSeconds) {
+        window = new RollingWindow(clock, maxSeconds);
+      }
+    }
+  }
+
+  /**
+   * Return the rolling window statistics with the count and total scaled to estimate the full rate.
+   */
+  @Override
+  public WindowStatistics rollingWindow(int seconds) {
+    RollingWindow current = window;
+    if (current == null) {
+      throw new IllegalStateException("Rolling window not enabled on " + name);
+    }
+    return current.statistics(seconds).scale(scale);
+  }
+
+  @Override
+  public boolean checkRecorded() {
+    ValueCounter errors = errorCounter;
+    boolean recorded = successCounter.checkRecorded();
+    return (errors != null && errors.checkRecorded()) || recorded;
+  }
+
+  @Override
+  public void clear() {
+    successCounter.reset();
+    ValueCounter errors = errorCounter;
+    if (errors != null) {
+      errors.reset();
+    }
+  }
+
+  /**
+   * Return the error counter creating it on the first error.
+   */
+  private ValueCounter errorCounter() {
+    ValueCounter errors = errorCounter;
+    if (errors == null) {
+      // if this fails another thread has created the error counter
+      ERROR_COUNTER.compareAndSet(this, null, successCounter.newErrorCounter(name));
+      errors = errorCounter;
+    }
+    return errors;
+  }
+
+  @Override
+  public void collect(MetricStatisticsVisitor collector) {
+
+    ValueCounter errors = errorCounter;
+    if (errors != null) {
+      DefaultValueStatistics errStats = errors.collectStatistics();
+      if (errStats != null) {
+        collector.visit(errStats.scale(scale));
+      }
+    }
+    DefaultValueStatistics successStats = successCounter.collectStatistics();
+    if (successStats != null) {
+      collector.visit(successStats.scale(scale));
+    }
+  }
+
+  /**
+   * Return true if this event should be recorded.
+   */
+  private boolean sample() {
+    return (ThreadLocalRandom.current().nextInt() & Integer.MAX_VALUE) < threshold;
+  }
+
+  @Override
+  public void time(Runnable event) {
+    if (!sample()) {
+      event.run();
+      return;
+    }
+    long start = clock.nanoTime();
+    try {
+      event.run();
+      record(true, start);
+    } catch (RuntimeException e) {
+      record(false, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public <T> T time(Supplier<T> event) {
+    if (!sample()) {
+      return event.get();
+    }
+    long start = clock.nanoTime();
+    try {
+      final T result = event.get();
+      record(true, start);
+      return result;
+    } catch (Exception e) {
+      record(false, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public long start() {
+    return sample() ? clock.nanoTime() : NOT_SAMPLED;
+  }
+
+  @Override
+  public void end(long startToken) {
+    if (startToken != NOT_SAMPLED) {
+      record(true, startToken);
+    }
+  }
+
+  @Override
+  public void endWithError(long startToken) {
+    if (startToken != NOT_SAMPLED) {
+      record(false, startToken);
+    }
+  }
+
+  @Override
+  public void end(long startToken, boolean withSuccess) {
+    if (startToken != NOT_SAMPLED) {
+      record(withSuccess, startToken);
+    }
+  }
+
+  @Override
+  public TimedEvent startEvent() {
+    return sample() ? new DefaultTimedMetricEvent(this) : UNSAMPLED_EVENT;
+  }
+
+  @Override
+  public void addEventDuration(boolean success, long durationNanos) {
+    if (sample()) {
+      addDuration(success, durationNanos);
+    }
+  }
+
+  @Override
+  public void addEventSince(boolean success, long startNanos) {
+    if (sample()) {
+      record(success, startNanos);
+    }
+  }
+
+  @Override
+  public void add(long startNanos) {
+    addEventSince(true, startNanos);
+  }
+
+  @Override
+  public void add(long startNanos, boolean activeThreadContext) {
+    addEventSince(true, startNanos);
+    if (activeThreadContext) {
+      NestedContext.pop();
+    }
+  }
+
+  @Override
+  public void addErr(long startNanos) {
+    addEventSince(false, startNanos);
+  }
+
+  @Override
+  public void addErr(long startNanos, boolean activeThreadContext) {
+    addEventSince(false, startNanos);
+    if (activeThreadContext) {
+      NestedContext.pop();
+    }
+  }
+
+  /**
+   * Record an event that has been sampled.
+   */
+  private void record(boolean success, long startNanos) {
+    addDuration(success, clock.nanosSince(startNanos));
+  }
+
+  private void addDuration(boolean success, long durationNanos) {
+    if (success) {
+      long micros = TimeUnit.NANOSECONDS.toMicros(durationNanos);
+      successCounter.add(micros);
+      RollingWindow current = window;
+      if (current != null) {
+        current.add(micros);
+      }
+    } else {
+      errorCounter().add(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+  }
+
+  private static final class DefaultTimedMetricEvent implements TimedEvent {
+
+    private final DefaultSampledTimedMetric metric;
+
+    private final long startNanos;
+
+    DefaultTimedMetricEvent(DefaultSampledTimedMetric metric) {
+      this.metric = metric;
+      this.startNanos = metric.clock.nanoTime();
+    }
+
+    public String toString() {
+      return metric.toString() + " durationMillis:" + metric.clock.nanosSince(startNanos);
+    }
+
+    @Override
+    public void end(boolean withSuccess) {
+      metric.record(withSuccess, startNanos);
+    }
+
+    @Override
+    public void end() {
+      end(true);
+    }
+
+    @Override
+    public void endWithError() {
+      end(false);
+    }
+  }
+
+  /**
+   * The event returned when the event is not sampled.
+   */
+  private static final class UnsampledEvent implements TimedEvent {
+
+    @Override
+    public void end() {
+      // not sampled
+    }
+
+    @Override
+    public void endWithError() {
+      // not sampled
+    }
+
+    @Override
+    public void end(boolean withSuccess) {
+      // not sampled
+    }
+  }
+}
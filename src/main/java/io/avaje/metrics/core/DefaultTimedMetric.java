@@ -3,10 +3,13 @@ package io.avaje.metrics.core;
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.TimedEvent;
 import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 import io.avaje.metrics.statistics.TimedStatistics;
+import io.avaje.metrics.statistics.WindowStatistics;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Supplier;
 
 /**
@@ -15,31 +18,62 @@ import java.util.function.Supplier;
  * The major difference compared with ValueMetric is that it is specifically oriented towards
  * collecting time duration and provides separate statistics for success and error completion.
  * </p>
+ * <p>
+ * The error counter is created lazily on the first error as most timed metrics never record an
+ * error.
+ * </p>
  */
-final class DefaultTimedMetric extends BaseTimedMetric implements TimedMetric {
+final class DefaultTimedMetric extends BaseTimedMetric implements TimedMetric, IdleTracked {
 
   private static final String noBuckets = "";
 
+  private static final long NANOS_PER_MICRO = 1000L;
+
+  private static final AtomicReferenceFieldUpdater<DefaultTimedMetric, ValueCounter> ERROR_COUNTER =
+    AtomicReferenceFieldUpdater.newUpdater(DefaultTimedMetric.class, ValueCounter.class, "errorCounter");
+
   private final MetricName name;
 
   private final String bucketRange;
 
   private final ValueCounter successCounter;
 
-  private final ValueCounter errorCounter;
+  /**
+   * The error counter, null until the first error.
+   */
+  private volatile ValueCounter errorCounter;
+
+  private final Clock clock;
+
+  /**
+   * Optional rolling window of the successful events.
+   */
+  private volatile RollingWindow window;
 
   DefaultTimedMetric(MetricName name) {
+    this(name, SystemClock.INSTANCE);
+  }
+
+  DefaultTimedMetric(MetricName name, Clock clock) {
+    this(name, clock, false);
+  }
+
+  DefaultTimedMetric(MetricName name, Clock clock, boolean cumulative) {
     this.name = name;
+    this.clock = clock;
     this.bucketRange = noBuckets;
-    this.successCounter = new ValueCounter(name);
-    this.errorCounter = new ValueCounter(name.append("error"));
+    this.successCounter = new ValueCounter(name, clock, cumulative);
   }
 
-  DefaultTimedMetric(MetricName name, String bucketRange) {
+  DefaultTimedMetric(MetricName name, String bucketRange, Clock clock) {
+    this(name, bucketRange, clock, false);
+  }
+
+  DefaultTimedMetric(MetricName name, String bucketRange, Clock clock, boolean cumulative) {
     this.name = name;
+    this.clock = clock;
     this.bucketRange = bucketRange;
-    this.successCounter = new ValueCounter(name, bucketRange);
-    this.errorCounter = new ValueCounter(name.append("error"));
+    this.successCounter = new ValueCounter(name, bucketRange, clock, cumulative);
   }
 
   public String toString() {
@@ -56,22 +90,69 @@ final class DefaultTimedMetric extends BaseTimedMetric implements TimedMetric {
     return bucketRange;
   }
 
+  @Override
+  public void enableRollingWindow(int maxSeconds) {
+    synchronized (this) {
+      if (window == null || window.getMaxSeconds() != maxSeconds) {
+        window = new RollingWindow(clock, maxSeconds);
+      }
+    }
+  }
+
+  @Override
+  public WindowStatistics rollingWindow(int seconds) {
+    RollingWindow current = window;
+    if (current == null) {
+      throw new IllegalStateException("Rolling window not enabled on " + name);
+    }
+    return current.statistics(seconds);
+  }
+
+  @Override
+  public boolean checkRecorded() {
+    ValueCounter errors = errorCounter;
+    boolean recorded = successCounter.checkRecorded();
+    return (errors != null && errors.checkRecorded()) || recorded;
+  }
+
   @Override
   public void clear() {
     successCounter.reset();
-    errorCounter.reset();
+    ValueCounter errors = errorCounter;
+    if (errors != null) {
+      errors.reset();
+    }
   }
 
-  protected static long getTickNanos() {
-    return System.nanoTime();
+  /**
+   * Return the error counter creating it on the first error.
+   */
+  private ValueCounter errorCounter() {
+    ValueCounter errors = errorCounter;
+    if (errors == null) {
+      // if this fails another thread has created the error counter
+      ERROR_COUNTER.compareAndSet(this, null, successCounter.newErrorCounter(name));
+      errors = errorCounter;
+    }
+    return errors;
+  }
+
+  /**
+   * Return the current nanos from the clock used by this metric.
+   */
+  long tickNanos() {
+    return clock.nanoTime();
   }
 
   @Override
   public void collect(MetricStatisticsVisitor collector) {
 
-    TimedStatistics errStats = errorCounter.collectStatistics();
-    if (errStats != null) {
-      collector.visit(errStats);
+    ValueCounter errors = errorCounter;
+    if (errors != null) {
+      TimedStatistics errStats = errors.collectStatistics();
+      if (errStats != null) {
+        collector.visit(errStats);
+      }
     }
     TimedStatistics successStats = successCounter.collectStatistics();
     if (successStats != null) {
@@ -85,7 +166,7 @@ final class DefaultTimedMetric extends BaseTimedMetric implements TimedMetric {
 
   @Override
   public void time(Runnable event) {
-    long start = System.nanoTime();
+    long start = clock.nanoTime();
     try {
       event.run();
       add(start);
@@ -97,7 +178,7 @@ final class DefaultTimedMetric extends BaseTimedMetric implements TimedMetric {
 
   @Override
   public <T> T time(Supplier<T> event) {
-    long start = System.nanoTime();
+    long start = clock.nanoTime();
     try {
       final T result = event.get();
       add(start);
@@ -108,6 +189,14 @@ final class DefaultTimedMetric extends BaseTimedMetric implements TimedMetric {
     }
   }
 
+  /**
+   * Return the start nanos as an allocation free token to pass to add() or addErr().
+   */
+  @Override
+  public long start() {
+    return clock.nanoTime();
+  }
+
   /**
    * Start an event.
    * <p>
@@ -129,9 +218,39 @@ final class DefaultTimedMetric extends BaseTimedMetric implements TimedMetric {
   @Override
   public void addEventDuration(boolean success, long durationNanos) {
     if (success) {
-      successCounter.add(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+      addSuccess(TimeUnit.NANOSECONDS.toMicros(durationNanos));
     } else {
-      errorCounter.add(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+      errorCounter().add(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+  }
+
+  /**
+   * Add a batch of event durations aggregating them locally and adding them once.
+   */
+  @Override
+  public void addEventDurations(boolean success, long[] durationNanos, int offset, int len) {
+    (success ? successCounter : errorCounter()).addAll(durationNanos, offset, len, NANOS_PER_MICRO);
+    RollingWindow current = window;
+    if (success && current != null && len > 0) {
+      long total = 0;
+      long max = Long.MIN_VALUE;
+      for (int i = offset, end = offset + len; i < end; i++) {
+        long micros = durationNanos[i] / NANOS_PER_MICRO;
+        total += micros;
+        max = Math.max(max, micros);
+      }
+      current.addBatch(len, total, max);
+    }
+  }
+
+  /**
+   * Add a batch of successful event durations in micros that have already been aggregated.
+   */
+  void addBatch(long count, long total, long max, long min, double sumSquares) {
+    successCounter.addBatch(count, total, max, min, sumSquares);
+    RollingWindow current = window;
+    if (current != null) {
+      current.addBatch(count, total, max);
     }
   }
 
@@ -140,17 +259,17 @@ final class DefaultTimedMetric extends BaseTimedMetric implements TimedMetric {
    */
   @Override
   public void addEventSince(boolean success, long startNanos) {
-    addEventDuration(success, System.nanoTime() - startNanos);
+    addEventDuration(success, clock.nanosSince(startNanos));
   }
 
   @Override
   public void add(long startNanos) {
-    successCounter.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    addSuccess(TimeUnit.NANOSECONDS.toMicros(clock.nanosSince(startNanos)));
   }
 
   @Override
   public void add(long startNanos, boolean activeThreadContext) {
-    successCounter.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    addSuccess(TimeUnit.NANOSECONDS.toMicros(clock.nanosSince(startNanos)));
     if (activeThreadContext) {
       NestedContext.pop();
     }
@@ -158,14 +277,22 @@ final class DefaultTimedMetric extends BaseTimedMetric implements TimedMetric {
 
   @Override
   public void addErr(long startNanos) {
-    errorCounter.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    errorCounter().add(TimeUnit.NANOSECONDS.toMicros(clock.nanosSince(startNanos)));
   }
 
   @Override
   public void addErr(long startNanos, boolean activeThreadContext) {
-    errorCounter.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    errorCounter().add(TimeUnit.NANOSECONDS.toMicros(clock.nanosSince(startNanos)));
     if (activeThreadContext) {
       NestedContext.pop();
     }
   }
+
+  private void addSuccess(long micros) {
+    successCounter.add(micros);
+    RollingWindow current = window;
+    if (current != null) {
+      current.add(micros);
+    }
+  }
 }
@@ -22,7 +22,7 @@ final class DefaultTimedMetricEvent implements TimedEvent {
    */
   DefaultTimedMetricEvent(DefaultTimedMetric metric) {
     this.metric = metric;
-    this.startNanos = DefaultTimedMetric.getTickNanos();
+    this.startNanos = metric.tickNanos();
   }
 
   public String toString() {
@@ -60,7 +60,7 @@ final class DefaultTimedMetricEvent implements TimedEvent {
    * Return the duration in nanos.
    */
   private long getDuration() {
-    return DefaultTimedMetric.getTickNanos() - startNanos;
+    return metric.tickNanos() - startNanos;
   }
 
 }
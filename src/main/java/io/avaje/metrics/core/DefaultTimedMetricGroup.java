@@ -1,6 +1,5 @@
 package io.avaje.metrics.core;
 
-import io.avaje.metrics.MetricManager;
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.MetricNameCache;
 import io.avaje.metrics.TimedEvent;
@@ -23,16 +22,25 @@ class DefaultTimedMetricGroup implements TimedMetricGroup {
 
   private final ConcurrentHashMap<String, TimedMetric> cache = new ConcurrentHashMap<String, TimedMetric>();
 
+  private final DefaultMetricManager manager;
+
   /**
    * The metric name cache.
    */
   private final MetricNameCache metricNameCache;
 
   /**
-   * Create the TimedMetricGroup.
+   * The eviction generation the cache is valid for.
+   */
+  private volatile int generation;
+
+  /**
+   * Create the TimedMetricGroup obtaining the metrics from the given metric manager.
    */
-  DefaultTimedMetricGroup(MetricName baseName) {
-    this.metricNameCache = MetricManager.nameCache(baseName);
+  DefaultTimedMetricGroup(DefaultMetricManager manager, MetricName baseName) {
+    this.manager = manager;
+    this.metricNameCache = manager.nameCache(baseName);
+    this.generation = manager.generation();
   }
 
   /**
@@ -72,17 +80,24 @@ class DefaultTimedMetricGroup implements TimedMetricGroup {
   @Override
   public TimedMetric timed(String name) {
 
+    int current = manager.generation();
+    if (current != generation) {
+      // metrics have been evicted, don't hold on to them
+      generation = current;
+      cache.clear();
+    }
+
     // try local cache first to try and avoid the name parse
     TimedMetric found = cache.get(name);
     if (found != null) {
       return found;
     }
 
-    // parse name and find/create using MetricManager
+    // parse name and find/create using the metric manager
     MetricName metricName = metricNameCache.get(name);
 
     // this is safe in that it is single threaded on construction/put
-    TimedMetric timedMetric = MetricManager.timed(metricName);
+    TimedMetric timedMetric = manager.timed(metricName);
     final TimedMetric existing = cache.putIfAbsent(name, timedMetric);
     return (existing != null) ? existing : timedMetric;
   }
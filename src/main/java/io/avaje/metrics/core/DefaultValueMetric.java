@@ -3,8 +3,10 @@ package io.avaje.metrics.core;
 import io.avaje.metrics.Metric;
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.ValueMetric;
+import io.avaje.metrics.spi.Clock;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 import io.avaje.metrics.statistics.ValueStatistics;
+import io.avaje.metrics.statistics.WindowStatistics;
 
 
 /**
@@ -12,18 +14,40 @@ import io.avaje.metrics.statistics.ValueStatistics;
  * or rows processed or time. Typically you would use TimedMetric for time based
  * events though.
  */
-final class DefaultValueMetric implements Metric, ValueMetric {
+final class DefaultValueMetric implements Metric, ValueMetric, IdleTracked {
 
   private final MetricName name;
 
   private final ValueCounter valueCounter;
 
+  private final Clock clock;
+
+  /**
+   * Optional rolling window of the values.
+   */
+  private volatile RollingWindow window;
+
   /**
    * Create with a name.
    */
   DefaultValueMetric(MetricName name) {
+    this(name, SystemClock.INSTANCE);
+  }
+
+  /**
+   * Create with a name and clock.
+   */
+  DefaultValueMetric(MetricName name, Clock clock) {
+    this(name, clock, false);
+  }
+
+  /**
+   * Create with a name, clock and whether collection resets the statistics.
+   */
+  DefaultValueMetric(MetricName name, Clock clock, boolean cumulative) {
     this.name = name;
-    this.valueCounter = new ValueCounter(name);
+    this.clock = clock;
+    this.valueCounter = new ValueCounter(name, clock, cumulative);
   }
 
   @Override
@@ -34,6 +58,29 @@ final class DefaultValueMetric implements Metric, ValueMetric {
     }
   }
 
+  @Override
+  public void enableRollingWindow(int maxSeconds) {
+    synchronized (this) {
+      if (window == null || window.getMaxSeconds() != maxSeconds) {
+        window = new RollingWindow(clock, maxSeconds);
+      }
+    }
+  }
+
+  @Override
+  public WindowStatistics rollingWindow(int seconds) {
+    RollingWindow current = window;
+    if (current == null) {
+      throw new IllegalStateException("Rolling window not enabled on " + name);
+    }
+    return current.statistics(seconds);
+  }
+
+  @Override
+  public boolean checkRecorded() {
+    return valueCounter.checkRecorded();
+  }
+
   @Override
   public void clear() {
     valueCounter.reset();
@@ -47,6 +94,25 @@ final class DefaultValueMetric implements Metric, ValueMetric {
   @Override
   public void addEvent(long value) {
     valueCounter.add(value);
+    RollingWindow current = window;
+    if (current != null) {
+      current.add(value);
+    }
+  }
+
+  @Override
+  public void addEvents(long[] values, int offset, int len) {
+    valueCounter.addAll(values, offset, len);
+    RollingWindow current = window;
+    if (current != null && len > 0) {
+      long total = 0;
+      long max = Long.MIN_VALUE;
+      for (int i = offset, end = offset + len; i < end; i++) {
+        total += values[i];
+        max = Math.max(max, values[i]);
+      }
+      current.addBatch(len, total, max);
+    }
   }
 
 
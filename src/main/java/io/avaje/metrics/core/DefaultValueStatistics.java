@@ -1,5 +1,6 @@
 package io.avaje.metrics.core;
 
+import io.avaje.metrics.Tags;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 import io.avaje.metrics.statistics.TimedStatistics;
 
@@ -19,21 +20,37 @@ class DefaultValueStatistics implements TimedStatistics {
 
   protected final long max;
 
+  protected final long min;
+
+  protected final double sumOfSquares;
+
   /**
    * Construct for TimeCounter.
    */
-  DefaultValueStatistics(ValueCounter owner, long collectionStart, long count, long total, long max) {
+  DefaultValueStatistics(ValueCounter owner, long collectionStart, long count, long total, long max, long min, double sumOfSquares) {
     this.owner = owner;
     this.startTime = collectionStart;
     this.count = count;
     this.total = total;
-    // collection is racy so sanitize the max value if it has not been set
-    // this most likely would happen when count = 1 so max = mean
+    // sanitize the max and min values if they have not been set
     this.max = max != Long.MIN_VALUE ? max : (count < 1 ? 0 : Math.round(total / count));
+    this.min = min != Long.MAX_VALUE ? min : (count < 1 ? 0 : Math.round(total / count));
+    this.sumOfSquares = sumOfSquares;
+  }
+
+  /**
+   * Return the statistics with the count and total scaled by the given factor.
+   * <p>
+   * Used with sampling to estimate the full count and total. The mean, max, min and
+   * variance are unchanged.
+   * </p>
+   */
+  DefaultValueStatistics scale(double factor) {
+    return new DefaultValueStatistics(owner, startTime, Math.round(count * factor), Math.round(total * factor), max, min, sumOfSquares * factor);
   }
 
   public String toString() {
-    return "count:" + count + " total:" + total + " max:" + max;
+    return "count:" + count + " total:" + total + " max:" + max + " min:" + min;
   }
 
   @Override
@@ -61,6 +78,11 @@ class DefaultValueStatistics implements TimedStatistics {
     return owner.getNameWithBucket();
   }
 
+  @Override
+  public Tags getTags() {
+    return owner.getTags();
+  }
+
   /**
    * Return the time the counter started statistics collection.
    */
@@ -93,6 +115,27 @@ class DefaultValueStatistics implements TimedStatistics {
     return max;
   }
 
+  /**
+   * Return the Min value collected.
+   */
+  @Override
+  public long getMin() {
+    return min;
+  }
+
+  /**
+   * Return the population variance of the values (NaN when variance is not tracked).
+   */
+  @Override
+  public double getVariance() {
+    if (count < 1) {
+      return 0;
+    }
+    double mean = (double) total / count;
+    // guard against rounding taking this slightly negative
+    return Math.max(0d, sumOfSquares / count - mean * mean);
+  }
+
   /**
    * Return the mean value rounded up.
    */
@@ -0,0 +1,60 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.statistics.WindowStatistics;
+
+/**
+ * Snapshot of the statistics of a rolling window.
+ */
+final class DefaultWindowStatistics implements WindowStatistics {
+
+  private final int seconds;
+
+  private final long count;
+
+  private final long total;
+
+  private final long max;
+
+  DefaultWindowStatistics(int seconds, long count, long total, long max) {
+    this.seconds = seconds;
+    this.count = count;
+    this.total = total;
+    this.max = count == 0 ? 0 : max;
+  }
+
+  /**
+   * Return the statistics with the count and total scaled by the given factor (used with sampling).
+   */
+  DefaultWindowStatistics scale(double factor) {
+    return new DefaultWindowStatistics(seconds, Math.round(count * factor), Math.round(total * factor), max);
+  }
+
+  public String toString() {
+    return "seconds:" + seconds + " count:" + count + " total:" + total + " max:" + max;
+  }
+
+  @Override
+  public int getSeconds() {
+    return seconds;
+  }
+
+  @Override
+  public long getCount() {
+    return count;
+  }
+
+  @Override
+  public long getTotal() {
+    return total;
+  }
+
+  @Override
+  public long getMax() {
+    return max;
+  }
+
+  @Override
+  public long getMean() {
+    return (count < 1) ? 0L : Math.round((double) total / count);
+  }
+}
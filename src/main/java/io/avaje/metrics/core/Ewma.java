@@ -0,0 +1,48 @@
+package io.avaje.metrics.core;
+
+/**
+ * Exponentially weighted moving average of a rate that is ticked every 5 seconds.
+ * <p>
+ * Not thread safe, the owner is expected to synchronise the tick.
+ * </p>
+ */
+final class Ewma {
+
+  static final long TICK_SECONDS = 5;
+
+  private final double alpha;
+
+  private boolean initialised;
+
+  /**
+   * The rate in events per second.
+   */
+  private double rate;
+
+  /**
+   * Create for the given number of minutes.
+   */
+  Ewma(int minutes) {
+    this.alpha = 1 - Math.exp(-TICK_SECONDS / 60d / minutes);
+  }
+
+  /**
+   * Tick the average with the number of events in the last tick interval.
+   */
+  void tick(long events) {
+    double instantRate = (double) events / TICK_SECONDS;
+    if (initialised) {
+      rate += alpha * (instantRate - rate);
+    } else {
+      rate = instantRate;
+      initialised = true;
+    }
+  }
+
+  /**
+   * Return the rate in events per second.
+   */
+  double getRate() {
+    return rate;
+  }
+}
@@ -0,0 +1,27 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
+
+class HistogramTimedMetricFactory implements MetricFactory<TimedMetric> {
+
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  HistogramTimedMetricFactory(Clock clock) {
+    this(clock, false);
+  }
+
+  HistogramTimedMetricFactory(Clock clock, boolean cumulative) {
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
+  @Override
+  public TimedMetric createMetric(MetricName name, int[] bucketRanges) {
+    return new DefaultHistogramTimedMetric(name, clock, cumulative);
+  }
+
+}
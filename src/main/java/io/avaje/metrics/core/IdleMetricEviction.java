@@ -0,0 +1,200 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.Metric;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evicts metrics from the registry that have recorded nothing for a number of collections.
+ * <p>
+ * Whether a metric recorded values is the flag of the {@link IdleTracked} metric checked before
+ * the metric is collected (rather than whether collection produced statistics which in cumulative
+ * mode it does for metrics that have ever recorded values).
+ * </p>
+ * <p>
+ * Evicted metrics are held weakly. If application code still holds an evicted metric and records
+ * values on it the metric is collected and put back into the registry, and looking up the metric
+ * by name returns the same instance. Once an evicted metric is garbage collected the cardinality
+ * limit it used is released.
+ * </p>
+ * <p>
+ * Caches of metrics and names (such as TimedMetricGroup) check the {@link #generation()} of the
+ * metric manager they were created by and clear themselves after evictions such that they do not
+ * hold on to evicted metrics.
+ * </p>
+ * <p>
+ * Collection and clear are called by one thread at a time. Revive is called by application
+ * threads when a metric is created.
+ * </p>
+ */
+final class IdleMetricEviction {
+
+  private final int maxIdle;
+
+  private final CardinalityLimiter limiter;
+
+  /**
+   * The number of collections in a row the metric has recorded nothing.
+   */
+  private final Map<String, Integer> idleCounts = new HashMap<>();
+
+  private final ConcurrentMap<String, WeakReference<Metric>> evicted = new ConcurrentHashMap<>();
+
+  private final AtomicInteger generation = new AtomicInteger();
+
+  /**
+   * Create evicting metrics after the given number of idle collections.
+   */
+  IdleMetricEviction(int maxIdle, CardinalityLimiter limiter) {
+    this.maxIdle = maxIdle;
+    this.limiter = limiter;
+  }
+
+  /**
+   * Return the eviction generation which changes when metrics are evicted.
+   */
+  int generation() {
+    return generation.get();
+  }
+
+  /**
+   * Collect the registered metrics evicting the ones that have been idle too long.
+   * <p>
+   * The evicted metrics should be collected first via {@link #collectEvicted}.
+   * </p>
+   */
+  void collect(ConcurrentHashMap<String, Metric> metricsCache, DStatsCollector collector) {
+    boolean evictedAny = false;
+    for (Map.Entry<String, Metric> entry : metricsCache.entrySet()) {
+      Metric metric = entry.getValue();
+      boolean recorded = checkRecorded(metric);
+      metric.collect(collector);
+      evictedAny |= checkIdle(entry.getKey(), metric, recorded, metricsCache);
+    }
+    if (evictedAny) {
+      generation.incrementAndGet();
+    }
+  }
+
+  /**
+   * Check (and reset) whether each of the metrics recorded values before they are collected.
+   */
+  static boolean[] checkRecorded(Metric[] metrics) {
+    boolean[] recorded = new boolean[metrics.length];
+    for (int i = 0; i < metrics.length; i++) {
+      recorded[i] = checkRecorded(metrics[i]);
+    }
+    return recorded;
+  }
+
+  private static boolean checkRecorded(Metric metric) {
+    return metric instanceof IdleTracked && ((IdleTracked) metric).checkRecorded();
+  }
+
+  /**
+   * Evict the idle metrics given the metrics that were collected (in parallel).
+   *
+   * @param keys     The keys of the collected metrics
+   * @param metrics  The collected metrics
+   * @param recorded Per metric, true if the metric recorded values (from {@link #checkRecorded(Metric[])})
+   */
+  void evictIdle(String[] keys, Metric[] metrics, boolean[] recorded, ConcurrentHashMap<String, Metric> metricsCache) {
+    boolean evictedAny = false;
+    for (int i = 0; i < keys.length; i++) {
+      evictedAny |= checkIdle(keys[i], metrics[i], recorded[i], metricsCache);
+    }
+    if (evictedAny) {
+      generation.incrementAndGet();
+    }
+  }
+
+  /**
+   * Update the idle count of the metric returning true if it was evicted.
+   */
+  private boolean checkIdle(String key, Metric metric, boolean recorded, ConcurrentHashMap<String, Metric> metricsCache) {
+    if (!isEvictable(key, metric)) {
+      return false;
+    }
+    if (recorded) {
+      idleCounts.remove(key);
+      return false;
+    }
+    if (idleCounts.merge(key, 1, Integer::sum) < maxIdle) {
+      return false;
+    }
+    idleCounts.remove(key);
+    // put into evicted first such that a concurrent lookup revives rather than creates
+    WeakReference<Metric> ref = new WeakReference<>(metric);
+    evicted.put(key, ref);
+    if (metricsCache.remove(key, metric)) {
+      return true;
+    }
+    evicted.remove(key, ref);
+    return false;
+  }
+
+  /**
+   * Collect evicted metrics that are still referenced putting them back into the registry when
+   * they have recorded values.
+   */
+  void collectEvicted(ConcurrentHashMap<String, Metric> metricsCache, DStatsCollector collector) {
+    for (Map.Entry<String, WeakReference<Metric>> entry : evicted.entrySet()) {
+      String key = entry.getKey();
+      WeakReference<Metric> ref = entry.getValue();
+      Metric metric = ref.get();
+      if (metric == null) {
+        if (evicted.remove(key, ref)) {
+          limiter.release(key);
+        }
+      } else {
+        boolean recorded = checkRecorded(metric);
+        metric.collect(collector);
+        // remove from evicted unless concurrently revived
+        if (recorded && evicted.remove(key, ref)) {
+          if (metricsCache.putIfAbsent(key, metric) != null) {
+            // replaced by another metric with the same name
+            limiter.release(key);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the evicted metric for the key to put back into the registry (null if not evicted).
+   */
+  Metric revive(String key) {
+    WeakReference<Metric> ref = evicted.remove(key);
+    if (ref == null) {
+      return null;
+    }
+    Metric metric = ref.get();
+    if (metric == null) {
+      limiter.release(key);
+    }
+    return metric;
+  }
+
+  /**
+   * Clear the state for all the metrics (all metrics removed).
+   */
+  void clear() {
+    idleCounts.clear();
+    evicted.clear();
+  }
+
+  /**
+   * Return true for metrics created on demand (not registered gauges or the overflow metrics).
+   */
+  private static boolean isEvictable(String key, Metric metric) {
+    if (key.startsWith(DefaultMetricManager.METRICS_OVERFLOW) || key.equals(DefaultMetricManager.METRICS_REJECTED)) {
+      return false;
+    }
+    return metric instanceof IdleTracked;
+  }
+}
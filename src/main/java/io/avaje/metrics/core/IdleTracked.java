@@ -0,0 +1,16 @@
+package io.avaje.metrics.core;
+
+/**
+ * A metric that flags when values are recorded such that metrics that are idle can be evicted.
+ * <p>
+ * The flag is set after the values are recorded such that values recorded before the flag is
+ * checked are included in a collection that follows the check.
+ * </p>
+ */
+interface IdleTracked {
+
+  /**
+   * Return true if values have been recorded since the last call resetting the flag.
+   */
+  boolean checkRecorded();
+}
@@ -112,7 +112,7 @@ class JvmCGroupCpuMetricGroup {
   }
 
   private MetricName name(String s) {
-    return new DefaultMetricName(s);
+    return DefaultMetricName.of(s);
   }
 
   static class CpuUsageMicros implements GaugeLong {
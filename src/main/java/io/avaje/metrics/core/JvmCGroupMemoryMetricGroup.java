@@ -94,7 +94,7 @@ class JvmCGroupMemoryMetricGroup {
   }
 
   private MetricName name(String s) {
-    return new DefaultMetricName(s);
+    return DefaultMetricName.of(s);
   }
 
 }
@@ -38,11 +38,11 @@ final class JvmGarbageCollectionMetricGroup {
    */
   private static DefaultGaugeLongMetric createTotalGcTime(List<GarbageCollectorMXBean> garbageCollectorMXBeans) {
     GarbageCollectorMXBean[] gcBeans = garbageCollectorMXBeans.toArray(new GarbageCollectorMXBean[0]);
-    return DefaultGaugeLongMetric.incrementing(new DefaultMetricName("jvm.gc.time"), new TotalTime(gcBeans));
+    return DefaultGaugeLongMetric.incrementing(DefaultMetricName.of("jvm.gc.time"), new TotalTime(gcBeans));
   }
 
   private static MetricName name(String prefix, String gcName) {
-    return new DefaultMetricName("jvm.gc." + prefix + "." + gcName);
+    return DefaultMetricName.of("jvm.gc." + prefix + "." + gcName);
   }
 
   private static class Count implements GaugeLong {
@@ -56,7 +56,7 @@ final class JvmMemoryMetricGroup {
    */
   static List<Metric> createHeapGroup(boolean reportChangesOnly) {
 
-    MetricName heapName = new DefaultMetricName("jvm.memory.heap");
+    MetricName heapName = DefaultMetricName.of("jvm.memory.heap");
     HeapMemoryUsageSource source = new HeapMemoryUsageSource(ManagementFactory.getMemoryMXBean());
     return createGroup(heapName, source, reportChangesOnly);
   }
@@ -65,7 +65,7 @@ final class JvmMemoryMetricGroup {
    * Create the NonHeap Memory based GaugeDoubleMetricGroup.
    */
   static List<Metric> createNonHeapGroup(boolean reportChangesOnly) {
-    MetricName nonHeapName = new DefaultMetricName("jvm.memory.nonheap");
+    MetricName nonHeapName = DefaultMetricName.of("jvm.memory.nonheap");
     NonHeapMemoryUsageSource source = new NonHeapMemoryUsageSource(ManagementFactory.getMemoryMXBean());
     return createGroup(nonHeapName, source, reportChangesOnly);
   }
@@ -56,7 +56,7 @@ final class JvmProcessMemory {
 
     FileLines procStatus = new FileLines("/proc/" + pid + "/status");
     if (procStatus.exists()) {
-      MetricName baseName = new DefaultMetricName("jvm.memory.process");
+      MetricName baseName = DefaultMetricName.of("jvm.memory.process");
       MetricName vmRssName = baseName.append("vmrss");
       MetricName vmHwmName = baseName.append("vmhwm");
 
@@ -14,7 +14,7 @@ class JvmSystemMetricGroup {
 
   static GaugeLongMetric getOsLoadAvgMetric() {
     GaugeLong osLoadAvg = new OsLoadGauge(ManagementFactory.getOperatingSystemMXBean());
-    return new DefaultGaugeLongMetric(new DefaultMetricName("jvm.os.loadAverage"), osLoadAvg);
+    return new DefaultGaugeLongMetric(DefaultMetricName.of("jvm.os.loadAverage"), osLoadAvg);
   }
 
   static long toLoad(double loadAverage) {
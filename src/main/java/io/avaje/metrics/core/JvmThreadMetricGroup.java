@@ -25,7 +25,7 @@ final class JvmThreadMetricGroup {
     }
 
     public List<Metric> createMetrics(boolean reportChangesOnly, boolean withDetails) {
-      MetricName baseName = new DefaultMetricName("jvm.threads");
+      MetricName baseName = DefaultMetricName.of("jvm.threads");
       List<Metric> metrics = new ArrayList<>(3);
 
       metrics.add(new DefaultGaugeLongMetric(baseName.append("current"), new Count(threadMXBean), reportChangesOnly));
@@ -0,0 +1,161 @@
+package io.avaje.metrics.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of long values (typically microseconds) used to report percentiles.
+ * <p>
+ * Each power of two range is split into 32 linear sub-buckets such that the value reported for
+ * a percentile has a relative error of at most 1/32 (about 3%). Values below 32 are recorded
+ * exactly and values above 2^40 are clamped into the last bucket.
+ * </p>
+ * <p>
+ * The buckets are allocated up front (fixed memory) and recording a value is a single lock free
+ * increment with no allocation.
+ * </p>
+ */
+final class LogLinearHistogram {
+
+  /**
+   * The number of bits used for the linear sub-buckets of each power of two.
+   */
+  private static final int SUB_BUCKET_BITS = 5;
+
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+  /**
+   * The highest power of two tracked (2^39 micros is a little over 6 days).
+   */
+  private static final int MAX_EXPONENT = 39;
+
+  private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+  static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+  /**
+   * Add a value to the histogram.
+   */
+  void add(long value) {
+    counts.getAndIncrement(index(value));
+  }
+
+  /**
+   * Return the bucket index for the given value.
+   */
+  static int index(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return value < 0 ? 0 : (int) value;
+    }
+    if (value > MAX_VALUE) {
+      value = MAX_VALUE;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+  }
+
+  /**
+   * Return the lowest value that is recorded into the bucket at the given index.
+   */
+  static long lowestValue(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = (index >>> SUB_BUCKET_BITS) - 1;
+    return (long) (SUB_BUCKET_COUNT + (index & SUB_BUCKET_MASK)) << shift;
+  }
+
+  /**
+   * Return the highest value that is recorded into the bucket at the given index.
+   */
+  static long highestValue(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = (index >>> SUB_BUCKET_BITS) - 1;
+    return lowestValue(index) + (1L << shift) - 1;
+  }
+
+  /**
+   * Return true if no values have been recorded.
+   */
+  boolean isEmpty() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      if (counts.get(i) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reset all the buckets.
+   */
+  void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      if (counts.get(i) != 0) {
+        counts.set(i, 0);
+      }
+    }
+  }
+
+  /**
+   * Return the values at the given percentiles (0 to 100) resetting the histogram in the process.
+   * <p>
+   * The value returned for each percentile is the highest value of the bucket it falls into. This
+   * returns all zeros when no values have been recorded.
+   * </p>
+   */
+  long[] percentilesThenReset(double... percentiles) {
+    long[] snapshot = new long[BUCKET_COUNT];
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      // only write to buckets that have values
+      if (counts.get(i) != 0) {
+        long count = counts.getAndSet(i, 0);
+        snapshot[i] = count;
+        total += count;
+      }
+    }
+    return percentiles(snapshot, total, percentiles);
+  }
+
+  /**
+   * Return the values at the given percentiles without resetting the histogram.
+   */
+  long[] percentiles(double... percentiles) {
+    long[] snapshot = new long[BUCKET_COUNT];
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      long count = counts.get(i);
+      snapshot[i] = count;
+      total += count;
+    }
+    return percentiles(snapshot, total, percentiles);
+  }
+
+  /**
+   * Return the values at the given percentiles for the bucket counts.
+   */
+  static long[] percentiles(long[] snapshot, long total, double... percentiles) {
+    long[] values = new long[percentiles.length];
+    if (total == 0) {
+      return values;
+    }
+    for (int p = 0; p < percentiles.length; p++) {
+      long rank = Math.max(1L, (long) Math.ceil(percentiles[p] / 100d * total));
+      long cumulative = 0;
+      for (int i = 0; i < snapshot.length; i++) {
+        cumulative += snapshot[i];
+        if (cumulative >= rank) {
+          values[p] = highestValue(i);
+          break;
+        }
+      }
+    }
+    return values;
+  }
+}
@@ -0,0 +1,245 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.statistics.TimedAdapter;
+import io.avaje.metrics.statistics.TimedStatistics;
+
+import java.nio.ByteBuffer;
+
+import static io.avaje.metrics.core.MappedMetricStore.COUNT;
+import static io.avaje.metrics.core.MappedMetricStore.MAX;
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_ERROR;
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_SEQUENCE;
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_START_TIME;
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_SUCCESS;
+import static io.avaje.metrics.core.MappedMetricStore.TOTAL;
+
+/**
+ * A slot of the memory mapped metric store.
+ * <p>
+ * Values are recorded directly into the mapped slot. The slot sequence is used as both a writer
+ * lock and a seqlock for readers. A writer CAS's the sequence from even to odd (a full fence),
+ * updates the values and then increments the sequence to even with an ordered write such that the
+ * value writes are visible before the sequence. An external reader reads the sequence, the values
+ * and then (after a load fence) the sequence again retrying when the sequence is odd or has changed.
+ * </p>
+ * <p>
+ * The counts, totals and max in the slot are since the metric was created (or cleared) such that
+ * external readers compute their own deltas and are not affected by collection in this process.
+ * Collection in this process reports the change since the last collection with the max of that
+ * interval held on the heap (updated holding the slot lock).
+ * </p>
+ */
+final class MappedCell {
+
+  /**
+   * The mapped buffer (the address is only valid while the buffer is reachable).
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * The address of the slot.
+   */
+  private final long address;
+
+  /**
+   * The max since the last collection for success and error, guarded by the slot lock.
+   */
+  private final long[] intervalMax = {Long.MIN_VALUE, Long.MIN_VALUE};
+
+  /**
+   * The count and total at the last collection for success and error, guarded by this.
+   */
+  private final long[] collected = new long[4];
+
+  /**
+   * The start of the current interval for success and error, guarded by this.
+   */
+  private final long[] intervalStart = new long[2];
+
+  /**
+   * Set when values are recorded, reset by {@link #checkRecorded()}.
+   */
+  private volatile boolean recorded;
+
+  MappedCell(ByteBuffer buffer, int offset, long startTime) {
+    this.buffer = buffer;
+    this.address = MappedMemory.address(buffer) + offset;
+    this.intervalStart[0] = startTime;
+    this.intervalStart[1] = startTime;
+  }
+
+  private static int index(int base) {
+    return (base == SLOT_SUCCESS) ? 0 : 1;
+  }
+
+  private long get(int field) {
+    return MappedMemory.getLong(address + field);
+  }
+
+  private void put(int field, long value) {
+    MappedMemory.putLong(address + field, value);
+  }
+
+  /**
+   * Lock the slot setting the sequence to odd and returning it.
+   */
+  private long lock() {
+    while (true) {
+      long sequence = MappedMemory.getLongVolatile(address + SLOT_SEQUENCE);
+      if ((sequence & 1) == 0) {
+        if (MappedMemory.compareAndSwapLong(address + SLOT_SEQUENCE, sequence, sequence + 1)) {
+          return sequence + 1;
+        }
+      } else {
+        Thread.yield();
+      }
+    }
+  }
+
+  /**
+   * Unlock the slot publishing the values written (sequence even).
+   */
+  private void unlock(long sequence) {
+    MappedMemory.putOrderedLong(address + SLOT_SEQUENCE, sequence + 1);
+  }
+
+  /**
+   * Add to the count (counter metrics).
+   */
+  void add(long count) {
+    long sequence = lock();
+    put(SLOT_SUCCESS + COUNT, get(SLOT_SUCCESS + COUNT) + count);
+    unlock(sequence);
+    if (!recorded) {
+      recorded = true;
+    }
+  }
+
+  /**
+   * Add a value to the success or error values.
+   */
+  void addValue(int base, long value) {
+    addValues(base, 1, value, value);
+  }
+
+  /**
+   * Add values that have already been aggregated to the success or error values.
+   */
+  void addValues(int base, long count, long total, long max) {
+    int i = index(base);
+    long sequence = lock();
+    put(base + COUNT, get(base + COUNT) + count);
+    put(base + TOTAL, get(base + TOTAL) + total);
+    if (max > get(base + MAX)) {
+      put(base + MAX, max);
+    }
+    if (max > intervalMax[i]) {
+      intervalMax[i] = max;
+    }
+    unlock(sequence);
+    if (!recorded) {
+      recorded = true;
+    }
+  }
+
+  /**
+   * Return true if values have been recorded since the last call resetting the flag.
+   */
+  boolean checkRecorded() {
+    if (!recorded) {
+      return false;
+    }
+    recorded = false;
+    return true;
+  }
+
+  /**
+   * Return the count of the success or error values.
+   */
+  long getCount(int base) {
+    return MappedMemory.getLongVolatile(address + base + COUNT);
+  }
+
+  long getTotal(int base) {
+    return MappedMemory.getLongVolatile(address + base + TOTAL);
+  }
+
+  long getMax(int base) {
+    long max = MappedMemory.getLongVolatile(address + base + MAX);
+    return (max == Long.MIN_VALUE) ? 0 : max;
+  }
+
+  /**
+   * Collect the count (counter metrics) returning null if there is nothing to report.
+   */
+  synchronized DefaultCounterStatistics collectCount(MetricName name, boolean cumulative, long now) {
+    long count = MappedMemory.getLongVolatile(address + SLOT_SUCCESS + COUNT);
+    if (cumulative) {
+      return (count == 0) ? null : new DefaultCounterStatistics(name, MappedMemory.getLongVolatile(address + SLOT_START_TIME), count);
+    }
+    long delta = count - collected[0];
+    long start = intervalStart[0];
+    intervalStart[0] = now;
+    if (delta == 0) {
+      return null;
+    }
+    collected[0] = count;
+    return new DefaultCounterStatistics(name, start, delta);
+  }
+
+  /**
+   * Collect the success or error values returning null if there is nothing to report.
+   */
+  synchronized TimedStatistics collectValues(MetricName name, int base, boolean cumulative, long now) {
+    int i = index(base);
+    long sequence = lock();
+    long count = get(base + COUNT);
+    long total = get(base + TOTAL);
+    long max = cumulative ? get(base + MAX) : intervalMax[i];
+    if (!cumulative) {
+      intervalMax[i] = Long.MIN_VALUE;
+    }
+    long startTime = get(SLOT_START_TIME);
+    unlock(sequence);
+    if (cumulative) {
+      return (count == 0) ? null : statistics(name, base, startTime, count, total, max);
+    }
+    long deltaCount = count - collected[i * 2];
+    long deltaTotal = total - collected[i * 2 + 1];
+    long start = intervalStart[i];
+    intervalStart[i] = now;
+    if (deltaCount == 0) {
+      return null;
+    }
+    collected[i * 2] = count;
+    collected[i * 2 + 1] = total;
+    return statistics(name, base, start, deltaCount, deltaTotal, max);
+  }
+
+  private static TimedStatistics statistics(MetricName name, int base, long start, long count, long total, long max) {
+    String statsName = (base == SLOT_ERROR) ? name.append("error").getSimpleName() : name.getSimpleName();
+    return new TimedAdapter(statsName, name.getTags(), statsName, start, count, total, max);
+  }
+
+  /**
+   * Reset the values and start time.
+   */
+  synchronized void clear(long now) {
+    long sequence = lock();
+    for (int base : new int[]{SLOT_SUCCESS, SLOT_ERROR}) {
+      put(base + COUNT, 0);
+      put(base + TOTAL, 0);
+      put(base + MAX, Long.MIN_VALUE);
+    }
+    put(SLOT_START_TIME, now);
+    intervalMax[0] = Long.MIN_VALUE;
+    intervalMax[1] = Long.MIN_VALUE;
+    unlock(sequence);
+    for (int i = 0; i < collected.length; i++) {
+      collected[i] = 0;
+    }
+    intervalStart[0] = now;
+    intervalStart[1] = now;
+  }
+}
@@ -0,0 +1,66 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.CounterMetric;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.spi.Clock;
+import io.avaje.metrics.statistics.CounterStatistics;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+
+/**
+ * CounterMetric with the count held in a slot of the memory mapped metric store.
+ */
+final class MappedCounterMetric implements CounterMetric, IdleTracked {
+
+  private final MetricName name;
+
+  private final MappedCell cell;
+
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  MappedCounterMetric(MetricName name, MappedCell cell, Clock clock, boolean cumulative) {
+    this.name = name;
+    this.cell = cell;
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
+  @Override
+  public MetricName getName() {
+    return name;
+  }
+
+  @Override
+  public boolean checkRecorded() {
+    return cell.checkRecorded();
+  }
+
+  @Override
+  public void clear() {
+    cell.clear(clock.currentTimeMillis());
+  }
+
+  @Override
+  public void collect(MetricStatisticsVisitor collector) {
+    CounterStatistics stats = cell.collectCount(name, cumulative, clock.currentTimeMillis());
+    if (stats != null) {
+      collector.visit(stats);
+    }
+  }
+
+  @Override
+  public void inc() {
+    cell.add(1);
+  }
+
+  @Override
+  public void inc(long numberOfEventsOccurred) {
+    cell.add(numberOfEventsOccurred);
+  }
+
+  @Override
+  public long getCount() {
+    return cell.getCount(MappedMetricStore.SLOT_SUCCESS);
+  }
+}
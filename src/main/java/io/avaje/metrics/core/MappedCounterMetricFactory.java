@@ -0,0 +1,36 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.CounterMetric;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.spi.Clock;
+
+/**
+ * Creates CounterMetrics held in the memory mapped metric store.
+ * <p>
+ * When the store is full the metric is created on heap (and is not visible to external readers).
+ * </p>
+ */
+class MappedCounterMetricFactory implements MetricFactory<CounterMetric> {
+
+  private final MappedMetricStore store;
+
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  MappedCounterMetricFactory(MappedMetricStore store, Clock clock, boolean cumulative) {
+    this.store = store;
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
+  @Override
+  public CounterMetric createMetric(MetricName name, int[] bucketRanges) {
+    MappedCell cell = store.allocate(name, MappedMetricStore.TYPE_COUNTER, clock.currentTimeMillis());
+    if (cell == null) {
+      return new DefaultCounterMetric(name, clock, cumulative);
+    }
+    return new MappedCounterMetric(name, cell, clock, cumulative);
+  }
+
+}
@@ -0,0 +1,100 @@
+package io.avaje.metrics.core;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Ordered and atomic access to the memory of a direct (memory mapped) buffer.
+ * <p>
+ * Java 8 has no ordered or atomic access to a ByteBuffer so this uses <code>sun.misc.Unsafe</code>
+ * on the address of the buffer. Values are read and written in native byte order.
+ * </p>
+ */
+final class MappedMemory {
+
+  private static final Unsafe UNSAFE;
+
+  private static final long ADDRESS_OFFSET;
+
+  static {
+    Unsafe unsafe = null;
+    long addressOffset = -1;
+    try {
+      Field field = Unsafe.class.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = (Unsafe) field.get(null);
+      addressOffset = unsafe.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      unsafe = null;
+    }
+    UNSAFE = unsafe;
+    ADDRESS_OFFSET = addressOffset;
+  }
+
+  private MappedMemory() {
+  }
+
+  /**
+   * Return true if Unsafe is available such that mapped memory can be used.
+   */
+  static boolean isAvailable() {
+    return UNSAFE != null;
+  }
+
+  /**
+   * Return the address of the direct buffer.
+   * <p>
+   * The buffer must be kept reachable while the address is used as the memory is unmapped when
+   * the buffer is garbage collected.
+   * </p>
+   */
+  static long address(ByteBuffer buffer) {
+    if (!buffer.isDirect()) {
+      throw new IllegalArgumentException("buffer is not direct");
+    }
+    return UNSAFE.getLong(buffer, ADDRESS_OFFSET);
+  }
+
+  static long getLong(long address) {
+    return UNSAFE.getLong(address);
+  }
+
+  static void putLong(long address, long value) {
+    UNSAFE.putLong(address, value);
+  }
+
+  /**
+   * Read with acquire semantics (later reads are not reordered before this read).
+   */
+  static long getLongVolatile(long address) {
+    return UNSAFE.getLongVolatile(null, address);
+  }
+
+  /**
+   * Write with release semantics (earlier writes are not reordered after this write).
+   */
+  static void putOrderedLong(long address, long value) {
+    UNSAFE.putOrderedLong(null, address, value);
+  }
+
+  static boolean compareAndSwapLong(long address, long expected, long value) {
+    return UNSAFE.compareAndSwapLong(null, address, expected, value);
+  }
+
+  /**
+   * Earlier reads are not reordered with later reads or writes.
+   */
+  static void loadFence() {
+    UNSAFE.loadFence();
+  }
+
+  /**
+   * Earlier writes are not reordered with later writes.
+   */
+  static void storeFence() {
+    UNSAFE.storeFence();
+  }
+}
@@ -0,0 +1,167 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.statistics.CounterStatistics;
+import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.TimedAdapter;
+import io.avaje.metrics.statistics.ValueStatistics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.avaje.metrics.core.MappedMetricStore.COUNT;
+import static io.avaje.metrics.core.MappedMetricStore.MAX;
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_ERROR;
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_SEQUENCE;
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_START_TIME;
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_SUCCESS;
+import static io.avaje.metrics.core.MappedMetricStore.TOTAL;
+
+/**
+ * Reads the live metric values from a memory mapped metric file.
+ * <p>
+ * This is intended to be used from a separate process (sidecar or command line) to read the
+ * metrics of an application that was started with the <code>metrics.mapped.file</code> system
+ * property. The counts and totals are since the metric was created (or cleared) such that the
+ * reader computes deltas as required.
+ * </p>
+ * <p>
+ * The application records directly into the slots such that the values read are live. Each slot
+ * is read as a seqlock (the sequence, the values and after a load fence the sequence again)
+ * retrying while the slot is being updated such that the values are consistent.
+ * </p>
+ * <pre>{@code
+ *
+ *   java -cp metrics.jar io.avaje.metrics.core.MappedMetricReader /tmp/app-metrics.dat
+ *
+ * }</pre>
+ */
+public final class MappedMetricReader {
+
+  /**
+   * The number of attempts to read a consistent slot before using the values read.
+   */
+  private static final int MAX_ATTEMPTS = 1000;
+
+  private MappedMetricReader() {
+  }
+
+  /**
+   * Print the metrics of the given file.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: MappedMetricReader <file>");
+      System.exit(1);
+    }
+    for (MetricStatistics stats : read(new File(args[0]))) {
+      System.out.println(format(stats));
+    }
+  }
+
+  /**
+   * Read the current metric values from the file.
+   * <p>
+   * Counter metrics are returned as {@link CounterStatistics} and value and timed metrics as
+   * {@link io.avaje.metrics.statistics.TimedStatistics} with timed errors as a separate entry
+   * using the ".error" suffix. Metrics with no values are not included.
+   * </p>
+   */
+  public static List<MetricStatistics> read(File file) throws IOException {
+    ByteBuffer buffer;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+    }
+    buffer.order(ByteOrder.nativeOrder());
+    if (buffer.capacity() < MappedMetricStore.HEADER_BYTES || buffer.getLong(MappedMetricStore.HEADER_MAGIC) != MappedMetricStore.MAGIC) {
+      throw new IOException("Not a metrics file " + file);
+    }
+    int version = buffer.getInt(MappedMetricStore.HEADER_VERSION);
+    if (version != MappedMetricStore.VERSION) {
+      throw new IOException("Unsupported metrics file version " + version + " in " + file);
+    }
+    if (!MappedMemory.isAvailable()) {
+      throw new IOException("sun.misc.Unsafe is not available to read " + file);
+    }
+    int capacity = buffer.getInt(MappedMetricStore.HEADER_CAPACITY);
+    int size = Math.min(buffer.getInt(MappedMetricStore.HEADER_SIZE), capacity);
+    // the entries are initialised before the size is written
+    MappedMemory.loadFence();
+    long address = MappedMemory.address(buffer);
+
+    List<MetricStatistics> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      // read the slot before the entry such that the buffer (mapping) is reachable while reading it
+      long[] slot = readSlot(address + MappedMetricStore.slotOffset(capacity, i));
+      int entry = MappedMetricStore.entryOffset(i);
+      int type = buffer.getInt(entry);
+      byte[] nameBytes = new byte[buffer.getInt(entry + 4)];
+      for (int j = 0; j < nameBytes.length; j++) {
+        nameBytes[j] = buffer.get(entry + 8 + j);
+      }
+      String name = new String(nameBytes, StandardCharsets.UTF_8);
+      long startTime = slot[SLOT_START_TIME / 8];
+      if (type == MappedMetricStore.TYPE_COUNTER) {
+        long count = slot[(SLOT_SUCCESS + COUNT) / 8];
+        if (count != 0) {
+          list.add(new DefaultCounterStatistics(DefaultMetricName.of(name), startTime, count));
+        }
+      } else {
+        if (type == MappedMetricStore.TYPE_TIMED) {
+          addValues(list, errorName(name), startTime, slot, SLOT_ERROR);
+        }
+        addValues(list, name, startTime, slot, SLOT_SUCCESS);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Return the error name for the name which can include tags in the form <code>name{key=value}</code>.
+   */
+  private static String errorName(String name) {
+    int tagsStart = name.indexOf('{');
+    return (tagsStart < 0) ? name + ".error" : name.substring(0, tagsStart) + ".error" + name.substring(tagsStart);
+  }
+
+  private static void addValues(List<MetricStatistics> list, String name, long startTime, long[] slot, int base) {
+    long count = slot[(base + COUNT) / 8];
+    if (count > 0) {
+      long max = slot[(base + MAX) / 8];
+      list.add(new TimedAdapter(name, name, startTime, count, slot[(base + TOTAL) / 8], (max == Long.MIN_VALUE) ? 0 : max));
+    }
+  }
+
+  /**
+   * Read the slot retrying while it is being updated (sequence odd or changed).
+   */
+  private static long[] readSlot(long address) {
+    long[] values = new long[MappedMetricStore.SLOT_BYTES / 8];
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+      long sequence = MappedMemory.getLongVolatile(address + SLOT_SEQUENCE);
+      for (int i = 1; i < values.length; i++) {
+        values[i] = MappedMemory.getLong(address + i * 8);
+      }
+      MappedMemory.loadFence();
+      if ((sequence & 1) == 0 && sequence == MappedMemory.getLongVolatile(address + SLOT_SEQUENCE)) {
+        break;
+      }
+      Thread.yield();
+    }
+    return values;
+  }
+
+  private static String format(MetricStatistics stats) {
+    if (stats instanceof ValueStatistics) {
+      ValueStatistics value = (ValueStatistics) stats;
+      return value.getName() + ", count=" + value.getCount() + ", mean=" + value.getMean() + ", max=" + value.getMax() + ", total=" + value.getTotal();
+    }
+    return stats.getName() + ", count=" + ((CounterStatistics) stats).getCount();
+  }
+}
@@ -0,0 +1,181 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Memory mapped file holding metric values in fixed size slots such that live metric values can
+ * be read by an external process (no collection, JMX or serialization in this process).
+ * <p>
+ * The file is laid out as a header, a directory of the metric names and then the slots where
+ * directory entry N describes slot N:
+ * </p>
+ * <pre>
+ *   header     64 bytes   magic, version, capacity, entry size, slot size, size, created
+ *   directory  capacity x 128 bytes   type (int), name length (int), name with tags (UTF-8)
+ *   slots      capacity x 64 bytes    sequence, count, total, max, error count, error total, error max, start time
+ * </pre>
+ * <p>
+ * Values are in native byte order. The size in the header is written (after a store fence) once
+ * the directory entry and slot are initialised such that a reader only sees fully initialised
+ * entries. Values are recorded directly into the slots, see {@link MappedCell} and
+ * {@link MappedMetricReader}.
+ * </p>
+ */
+final class MappedMetricStore {
+
+  static final long MAGIC = 0x41564D4554524943L;
+
+  static final int VERSION = 1;
+
+  static final int HEADER_BYTES = 64;
+
+  static final int ENTRY_BYTES = 128;
+
+  static final int SLOT_BYTES = 64;
+
+  static final int MAX_NAME_BYTES = ENTRY_BYTES - 8;
+
+  static final int HEADER_MAGIC = 0;
+  static final int HEADER_VERSION = 8;
+  static final int HEADER_CAPACITY = 12;
+  static final int HEADER_ENTRY_BYTES = 16;
+  static final int HEADER_SLOT_BYTES = 20;
+  static final int HEADER_SIZE = 24;
+  static final int HEADER_CREATED = 32;
+
+  static final int TYPE_COUNTER = 1;
+  static final int TYPE_VALUE = 2;
+  static final int TYPE_TIMED = 3;
+
+  /**
+   * The sequence is odd while the slot is being updated (locked by a writer).
+   */
+  static final int SLOT_SEQUENCE = 0;
+
+  /**
+   * Count, total and max of the (successful) values.
+   */
+  static final int SLOT_SUCCESS = 8;
+
+  /**
+   * Count, total and max of the error values (timed metrics only).
+   */
+  static final int SLOT_ERROR = 32;
+
+  static final int SLOT_START_TIME = 56;
+
+  static final int COUNT = 0;
+  static final int TOTAL = 8;
+  static final int MAX = 16;
+
+  private final File file;
+
+  private final MappedByteBuffer buffer;
+
+  private final int capacity;
+
+  /**
+   * The number of allocated slots, guarded by this.
+   */
+  private int size;
+
+  private MappedMetricStore(File file, MappedByteBuffer buffer, int capacity) {
+    this.file = file;
+    this.buffer = buffer;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Create the store replacing the content of the file if it exists.
+   *
+   * @param file     The file to map
+   * @param capacity The maximum number of metrics held in the file
+   */
+  static MappedMetricStore create(File file, int capacity, long createdMillis) throws IOException {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity " + capacity + " must be greater than 0");
+    }
+    if (!MappedMemory.isAvailable()) {
+      throw new IOException("sun.misc.Unsafe is not available to write the memory mapped file");
+    }
+    long length = fileLength(capacity);
+    MappedByteBuffer buffer;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      // truncate first such that the content is zeroed
+      raf.setLength(0);
+      raf.setLength(length);
+      // the mapping remains valid after the channel is closed
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+    buffer.order(ByteOrder.nativeOrder());
+    buffer.putInt(HEADER_VERSION, VERSION);
+    buffer.putInt(HEADER_CAPACITY, capacity);
+    buffer.putInt(HEADER_ENTRY_BYTES, ENTRY_BYTES);
+    buffer.putInt(HEADER_SLOT_BYTES, SLOT_BYTES);
+    buffer.putInt(HEADER_SIZE, 0);
+    buffer.putLong(HEADER_CREATED, createdMillis);
+    // magic last such that a reader does not see a partial header
+    MappedMemory.storeFence();
+    buffer.putLong(HEADER_MAGIC, MAGIC);
+    return new MappedMetricStore(file, buffer, capacity);
+  }
+
+  static long fileLength(int capacity) {
+    return HEADER_BYTES + (long) capacity * (ENTRY_BYTES + SLOT_BYTES);
+  }
+
+  static int entryOffset(int index) {
+    return HEADER_BYTES + index * ENTRY_BYTES;
+  }
+
+  static int slotOffset(int capacity, int index) {
+    return HEADER_BYTES + capacity * ENTRY_BYTES + index * SLOT_BYTES;
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  int getCapacity() {
+    return capacity;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Allocate a slot for the metric returning null if the store is full or the name is too long.
+   */
+  synchronized MappedCell allocate(MetricName name, int type, long startTime) {
+    // the name includes the tags (if any)
+    byte[] nameBytes = name.toString().getBytes(StandardCharsets.UTF_8);
+    if (size >= capacity || nameBytes.length > MAX_NAME_BYTES) {
+      return null;
+    }
+    int index = size;
+    int entry = entryOffset(index);
+    buffer.putInt(entry, type);
+    buffer.putInt(entry + 4, nameBytes.length);
+    for (int i = 0; i < nameBytes.length; i++) {
+      buffer.put(entry + 8 + i, nameBytes[i]);
+    }
+    int slot = slotOffset(capacity, index);
+    buffer.putLong(slot + SLOT_SUCCESS + MAX, Long.MIN_VALUE);
+    buffer.putLong(slot + SLOT_ERROR + MAX, Long.MIN_VALUE);
+    buffer.putLong(slot + SLOT_START_TIME, startTime);
+    size = index + 1;
+    // publish the entry
+    MappedMemory.storeFence();
+    buffer.putInt(HEADER_SIZE, size);
+    return new MappedCell(buffer, slot, startTime);
+  }
+}
@@ -0,0 +1,234 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedEvent;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+import io.avaje.metrics.statistics.TimedStatistics;
+import io.avaje.metrics.statistics.WindowStatistics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_ERROR;
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_SUCCESS;
+
+/**
+ * TimedMetric with the success and error count, total and max (in microseconds) held in a slot
+ * of the memory mapped metric store.
+ */
+final class MappedTimedMetric extends BaseTimedMetric implements TimedMetric, IdleTracked {
+
+  private final MetricName name;
+
+  private final MappedCell cell;
+
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  /**
+   * Optional rolling window of the successful events (held in memory, not in the mapped file).
+   */
+  private volatile RollingWindow window;
+
+  MappedTimedMetric(MetricName name, MappedCell cell, Clock clock, boolean cumulative) {
+    this.name = name;
+    this.cell = cell;
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
+  public String toString() {
+    return name.toString();
+  }
+
+  @Override
+  public MetricName getName() {
+    return name;
+  }
+
+  @Override
+  public boolean isBucket() {
+    return false;
+  }
+
+  @Override
+  public String getBucketRange() {
+    return "";
+  }
+
+  @Override
+  public void enableRollingWindow(int maxSeconds) {
+    synchronized (this) {
+      if (window == null || window.getMaxSeconds() != maxSeconds) {
+        window = new RollingWindow(clock, maxSeconds);
+      }
+    }
+  }
+
+  @Override
+  public WindowStatistics rollingWindow(int seconds) {
+    RollingWindow current = window;
+    if (current == null) {
+      throw new IllegalStateException("Rolling window not enabled on " + name);
+    }
+    return current.statistics(seconds);
+  }
+
+  @Override
+  public boolean checkRecorded() {
+    return cell.checkRecorded();
+  }
+
+  @Override
+  public void clear() {
+    cell.clear(clock.currentTimeMillis());
+  }
+
+  @Override
+  public void collect(MetricStatisticsVisitor collector) {
+    long now = clock.currentTimeMillis();
+    TimedStatistics errStats = cell.collectValues(name, SLOT_ERROR, cumulative, now);
+    if (errStats != null) {
+      collector.visit(errStats);
+    }
+    TimedStatistics successStats = cell.collectValues(name, SLOT_SUCCESS, cumulative, now);
+    if (successStats != null) {
+      collector.visit(successStats);
+    }
+  }
+
+  @Override
+  public void time(Runnable event) {
+    long start = clock.nanoTime();
+    try {
+      event.run();
+      add(start);
+    } catch (RuntimeException e) {
+      addErr(start);
+      throw e;
+    }
+  }
+
+  @Override
+  public <T> T time(Supplier<T> event) {
+    long start = clock.nanoTime();
+    try {
+      final T result = event.get();
+      add(start);
+      return result;
+    } catch (Exception e) {
+      addErr(start);
+      throw e;
+    }
+  }
+
+  @Override
+  public long start() {
+    return clock.nanoTime();
+  }
+
+  @Override
+  public TimedEvent startEvent() {
+    return new MappedTimedEvent(this);
+  }
+
+  @Override
+  public void addEventDuration(boolean success, long durationNanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(durationNanos);
+    cell.addValue(success ? SLOT_SUCCESS : SLOT_ERROR, micros);
+    RollingWindow current = window;
+    if (success && current != null) {
+      current.add(micros);
+    }
+  }
+
+  /**
+   * Add a batch of event durations aggregating them locally and adding them once.
+   */
+  @Override
+  public void addEventDurations(boolean success, long[] durationNanos, int offset, int len) {
+    if (len > 0) {
+      long total = 0;
+      long max = Long.MIN_VALUE;
+      for (int i = offset, end = offset + len; i < end; i++) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(durationNanos[i]);
+        total += micros;
+        max = Math.max(max, micros);
+      }
+      cell.addValues(success ? SLOT_SUCCESS : SLOT_ERROR, len, total, max);
+      RollingWindow current = window;
+      if (success && current != null) {
+        current.addBatch(len, total, max);
+      }
+    }
+  }
+
+  @Override
+  public void addEventSince(boolean success, long startNanos) {
+    addEventDuration(success, clock.nanosSince(startNanos));
+  }
+
+  @Override
+  public void add(long startNanos) {
+    addEventDuration(true, clock.nanosSince(startNanos));
+  }
+
+  @Override
+  public void add(long startNanos, boolean activeThreadContext) {
+    addEventDuration(true, clock.nanosSince(startNanos));
+    if (activeThreadContext) {
+      NestedContext.pop();
+    }
+  }
+
+  @Override
+  public void addErr(long startNanos) {
+    addEventDuration(false, clock.nanosSince(startNanos));
+  }
+
+  @Override
+  public void addErr(long startNanos, boolean activeThreadContext) {
+    addEventDuration(false, clock.nanosSince(startNanos));
+    if (activeThreadContext) {
+      NestedContext.pop();
+    }
+  }
+
+  private static final class MappedTimedEvent implements TimedEvent {
+
+    private final MappedTimedMetric metric;
+
+    private final long startNanos;
+
+    MappedTimedEvent(MappedTimedMetric metric) {
+      this.metric = metric;
+      this.startNanos = metric.clock.nanoTime();
+    }
+
+    public String toString() {
+      return metric.toString() + " durationMillis:" + getDuration();
+    }
+
+    @Override
+    public void end(boolean withSuccess) {
+      metric.addEventDuration(withSuccess, getDuration());
+    }
+
+    @Override
+    public void end() {
+      end(true);
+    }
+
+    @Override
+    public void endWithError() {
+      end(false);
+    }
+
+    private long getDuration() {
+      return metric.clock.nanosSince(startNanos);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
+
+/**
+ * Creates TimedMetrics held in the memory mapped metric store.
+ * <p>
+ * When the store is full the metric is created on heap (and is not visible to external readers).
+ * </p>
+ */
+class MappedTimedMetricFactory implements MetricFactory<TimedMetric> {
+
+  private final MappedMetricStore store;
+
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  MappedTimedMetricFactory(MappedMetricStore store, Clock clock, boolean cumulative) {
+    this.store = store;
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
+  @Override
+  public TimedMetric createMetric(MetricName name, int[] bucketRanges) {
+    MappedCell cell = store.allocate(name, MappedMetricStore.TYPE_TIMED, clock.currentTimeMillis());
+    if (cell == null) {
+      return new DefaultTimedMetric(name, clock, cumulative);
+    }
+    return new MappedTimedMetric(name, cell, clock, cumulative);
+  }
+
+}
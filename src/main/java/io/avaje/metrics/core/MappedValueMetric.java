@@ -0,0 +1,127 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.ValueMetric;
+import io.avaje.metrics.spi.Clock;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+import io.avaje.metrics.statistics.TimedStatistics;
+import io.avaje.metrics.statistics.WindowStatistics;
+
+import static io.avaje.metrics.core.MappedMetricStore.SLOT_SUCCESS;
+
+/**
+ * ValueMetric with the count, total and max held in a slot of the memory mapped metric store.
+ */
+final class MappedValueMetric implements ValueMetric, IdleTracked {
+
+  private final MetricName name;
+
+  private final MappedCell cell;
+
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  /**
+   * Optional rolling window of the values (held in memory, not in the mapped file).
+   */
+  private volatile RollingWindow window;
+
+  MappedValueMetric(MetricName name, MappedCell cell, Clock clock, boolean cumulative) {
+    this.name = name;
+    this.cell = cell;
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
+  @Override
+  public MetricName getName() {
+    return name;
+  }
+
+  @Override
+  public void enableRollingWindow(int maxSeconds) {
+    synchronized (this) {
+      if (window == null || window.getMaxSeconds() != maxSeconds) {
+        window = new RollingWindow(clock, maxSeconds);
+      }
+    }
+  }
+
+  @Override
+  public WindowStatistics rollingWindow(int seconds) {
+    RollingWindow current = window;
+    if (current == null) {
+      throw new IllegalStateException("Rolling window not enabled on " + name);
+    }
+    return current.statistics(seconds);
+  }
+
+  @Override
+  public boolean checkRecorded() {
+    return cell.checkRecorded();
+  }
+
+  @Override
+  public void clear() {
+    cell.clear(clock.currentTimeMillis());
+  }
+
+  @Override
+  public void collect(MetricStatisticsVisitor collector) {
+    TimedStatistics stats = cell.collectValues(name, SLOT_SUCCESS, cumulative, clock.currentTimeMillis());
+    if (stats != null) {
+      collector.visit(stats);
+    }
+  }
+
+  @Override
+  public void addEvent(long value) {
+    cell.addValue(SLOT_SUCCESS, value);
+    RollingWindow current = window;
+    if (current != null) {
+      current.add(value);
+    }
+  }
+
+  /**
+   * Add a batch of values aggregating them locally and adding them once.
+   */
+  @Override
+  public void addEvents(long[] values, int offset, int len) {
+    if (len > 0) {
+      long total = 0;
+      long max = Long.MIN_VALUE;
+      for (int i = offset, end = offset + len; i < end; i++) {
+        total += values[i];
+        max = Math.max(max, values[i]);
+      }
+      cell.addValues(SLOT_SUCCESS, len, total, max);
+      RollingWindow current = window;
+      if (current != null) {
+        current.addBatch(len, total, max);
+      }
+    }
+  }
+
+  @Override
+  public long getCount() {
+    return cell.getCount(SLOT_SUCCESS);
+  }
+
+  @Override
+  public long getTotal() {
+    return cell.getTotal(SLOT_SUCCESS);
+  }
+
+  @Override
+  public long getMax() {
+    return cell.getMax(SLOT_SUCCESS);
+  }
+
+  @Override
+  public long getMean() {
+    long count = getCount();
+    return (count < 1) ? 0L : Math.round((double) (getTotal() / count));
+  }
+}
@@ -0,0 +1,36 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.ValueMetric;
+import io.avaje.metrics.spi.Clock;
+
+/**
+ * Creates ValueMetrics held in the memory mapped metric store.
+ * <p>
+ * When the store is full the metric is created on heap (and is not visible to external readers).
+ * </p>
+ */
+class MappedValueMetricFactory implements MetricFactory<ValueMetric> {
+
+  private final MappedMetricStore store;
+
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  MappedValueMetricFactory(MappedMetricStore store, Clock clock, boolean cumulative) {
+    this.store = store;
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
+  @Override
+  public ValueMetric createMetric(MetricName name, int[] bucketRanges) {
+    MappedCell cell = store.allocate(name, MappedMetricStore.TYPE_VALUE, clock.currentTimeMillis());
+    if (cell == null) {
+      return new DefaultValueMetric(name, clock, cumulative);
+    }
+    return new MappedValueMetric(name, cell, clock, cumulative);
+  }
+
+}
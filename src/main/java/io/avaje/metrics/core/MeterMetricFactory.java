@@ -0,0 +1,27 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MeterMetric;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.spi.Clock;
+
+class MeterMetricFactory implements MetricFactory<MeterMetric> {
+
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  MeterMetricFactory(Clock clock) {
+    this(clock, false);
+  }
+
+  MeterMetricFactory(Clock clock, boolean cumulative) {
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
+  @Override
+  public MeterMetric createMetric(MetricName name, int[] bucketRanges) {
+    return new DefaultMeterMetric(name, clock, cumulative);
+  }
+
+}
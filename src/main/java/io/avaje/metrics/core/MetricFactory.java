@@ -13,4 +13,15 @@ public interface MetricFactory<T extends Metric> {
    */
   T createMetric(MetricName name, int[] bucketRanges);
 
+  /**
+   * Create the metric with bucket ranges in microseconds.
+   * <p>
+   * Factories for bucket based metrics override this to support microsecond precision. By default
+   * the ranges are converted to milliseconds (and must be whole milliseconds).
+   * </p>
+   */
+  default T createMetric(MetricName name, long[] bucketRangesMicros) {
+    return createMetric(name, BucketRanges.toMillis(bucketRangesMicros));
+  }
+
 }
\ No newline at end of file
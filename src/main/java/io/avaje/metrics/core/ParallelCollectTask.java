@@ -0,0 +1,69 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.Metric;
+import io.avaje.metrics.statistics.MetricStatistics;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Collects a range of metrics splitting the range across a ForkJoin pool.
+ * <p>
+ * Each leaf task collects into its own collector and the results are merged left then right
+ * such that the statistics are in the same order as collecting the metrics serially.
+ * </p>
+ */
+final class ParallelCollectTask extends RecursiveTask<List<MetricStatistics>> {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The minimum number of metrics collected by a leaf task.
+   */
+  static final int MIN_LEAF_SIZE = 512;
+
+  private final Metric[] metrics;
+
+  private final int from;
+
+  private final int to;
+
+  private final int leafSize;
+
+  /**
+   * Create to collect all the metrics using the given parallelism.
+   */
+  ParallelCollectTask(Metric[] metrics, int parallelism) {
+    // a few tasks per worker such that a slow range does not leave workers idle
+    this(metrics, 0, metrics.length, Math.max(MIN_LEAF_SIZE, metrics.length / (parallelism * 4)));
+  }
+
+  private ParallelCollectTask(Metric[] metrics, int from, int to, int leafSize) {
+    this.metrics = metrics;
+    this.from = from;
+    this.to = to;
+    this.leafSize = leafSize;
+  }
+
+  @Override
+  protected List<MetricStatistics> compute() {
+    if (to - from <= leafSize) {
+      return collectRange();
+    }
+    int mid = (from + to) >>> 1;
+    ParallelCollectTask left = new ParallelCollectTask(metrics, from, mid, leafSize);
+    left.fork();
+    List<MetricStatistics> right = new ParallelCollectTask(metrics, mid, to, leafSize).compute();
+    List<MetricStatistics> result = left.join();
+    result.addAll(right);
+    return result;
+  }
+
+  private List<MetricStatistics> collectRange() {
+    DStatsCollector collector = new DStatsCollector();
+    for (int i = from; i < to; i++) {
+      metrics[i].collect(collector);
+    }
+    return collector.getList();
+  }
+}
@@ -0,0 +1,135 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.spi.Clock;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ring of per-second slots holding count, total and max for the recent seconds.
+ * <p>
+ * A slot is rotated by replacing it with a new slot for the current second via compare and set
+ * (no locking and writers never reset values in place). Reading the statistics for the last
+ * N seconds sums the slots for those seconds and does not reset anything.
+ * </p>
+ * <p>
+ * The values of a slot are striped (LongAdder and LongAccumulator) such that concurrent writers
+ * in the same second do not contend on a single cache line.
+ * </p>
+ */
+final class RollingWindow {
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final Clock clock;
+
+  private final int size;
+
+  private final AtomicReferenceArray<Slot> slots;
+
+  /**
+   * Create with the maximum number of seconds the window can cover.
+   */
+  RollingWindow(Clock clock, int maxSeconds) {
+    if (maxSeconds < 1) {
+      throw new IllegalArgumentException("maxSeconds " + maxSeconds + " must be at least 1");
+    }
+    this.clock = clock;
+    this.size = maxSeconds;
+    this.slots = new AtomicReferenceArray<>(maxSeconds);
+    Slot empty = new Slot(Long.MIN_VALUE);
+    for (int i = 0; i < maxSeconds; i++) {
+      slots.set(i, empty);
+    }
+  }
+
+  /**
+   * Return the maximum number of seconds the window covers.
+   */
+  int getMaxSeconds() {
+    return size;
+  }
+
+  private long currentSecond() {
+    return Math.floorDiv(clock.nanoTime(), NANOS_PER_SECOND);
+  }
+
+  /**
+   * Add a value to the slot for the current second.
+   */
+  void add(long value) {
+    slot(currentSecond()).add(value);
+  }
+
+  /**
+   * Add a batch of values that have already been aggregated to the slot for the current second.
+   */
+  void addBatch(long count, long total, long max) {
+    slot(currentSecond()).addBatch(count, total, max);
+  }
+
+  /**
+   * Return the slot for the given second rotating it if necessary.
+   */
+  private Slot slot(long second) {
+    int index = (int) Math.floorMod(second, (long) size);
+    Slot slot = slots.get(index);
+    while (slot.second < second) {
+      Slot fresh = new Slot(second);
+      if (slots.compareAndSet(index, slot, fresh)) {
+        return fresh;
+      }
+      slot = slots.get(index);
+    }
+    return slot;
+  }
+
+  /**
+   * Return the statistics for the last given number of seconds (including the current second).
+   */
+  DefaultWindowStatistics statistics(int seconds) {
+    seconds = Math.max(1, Math.min(seconds, size));
+    long now = currentSecond();
+    long from = now - seconds;
+    long count = 0;
+    long total = 0;
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      Slot slot = slots.get(i);
+      if (slot.second > from && slot.second <= now) {
+        count += slot.count.sum();
+        total += slot.total.sum();
+        max = Math.max(max, slot.max.get());
+      }
+    }
+    return new DefaultWindowStatistics(seconds, count, total, max);
+  }
+
+  private static final class Slot {
+
+    private final long second;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    Slot(long second) {
+      this.second = second;
+    }
+
+    void add(long value) {
+      count.increment();
+      total.add(value);
+      max.accumulate(value);
+    }
+
+    void addBatch(long batchCount, long batchTotal, long batchMax) {
+      count.add(batchCount);
+      total.add(batchTotal);
+      max.accumulate(batchMax);
+    }
+  }
+}
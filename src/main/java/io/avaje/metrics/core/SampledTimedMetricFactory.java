@@ -0,0 +1,30 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
+
+class SampledTimedMetricFactory implements MetricFactory<TimedMetric> {
+
+  private final Clock clock;
+
+  private final double sampleRate;
+
+  private final boolean cumulative;
+
+  SampledTimedMetricFactory(Clock clock, double sampleRate) {
+    this(clock, sampleRate, false);
+  }
+
+  SampledTimedMetricFactory(Clock clock, double sampleRate, boolean cumulative) {
+    this.clock = clock;
+    this.sampleRate = sampleRate;
+    this.cumulative = cumulative;
+  }
+
+  @Override
+  public TimedMetric createMetric(MetricName name, int[] bucketRanges) {
+    return new DefaultSampledTimedMetric(name, clock, sampleRate, cumulative);
+  }
+
+}
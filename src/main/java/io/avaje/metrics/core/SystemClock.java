@@ -0,0 +1,24 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.spi.Clock;
+
+/**
+ * Clock using System.nanoTime() and System.currentTimeMillis().
+ */
+final class SystemClock implements Clock {
+
+  static final SystemClock INSTANCE = new SystemClock();
+
+  private SystemClock() {
+  }
+
+  @Override
+  public long nanoTime() {
+    return System.nanoTime();
+  }
+
+  @Override
+  public long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+}
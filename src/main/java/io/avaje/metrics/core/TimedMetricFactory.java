@@ -2,12 +2,26 @@ package io.avaje.metrics.core;
 
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
 
 class TimedMetricFactory implements MetricFactory<TimedMetric> {
 
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  TimedMetricFactory(Clock clock) {
+    this(clock, false);
+  }
+
+  TimedMetricFactory(Clock clock, boolean cumulative) {
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
   @Override
   public TimedMetric createMetric(MetricName name, int[] bucketRanges) {
-    return new DefaultTimedMetric(name);
+    return new DefaultTimedMetric(name, clock, cumulative);
   }
 
 }
@@ -1,56 +1,187 @@
 package io.avaje.metrics.core;
 
 import io.avaje.metrics.MetricName;
-import io.avaje.metrics.statistics.TimedStatistics;
+import io.avaje.metrics.Tags;
+import io.avaje.metrics.spi.Clock;
 
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.LongAccumulator;
-import java.util.concurrent.atomic.LongAdder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Used to collect timed execution statistics.
  * <p>
  * It is intended for high concurrent updates to the statistics and relatively infrequent reads.
  * </p>
+ * <p>
+ * The values are held in striped cells such that adding a value updates a single cache line.
+ * There are initially no stripes (such that idle counters are small) and the first stripe is
+ * created when the first value is added. More stripes are added (up to the number of processors)
+ * when contention is detected. Threads are mapped to a stripe by thread id.
+ * </p>
+ * <p>
+ * Each stripe is double buffered with an even and odd phase. Writers record into the active
+ * phase and collection flips the phase and then waits for any in-flight writers of the prior
+ * phase to complete before draining it. This means the collected count, total and max are
+ * consistent with each other (every value is in exactly one collection) without writers
+ * ever taking a lock. The count is derived from the number of writers that entered the phase.
+ * </p>
+ * <p>
+ * In cumulative mode collection drains the buffers into running totals such that the collected
+ * count and total increase monotonically and are never reset by collection. This is done on the
+ * collection side only and the recording path is the same in both modes.
+ * </p>
+ * <p>
+ * The sum of squares (for variance and standard deviation) is only tracked when enabled via the
+ * <code>metrics.variance</code> system property as it adds a CAS to the recording path.
+ * </p>
  */
 final class ValueCounter {
 
   private static final String noBuckets = "";
 
+  /**
+   * Phase start counter, values from 0 are the even phase and from Long.MIN_VALUE the odd phase.
+   */
+  private static final int START = 0;
+  private static final int EVEN_END = 1;
+  private static final int ODD_END = 2;
+
+  /**
+   * Offsets of the even and odd buffers.
+   */
+  private static final int EVEN = 3;
+  private static final int ODD = 7;
+
+  /**
+   * Offsets of total, max, min and sum of squares (double bits) within a buffer.
+   */
+  private static final int TOTAL = 0;
+  private static final int MAX = 1;
+  private static final int MIN = 2;
+  private static final int SUM_SQUARES = 3;
+
+  /**
+   * The number of longs of padding before and after the values such that a stripe does not share
+   * a cache line with neighbouring stripes or other objects.
+   */
+  private static final int PAD = 8;
+
+  /**
+   * The number of longs per stripe (the values plus padding on both sides).
+   */
+  private static final int STRIPE_LONGS = PAD + ODD + SUM_SQUARES + 1 + PAD;
+
+  private static final AtomicLongArray[] NO_STRIPES = {};
+
+  private static final int MAX_STRIPES = maxStripes();
+
+  private static final AtomicReferenceFieldUpdater<ValueCounter, AtomicLongArray[]> STRIPES =
+    AtomicReferenceFieldUpdater.newUpdater(ValueCounter.class, AtomicLongArray[].class, "stripes");
+
+  private static final AtomicLongFieldUpdater<ValueCounter> START_TIME =
+    AtomicLongFieldUpdater.newUpdater(ValueCounter.class, "startTime");
+
+  /**
+   * Track the sum of squares for counters created from now on (defaults to metrics.variance).
+   */
+  static volatile boolean trackVariance = initTrackVariance();
+
   private final String name;
 
+  private final Tags tags;
+
   private final boolean withBucket;
 
   private final String nameWithBucket;
 
   private final String bucketRange;
 
-  protected final LongAdder count = new LongAdder();
+  private final Clock clock;
 
-  private final LongAdder total = new LongAdder();
+  /**
+   * True when tracking the sum of squares for variance.
+   */
+  private final boolean variance;
+
+  private volatile AtomicLongArray[] stripes = NO_STRIPES;
 
-  protected final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+  private volatile long startTime;
+
+  /**
+   * Set when values are recorded, reset by {@link #checkRecorded()}.
+   */
+  private volatile boolean recorded;
 
-  private final AtomicLong startTime = new AtomicLong(System.currentTimeMillis());
+  /**
+   * The running totals when in cumulative mode (null otherwise), guarded by this.
+   */
+  private final Totals cumulative;
 
   ValueCounter(MetricName name) {
+    this(name, SystemClock.INSTANCE);
+  }
+
+  ValueCounter(MetricName name, Clock clock) {
+    this(name, clock, false);
+  }
+
+  ValueCounter(MetricName name, Clock clock, boolean cumulative) {
+    this(name, clock, cumulative, clock.currentTimeMillis());
+  }
+
+  private ValueCounter(MetricName name, Clock clock, boolean cumulative, long startTime) {
     this.name = name.getSimpleName();
+    this.tags = name.getTags();
     this.withBucket = false;
     this.bucketRange = noBuckets;
     this.nameWithBucket = name.getSimpleName();
+    this.clock = clock;
+    this.variance = trackVariance;
+    this.startTime = startTime;
+    this.cumulative = cumulative ? new Totals(variance) : null;
   }
 
   ValueCounter(MetricName name, String bucketRange) {
+    this(name, bucketRange, SystemClock.INSTANCE);
+  }
+
+  ValueCounter(MetricName name, String bucketRange, Clock clock) {
+    this(name, bucketRange, clock, false);
+  }
+
+  ValueCounter(MetricName name, String bucketRange, Clock clock, boolean cumulative) {
     this.name = name.getSimpleName();
+    this.tags = name.getTags();
     this.withBucket = true;
     this.bucketRange = bucketRange;
     this.nameWithBucket = this.name + ";bucket=" + bucketRange;
+    this.clock = clock;
+    this.variance = trackVariance;
+    this.startTime = clock.currentTimeMillis();
+    this.cumulative = cumulative ? new Totals(variance) : null;
+  }
+
+  /**
+   * Create the counter for errors of the given metric.
+   * <p>
+   * Used to create the error counter lazily on the first error. The error counter uses the same
+   * clock and collection mode and starts from the same interval start time as this counter.
+   * </p>
+   */
+  ValueCounter newErrorCounter(MetricName metricName) {
+    return new ValueCounter(metricName.append("error"), clock, cumulative != null, startTime);
   }
 
   String getName() {
     return name;
   }
 
+  Tags getTags() {
+    return tags;
+  }
+
   String getNameWithBucket() {
     return nameWithBucket;
   }
@@ -63,24 +194,213 @@ final class ValueCounter {
     return bucketRange;
   }
 
+  /**
+   * Return true if collection does not reset the count and total.
+   */
+  boolean isCumulative() {
+    return cumulative != null;
+  }
+
+  private static boolean initTrackVariance() {
+    return Boolean.parseBoolean(System.getProperty("metrics.variance", System.getenv("METRICS_VARIANCE")));
+  }
+
+  /**
+   * Return true if the sum of squares is tracked (for variance and standard deviation).
+   */
+  boolean isVariance() {
+    return variance;
+  }
+
+  private static int maxStripes() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    return (processors <= 1) ? 1 : Math.min(Integer.highestOneBit(processors - 1) << 1, 64);
+  }
+
+  /**
+   * Return a new stripe of values which are accessed via the offsets plus PAD.
+   */
+  private static AtomicLongArray newStripe() {
+    AtomicLongArray stripe = new AtomicLongArray(STRIPE_LONGS);
+    stripe.set(PAD + ODD_END, Long.MIN_VALUE);
+    stripe.set(PAD + EVEN + MAX, Long.MIN_VALUE);
+    stripe.set(PAD + ODD + MAX, Long.MIN_VALUE);
+    stripe.set(PAD + EVEN + MIN, Long.MAX_VALUE);
+    stripe.set(PAD + ODD + MIN, Long.MAX_VALUE);
+    return stripe;
+  }
+
+  /**
+   * Return the hash used to map the current thread to a stripe.
+   */
+  private static int probe() {
+    int h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
   /**
    * Add a value. Usually the value is Time or Bytes etc.
    */
   public void add(long value) {
 
-    count.increment();
-    total.add(value);
-    max.accumulate(value);
+    AtomicLongArray[] as = stripes;
+    if (as.length == 0) {
+      as = initStripes();
+    }
+    AtomicLongArray stripe = as[probe() & (as.length - 1)];
+    long phase = stripe.get(PAD + START);
+    if (!stripe.compareAndSet(PAD + START, phase, phase + 1)) {
+      // contended so enter regardless and look to add stripes
+      phase = stripe.getAndIncrement(PAD + START);
+      grow(as);
+    }
+    int buffer = PAD + ((phase < 0) ? ODD : EVEN);
+    stripe.getAndAdd(buffer + TOTAL, value);
+    // read before CAS as typically the value is not a new max
+    long max = stripe.get(buffer + MAX);
+    while (value > max && !stripe.compareAndSet(buffer + MAX, max, value)) {
+      max = stripe.get(buffer + MAX);
+    }
+    long min = stripe.get(buffer + MIN);
+    while (value < min && !stripe.compareAndSet(buffer + MIN, min, value)) {
+      min = stripe.get(buffer + MIN);
+    }
+    if (variance) {
+      long squares = stripe.get(buffer + SUM_SQUARES);
+      while (!stripe.compareAndSet(buffer + SUM_SQUARES, squares, addSquare(squares, value))) {
+        squares = stripe.get(buffer + SUM_SQUARES);
+      }
+    }
+    stripe.getAndIncrement(PAD + ((phase < 0) ? ODD_END : EVEN_END));
+    if (!recorded) {
+      // read before write such that recording does not write the flag each time
+      recorded = true;
+    }
+  }
+
+  /**
+   * Add the values from the array aggregating them locally and publishing them once.
+   */
+  void addAll(long[] values, int offset, int len) {
+    addAll(values, offset, len, 1);
+  }
+
+  /**
+   * Add the values divided by the divisor (e.g. 1000 for nanos to micros).
+   */
+  void addAll(long[] values, int offset, int len, long divisor) {
+    if (len <= 0) {
+      return;
+    }
+    long total = 0;
+    long max = Long.MIN_VALUE;
+    long min = Long.MAX_VALUE;
+    double sumSquares = 0;
+    for (int i = offset, end = offset + len; i < end; i++) {
+      long value = values[i] / divisor;
+      total += value;
+      max = Math.max(max, value);
+      min = Math.min(min, value);
+      sumSquares += (double) value * value;
+    }
+    addBatch(len, total, max, min, sumSquares);
+  }
+
+  /**
+   * Add a batch of values that have already been aggregated.
+   * <p>
+   * The batch enters the phase as count writers such that it is collected atomically.
+   * </p>
+   */
+  void addBatch(long count, long total, long max, long min, double sumSquares) {
+    if (count <= 0) {
+      return;
+    }
+    AtomicLongArray[] as = stripes;
+    if (as.length == 0) {
+      as = initStripes();
+    }
+    AtomicLongArray stripe = as[probe() & (as.length - 1)];
+    long phase = stripe.getAndAdd(PAD + START, count);
+    int buffer = PAD + ((phase < 0) ? ODD : EVEN);
+    stripe.getAndAdd(buffer + TOTAL, total);
+    long current = stripe.get(buffer + MAX);
+    while (max > current && !stripe.compareAndSet(buffer + MAX, current, max)) {
+      current = stripe.get(buffer + MAX);
+    }
+    current = stripe.get(buffer + MIN);
+    while (min < current && !stripe.compareAndSet(buffer + MIN, current, min)) {
+      current = stripe.get(buffer + MIN);
+    }
+    if (variance) {
+      long squares = stripe.get(buffer + SUM_SQUARES);
+      while (!stripe.compareAndSet(buffer + SUM_SQUARES, squares, addSquares(squares, sumSquares))) {
+        squares = stripe.get(buffer + SUM_SQUARES);
+      }
+    }
+    stripe.getAndAdd(PAD + ((phase < 0) ? ODD_END : EVEN_END), count);
+    if (!recorded) {
+      recorded = true;
+    }
+  }
+
+  private static long addSquares(long sumSquaresBits, double squares) {
+    return Double.doubleToRawLongBits(Double.longBitsToDouble(sumSquaresBits) + squares);
+  }
+
+  /**
+   * Return the double bits of the sum of squares with the square of the value added.
+   */
+  private static long addSquare(long sumSquaresBits, long value) {
+    return Double.doubleToRawLongBits(Double.longBitsToDouble(sumSquaresBits) + (double) value * value);
+  }
+
+  /**
+   * Create the first stripe returning the stripes.
+   */
+  private AtomicLongArray[] initStripes() {
+    // if this fails another thread has created the first stripe
+    STRIPES.compareAndSet(this, NO_STRIPES, new AtomicLongArray[]{newStripe()});
+    return stripes;
+  }
+
+  /**
+   * Double the number of stripes (if not already at the maximum).
+   */
+  private void grow(AtomicLongArray[] as) {
+    int length = as.length;
+    if (length < MAX_STRIPES && stripes == as) {
+      AtomicLongArray[] grown = Arrays.copyOf(as, length << 1);
+      for (int i = length; i < grown.length; i++) {
+        grown[i] = newStripe();
+      }
+      // if this fails another thread has grown the stripes
+      STRIPES.compareAndSet(this, as, grown);
+    }
+  }
+
+  /**
+   * Return true if values have been recorded since the last call resetting the flag.
+   */
+  boolean checkRecorded() {
+    if (!recorded) {
+      return false;
+    }
+    recorded = false;
+    return true;
   }
 
   public boolean isEmpty() {
-    return count.sum() == 0;
+    return getCount() == 0;
   }
 
-  TimedStatistics collectStatistics() {
-    boolean empty = count.sum() == 0;
+  DefaultValueStatistics collectStatistics() {
+    if (cumulative != null) {
+      return collectCumulative();
+    }
+    boolean empty = isEmpty();
     if (empty) {
-      startTime.set(System.currentTimeMillis());
+      startTime = clock.currentTimeMillis();
       return null;
     } else {
       return getStatistics();
@@ -88,61 +408,151 @@ final class ValueCounter {
   }
 
   /**
-   * Return the current statistics resetting the internal values if reset is true.
+   * Return the current statistics resetting the internal values.
+   * <p>
+   * Synchronized such that there is a single collector flipping the phases (writers do not lock).
+   * </p>
    */
-  private TimedStatistics getStatistics() {
-    // Note these values are not guaranteed to be consistent wrt each other
-    // but should be reasonably consistent (small time between count and total)
-    final long maxVal = max.getThenReset();
-    final long totalVal = total.sumThenReset();
-    final long countVal = count.sumThenReset();
-    final long startTimeVal = startTime.getAndSet(System.currentTimeMillis());
-    return new DefaultValueStatistics(this, startTimeVal, countVal, totalVal, maxVal);
+  private synchronized DefaultValueStatistics getStatistics() {
+    Totals totals = new Totals(variance);
+    drainTo(totals);
+    final long startTimeVal = START_TIME.getAndSet(this, clock.currentTimeMillis());
+    return totals.statistics(this, startTimeVal);
+  }
+
+  /**
+   * Drain the values into the running totals returning the statistics since the counter was
+   * created (or cleared). Returns null if no values have ever been added.
+   */
+  private synchronized DefaultValueStatistics collectCumulative() {
+    if (!isEmpty()) {
+      drainTo(cumulative);
+    }
+    return (cumulative.count == 0) ? null : cumulative.statistics(this, startTime);
+  }
+
+  /**
+   * Flip the phases and add the values of the prior phase to the totals. Called holding the lock.
+   */
+  private void drainTo(Totals totals) {
+    AtomicLongArray[] as = stripes;
+    // flip all the stripes first so the snapshot is close to a single point in time
+    long[] flipped = new long[as.length];
+    for (int i = 0; i < as.length; i++) {
+      flipped[i] = flip(as[i]);
+    }
+    for (int i = 0; i < as.length; i++) {
+      AtomicLongArray stripe = as[i];
+      long startAtFlip = flipped[i];
+      int buffer;
+      if (startAtFlip < 0) {
+        awaitWriters(stripe, PAD + ODD_END, startAtFlip);
+        totals.count += startAtFlip - Long.MIN_VALUE;
+        buffer = PAD + ODD;
+      } else {
+        awaitWriters(stripe, PAD + EVEN_END, startAtFlip);
+        totals.count += startAtFlip;
+        buffer = PAD + EVEN;
+      }
+      // drain the now inactive buffer leaving it reset for when it next becomes active
+      totals.total += stripe.getAndSet(buffer + TOTAL, 0);
+      totals.max = Math.max(totals.max, stripe.getAndSet(buffer + MAX, Long.MIN_VALUE));
+      totals.min = Math.min(totals.min, stripe.getAndSet(buffer + MIN, Long.MAX_VALUE));
+      totals.sumSquares += Double.longBitsToDouble(stripe.getAndSet(buffer + SUM_SQUARES, 0));
+    }
+  }
+
+  /**
+   * Flip the phase of the stripe returning the phase start value at the time of the flip.
+   */
+  private static long flip(AtomicLongArray stripe) {
+    if (stripe.get(PAD + START) < 0) {
+      // odd to even
+      stripe.set(PAD + EVEN_END, 0);
+      return stripe.getAndSet(PAD + START, 0);
+    } else {
+      // even to odd
+      stripe.set(PAD + ODD_END, Long.MIN_VALUE);
+      return stripe.getAndSet(PAD + START, Long.MIN_VALUE);
+    }
+  }
+
+  /**
+   * Wait for writers that entered the prior phase to complete.
+   */
+  private static void awaitWriters(AtomicLongArray stripe, int endIndex, long startAtFlip) {
+    while (stripe.get(endIndex) != startAtFlip) {
+      Thread.yield();
+    }
   }
 
   /**
    * Reset just the start time.
    */
   public void resetStartTime() {
-    startTime.set(System.currentTimeMillis());
+    startTime = clock.currentTimeMillis();
   }
 
   /**
    * Reset all the internal counters and start time.
    */
-  public void reset() {
-    startTime.set(System.currentTimeMillis());
-    max.reset();
-    count.reset();
-    total.reset();
+  public synchronized void reset() {
+    getStatistics();
+    if (cumulative != null) {
+      cumulative.clear();
+    }
   }
 
   /**
    * Return the start time.
    */
   public long getStartTime() {
-    return startTime.get();
+    return startTime;
   }
 
   /**
    * Return the count of values.
    */
   public long getCount() {
-    return count.sum();
+    long sum = 0;
+    for (AtomicLongArray stripe : stripes) {
+      long phase = stripe.get(PAD + START);
+      sum += (phase < 0) ? phase - Long.MIN_VALUE : phase;
+    }
+    return sum;
   }
 
   /**
    * Return the total of values.
    */
   public long getTotal() {
-    return total.sum();
+    long sum = 0;
+    for (AtomicLongArray stripe : stripes) {
+      sum += stripe.get(PAD + EVEN + TOTAL) + stripe.get(PAD + ODD + TOTAL);
+    }
+    return sum;
   }
 
   /**
    * Return the max value.
    */
   public long getMax() {
-    return max.get();
+    long max = Long.MIN_VALUE;
+    for (AtomicLongArray stripe : stripes) {
+      max = Math.max(max, Math.max(stripe.get(PAD + EVEN + MAX), stripe.get(PAD + ODD + MAX)));
+    }
+    return max;
+  }
+
+  /**
+   * Return the min value.
+   */
+  public long getMin() {
+    long min = Long.MAX_VALUE;
+    for (AtomicLongArray stripe : stripes) {
+      min = Math.min(min, Math.min(stripe.get(PAD + EVEN + MIN), stripe.get(PAD + ODD + MIN)));
+    }
+    return min;
   }
 
   public long getMean() {
@@ -151,4 +561,35 @@ final class ValueCounter {
     return (count < 1) ? 0L : Math.round((double) (total / count));
   }
 
+  /**
+   * Count, total, max, min and sum of squares drained from the stripes.
+   */
+  private static final class Totals {
+
+    /**
+     * The sum of squares is NaN when variance is not tracked.
+     */
+    private final boolean variance;
+    long count;
+    long total;
+    long max = Long.MIN_VALUE;
+    long min = Long.MAX_VALUE;
+    double sumSquares;
+
+    Totals(boolean variance) {
+      this.variance = variance;
+    }
+
+    DefaultValueStatistics statistics(ValueCounter owner, long startTime) {
+      return new DefaultValueStatistics(owner, startTime, count, total, max, min, variance ? sumSquares : Double.NaN);
+    }
+
+    void clear() {
+      count = 0;
+      total = 0;
+      max = Long.MIN_VALUE;
+      min = Long.MAX_VALUE;
+      sumSquares = 0;
+    }
+  }
 }
@@ -2,12 +2,26 @@ package io.avaje.metrics.core;
 
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.ValueMetric;
+import io.avaje.metrics.spi.Clock;
 
 class ValueMetricFactory implements MetricFactory<ValueMetric> {
 
+  private final Clock clock;
+
+  private final boolean cumulative;
+
+  ValueMetricFactory(Clock clock) {
+    this(clock, false);
+  }
+
+  ValueMetricFactory(Clock clock, boolean cumulative) {
+    this.clock = clock;
+    this.cumulative = cumulative;
+  }
+
   @Override
   public ValueMetric createMetric(MetricName name, int[] bucketRanges) {
-    return new DefaultValueMetric(name);
+    return new DefaultValueMetric(name, clock, cumulative);
   }
 
 }
@@ -12,4 +12,9 @@ public class NoopBucketTimedFactory implements MetricFactory<TimedMetric> {
     return new NoopBucketTimedMetric(name);
   }
 
+  @Override
+  public TimedMetric createMetric(MetricName name, long[] bucketRangesMicros) {
+    return new NoopBucketTimedMetric(name);
+  }
+
 }
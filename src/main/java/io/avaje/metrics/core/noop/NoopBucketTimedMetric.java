@@ -4,6 +4,7 @@ import io.avaje.metrics.MetricName;
 import io.avaje.metrics.TimedEvent;
 import io.avaje.metrics.TimedMetric;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+import io.avaje.metrics.statistics.WindowStatistics;
 
 import java.util.Map;
 import java.util.function.Supplier;
@@ -63,6 +64,26 @@ class NoopBucketTimedMetric implements TimedMetric {
     return NOOP_TIMED_EVENT;
   }
 
+  @Override
+  public long start() {
+    return 0;
+  }
+
+  @Override
+  public void end(long startToken) {
+    // do nothing
+  }
+
+  @Override
+  public void endWithError(long startToken) {
+    // do nothing
+  }
+
+  @Override
+  public void end(long startToken, boolean withSuccess) {
+    // do nothing
+  }
+
   @Override
   public void addEventSince(boolean success, long startNanos) {
     // do nothing
@@ -73,6 +94,11 @@ class NoopBucketTimedMetric implements TimedMetric {
     // do nothing
   }
 
+  @Override
+  public void addEventDurations(boolean success, long[] durationNanos, int offset, int len) {
+    // do nothing
+  }
+
   @Override
   public void add(long startNanos) {
     // do nothing
@@ -117,4 +143,14 @@ class NoopBucketTimedMetric implements TimedMetric {
   public Map<String, String> attributes() {
     return null;
   }
+
+  @Override
+  public void enableRollingWindow(int maxSeconds) {
+    // do nothing
+  }
+
+  @Override
+  public WindowStatistics rollingWindow(int seconds) {
+    return NoopWindowStatistics.INSTANCE;
+  }
 }
@@ -0,0 +1,59 @@
+package io.avaje.metrics.core.noop;
+
+import io.avaje.metrics.MeterMetric;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+
+final class NoopMeterMetric implements MeterMetric {
+
+  protected final MetricName metricName;
+
+  NoopMeterMetric(MetricName metricName) {
+    this.metricName = metricName;
+  }
+
+  @Override
+  public MetricName getName() {
+    return metricName;
+  }
+
+  @Override
+  public void collect(MetricStatisticsVisitor visitor) {
+    // do nothing
+  }
+
+  @Override
+  public void clear() {
+    // do nothing
+  }
+
+  @Override
+  public void mark() {
+    // do nothing
+  }
+
+  @Override
+  public void mark(long events) {
+    // do nothing
+  }
+
+  @Override
+  public long getCount() {
+    return 0;
+  }
+
+  @Override
+  public double getOneMinuteRate() {
+    return 0;
+  }
+
+  @Override
+  public double getFiveMinuteRate() {
+    return 0;
+  }
+
+  @Override
+  public double getFifteenMinuteRate() {
+    return 0;
+  }
+}
@@ -0,0 +1,14 @@
+package io.avaje.metrics.core.noop;
+
+import io.avaje.metrics.MeterMetric;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.core.MetricFactory;
+
+public class NoopMeterMetricFactory implements MetricFactory<MeterMetric> {
+
+  @Override
+  public MeterMetric createMetric(MetricName name, int[] bucketRanges) {
+    return new NoopMeterMetric(name);
+  }
+
+}
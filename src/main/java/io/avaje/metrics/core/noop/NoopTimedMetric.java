@@ -4,6 +4,7 @@ import io.avaje.metrics.MetricName;
 import io.avaje.metrics.TimedEvent;
 import io.avaje.metrics.TimedMetric;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+import io.avaje.metrics.statistics.WindowStatistics;
 
 import java.util.Map;
 import java.util.function.Supplier;
@@ -75,6 +76,26 @@ public class NoopTimedMetric implements TimedMetric {
     return NOOP_TIMED_EVENT;
   }
 
+  @Override
+  public long start() {
+    return 0;
+  }
+
+  @Override
+  public void end(long startToken) {
+    // do nothing
+  }
+
+  @Override
+  public void endWithError(long startToken) {
+    // do nothing
+  }
+
+  @Override
+  public void end(long startToken, boolean withSuccess) {
+    // do nothing
+  }
+
   @Override
   public void addEventSince(boolean success, long startNanos) {
     // do nothing
@@ -85,6 +106,11 @@ public class NoopTimedMetric implements TimedMetric {
     // do nothing
   }
 
+  @Override
+  public void addEventDurations(boolean success, long[] durationNanos, int offset, int len) {
+    // do nothing
+  }
+
   @Override
   public boolean isRequestTiming() {
     return false;
@@ -114,4 +140,14 @@ public class NoopTimedMetric implements TimedMetric {
   public Map<String, String> attributes() {
     return null;
   }
+
+  @Override
+  public void enableRollingWindow(int maxSeconds) {
+    // do nothing
+  }
+
+  @Override
+  public WindowStatistics rollingWindow(int seconds) {
+    return NoopWindowStatistics.INSTANCE;
+  }
 }
@@ -3,6 +3,7 @@ package io.avaje.metrics.core.noop;
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.ValueMetric;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+import io.avaje.metrics.statistics.WindowStatistics;
 
 class NoopValueMetric implements ValueMetric {
 
@@ -34,6 +35,11 @@ class NoopValueMetric implements ValueMetric {
     // do nothing
   }
 
+  @Override
+  public void addEvents(long[] values, int offset, int len) {
+    // do nothing
+  }
+
   @Override
   public long getCount() {
     return 0;
@@ -53,4 +59,14 @@ class NoopValueMetric implements ValueMetric {
   public long getMean() {
     return 0;
   }
+
+  @Override
+  public void enableRollingWindow(int maxSeconds) {
+    // do nothing
+  }
+
+  @Override
+  public WindowStatistics rollingWindow(int seconds) {
+    return NoopWindowStatistics.INSTANCE;
+  }
 }
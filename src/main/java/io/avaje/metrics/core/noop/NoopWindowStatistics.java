@@ -0,0 +1,36 @@
+package io.avaje.metrics.core.noop;
+
+import io.avaje.metrics.statistics.WindowStatistics;
+
+/**
+ * A NOOP placeholder for WindowStatistics.
+ */
+class NoopWindowStatistics implements WindowStatistics {
+
+  static final NoopWindowStatistics INSTANCE = new NoopWindowStatistics();
+
+  @Override
+  public int getSeconds() {
+    return 0;
+  }
+
+  @Override
+  public long getCount() {
+    return 0;
+  }
+
+  @Override
+  public long getTotal() {
+    return 0;
+  }
+
+  @Override
+  public long getMax() {
+    return 0;
+  }
+
+  @Override
+  public long getMean() {
+    return 0;
+  }
+}
@@ -0,0 +1,53 @@
+package io.avaje.metrics.processor;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import java.util.Set;
+
+/**
+ * A timed method with the holder field name, metric name and buckets.
+ */
+final class TimedMethod {
+
+  private final ExecutableElement method;
+
+  private final String fieldName;
+
+  private final String metricName;
+
+  private final int[] buckets;
+
+  TimedMethod(ExecutableElement method, String fieldName, String metricName, int[] buckets) {
+    this.method = method;
+    this.fieldName = fieldName;
+    this.metricName = metricName;
+    this.buckets = buckets;
+  }
+
+  ExecutableElement method() {
+    return method;
+  }
+
+  String fieldName() {
+    return fieldName;
+  }
+
+  String metricName() {
+    return metricName;
+  }
+
+  int[] buckets() {
+    return buckets;
+  }
+
+  /**
+   * Return true if the method can be overridden by a subclass in the same package.
+   */
+  boolean isOverridable() {
+    Set<Modifier> modifiers = method.getModifiers();
+    return !modifiers.contains(Modifier.PRIVATE)
+      && !modifiers.contains(Modifier.STATIC)
+      && !modifiers.contains(Modifier.FINAL)
+      && !modifiers.contains(Modifier.ABSTRACT);
+  }
+}
@@ -0,0 +1,148 @@
+package io.avaje.metrics.processor;
+
+import io.avaje.metrics.annotation.NotTimed;
+import io.avaje.metrics.annotation.Timed;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor that generates compile time metric handles for types using {@link Timed}.
+ * <p>
+ * For each class annotated with <code>@Timed</code> (or having methods annotated with
+ * <code>@Timed</code>) this generates:
+ * </p>
+ * <ul>
+ *   <li><code>Foo_Metrics</code> - holder with a static final TimedMetric per timed method</li>
+ *   <li><code>Foo_Timed</code> - subclass of Foo that times the overridable timed methods (when
+ *   Foo can be extended)</li>
+ * </ul>
+ * <p>
+ * The metric names and buckets are determined at compile time so the call path has no reflection,
+ * name building or map lookup. The timed methods follow the enhancement rules, when the class is
+ * annotated all the public methods are timed except those annotated with {@link NotTimed}.
+ * </p>
+ * <p>
+ * The processor is not registered automatically, use <code>-processor io.avaje.metrics.processor.TimedProcessor</code>.
+ * </p>
+ */
+@SupportedAnnotationTypes("io.avaje.metrics.annotation.Timed")
+public class TimedProcessor extends AbstractProcessor {
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Set<TypeElement> types = new LinkedHashSet<>();
+    for (Element element : roundEnv.getElementsAnnotatedWith(Timed.class)) {
+      if (element.getKind() == ElementKind.METHOD) {
+        types.add((TypeElement) element.getEnclosingElement());
+      } else if (element.getKind() == ElementKind.CLASS) {
+        types.add((TypeElement) element);
+      } else {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "@Timed is only processed on classes and their methods", element);
+      }
+    }
+    for (TypeElement type : types) {
+      if (type.getKind() == ElementKind.CLASS) {
+        process(type);
+      }
+    }
+    return false;
+  }
+
+  private void process(TypeElement type) {
+    List<TimedMethod> methods = timedMethods(type);
+    if (methods.isEmpty()) {
+      return;
+    }
+    TimedTypeWriter writer = new TimedTypeWriter(processingEnv.getElementUtils(), type, methods);
+    write(type, writer.holderName(), writer.holderSource());
+    if (writer.isExtendable()) {
+      write(type, writer.timedName(), writer.timedSource());
+    }
+  }
+
+  private void write(TypeElement type, String className, String source) {
+    try {
+      JavaFileObject file = processingEnv.getFiler().createSourceFile(className, type);
+      try (Writer writer = file.openWriter()) {
+        writer.write(source);
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + className + " " + e, type);
+    }
+  }
+
+  /**
+   * Return the timed methods of the type with their metric names.
+   */
+  private List<TimedMethod> timedMethods(TypeElement type) {
+    Timed typeTimed = type.getAnnotation(Timed.class);
+    String prefix = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    if (typeTimed != null && !typeTimed.prefix().isEmpty()) {
+      prefix = typeTimed.prefix();
+    }
+    String typeName = (typeTimed != null && !typeTimed.name().isEmpty()) ? typeTimed.name() : type.getSimpleName().toString();
+
+    List<TimedMethod> methods = new ArrayList<>();
+    Map<String, Integer> overloads = new HashMap<>();
+    for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+      Timed timed = method.getAnnotation(Timed.class);
+      if (method.getAnnotation(NotTimed.class) != null || !isTimed(typeTimed, timed, method)) {
+        continue;
+      }
+      String methodName = method.getSimpleName().toString();
+      int count = overloads.merge(methodName, 1, Integer::sum);
+      // overloaded methods have the count appended (unless named explicitly)
+      String fieldName = (count == 1) ? methodName : methodName + count;
+      String metricName = fieldName;
+      String methodPrefix = prefix;
+      int[] buckets = (typeTimed == null) ? new int[0] : typeTimed.buckets();
+      if (timed != null) {
+        if (!timed.name().isEmpty()) {
+          metricName = timed.name();
+        }
+        if (!timed.prefix().isEmpty()) {
+          methodPrefix = timed.prefix();
+        }
+        if (timed.buckets().length > 0) {
+          buckets = timed.buckets();
+        }
+      }
+      String fullName = methodPrefix.isEmpty() ? typeName + "." + metricName : methodPrefix + "." + typeName + "." + metricName;
+      methods.add(new TimedMethod(method, fieldName, fullName, buckets));
+    }
+    return methods;
+  }
+
+  private static boolean isTimed(Timed typeTimed, Timed methodTimed, ExecutableElement method) {
+    if (methodTimed != null) {
+      return true;
+    }
+    return typeTimed != null
+      && method.getModifiers().contains(Modifier.PUBLIC)
+      && !method.getModifiers().contains(Modifier.ABSTRACT);
+  }
+}
@@ -0,0 +1,264 @@
+package io.avaje.metrics.processor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the source of the metrics holder and timed subclass for a type.
+ */
+final class TimedTypeWriter {
+
+  private final TypeElement type;
+
+  private final List<TimedMethod> methods;
+
+  private final String packageName;
+
+  /**
+   * The type name with nested type names joined by underscore.
+   */
+  private final String flatName;
+
+  TimedTypeWriter(Elements elements, TypeElement type, List<TimedMethod> methods) {
+    this.type = type;
+    this.methods = methods;
+    this.packageName = elements.getPackageOf(type).getQualifiedName().toString();
+    this.flatName = flatName(type);
+  }
+
+  private static String flatName(TypeElement type) {
+    String name = type.getSimpleName().toString();
+    Element enclosing = type.getEnclosingElement();
+    while (enclosing instanceof TypeElement) {
+      name = enclosing.getSimpleName() + "_" + name;
+      enclosing = enclosing.getEnclosingElement();
+    }
+    return name;
+  }
+
+  private String qualified(String simpleName) {
+    return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+  }
+
+  /**
+   * Return the qualified name of the holder class.
+   */
+  String holderName() {
+    return qualified(flatName + "_Metrics");
+  }
+
+  /**
+   * Return the qualified name of the timed subclass.
+   */
+  String timedName() {
+    return qualified(flatName + "_Timed");
+  }
+
+  /**
+   * Return true if a timed subclass can be generated.
+   */
+  boolean isExtendable() {
+    Set<Modifier> modifiers = type.getModifiers();
+    if (modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+      return false;
+    }
+    if (type.getEnclosingElement() instanceof TypeElement && !modifiers.contains(Modifier.STATIC)) {
+      return false;
+    }
+    boolean constructor = false;
+    for (ExecutableElement ctor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      constructor |= !ctor.getModifiers().contains(Modifier.PRIVATE);
+    }
+    boolean overridable = false;
+    for (TimedMethod method : methods) {
+      overridable |= method.isOverridable();
+    }
+    return constructor && overridable;
+  }
+
+  private String access(Set<Modifier> modifiers) {
+    if (modifiers.contains(Modifier.PUBLIC)) {
+      return "public ";
+    }
+    return modifiers.contains(Modifier.PROTECTED) ? "protected " : "";
+  }
+
+  private void header(StringBuilder sb) {
+    if (!packageName.isEmpty()) {
+      sb.append("package ").append(packageName).append(";\n\n");
+    }
+  }
+
+  /**
+   * Return the source of the holder of the TimedMetric per timed method.
+   */
+  String holderSource() {
+    String holder = flatName + "_Metrics";
+    StringBuilder sb = new StringBuilder(1000);
+    header(sb);
+    sb.append("import io.avaje.metrics.MetricManager;\n");
+    sb.append("import io.avaje.metrics.TimedMetric;\n\n");
+    sb.append("/**\n");
+    sb.append(" * Timed metrics for {@link ").append(type.getQualifiedName()).append("} generated by TimedProcessor.\n");
+    sb.append(" */\n");
+    sb.append(type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "").append("final class ").append(holder).append(" {\n\n");
+    for (TimedMethod method : methods) {
+      sb.append("  public static final TimedMetric ").append(method.fieldName()).append(" = MetricManager.timed(\"")
+        .append(escape(method.metricName())).append('"');
+      for (int bucket : method.buckets()) {
+        sb.append(", ").append(bucket);
+      }
+      sb.append(");\n\n");
+    }
+    sb.append("  private ").append(holder).append("() {\n  }\n}\n");
+    return sb.toString();
+  }
+
+  /**
+   * Return the source of the subclass that times the overridable timed methods.
+   */
+  String timedSource() {
+    String holder = flatName + "_Metrics";
+    String timed = flatName + "_Timed";
+    StringBuilder sb = new StringBuilder(2000);
+    header(sb);
+    sb.append("/**\n");
+    sb.append(" * Timed {@link ").append(type.getQualifiedName()).append("} generated by TimedProcessor.\n");
+    sb.append(" */\n");
+    sb.append("@io.avaje.metrics.spi.MetricsEnhanced\n");
+    sb.append(type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "").append("class ").append(timed)
+      .append(typeParameters(type.getTypeParameters())).append(" extends ").append(type.getQualifiedName())
+      .append(typeArguments(type.getTypeParameters())).append(" {\n");
+
+    for (ExecutableElement ctor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (!ctor.getModifiers().contains(Modifier.PRIVATE)) {
+        sb.append("\n  ").append(access(ctor.getModifiers())).append(typeParameters(ctor.getTypeParameters()))
+          .append(timed).append('(');
+        parameters(sb, ctor);
+        sb.append(')');
+        thrown(sb, ctor);
+        sb.append(" {\n    super(");
+        arguments(sb, ctor);
+        sb.append(");\n  }\n");
+      }
+    }
+    for (TimedMethod timedMethod : methods) {
+      if (timedMethod.isOverridable()) {
+        method(sb, holder + "." + timedMethod.fieldName(), timedMethod.method());
+      }
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  private void method(StringBuilder sb, String metric, ExecutableElement method) {
+    boolean isVoid = method.getReturnType().getKind() == TypeKind.VOID;
+    String name = method.getSimpleName().toString();
+    sb.append("\n  @Override\n  ").append(access(method.getModifiers()));
+    String typeParameters = typeParameters(method.getTypeParameters());
+    if (!typeParameters.isEmpty()) {
+      sb.append(typeParameters).append(' ');
+    }
+    sb.append(method.getReturnType()).append(' ').append(name).append('(');
+    parameters(sb, method);
+    sb.append(')');
+    thrown(sb, method);
+    sb.append(" {\n");
+    sb.append("    long start = ").append(metric).append(".start();\n");
+    sb.append("    try {\n      ");
+    if (!isVoid) {
+      sb.append(method.getReturnType()).append(" result = ");
+    }
+    sb.append("super.").append(name).append('(');
+    arguments(sb, method);
+    sb.append(");\n");
+    sb.append("      ").append(metric).append(".end(start);\n");
+    if (!isVoid) {
+      sb.append("      return result;\n");
+    }
+    sb.append("    } catch (Throwable e) {\n");
+    sb.append("      ").append(metric).append(".endWithError(start);\n");
+    sb.append("      throw e;\n");
+    sb.append("    }\n  }\n");
+  }
+
+  private static void parameters(StringBuilder sb, ExecutableElement method) {
+    List<? extends VariableElement> params = method.getParameters();
+    for (int i = 0; i < params.size(); i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      String paramType = params.get(i).asType().toString();
+      if (method.isVarArgs() && i == params.size() - 1 && paramType.endsWith("[]")) {
+        paramType = paramType.substring(0, paramType.length() - 2) + "...";
+      }
+      sb.append(paramType).append(' ').append(params.get(i).getSimpleName());
+    }
+  }
+
+  private static void arguments(StringBuilder sb, ExecutableElement method) {
+    List<? extends VariableElement> params = method.getParameters();
+    for (int i = 0; i < params.size(); i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(params.get(i).getSimpleName());
+    }
+  }
+
+  private static void thrown(StringBuilder sb, ExecutableElement method) {
+    List<? extends TypeMirror> thrown = method.getThrownTypes();
+    for (int i = 0; i < thrown.size(); i++) {
+      sb.append(i == 0 ? " throws " : ", ").append(thrown.get(i));
+    }
+  }
+
+  private static String typeParameters(List<? extends TypeParameterElement> params) {
+    if (params.isEmpty()) {
+      return "";
+    }
+    StringBuilder sb = new StringBuilder("<");
+    for (int i = 0; i < params.size(); i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      TypeParameterElement param = params.get(i);
+      sb.append(param.getSimpleName());
+      List<? extends TypeMirror> bounds = param.getBounds();
+      if (!(bounds.size() == 1 && "java.lang.Object".equals(bounds.get(0).toString()))) {
+        for (int j = 0; j < bounds.size(); j++) {
+          sb.append(j == 0 ? " extends " : " & ").append(bounds.get(j));
+        }
+      }
+    }
+    return sb.append('>').toString();
+  }
+
+  private static String typeArguments(List<? extends TypeParameterElement> params) {
+    if (params.isEmpty()) {
+      return "";
+    }
+    StringBuilder sb = new StringBuilder("<");
+    for (int i = 0; i < params.size(); i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(params.get(i).getSimpleName());
+    }
+    return sb.append('>').toString();
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
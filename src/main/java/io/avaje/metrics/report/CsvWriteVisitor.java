@@ -1,8 +1,10 @@
 package io.avaje.metrics.report;
 
+import io.avaje.metrics.Tags;
 import io.avaje.metrics.statistics.CounterStatistics;
 import io.avaje.metrics.statistics.GaugeDoubleStatistics;
 import io.avaje.metrics.statistics.GaugeLongStatistics;
+import io.avaje.metrics.statistics.MeterStatistics;
 import io.avaje.metrics.statistics.MetricStatistics;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 import io.avaje.metrics.statistics.TimedStatistics;
@@ -35,6 +37,11 @@ public class CsvWriteVisitor implements MetricStatisticsVisitor {
    */
   static final String TYPE_COUNTER_METRIC = "cm";
 
+  /**
+   * Code for MeterMetric.
+   */
+  static final String TYPE_METER_METRIC = "mm";
+
   /**
    * Code for ValueMetric.
    */
@@ -124,10 +131,17 @@ public class CsvWriteVisitor implements MetricStatisticsVisitor {
   }
 
   private void writeMetricName(MetricStatistics metric, String metricTypeCode) throws IOException {
-    writeMetricName(metric.getName(), metricTypeCode);
+    writeMetricName(metric.getName(), metric.getTags(), metricTypeCode);
   }
 
-  private void writeMetricName(String metricName, String metricTypeCode) throws IOException {
+  /**
+   * Write the metric name followed by the tags (if any) in the form <code>name{key=value}</code>.
+   * <p>
+   * The name is quoted when it contains the delimiter (for example the comma separating tags),
+   * a double quote or a line break.
+   * </p>
+   */
+  private void writeMetricName(String metricName, Tags tags, String metricTypeCode) throws IOException {
 
     writer.write(collectTimeFormatted);
     writer.write(delimiter);
@@ -135,7 +149,18 @@ public class CsvWriteVisitor implements MetricStatisticsVisitor {
       writer.write(metricTypeCode);
       writer.write(delimiter);
     }
-    writer.write(metricName);
+    writer.write(quote(tags.isEmpty() ? metricName : metricName + tags));
+  }
+
+  /**
+   * Return the value quoted (with double quotes doubled) if it contains the delimiter, a double
+   * quote or a line break.
+   */
+  private String quote(String value) {
+    if (!value.contains(delimiter) && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
   }
 
   private void writeMetricEnd() throws IOException {
@@ -154,8 +179,9 @@ public class CsvWriteVisitor implements MetricStatisticsVisitor {
         }
       }
 
-      writeMetricName(metric.getNameWithBucket(), TYPE_TIMED_METRIC);
+      writeMetricName(metric.getNameWithBucket(), metric.getTags(), TYPE_TIMED_METRIC);
       writeSummary(metric);
+      writePercentiles(metric);
       writeMetricEnd();
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -186,6 +212,21 @@ public class CsvWriteVisitor implements MetricStatisticsVisitor {
     }
   }
 
+  @Override
+  public void visit(MeterStatistics metric) {
+
+    try {
+      writeMetricName(metric, TYPE_METER_METRIC);
+      write("count", metric.getCount());
+      write("m1", formattedValue(metric.getOneMinuteRate()));
+      write("m5", formattedValue(metric.getFiveMinuteRate()));
+      write("m15", formattedValue(metric.getFifteenMinuteRate()));
+      writeMetricEnd();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public void visit(GaugeDoubleStatistics metric) {
     try {
@@ -218,6 +259,25 @@ public class CsvWriteVisitor implements MetricStatisticsVisitor {
     write("mean", valueStats.getMean());
     write("max", valueStats.getMax());
     write("total", valueStats.getTotal());
+    long min = valueStats.getMin();
+    if (min != ValueStatistics.MIN_NOT_TRACKED) {
+      write("min", min);
+    }
+    double stdDev = valueStats.getStdDev();
+    if (!Double.isNaN(stdDev)) {
+      // NaN when variance is not tracked
+      write("stddev", formattedValue(stdDev));
+    }
+  }
+
+  private void writePercentiles(TimedStatistics timedStats) throws IOException {
+
+    if (timedStats.isPercentiles() && timedStats.getCount() != 0) {
+      write("p50", timedStats.getP50());
+      write("p95", timedStats.getP95());
+      write("p99", timedStats.getP99());
+      write("p999", timedStats.getP999());
+    }
   }
 
   protected void write(String name, long value) throws IOException {
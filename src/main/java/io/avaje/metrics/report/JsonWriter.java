@@ -1,9 +1,11 @@
 package io.avaje.metrics.report;
 
 
+import io.avaje.metrics.Tags;
 import io.avaje.metrics.statistics.CounterStatistics;
 import io.avaje.metrics.statistics.GaugeDoubleStatistics;
 import io.avaje.metrics.statistics.GaugeLongStatistics;
+import io.avaje.metrics.statistics.MeterStatistics;
 import io.avaje.metrics.statistics.MetricStatistics;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 import io.avaje.metrics.statistics.TimedStatistics;
@@ -15,6 +17,7 @@ import java.util.List;
 import static io.avaje.metrics.report.CsvWriteVisitor.TYPE_COUNTER_METRIC;
 import static io.avaje.metrics.report.CsvWriteVisitor.TYPE_DOUBLE_METRIC;
 import static io.avaje.metrics.report.CsvWriteVisitor.TYPE_LONG_METRIC;
+import static io.avaje.metrics.report.CsvWriteVisitor.TYPE_METER_METRIC;
 import static io.avaje.metrics.report.CsvWriteVisitor.TYPE_TIMED_METRIC;
 import static io.avaje.metrics.report.CsvWriteVisitor.TYPE_VALUE_METRIC;
 
@@ -72,10 +75,10 @@ public class JsonWriter implements MetricStatisticsVisitor {
   }
 
   private void writeMetricStart(String type, MetricStatistics metric) throws IOException {
-    writeMetricStart(type, metric.getName());
+    writeMetricStart(type, metric.getName(), metric.getTags());
   }
 
-  private void writeMetricStart(String type, String name) throws IOException {
+  private void writeMetricStart(String type, String name, Tags tags) throws IOException {
 
     buffer.append("{");
     if (includeType) {
@@ -86,6 +89,23 @@ public class JsonWriter implements MetricStatisticsVisitor {
     writeKey("name");
     writeValue(name);
     buffer.append(",");
+    if (!tags.isEmpty()) {
+      writeTags(tags);
+      buffer.append(",");
+    }
+  }
+
+  private void writeTags(Tags tags) throws IOException {
+    writeKey("tags");
+    buffer.append("{");
+    for (int i = 0; i < tags.size(); i++) {
+      if (i > 0) {
+        buffer.append(",");
+      }
+      writeKey(escape(tags.key(i)));
+      writeValue(escape(tags.value(i)));
+    }
+    buffer.append("}");
   }
 
   private void writeMetricEnd() {
@@ -99,8 +119,9 @@ public class JsonWriter implements MetricStatisticsVisitor {
   @Override
   public void visit(TimedStatistics metric) {
     try {
-      writeMetricStart(TYPE_TIMED_METRIC, metric.getNameWithBucket());
+      writeMetricStart(TYPE_TIMED_METRIC, metric.getNameWithBucket(), metric.getTags());
       writeSummary(metric);
+      writePercentiles(metric);
       writeMetricEnd();
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -129,6 +150,23 @@ public class JsonWriter implements MetricStatisticsVisitor {
     }
   }
 
+  @Override
+  public void visit(MeterStatistics metric) {
+    try {
+      writeMetricStart(TYPE_METER_METRIC, metric);
+      writeKeyNumber("count", metric.getCount());
+      buffer.append(",");
+      writeKeyNumber("m1", format(metric.getOneMinuteRate()));
+      buffer.append(",");
+      writeKeyNumber("m5", format(metric.getFiveMinuteRate()));
+      buffer.append(",");
+      writeKeyNumber("m15", format(metric.getFifteenMinuteRate()));
+      writeMetricEnd();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public void visit(GaugeDoubleStatistics metric) {
     try {
@@ -164,6 +202,31 @@ public class JsonWriter implements MetricStatisticsVisitor {
       writeKeyNumber("max", valueStats.getMax());
       buffer.append(",");
       writeKeyNumber("total", valueStats.getTotal());
+      long min = valueStats.getMin();
+      if (min != ValueStatistics.MIN_NOT_TRACKED) {
+        buffer.append(",");
+        writeKeyNumber("min", min);
+      }
+      double stdDev = valueStats.getStdDev();
+      if (!Double.isNaN(stdDev)) {
+        // NaN when variance is not tracked
+        buffer.append(",");
+        writeKeyNumber("stddev", format(stdDev));
+      }
+    }
+  }
+
+  private void writePercentiles(TimedStatistics timedStats) throws IOException {
+
+    if (timedStats.isPercentiles() && timedStats.getCount() != 0) {
+      buffer.append(",");
+      writeKeyNumber("p50", timedStats.getP50());
+      buffer.append(",");
+      writeKeyNumber("p95", timedStats.getP95());
+      buffer.append(",");
+      writeKeyNumber("p99", timedStats.getP99());
+      buffer.append(",");
+      writeKeyNumber("p999", timedStats.getP999());
     }
   }
 
@@ -192,6 +255,51 @@ public class JsonWriter implements MetricStatisticsVisitor {
     buffer.append("\"");
   }
 
+  /**
+   * Return the value escaped for use in a JSON string.
+   */
+  private static String escape(String value) {
+    int i = 0;
+    while (i < value.length() && !needsEscape(value.charAt(i))) {
+      i++;
+    }
+    if (i == value.length()) {
+      return value;
+    }
+    StringBuilder sb = new StringBuilder(value.length() + 8).append(value, 0, i);
+    for (; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      switch (ch) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (ch < 0x20) {
+            sb.append(String.format("\\u%04x", (int) ch));
+          } else {
+            sb.append(ch);
+          }
+      }
+    }
+    return sb.toString();
+  }
+
+  private static boolean needsEscape(char ch) {
+    return ch == '"' || ch == '\\' || ch < 0x20;
+  }
+
   private void writeNumberValue(String val) throws IOException {
     buffer.append(val);
   }
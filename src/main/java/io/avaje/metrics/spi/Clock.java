@@ -0,0 +1,38 @@
+package io.avaje.metrics.spi;
+
+/**
+ * Source of time used by the metrics.
+ * <p>
+ * The default implementation uses {@link System#nanoTime()} and {@link System#currentTimeMillis()}.
+ * An alternative can be plugged in via service loader or by setting the system property
+ * <code>metrics.clock=coarse</code> to use a cached clock that is updated periodically by a
+ * ticker thread.
+ * </p>
+ * <p>
+ * The nanoTime values must use the same origin as {@link System#nanoTime()} such that a start
+ * time obtained from System.nanoTime() can be used with a metric that uses this clock.
+ * </p>
+ * <p>
+ * Both ends of a duration are read from this clock via {@link #nanosSince(long)} which is never
+ * negative (a cached clock can lag a start time obtained from System.nanoTime()).
+ * </p>
+ */
+public interface Clock {
+
+  /**
+   * Return the current value of the time source in nanoseconds.
+   */
+  long nanoTime();
+
+  /**
+   * Return the nanoseconds since the given start nanos clamped to 0 when negative.
+   */
+  default long nanosSince(long startNanos) {
+    return Math.max(0, nanoTime() - startNanos);
+  }
+
+  /**
+   * Return the current time in milliseconds (epoch millis).
+   */
+  long currentTimeMillis();
+}
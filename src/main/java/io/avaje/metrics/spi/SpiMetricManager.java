@@ -6,12 +6,15 @@ import io.avaje.metrics.GaugeDoubleMetric;
 import io.avaje.metrics.GaugeLong;
 import io.avaje.metrics.GaugeLongMetric;
 import io.avaje.metrics.JvmMetrics;
+import io.avaje.metrics.MeterMetric;
 import io.avaje.metrics.Metric;
+import io.avaje.metrics.MetricFamily;
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.MetricNameCache;
 import io.avaje.metrics.MetricSupplier;
 import io.avaje.metrics.RequestTiming;
 import io.avaje.metrics.RequestTimingManager;
+import io.avaje.metrics.Tags;
 import io.avaje.metrics.TimedMetric;
 import io.avaje.metrics.TimedMetricGroup;
 import io.avaje.metrics.ValueMetric;
@@ -39,11 +42,25 @@ public interface SpiMetricManager extends JvmMetrics, RequestTimingManager {
    */
   MetricName name(String name);
 
+  /**
+   * Create a Metric name with the given tags.
+   */
+  MetricName name(String name, Tags tags);
+
   /**
    * Return the TimedMetric using the metric name.
    */
   TimedMetric timed(MetricName name);
 
+  /**
+   * Return the TimedMetric using the metric name and given clock.
+   * <p>
+   * Typically this is used with the {@link #coarseClock()} for timed metrics where millisecond
+   * precision is enough. The clock is used when the metric is created.
+   * </p>
+   */
+  TimedMetric timed(MetricName name, Clock clock);
+
   /**
    * Return the BucketTimedMetric using the given base metric name and bucketRanges.
    *
@@ -52,11 +69,41 @@ public interface SpiMetricManager extends JvmMetrics, RequestTimingManager {
    */
   TimedMetric timed(MetricName name, int... bucketRanges);
 
+  /**
+   * Return the BucketTimedMetric using the given base metric name and bucketRanges in microseconds.
+   *
+   * @param name               The metric name
+   * @param bucketRangesMicros Time in microseconds which are used to create buckets.
+   */
+  TimedMetric timedMicros(MetricName name, long... bucketRangesMicros);
+
+  /**
+   * Return the histogram based TimedMetric using the metric name.
+   * <p>
+   * The statistics of this timed metric include p50, p95, p99 and p999 percentiles.
+   * </p>
+   */
+  TimedMetric timedHistogram(MetricName name);
+
+  /**
+   * Return the sampled TimedMetric using the metric name.
+   * <p>
+   * Events are recorded with the given probability (for example 0.01 to record 1 in 100) and the
+   * reported count and total are scaled back up.
+   * </p>
+   */
+  TimedMetric timedSampled(MetricName name, double sampleRate);
+
   /**
    * Return the CounterMetric using the metric name.
    */
   CounterMetric counter(MetricName name);
 
+  /**
+   * Return the MeterMetric using the metric name.
+   */
+  MeterMetric meter(MetricName name);
+
   /**
    * Return the ValueMetric using the metric name.
    */
@@ -67,6 +114,21 @@ public interface SpiMetricManager extends JvmMetrics, RequestTimingManager {
    */
   TimedMetricGroup timedGroup(MetricName baseName);
 
+  /**
+   * Return the family of TimedMetrics with the given base name that differ by their tags.
+   */
+  MetricFamily<TimedMetric> timedFamily(MetricName baseName);
+
+  /**
+   * Return the family of CounterMetrics with the given base name that differ by their tags.
+   */
+  MetricFamily<CounterMetric> counterFamily(MetricName baseName);
+
+  /**
+   * Return the family of ValueMetrics with the given base name that differ by their tags.
+   */
+  MetricFamily<ValueMetric> valueFamily(MetricName baseName);
+
   /**
    * Return the MetricNameCache using the class as a base name.
    */
@@ -131,4 +193,19 @@ public interface SpiMetricManager extends JvmMetrics, RequestTimingManager {
    */
   void addSupplier(MetricSupplier supplier);
 
+  /**
+   * Return the clock used by the metrics.
+   */
+  Clock clock();
+
+  /**
+   * Return the coarse clock that has cached time values updated periodically by a ticker thread.
+   */
+  Clock coarseClock();
+
+  /**
+   * Shutdown stopping the ticker thread of the coarse clock (if it was started).
+   */
+  void shutdown();
+
 }
@@ -0,0 +1,34 @@
+package io.avaje.metrics.statistics;
+
+import io.avaje.metrics.MeterMetric;
+
+/**
+ * Statistics provided by the {@link MeterMetric}.
+ */
+public interface MeterStatistics extends MetricStatistics {
+
+  /**
+   * Return the time the meter started statistics collection.
+   */
+  long getStartTime();
+
+  /**
+   * Return the count of events since the last collection.
+   */
+  long getCount();
+
+  /**
+   * Return the one minute moving average rate (events per second).
+   */
+  double getOneMinuteRate();
+
+  /**
+   * Return the five minute moving average rate (events per second).
+   */
+  double getFiveMinuteRate();
+
+  /**
+   * Return the fifteen minute moving average rate (events per second).
+   */
+  double getFifteenMinuteRate();
+}
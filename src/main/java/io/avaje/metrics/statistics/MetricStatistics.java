@@ -1,5 +1,7 @@
 package io.avaje.metrics.statistics;
 
+import io.avaje.metrics.Tags;
+
 /**
  * Common for statistics of all metrics.
  */
@@ -10,6 +12,13 @@ public interface MetricStatistics {
    */
   String getName();
 
+  /**
+   * Return the tags of the metric (empty if the metric has no tags).
+   */
+  default Tags getTags() {
+    return Tags.EMPTY;
+  }
+
   /**
    * Visit the reporter for the given metric type.
    */
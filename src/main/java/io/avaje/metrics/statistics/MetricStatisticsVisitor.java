@@ -20,6 +20,17 @@ public interface MetricStatisticsVisitor {
    */
   void visit(CounterStatistics counter);
 
+  /**
+   * Visit MeterStatistics.
+   * <p>
+   * Defaults to ignoring meter statistics such that visitors written before meters were added
+   * continue to compile.
+   * </p>
+   */
+  default void visit(MeterStatistics meter) {
+    // ignored by default
+  }
+
   /**
    * Visit GaugeDoubleStatistics
    */
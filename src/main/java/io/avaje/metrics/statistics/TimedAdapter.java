@@ -1,6 +1,7 @@
 package io.avaje.metrics.statistics;
 
 import io.avaje.metrics.MetricSupplier;
+import io.avaje.metrics.Tags;
 
 /**
  * Can be used by {@link MetricSupplier} when adapting metrics from an external source.
@@ -11,6 +12,7 @@ import io.avaje.metrics.MetricSupplier;
 public class TimedAdapter implements TimedStatistics {
 
   private final String name;
+  private final Tags tags;
   private final String bucketName;
   private final long startTime;
   private final long count;
@@ -21,7 +23,15 @@ public class TimedAdapter implements TimedStatistics {
    * Create with the metric name and values.
    */
   public TimedAdapter(String name, String bucketName, long startTime, long count, long total, long max) {
+    this(name, Tags.EMPTY, bucketName, startTime, count, total, max);
+  }
+
+  /**
+   * Create with the metric name, tags and values.
+   */
+  public TimedAdapter(String name, Tags tags, String bucketName, long startTime, long count, long total, long max) {
     this.name = name;
+    this.tags = tags;
     this.bucketName = bucketName;
     this.startTime = startTime;
     this.count = count;
@@ -69,6 +79,11 @@ public class TimedAdapter implements TimedStatistics {
     return name;
   }
 
+  @Override
+  public Tags getTags() {
+    return tags;
+  }
+
   @Override
   public String getNameWithBucket() {
     return bucketName;
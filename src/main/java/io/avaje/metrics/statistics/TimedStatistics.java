@@ -23,4 +23,39 @@ public interface TimedStatistics extends ValueStatistics {
    * </p>
    */
   String getNameWithBucket();
+
+  /**
+   * Return true if percentiles were collected (histogram based timed metric).
+   */
+  default boolean isPercentiles() {
+    return false;
+  }
+
+  /**
+   * Return the 50th percentile (median) or 0 if percentiles are not collected.
+   */
+  default long getP50() {
+    return 0;
+  }
+
+  /**
+   * Return the 95th percentile or 0 if percentiles are not collected.
+   */
+  default long getP95() {
+    return 0;
+  }
+
+  /**
+   * Return the 99th percentile or 0 if percentiles are not collected.
+   */
+  default long getP99() {
+    return 0;
+  }
+
+  /**
+   * Return the 99.9th percentile or 0 if percentiles are not collected.
+   */
+  default long getP999() {
+    return 0;
+  }
 }
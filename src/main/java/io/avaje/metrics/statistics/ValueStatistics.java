@@ -5,6 +5,11 @@ package io.avaje.metrics.statistics;
  */
 public interface ValueStatistics extends MetricStatistics {
 
+  /**
+   * The min returned when the min is not tracked (reporters do not write it).
+   */
+  long MIN_NOT_TRACKED = Long.MIN_VALUE;
+
   /**
    * Return the time these statistics were collected from.
    * <p>
@@ -33,4 +38,32 @@ public interface ValueStatistics extends MetricStatistics {
    */
   long getMean();
 
+  /**
+   * Return the Min value collected (since the last reset/collection).
+   * <p>
+   * This is {@link #MIN_NOT_TRACKED} when the min is not tracked.
+   * </p>
+   */
+  default long getMin() {
+    return MIN_NOT_TRACKED;
+  }
+
+  /**
+   * Return the population variance of the values collected (since the last reset/collection).
+   * <p>
+   * This is NaN when variance is not tracked (enabled via the <code>metrics.variance</code>
+   * system property).
+   * </p>
+   */
+  default double getVariance() {
+    return Double.NaN;
+  }
+
+  /**
+   * Return the standard deviation of the values collected (since the last reset/collection).
+   */
+  default double getStdDev() {
+    return Math.sqrt(getVariance());
+  }
+
 }
@@ -0,0 +1,35 @@
+package io.avaje.metrics.statistics;
+
+/**
+ * Statistics of the values recorded over a recent time window (for example the last 10 seconds).
+ * <p>
+ * Obtaining these statistics does not reset the metric or affect the collected statistics.
+ * </p>
+ */
+public interface WindowStatistics {
+
+  /**
+   * Return the number of seconds the window covers (including the current partial second).
+   */
+  int getSeconds();
+
+  /**
+   * Return the count of values in the window.
+   */
+  long getCount();
+
+  /**
+   * Return the total of the values in the window.
+   */
+  long getTotal();
+
+  /**
+   * Return the max value in the window.
+   */
+  long getMax();
+
+  /**
+   * Return the mean value in the window.
+   */
+  long getMean();
+}
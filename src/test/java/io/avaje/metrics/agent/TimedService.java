@@ -0,0 +1,59 @@
+package io.avaje.metrics.agent;
+
+import io.avaje.metrics.annotation.NotTimed;
+import io.avaje.metrics.annotation.Timed;
+
+import java.io.IOException;
+
+@Timed(prefix = "agent")
+public class TimedService {
+
+  private final String name;
+
+  public TimedService(String name) {
+    this.name = name;
+  }
+
+  public String find(String id) {
+    return name + ":" + id;
+  }
+
+  public String find(String id, int max) {
+    return name + ":" + id + ":" + max;
+  }
+
+  @Timed(name = "store", buckets = {100, 200})
+  public synchronized void save(Object value) throws IOException {
+    if (value == null) {
+      throw new IOException("null value");
+    }
+  }
+
+  @NotTimed
+  public void skip() {
+  }
+
+  public static int count(int... values) {
+    return values.length;
+  }
+
+  public double total(long first, double second, int[] more, boolean negate) {
+    double total = first + second;
+    for (int value : more) {
+      total += value;
+    }
+    return negate ? -total : total;
+  }
+
+  public int callHidden(int value) {
+    return hidden(value);
+  }
+
+  @Timed
+  private int hidden(int value) {
+    return value * 2;
+  }
+
+  void notPublic() {
+  }
+}
@@ -0,0 +1,121 @@
+package io.avaje.metrics.agent;
+
+import io.avaje.metrics.MetricManager;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.annotation.Timed;
+import io.avaje.metrics.spi.MetricsEnhanced;
+import io.avaje.metrics.statistics.MetricStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimedTransformerTest {
+
+  private static final String SERVICE = "io/avaje/metrics/agent/TimedService";
+
+  private final TimedTransformer transformer = new TimedTransformer();
+
+  @Test
+  void transform_expect_timedMethodsEnhanced() throws Exception {
+    byte[] original = classBytes(SERVICE);
+    byte[] enhanced = transformer.transform(getClass().getClassLoader(), SERVICE, null, null, original);
+    assertThat(enhanced).isNotNull();
+
+    Class<?> service = new EnhancedLoader().define(SERVICE.replace('/', '.'), enhanced);
+    assertThat(service.getAnnotation(MetricsEnhanced.class)).isNotNull();
+    Object instance = service.getConstructor(String.class).newInstance("a");
+
+    MetricManager.collectNonEmptyMetrics();
+    assertThat(service.getMethod("find", String.class).invoke(instance, "1")).isEqualTo("a:1");
+    assertThat(service.getMethod("find", String.class, int.class).invoke(instance, "1", 2)).isEqualTo("a:1:2");
+    assertThat(service.getMethod("count", int[].class).invoke(null, (Object) new int[]{1, 2, 3})).isEqualTo(3);
+    assertThat(service.getMethod("total", long.class, double.class, int[].class, boolean.class).invoke(instance, 1L, 2.5D, new int[]{3}, true)).isEqualTo(-6.5D);
+    assertThat(service.getMethod("callHidden", int.class).invoke(instance, 4)).isEqualTo(8);
+    service.getMethod("skip").invoke(instance);
+    Method notPublic = service.getDeclaredMethod("notPublic");
+    notPublic.setAccessible(true);
+    notPublic.invoke(instance);
+    Method save = service.getMethod("save", Object.class);
+    save.invoke(instance, "value");
+    assertThatThrownBy(() -> save.invoke(instance, (Object) null))
+      .isInstanceOf(InvocationTargetException.class)
+      .hasCauseInstanceOf(IOException.class);
+
+    List<String> names = MetricManager.collectNonEmptyMetrics().stream().map(MetricStatistics::getName).collect(Collectors.toList());
+    assertThat(names).contains("agent.TimedService.find", "agent.TimedService.find2", "agent.TimedService.count",
+      "agent.TimedService.total", "agent.TimedService.callHidden", "agent.TimedService.hidden",
+      "agent.TimedService.store.error");
+    assertThat(names).noneMatch(name -> name.endsWith(".skip") || name.endsWith(".notPublic"));
+
+    // the timed method keeps the annotations, modifiers and signature of the original
+    assertThat(save.getAnnotation(Timed.class).name()).isEqualTo("store");
+    assertThat(save.getExceptionTypes()).containsExactly(IOException.class);
+    assertThat(Modifier.isSynchronized(save.getModifiers())).isFalse();
+    assertThat(service.getMethod("count", int[].class).isVarArgs()).isTrue();
+    Method original = service.getDeclaredMethod("save" + ClassEnhancer.SUFFIX, Object.class);
+    assertThat(original.isSynthetic()).isTrue();
+    assertThat(Modifier.isPrivate(original.getModifiers())).isTrue();
+    assertThat(Modifier.isSynchronized(original.getModifiers())).isTrue();
+  }
+
+  @Test
+  void transform_when_requestTiming_expect_nestedContextReported() throws Exception {
+    byte[] enhanced = transformer.transform(getClass().getClassLoader(), SERVICE, null, null, classBytes(SERVICE));
+    Class<?> service = new EnhancedLoader().define(SERVICE.replace('/', '.'), enhanced);
+    Object instance = service.getConstructor(String.class).newInstance("b");
+
+    TimedMetric callHidden = MetricManager.timed("agent.TimedService.callHidden");
+    callHidden.setRequestTiming(1);
+    MetricManager.requestTimingManager().collectRequestTimings();
+    service.getMethod("callHidden", int.class).invoke(instance, 1);
+
+    assertThat(callHidden.getRequestTiming()).isEqualTo(0);
+    assertThat(MetricManager.requestTimingManager().collectRequestTimings()).hasSize(1);
+  }
+
+  @Test
+  void transform_when_enhanced_expect_notEnhancedAgain() throws Exception {
+    byte[] enhanced = transformer.transform(getClass().getClassLoader(), SERVICE, null, null, classBytes(SERVICE));
+    assertThat(transformer.transform(getClass().getClassLoader(), SERVICE, null, null, enhanced)).isNull();
+  }
+
+  @Test
+  void transform_when_notTimed_expect_null() throws Exception {
+    String name = "io/avaje/metrics/agent/TimedTransformerTest";
+    assertThat(transformer.transform(getClass().getClassLoader(), name, null, null, classBytes(name))).isNull();
+    assertThat(transformer.transform(null, "java/lang/String", null, null, new byte[0])).isNull();
+  }
+
+  private static byte[] classBytes(String name) throws IOException {
+    try (InputStream in = TimedTransformerTest.class.getClassLoader().getResourceAsStream(name + ".class")) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int len;
+      while ((len = in.read(buffer)) != -1) {
+        out.write(buffer, 0, len);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  private static final class EnhancedLoader extends ClassLoader {
+
+    EnhancedLoader() {
+      super(TimedTransformerTest.class.getClassLoader());
+    }
+
+    Class<?> define(String name, byte[] bytes) {
+      return defineClass(name, bytes, 0, bytes.length);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package io.avaje.metrics.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BucketIndexTest {
+
+  @Test
+  void index_lookupTable() {
+    BucketIndex index = new BucketIndex(new long[]{100_000, 200_000, 300_000});
+    assertTrue(index.isLookupTable());
+    assertEquals(4, index.size());
+
+    assertEquals(0, index.index(-1));
+    assertEquals(0, index.index(0));
+    assertEquals(0, index.index(99_999));
+    assertEquals(1, index.index(100_000));
+    assertEquals(1, index.index(199_999));
+    assertEquals(2, index.index(200_000));
+    assertEquals(3, index.index(300_000));
+    assertEquals(3, index.index(Long.MAX_VALUE));
+  }
+
+  @Test
+  void index_binarySearch() {
+    BucketIndex index = new BucketIndex(new long[]{250, 1_001, 5_000, 1_000_000});
+    assertFalse(index.isLookupTable());
+
+    assertEquals(0, index.index(249));
+    assertEquals(1, index.index(250));
+    assertEquals(1, index.index(1_000));
+    assertEquals(2, index.index(1_001));
+    assertEquals(3, index.index(5_000));
+    assertEquals(4, index.index(1_000_000));
+  }
+
+  @Test
+  void index_matchesLinearScan() {
+    Random random = new Random(42);
+    long[][] allBoundaries = {
+      {10},
+      {10, 20},
+      {50, 100, 150, 200, 300, 500, 1000, 2000, 5000, 10000, 20000},
+      {1, 2, 3, 5, 8, 13, 21, 34, 55, 89, 144, 233, 377, 610},
+      {100_000, 200_000, 300_000, 400_000, 500_000, 1_000_000, 2_000_000, 5_000_000}
+    };
+    for (long[] boundaries : allBoundaries) {
+      BucketIndex index = new BucketIndex(boundaries);
+      long top = boundaries[boundaries.length - 1] * 2;
+      for (int i = 0; i < 10_000; i++) {
+        long value = (long) (random.nextDouble() * top);
+        assertEquals(linearScan(boundaries, value), index.index(value));
+      }
+      for (long boundary : boundaries) {
+        assertEquals(linearScan(boundaries, boundary - 1), index.index(boundary - 1));
+        assertEquals(linearScan(boundaries, boundary), index.index(boundary));
+      }
+    }
+  }
+
+  @Test
+  void indexAll_matchesIndex() {
+    Random random = new Random(7);
+    long[][] allBoundaries = {
+      {100_000, 200_000, 300_000},
+      {250, 1_001, 5_000, 1_000_000}
+    };
+    long[] nanos = new long[1000];
+    for (int i = 0; i < nanos.length; i++) {
+      nanos[i] = (long) (random.nextDouble() * 2_000_000_000L) - 1_000_000;
+    }
+    nanos[0] = -1;
+    nanos[1] = Long.MAX_VALUE;
+    for (long[] boundaries : allBoundaries) {
+      BucketIndex index = new BucketIndex(boundaries);
+      int[] indexes = new int[nanos.length - 10];
+      index.indexAll(nanos, 5, indexes.length, 1000, indexes);
+      for (int i = 0; i < indexes.length; i++) {
+        assertEquals(index.index(nanos[5 + i] / 1000), indexes[i]);
+      }
+      int[] all = new int[2];
+      index.indexAll(nanos, 0, 2, 1000, all);
+      assertEquals(0, all[0]);
+      assertEquals(boundaries.length, all[1]);
+    }
+  }
+
+  private int linearScan(long[] boundaries, long value) {
+    for (int i = 0; i < boundaries.length; i++) {
+      if (value < boundaries[i]) {
+        return i;
+      }
+    }
+    return boundaries.length;
+  }
+}
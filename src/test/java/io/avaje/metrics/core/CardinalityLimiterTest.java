@@ -0,0 +1,100 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.CounterMetric;
+import io.avaje.metrics.Metric;
+import io.avaje.metrics.MetricFamily;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.Tags;
+import io.avaje.metrics.TimedMetric;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardinalityLimiterTest {
+
+  @Test
+  void parse() {
+    assertThat(CardinalityLimiter.parse(null, null)).isSameAs(CardinalityLimiter.UNLIMITED);
+    assertThat(CardinalityLimiter.parse("0", " ")).isSameAs(CardinalityLimiter.UNLIMITED);
+    assertThat(CardinalityLimiter.parse("10", null).isUnlimited()).isFalse();
+    assertThat(CardinalityLimiter.parse(null, "web.=5, db.=2").isUnlimited()).isFalse();
+    assertThatThrownBy(() -> CardinalityLimiter.parse(null, "web.")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void tryAcquire_when_prefixLimit_expect_overallNotCounted() {
+    CardinalityLimiter limiter = CardinalityLimiter.parse("3", "web.=1");
+
+    assertThat(limiter.tryAcquire("web.a")).isTrue();
+    assertThat(limiter.tryAcquire("web.b")).isFalse();
+    assertThat(limiter.tryAcquire("db.a")).isTrue();
+    assertThat(limiter.tryAcquire("db.b")).isTrue();
+    assertThat(limiter.tryAcquire("db.c")).isFalse();
+
+    limiter.release("web.a");
+    assertThat(limiter.tryAcquire("web.b")).isTrue();
+  }
+
+  @Test
+  void overLimit_expect_overflowMetricAndRejectedCount() {
+    DefaultMetricManager mgr = new DefaultMetricManager(CardinalityLimiter.parse("2", null), 0);
+
+    CounterMetric first = mgr.counter(MetricName.of("org.test.limit.first"));
+    TimedMetric second = mgr.timed(MetricName.of("org.test.limit.second"));
+    CounterMetric overflow = mgr.counter(MetricName.of("org.test.limit.user1"));
+    TimedMetric timedOverflow = mgr.timed(MetricName.of("org.test.limit.user2"));
+
+    assertThat(mgr.counter(MetricName.of("org.test.limit.first"))).isSameAs(first);
+    assertThat(mgr.timed(MetricName.of("org.test.limit.second"))).isSameAs(second);
+    assertThat(overflow.getName().getSimpleName()).isEqualTo("metrics.overflow.counter");
+    assertThat(mgr.counter(MetricName.of("org.test.limit.user3"))).isSameAs(overflow);
+    assertThat(timedOverflow.getName().getSimpleName()).isEqualTo("metrics.overflow.timed");
+
+    Metric rejected = mgr.getMetrics().stream()
+      .filter(m -> m.getName().getSimpleName().equals(DefaultMetricManager.METRICS_REJECTED))
+      .findFirst().orElseThrow(IllegalStateException::new);
+    assertThat(((CounterMetric) rejected).getCount()).isEqualTo(3);
+
+    mgr.clear();
+    assertThat(mgr.counter(MetricName.of("org.test.limit.user1")).getName().getSimpleName()).isEqualTo("org.test.limit.user1");
+  }
+
+  @Test
+  void overLimit_expect_overflowMetricPerType() {
+    DefaultMetricManager mgr = new DefaultMetricManager(CardinalityLimiter.parse("1", null), 0);
+
+    mgr.counter(MetricName.of("org.test.limit.first"));
+    TimedMetric timed = mgr.timed(MetricName.of("org.test.limit.timed"));
+    TimedMetric bucket = mgr.timed(MetricName.of("org.test.limit.bucket"), 100);
+    TimedMetric histogram = mgr.timedHistogram(MetricName.of("org.test.limit.histogram"));
+    TimedMetric sampled = mgr.timedSampled(MetricName.of("org.test.limit.sampled"), 0.5);
+
+    assertThat(timed.getName().getSimpleName()).isEqualTo("metrics.overflow.timed");
+    assertThat(bucket.getName().getSimpleName()).isEqualTo("metrics.overflow.timed.bucket");
+    assertThat(bucket).isInstanceOf(DefaultBucketTimedMetric.class);
+    assertThat(histogram.getName().getSimpleName()).isEqualTo("metrics.overflow.timed.histogram");
+    assertThat(sampled.getName().getSimpleName()).isEqualTo("metrics.overflow.timed.sampled");
+    assertThat(mgr.timed(MetricName.of("org.test.limit.other"))).isSameAs(timed);
+  }
+
+  @Test
+  void family_when_overLimit_expect_overflowNotCached() {
+    DefaultMetricManager mgr = new DefaultMetricManager(CardinalityLimiter.parse("1", null), 0);
+    MetricFamily<CounterMetric> family = mgr.counterFamily(MetricName.of("org.test.limit.family"));
+
+    CounterMetric first = family.tagged("user", "a");
+    assertThat(family.tagged("user", "b").getName().getSimpleName()).isEqualTo("metrics.overflow.counter");
+    assertThat(family.tagged("user", "b", "region", "x").getName().getSimpleName()).isEqualTo("metrics.overflow.counter");
+    assertThat(family.tagged(Tags.of("user", "c")).getName().getSimpleName()).isEqualTo("metrics.overflow.counter");
+    assertThat(family.tagged("user", "a")).isSameAs(first);
+
+    // capacity is available again so the previously rejected tags are registered
+    mgr.clear();
+    assertThat(family.tagged("user", "b").getName().getTags()).isEqualTo(Tags.of("user", "b"));
+    mgr.clear();
+    assertThat(family.tagged("user", "b", "region", "x").getName().getTags()).isEqualTo(Tags.of("user", "b", "region", "x"));
+    mgr.clear();
+    assertThat(family.tagged(Tags.of("user", "c")).getName().getTags()).isEqualTo(Tags.of("user", "c"));
+  }
+}
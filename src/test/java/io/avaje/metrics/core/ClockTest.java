@@ -0,0 +1,193 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricManager;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.spi.Clock;
+import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.TimedStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ClockTest {
+
+  /**
+   * Clock with time that is explicitly advanced.
+   */
+  static final class ManualClock implements Clock {
+
+    long nanos = 1_000_000_000L;
+
+    void advanceMicros(long micros) {
+      nanos += TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+
+    @Override
+    public long nanoTime() {
+      return nanos;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+  }
+
+  @Test
+  void timed_withClock() {
+    ManualClock clock = new ManualClock();
+    DefaultTimedMetric metric = new DefaultTimedMetric(MetricName.of("org.test.clock.timed"), clock);
+
+    long start = metric.start();
+    clock.advanceMicros(120);
+    metric.end(start);
+
+    start = metric.start();
+    clock.advanceMicros(80);
+    metric.endWithError(start);
+
+    metric.time(() -> clock.advanceMicros(100));
+
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    List<MetricStatistics> list = collector.getList();
+    assertThat(list).hasSize(2);
+
+    TimedStatistics error = (TimedStatistics) list.get(0);
+    assertEquals(1, error.getCount());
+    assertEquals(80, error.getTotal());
+
+    TimedStatistics success = (TimedStatistics) list.get(1);
+    assertEquals(2, success.getCount());
+    assertEquals(220, success.getTotal());
+    assertEquals(120, success.getMax());
+    assertEquals(1000, success.getStartTime());
+  }
+
+  @Test
+  void timed_lazyError_expect_intervalStartTime() {
+    ManualClock clock = new ManualClock();
+    DefaultTimedMetric metric = new DefaultTimedMetric(MetricName.of("org.test.clock.lazyError"), clock);
+    metric.addEventDuration(true, 1_000);
+
+    // first error well into the interval
+    clock.advanceMicros(5_000_000);
+    metric.addEventDuration(false, 2_000);
+
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    List<MetricStatistics> list = collector.getList();
+    assertThat(list).hasSize(2);
+
+    TimedStatistics error = (TimedStatistics) list.get(0);
+    assertEquals("org.test.clock.lazyError.error", error.getName());
+    assertEquals(1000, error.getStartTime());
+    assertEquals(1000, ((TimedStatistics) list.get(1)).getStartTime());
+  }
+
+  @Test
+  void bucket_withClock() {
+    ManualClock clock = new ManualClock();
+    TimedMetric metric = new BucketTimedMetricFactory(clock).createMetric(MetricName.of("org.test.clock.bucket"), new int[]{1});
+
+    long start = metric.start();
+    clock.advanceMicros(1500);
+    metric.end(start);
+
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    List<MetricStatistics> list = collector.getList();
+    assertThat(list).hasSize(1);
+    assertEquals("1", ((TimedStatistics) list.get(0)).getBucketRange());
+    assertEquals(1500, ((TimedStatistics) list.get(0)).getTotal());
+  }
+
+  @Test
+  void coarseClock_advances() throws InterruptedException {
+    CoarseClock clock = new CoarseClock();
+    try {
+      long nanos = clock.nanoTime();
+      long millis = clock.currentTimeMillis();
+      assertThat(nanos).isLessThanOrEqualTo(System.nanoTime());
+      assertThat(millis).isLessThanOrEqualTo(System.currentTimeMillis());
+
+      Thread.sleep(20);
+      assertThat(clock.nanoTime()).isGreaterThan(nanos);
+      assertThat(clock.currentTimeMillis()).isGreaterThan(millis);
+      // same origin as System.nanoTime() so durations are compatible
+      assertThat(System.nanoTime() - clock.nanoTime()).isLessThan(TimeUnit.SECONDS.toNanos(1));
+    } finally {
+      clock.stop();
+    }
+  }
+
+  @Test
+  void coarseClock_when_startFromSystemNanoTime_expect_durationNotNegative() {
+    // tick interval long enough that the cached time lags the start time
+    CoarseClock clock = new CoarseClock(TimeUnit.SECONDS.toNanos(60));
+    try {
+      DefaultTimedMetric metric = new DefaultTimedMetric(MetricName.of("org.test.clock.lag"), clock);
+      long start = System.nanoTime();
+      assertThat(clock.nanoTime()).isLessThanOrEqualTo(start);
+      metric.add(start);
+      metric.addErr(start);
+      metric.addEventSince(true, start);
+
+      HelperStatsCollector collector = new HelperStatsCollector();
+      metric.collect(collector);
+      for (MetricStatistics statistics : collector.getList()) {
+        // clamped to 0 rather than negative
+        assertThat(((TimedStatistics) statistics).getMin()).isEqualTo(0);
+        assertThat(((TimedStatistics) statistics).getTotal()).isEqualTo(0);
+      }
+    } finally {
+      clock.stop();
+    }
+  }
+
+  @Test
+  void coarseClock_when_sameTick_expect_zeroDuration() {
+    CoarseClock clock = new CoarseClock(TimeUnit.SECONDS.toNanos(60));
+    try {
+      // both ends are read from the cached time
+      long start = clock.nanoTime();
+      assertThat(clock.nanosSince(start)).isEqualTo(0);
+      assertThat(clock.nanosSince(start - 1000)).isEqualTo(1000);
+      assertThat(clock.nanosSince(start + 1000)).isEqualTo(0);
+    } finally {
+      clock.stop();
+    }
+  }
+
+  @Test
+  void shutdown_expect_coarseClockStopped() throws InterruptedException {
+    DefaultMetricManager mgr = new DefaultMetricManager();
+    CoarseClock clock = (CoarseClock) mgr.coarseClock();
+    assertThat(clock.isStopped()).isFalse();
+
+    mgr.shutdown();
+    for (int i = 0; i < 100 && !clock.isStopped(); i++) {
+      Thread.sleep(10);
+    }
+    assertThat(clock.isStopped()).isTrue();
+  }
+
+  @Test
+  void metricManager_coarseClock() {
+    Clock coarse = MetricManager.coarseClock();
+    assertSame(coarse, MetricManager.coarseClock());
+
+    TimedMetric metric = MetricManager.timed(MetricName.of("org.test.clock.coarse"), coarse);
+    assertSame(metric, MetricManager.timed(MetricName.of("org.test.clock.coarse")));
+
+    long start = metric.start();
+    metric.end(start);
+    MetricManager.collectNonEmptyMetrics();
+  }
+}
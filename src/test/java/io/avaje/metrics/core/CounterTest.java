@@ -43,4 +43,36 @@ class CounterTest {
     assertEquals(101, counter.getCount());
 
   }
+
+  @Test
+  void uncontended_expect_notInflated() {
+
+    Counter counter = new Counter(null);
+    for (int i = 0; i < 1000; i++) {
+      counter.increment();
+    }
+    assertFalse(counter.isInflated());
+    assertEquals(1000, counter.getCount());
+  }
+
+  @Test
+  void concurrent_expect_allCounted() throws InterruptedException {
+
+    Counter counter = new Counter(null);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 100_000; i++) {
+          counter.increment();
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(400_000, counter.getCount());
+    counter.reset();
+    assertTrue(counter.isEmpty());
+  }
 }
@@ -20,6 +20,7 @@ class CsvFileReporterTest {
 
     MetricReportConfig config = new MetricReportConfig();
     config.setFreqInSeconds(1);
+    config.setDirectory("target");
     config.setMetricsFileName("metric-csv-exercise2");
     //config.setThresholdMean(40000);
     //config.setLocalReporter(fileReporter);
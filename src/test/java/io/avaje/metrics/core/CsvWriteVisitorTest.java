@@ -10,9 +10,13 @@ import io.avaje.metrics.ValueMetric;
 import io.avaje.metrics.report.CsvWriteVisitor;
 import io.avaje.metrics.statistics.CounterStatistics;
 import io.avaje.metrics.statistics.GaugeDoubleStatistics;
+import io.avaje.metrics.statistics.MeterStatistics;
 import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.TimedAdapter;
 import io.avaje.metrics.statistics.TimedStatistics;
 import io.avaje.metrics.statistics.ValueStatistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.StringWriter;
@@ -23,6 +27,19 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class CsvWriteVisitorTest {
 
+  private static boolean trackVariance;
+
+  @BeforeAll
+  static void enableVariance() {
+    trackVariance = ValueCounter.trackVariance;
+    ValueCounter.trackVariance = true;
+  }
+
+  @AfterAll
+  static void restoreVariance() {
+    ValueCounter.trackVariance = trackVariance;
+  }
+
   private static final long NANOS_TO_MILLIS = 1000000L;
 
   @Test
@@ -39,6 +56,21 @@ class CsvWriteVisitorTest {
     assertThat(counterCsv).contains(",org.test.CounterFoo.doStuff,10");
   }
 
+  @Test
+  void testMeter() {
+
+    StringWriter writer = new StringWriter();
+    CsvWriteVisitor csvVisitor = createVisitor(writer).withType(true);
+
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    DefaultMeterMetric meter = new DefaultMeterMetric(MetricName.of("org.test.MeterFoo.doStuff"), clock);
+    meter.mark(52);
+    clock.advanceMicros(5_000_000);
+
+    csvVisitor.visit((MeterStatistics) collect(meter));
+    assertThat(writer.toString()).isEqualTo("10:00:00,mm,org.test.MeterFoo.doStuff,count=52,m1=10.4,m5=10.4,m15=10.4\n");
+  }
+
   private MetricStatistics collect(Metric metric) {
     return collectAll(metric).get(0);
   }
@@ -84,7 +116,24 @@ class CsvWriteVisitorTest {
     assertThat(csvContent).contains(",count=3,");
     assertThat(csvContent).contains(",mean=14,");
     assertThat(csvContent).contains(",max=16,");
-    assertThat(csvContent).contains(",total=42");
+    assertThat(csvContent).contains(",total=42,");
+    assertThat(csvContent).contains(",min=12,");
+    assertThat(csvContent).contains(",stddev=1.63");
+  }
+
+  @Test
+  void testTimedAdapter_expect_noMinOrStddev() {
+
+    StringWriter writer = new StringWriter();
+    CsvWriteVisitor csvVisitor = createVisitor(writer);
+
+    csvVisitor.visit(new TimedAdapter("org.test.Adapted", "org.test.Adapted", 0, 2, 40, 30));
+    String csvContent = writer.toString();
+
+    assertThat(csvContent).contains(",count=2,");
+    assertThat(csvContent).contains(",total=40");
+    assertThat(csvContent).doesNotContain("min=");
+    assertThat(csvContent).doesNotContain("stddev=");
   }
 
 
@@ -119,6 +168,22 @@ class CsvWriteVisitorTest {
   }
 
 
+  @Test
+  void testHistogramTimedMetric() {
+
+    StringWriter writer = new StringWriter();
+    CsvWriteVisitor csvVisitor = createVisitor(writer);
+
+    TimedMetric metric = new DefaultHistogramTimedMetric(MetricName.of("org.test.HistFoo.doStuff"));
+    metric.addEventDuration(true, 100 * 1000L);
+    metric.addEventDuration(true, 120 * 1000L);
+
+    csvVisitor.visit((TimedStatistics) collect(metric));
+    String csvContent = writer.toString();
+
+    assertThat(csvContent).contains(",org.test.HistFoo.doStuff,count=2,mean=110,max=120,total=220,min=100,stddev=10.0,p50=101,p95=120,p99=120,p999=120");
+  }
+
   /**
    * Test using a BucketTimedMetric with all buckets having values.
    */
@@ -0,0 +1,122 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.Metric;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.statistics.CounterStatistics;
+import io.avaje.metrics.statistics.MeterStatistics;
+import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.TimedStatistics;
+import io.avaje.metrics.statistics.ValueStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CumulativeCollectionTest {
+
+  private final ClockTest.ManualClock clock = new ClockTest.ManualClock();
+
+  private static List<MetricStatistics> collect(Metric metric) {
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    return collector.getList();
+  }
+
+  @Test
+  void counter_expect_notReset() {
+    DefaultCounterMetric metric = new DefaultCounterMetric(MetricName.of("org.test.cumulative.counter"), clock, true);
+    assertThat(collect(metric)).isEmpty();
+
+    long startTime = clock.currentTimeMillis();
+    metric.inc(3);
+    clock.advanceMicros(5_000);
+    CounterStatistics first = (CounterStatistics) collect(metric).get(0);
+    assertThat(first.getCount()).isEqualTo(3);
+
+    metric.inc();
+    CounterStatistics second = (CounterStatistics) collect(metric).get(0);
+    assertThat(second.getCount()).isEqualTo(4);
+    assertThat(second.getStartTime()).isEqualTo(startTime);
+
+    // collected again with no new events still reports the count
+    assertThat(((CounterStatistics) collect(metric).get(0)).getCount()).isEqualTo(4);
+
+    metric.clear();
+    assertThat(collect(metric)).isEmpty();
+  }
+
+  @Test
+  void value_expect_monotonic() {
+    DefaultValueMetric metric = new DefaultValueMetric(MetricName.of("org.test.cumulative.value"), clock, true);
+    metric.addEvent(10);
+    metric.addEvent(30);
+    ValueStatistics first = (ValueStatistics) collect(metric).get(0);
+    assertThat(first.getCount()).isEqualTo(2);
+    assertThat(first.getTotal()).isEqualTo(40);
+
+    metric.addEvent(5);
+    metric.addEvents(new long[]{100, 1}, 0, 2);
+    ValueStatistics second = (ValueStatistics) collect(metric).get(0);
+    assertThat(second.getCount()).isEqualTo(5);
+    assertThat(second.getTotal()).isEqualTo(146);
+    assertThat(second.getMax()).isEqualTo(100);
+    assertThat(second.getMin()).isEqualTo(1);
+    assertThat(second.getStartTime()).isEqualTo(first.getStartTime());
+
+    ValueStatistics third = (ValueStatistics) collect(metric).get(0);
+    assertThat(third.getCount()).isEqualTo(5);
+    assertThat(third.getTotal()).isEqualTo(146);
+
+    metric.clear();
+    assertThat(collect(metric)).isEmpty();
+  }
+
+  @Test
+  void timed_expect_successAndErrorCumulative() {
+    DefaultTimedMetric metric = new DefaultTimedMetric(MetricName.of("org.test.cumulative.timed"), clock, true);
+    metric.addEventDuration(true, 1_000_000);
+    metric.addEventDuration(false, 2_000_000);
+    assertThat(collect(metric)).hasSize(2);
+
+    metric.addEventDuration(true, 3_000_000);
+    List<MetricStatistics> stats = collect(metric);
+    assertThat(stats).hasSize(2);
+    TimedStatistics error = (TimedStatistics) stats.get(0);
+    TimedStatistics success = (TimedStatistics) stats.get(1);
+    assertThat(error.getCount()).isEqualTo(1);
+    assertThat(success.getCount()).isEqualTo(2);
+    assertThat(success.getTotal()).isEqualTo(4_000);
+  }
+
+  @Test
+  void histogram_expect_percentilesOverAllEvents() {
+    DefaultHistogramTimedMetric metric = new DefaultHistogramTimedMetric(MetricName.of("org.test.cumulative.histo"), clock, true);
+    for (int i = 0; i < 99; i++) {
+      metric.addEventDuration(true, 100_000);
+    }
+    collect(metric);
+    metric.addEventDuration(true, 50_000_000);
+
+    DefaultHistogramStatistics stats = (DefaultHistogramStatistics) collect(metric).get(0);
+    assertThat(stats.getCount()).isEqualTo(100);
+    assertThat(stats.getP50()).isGreaterThanOrEqualTo(100).isLessThan(110);
+  }
+
+  @Test
+  void meter_expect_countNotReset() {
+    DefaultMeterMetric metric = new DefaultMeterMetric(MetricName.of("org.test.cumulative.meter"), clock, true);
+    metric.mark(5);
+    assertThat(((MeterStatistics) collect(metric).get(0)).getCount()).isEqualTo(5);
+    metric.mark();
+    assertThat(((MeterStatistics) collect(metric).get(0)).getCount()).isEqualTo(6);
+  }
+
+  @Test
+  void resetMode_expect_reset() {
+    DefaultValueMetric metric = new DefaultValueMetric(MetricName.of("org.test.cumulative.reset"), clock);
+    metric.addEvent(10);
+    assertThat(((ValueStatistics) collect(metric).get(0)).getCount()).isEqualTo(1);
+    assertThat(collect(metric)).isEmpty();
+  }
+}
@@ -2,9 +2,14 @@ package io.avaje.metrics.core;
 
 import io.avaje.metrics.MetricName;
 import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.TimedStatistics;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class DefaultBucketTimedMetricTest {
 
@@ -67,6 +72,109 @@ class DefaultBucketTimedMetricTest {
 
   }
 
+  @Test
+  void micros() {
+
+    TimedMetric metric = mgr.timedMicros(MetricName.of("org.test.BucketMicros.doStuff"), 250, 1500);
+    metric.addEventDuration(true, 100_000);
+    metric.addEventDuration(true, 249_999);
+    metric.addEventDuration(true, 250_000);
+    metric.addEventDuration(true, 2_000_000);
+
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    List<MetricStatistics> stats = collector.getList();
+    assertThat(stats).hasSize(3);
+
+    TimedStatistics first = (TimedStatistics) stats.get(0);
+    assertThat(first.getNameWithBucket()).isEqualTo("org.test.BucketMicros.doStuff;bucket=0-250us");
+    assertThat(first.getCount()).isEqualTo(2);
+    TimedStatistics second = (TimedStatistics) stats.get(1);
+    assertThat(second.getNameWithBucket()).isEqualTo("org.test.BucketMicros.doStuff;bucket=250-1500us");
+    assertThat(second.getCount()).isEqualTo(1);
+    TimedStatistics last = (TimedStatistics) stats.get(2);
+    assertThat(last.getNameWithBucket()).isEqualTo("org.test.BucketMicros.doStuff;bucket=1500us");
+    assertThat(last.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void micros_when_wholeMillis() {
+
+    TimedMetric metric = mgr.timedMicros(MetricName.of("org.test.BucketMicros.millis"), 100_000, 200_000);
+    metric.addEventDuration(true, 150_000_000);
+
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    TimedStatistics stats = (TimedStatistics) collector.getList().get(0);
+    assertThat(stats.getNameWithBucket()).isEqualTo("org.test.BucketMicros.millis;bucket=100-200");
+  }
+
+  @Test
+  void micros_when_notAscending_expect_rejectedBeforeCreate() {
+
+    MetricName bad = MetricName.of("org.test.BucketMicros.bad");
+    assertThatThrownBy(() -> mgr.timedMicros(bad, 500, 250)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> mgr.timed(bad, 0, 100)).isInstanceOf(IllegalArgumentException.class);
+    assertThat(mgr.getMetrics()).noneMatch(metric -> metric.getName().equals(bad));
+  }
+
+  @Test
+  void createMetric_when_microsOnNonBucketFactory_expect_convertedToMillis() {
+
+    MetricFactory<TimedMetric> factory = new NoopConvertingFactory();
+    assertThat(factory.createMetric(name, new long[]{100_000, 200_000})).isNull();
+    assertThatThrownBy(() -> factory.createMetric(name, new long[]{250})).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  /**
+   * Factory that only supports millisecond ranges (expects the converted ranges).
+   */
+  private static class NoopConvertingFactory implements MetricFactory<TimedMetric> {
+
+    @Override
+    public TimedMetric createMetric(MetricName name, int[] bucketRanges) {
+      assertThat(bucketRanges).containsExactly(100, 200);
+      return null;
+    }
+  }
+
+  @Test
+  void addEventDurations_expect_sameAsSingleEvents() {
+
+    TimedMetric batch = mgr.timed(MetricName.of("org.test.BucketBatch.batch"), 100, 200, 300);
+    TimedMetric single = mgr.timed(MetricName.of("org.test.BucketBatch.single"), 100, 200, 300);
+
+    long[] durations = {-5, 0, 50_000_000, 99_999_999, 100_000_000, 150_400_000, 250_000_000, 400_000_000, 900_000_000};
+    batch.addEventDurations(true, durations, 0, durations.length);
+    batch.addEventDurations(false, durations, 2, 2);
+    for (long duration : durations) {
+      single.addEventDuration(true, duration);
+    }
+    single.addEventDuration(false, durations[2]);
+    single.addEventDuration(false, durations[3]);
+
+    List<MetricStatistics> batchStats = collect(batch);
+    List<MetricStatistics> singleStats = collect(single);
+    assertThat(batchStats).hasSize(5);
+    assertThat(batchStats).hasSameSizeAs(singleStats);
+    for (int i = 0; i < batchStats.size(); i++) {
+      TimedStatistics expected = (TimedStatistics) singleStats.get(i);
+      TimedStatistics actual = (TimedStatistics) batchStats.get(i);
+      assertThat(actual.getBucketRange()).isEqualTo(expected.getBucketRange());
+      assertThat(actual.getCount()).isEqualTo(expected.getCount());
+      assertThat(actual.getTotal()).isEqualTo(expected.getTotal());
+      assertThat(actual.getMax()).isEqualTo(expected.getMax());
+      assertThat(actual.getMin()).isEqualTo(expected.getMin());
+      assertThat(actual.getVariance()).isEqualTo(expected.getVariance());
+    }
+  }
+
+  private List<MetricStatistics> collect(TimedMetric metric) {
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    return collector.getList();
+  }
+
   private void assertNameMatch(MetricName name, MetricName name1) {
     assertThat(name.toString()).isEqualTo(name1.toString());
   }
@@ -0,0 +1,55 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.TimedStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultHistogramTimedMetricTest {
+
+  private static final long NANOS_TO_MICROS = 1000L;
+
+  @Test
+  void collect() {
+
+    TimedMetric metric = new DefaultMetricManager().timedHistogram(MetricName.of("org.test.HistFoo.doStuff"));
+    for (int i = 1; i <= 100; i++) {
+      metric.addEventDuration(true, i * 10 * NANOS_TO_MICROS);
+    }
+    metric.addEventDuration(false, 5000 * NANOS_TO_MICROS);
+
+    List<MetricStatistics> stats = collect(metric);
+    assertThat(stats).hasSize(2);
+
+    TimedStatistics errStats = (TimedStatistics) stats.get(0);
+    assertEquals("org.test.HistFoo.doStuff.error", errStats.getName());
+    assertFalse(errStats.isPercentiles());
+
+    TimedStatistics stat = (TimedStatistics) stats.get(1);
+    assertEquals("org.test.HistFoo.doStuff", stat.getName());
+    assertTrue(stat.isPercentiles());
+    assertEquals(100, stat.getCount());
+    assertEquals(1000, stat.getMax());
+    assertThat(stat.getP50()).isBetween(500L, 515L);
+    assertThat(stat.getP95()).isBetween(950L, 980L);
+    assertThat(stat.getP99()).isBetween(990L, 1000L);
+    assertEquals(1000, stat.getP999());
+
+    // reset by the collection
+    assertThat(collect(metric)).isEmpty();
+  }
+
+  private List<MetricStatistics> collect(TimedMetric metric) {
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    return collector.getList();
+  }
+}
@@ -0,0 +1,85 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MeterMetric;
+import io.avaje.metrics.MetricManager;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.statistics.MeterStatistics;
+import io.avaje.metrics.statistics.MetricStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DefaultMeterMetricTest {
+
+  private static List<MetricStatistics> collect(MeterMetric meter) {
+    HelperStatsCollector collector = new HelperStatsCollector();
+    meter.collect(collector);
+    return collector.getList();
+  }
+
+  @Test
+  void rates() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    DefaultMeterMetric meter = new DefaultMeterMetric(MetricName.of("org.test.meter"), clock);
+
+    meter.mark(299);
+    meter.mark();
+    assertEquals(300, meter.getCount());
+    // not yet ticked
+    assertEquals(0, meter.getOneMinuteRate());
+
+    clock.advanceMicros(5_000_000);
+    assertEquals(60, meter.getOneMinuteRate(), 0.0001);
+    assertEquals(60, meter.getFiveMinuteRate(), 0.0001);
+    assertEquals(60, meter.getFifteenMinuteRate(), 0.0001);
+
+    // idle for a minute (12 ticks caught up lazily)
+    clock.advanceMicros(60_000_000);
+    assertEquals(60 * Math.exp(-1), meter.getOneMinuteRate(), 0.0001);
+    assertEquals(60 * Math.exp(-1 / 5d), meter.getFiveMinuteRate(), 0.0001);
+    assertEquals(60 * Math.exp(-1 / 15d), meter.getFifteenMinuteRate(), 0.0001);
+  }
+
+  @Test
+  void collect() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    DefaultMeterMetric meter = new DefaultMeterMetric(MetricName.of("org.test.meter.collect"), clock);
+    assertThat(collect(meter)).isEmpty();
+
+    meter.mark(50);
+    clock.advanceMicros(5_000_000);
+
+    List<MetricStatistics> stats = collect(meter);
+    assertThat(stats).hasSize(1);
+    MeterStatistics statistics = (MeterStatistics) stats.get(0);
+    assertEquals("org.test.meter.collect", statistics.getName());
+    assertEquals(50, statistics.getCount());
+    assertEquals(10, statistics.getOneMinuteRate(), 0.0001);
+    assertEquals(0, meter.getCount());
+
+    // rates are not reset by collection and reported while decaying
+    clock.advanceMicros(5_000_000);
+    statistics = (MeterStatistics) collect(meter).get(0);
+    assertEquals(0, statistics.getCount());
+    assertThat(statistics.getOneMinuteRate()).isLessThan(10).isGreaterThan(9);
+    assertThat(statistics.getFifteenMinuteRate()).isGreaterThan(statistics.getOneMinuteRate());
+
+    // not reported once decayed
+    clock.advanceMicros(3_600_000_000L);
+    assertThat(collect(meter)).isEmpty();
+  }
+
+  @Test
+  void metricManager_meter() {
+    MeterMetric meter = MetricManager.meter("org.test.meter.mgr");
+    assertSame(meter, MetricManager.meter(MetricName.of("org.test.meter.mgr")));
+    meter.mark();
+    assertEquals(1, meter.getCount());
+    meter.clear();
+    assertEquals(0, meter.getCount());
+  }
+}
@@ -1,12 +1,19 @@
 package io.avaje.metrics.core;
 
+import io.avaje.metrics.CounterMetric;
+import io.avaje.metrics.GaugeLong;
 import io.avaje.metrics.MetricName;
+import io.avaje.metrics.MetricSupplier;
 import io.avaje.metrics.TimedMetric;
 import io.avaje.metrics.TimingMetricInfo;
 import orange.truck.Customer;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -88,4 +95,90 @@ class DefaultMetricManagerTest {
     assertFalse(mgr.setRequestTimingCollection(Customer.class, "methodDoesNotExist", 1));
 
   }
+
+  @Test
+  void registerJvmMetrics_lazy() {
+
+    DefaultMetricManager mgr = new DefaultMetricManager();
+    mgr.registerJvmMemoryMetrics();
+    mgr.registerJvmThreadMetrics();
+
+    // created on first access
+    assertFalse(mgr.getJvmMetrics().isEmpty());
+    int count = mgr.getJvmMetrics().size();
+    assertEquals(count, mgr.getJvmMetrics().size());
+
+    mgr.registerJvmGCMetrics();
+    assertTrue(mgr.getJvmMetrics().size() > count);
+    assertFalse(mgr.collectMetrics().isEmpty());
+  }
+
+  @Test
+  void registerJvmMetrics_when_lazyGroupFails_expect_otherGroupsReported() {
+
+    DefaultMetricManager expected = new DefaultMetricManager();
+    expected.registerJvmMemoryMetrics();
+    expected.registerJvmThreadMetrics();
+
+    DefaultMetricManager mgr = new DefaultMetricManager();
+    mgr.registerJvmMemoryMetrics();
+    mgr.registerLazy("failing", () -> {
+      throw new IllegalStateException("not supported");
+    });
+    mgr.registerJvmThreadMetrics();
+
+    // the failing group is dropped and not retried
+    assertEquals(expected.getJvmMetrics().size(), mgr.getJvmMetrics().size());
+    assertEquals(expected.getJvmMetrics().size(), mgr.getJvmMetrics().size());
+    assertFalse(mgr.collectNonEmptyJvmMetrics().isEmpty());
+  }
+
+  @Test
+  void create_when_collecting_expect_notBlocked() throws Exception {
+
+    DefaultMetricManager mgr = new DefaultMetricManager();
+    CountDownLatch collecting = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    mgr.register(MetricName.of("org.test.slow.gauge"), (GaugeLong) () -> {
+      collecting.countDown();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return 1;
+    });
+
+    CompletableFuture<Integer> collect = CompletableFuture.supplyAsync(() -> mgr.collectNonEmptyMetrics().size());
+    assertTrue(collecting.await(10, TimeUnit.SECONDS));
+
+    // collection is in progress, creating a metric does not wait for it
+    CounterMetric counter = CompletableFuture.supplyAsync(() -> mgr.counter(MetricName.of("org.test.slow.counter"))).get(5, TimeUnit.SECONDS);
+    counter.inc();
+    assertSame(counter, mgr.counter(MetricName.of("org.test.slow.counter")));
+
+    release.countDown();
+    assertTrue(collect.get(10, TimeUnit.SECONDS) >= 1);
+  }
+
+  @Test
+  void addSupplier_when_collecting_expect_noRace() throws Exception {
+
+    DefaultMetricManager mgr = new DefaultMetricManager();
+    MetricSupplier supplier = () -> Collections.singletonList(new DefaultCounterStatistics(MetricName.of("org.test.supplied"), 0, 1));
+
+    CompletableFuture<?>[] registering = new CompletableFuture<?>[4];
+    for (int i = 0; i < registering.length; i++) {
+      registering[i] = CompletableFuture.runAsync(() -> {
+        for (int j = 0; j < 250; j++) {
+          mgr.addSupplier(supplier);
+        }
+      });
+    }
+    while (!CompletableFuture.allOf(registering).isDone()) {
+      mgr.collectMetrics();
+    }
+    CompletableFuture.allOf(registering).get(10, TimeUnit.SECONDS);
+    assertEquals(1000, mgr.collectNonEmptyMetrics().size());
+  }
 }
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DefaultMetricNameTest {
@@ -58,4 +60,42 @@ class DefaultMetricNameTest {
     assertTrue(m0.isError());
     assertFalse(m1.isError());
   }
+
+  @Test
+  void of_expect_interned() {
+
+    DefaultMetricName m0 = DefaultMetricName.of("org.test.interned.Foo.bar");
+    DefaultMetricName m1 = DefaultMetricName.of("org.test.interned.Foo.bar");
+    assertSame(m0, m1);
+    assertNotSame(m0, DefaultMetricName.of("org.test.interned.Foo.baz"));
+
+    // equal to a name created via the constructor
+    DefaultMetricName created = new DefaultMetricName("org.test.interned.Foo.bar");
+    assertEquals(m0, created);
+    assertEquals(m0.hashCode(), created.hashCode());
+
+    assertSame(m0.tagged("status", "200"), DefaultMetricName.of("org.test.interned.Foo.bar").tagged("status", "200"));
+  }
+
+  @Test
+  void append_expect_cachedOnParent() {
+
+    DefaultMetricName base = DefaultMetricName.of("org.test.append.Foo");
+    MetricName error = base.append("error");
+    assertSame(error, base.append("error"));
+    assertTrue(error.isError());
+    assertEquals("org.test.append.Foo.error", error.getSimpleName());
+
+    MetricName bar = base.append("bar");
+    assertSame(bar, base.append("bar"));
+    assertSame(bar, DefaultMetricName.of("org.test.append.Foo.bar"));
+  }
+
+  @Test
+  void of_class() {
+
+    assertEquals("io.avaje.metrics.core.DefaultMetricNameTest.foo", DefaultMetricName.of(DefaultMetricNameTest.class, "foo").getSimpleName());
+    assertEquals("io.avaje.metrics.core.DefaultMetricNameTest", DefaultMetricName.of(DefaultMetricNameTest.class, null).getSimpleName());
+    assertSame(DefaultMetricName.of(DefaultMetricNameTest.class, "foo"), DefaultMetricName.of("io.avaje.metrics.core.DefaultMetricNameTest.foo"));
+  }
 }
@@ -0,0 +1,110 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.spi.Clock;
+import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.TimedStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DefaultSampledTimedMetricTest {
+
+  /**
+   * Clock that advances 10 micros on each read and counts the reads.
+   */
+  static final class CountingClock implements Clock {
+
+    long reads;
+    long nanos;
+
+    @Override
+    public long nanoTime() {
+      reads++;
+      nanos += 10_000;
+      return nanos;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+      return 1000;
+    }
+  }
+
+  private static List<MetricStatistics> collect(DefaultSampledTimedMetric metric) {
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    return collector.getList();
+  }
+
+  @Test
+  void sampleRate_one_expect_allRecorded() {
+    CountingClock clock = new CountingClock();
+    DefaultSampledTimedMetric metric = new DefaultSampledTimedMetric(MetricName.of("org.test.sampled.all"), clock, 1d);
+
+    for (int i = 0; i < 100; i++) {
+      metric.end(metric.start());
+    }
+    metric.endWithError(metric.start());
+    assertEquals(202, clock.reads);
+
+    List<MetricStatistics> stats = collect(metric);
+    TimedStatistics error = (TimedStatistics) stats.get(0);
+    TimedStatistics success = (TimedStatistics) stats.get(1);
+    assertEquals("org.test.sampled.all.error", error.getName());
+    assertEquals(1, error.getCount());
+    assertEquals(100, success.getCount());
+    assertEquals(1000, success.getTotal());
+    assertEquals(10, success.getMean());
+  }
+
+  @Test
+  void sampled_expect_scaledCountAndTotal() {
+    CountingClock clock = new CountingClock();
+    DefaultSampledTimedMetric metric = new DefaultSampledTimedMetric(MetricName.of("org.test.sampled"), clock, 0.1d);
+    assertEquals(10d, metric.getScale());
+
+    int events = 100_000;
+    for (int i = 0; i < events; i++) {
+      long start = metric.start();
+      metric.end(start);
+    }
+    // unsampled events do not read the clock
+    assertThat(clock.reads).isBetween(2L * 9_000, 2L * 11_000);
+
+    List<MetricStatistics> stats = collect(metric);
+    assertThat(stats).hasSize(1);
+    TimedStatistics success = (TimedStatistics) stats.get(0);
+    assertThat(success.getCount()).isBetween(95_000L, 105_000L);
+    assertEquals(clock.reads / 2 * 10, success.getCount());
+    assertEquals(success.getCount() * 10, success.getTotal());
+    assertEquals(10, success.getMean());
+    assertEquals(10, success.getMax());
+    assertThat(success.getStdDev()).isNaN();
+  }
+
+  @Test
+  void time_notSampled_expect_runWithoutClock() {
+    CountingClock clock = new CountingClock();
+    DefaultSampledTimedMetric metric = new DefaultSampledTimedMetric(MetricName.of("org.test.sampled.time"), clock, 0.01d);
+
+    int[] runs = new int[1];
+    for (int i = 0; i < 1000; i++) {
+      metric.time(() -> runs[0]++);
+    }
+    assertEquals(1000, runs[0]);
+    assertThat(clock.reads).isLessThan(100);
+  }
+
+  @Test
+  void sampleRate_invalid() {
+    assertThatThrownBy(() -> new DefaultSampledTimedMetric(MetricName.of("org.test.sampled.bad"), new CountingClock(), 0d))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new DefaultSampledTimedMetric(MetricName.of("org.test.sampled.bad"), new CountingClock(), 1.5d))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+}
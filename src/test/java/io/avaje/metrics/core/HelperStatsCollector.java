@@ -3,6 +3,7 @@ package io.avaje.metrics.core;
 import io.avaje.metrics.statistics.CounterStatistics;
 import io.avaje.metrics.statistics.GaugeDoubleStatistics;
 import io.avaje.metrics.statistics.GaugeLongStatistics;
+import io.avaje.metrics.statistics.MeterStatistics;
 import io.avaje.metrics.statistics.MetricStatistics;
 import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 import io.avaje.metrics.statistics.TimedStatistics;
@@ -35,6 +36,11 @@ class HelperStatsCollector implements MetricStatisticsVisitor {
     list.add(metric);
   }
 
+  @Override
+  public void visit(MeterStatistics metric) {
+    list.add(metric);
+  }
+
   @Override
   public void visit(GaugeDoubleStatistics metric) {
     list.add(metric);
@@ -0,0 +1,92 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.CounterMetric;
+import io.avaje.metrics.GaugeLong;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.statistics.MetricStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdleMetricEvictionTest {
+
+  private final DefaultMetricManager mgr = new DefaultMetricManager(CardinalityLimiter.UNLIMITED, 2);
+
+  @Test
+  void idle_expect_evicted() {
+    CounterMetric idle = mgr.counter(MetricName.of("org.test.evict.idle"));
+    CounterMetric busy = mgr.counter(MetricName.of("org.test.evict.busy"));
+    mgr.register(MetricName.of("org.test.evict.gauge"), (GaugeLong) () -> 0);
+    idle.inc();
+
+    busy.inc();
+    assertThat(mgr.collectNonEmptyMetrics()).hasSize(2);
+    busy.inc();
+    mgr.collectNonEmptyMetrics();
+    assertThat(mgr.getMetrics()).hasSize(3);
+
+    busy.inc();
+    mgr.collectNonEmptyMetrics();
+    // idle for 2 collections, the gauge is never evicted
+    assertThat(mgr.getMetrics()).hasSize(2).doesNotContain(idle);
+  }
+
+  @Test
+  void evicted_when_lookedUp_expect_sameInstance() {
+    CounterMetric counter = mgr.counter(MetricName.of("org.test.evict.lookup"));
+    mgr.collectNonEmptyMetrics();
+    int generation = mgr.generation();
+    mgr.collectNonEmptyMetrics();
+    assertThat(mgr.getMetrics()).isEmpty();
+    assertThat(mgr.generation()).isNotEqualTo(generation);
+
+    assertThat(mgr.counter(MetricName.of("org.test.evict.lookup"))).isSameAs(counter);
+    assertThat(mgr.getMetrics()).containsOnly(counter);
+  }
+
+  @Test
+  void evicted_when_stillUsed_expect_collectedAndRegistered() {
+    TimedMetric timed = mgr.timed(MetricName.of("org.test.evict.held"));
+    mgr.collectNonEmptyMetrics();
+    mgr.collectNonEmptyMetrics();
+    assertThat(mgr.getMetrics()).isEmpty();
+
+    timed.addEventDuration(true, 1_000_000);
+    List<MetricStatistics> stats = mgr.collectNonEmptyMetrics();
+    assertThat(stats).hasSize(1);
+    assertThat(stats.get(0).getName()).isEqualTo("org.test.evict.held");
+    assertThat(mgr.getMetrics()).containsOnly(timed);
+  }
+
+  @Test
+  void evicted_expect_generationOfOtherManagerUnchanged() {
+    DefaultMetricManager other = new DefaultMetricManager(CardinalityLimiter.UNLIMITED, 2);
+    mgr.counter(MetricName.of("org.test.evict.generation"));
+    mgr.collectNonEmptyMetrics();
+    mgr.collectNonEmptyMetrics();
+
+    assertThat(mgr.generation()).isEqualTo(1);
+    assertThat(other.generation()).isEqualTo(0);
+  }
+
+  @Test
+  void cumulative_when_idle_expect_evicted() {
+    System.setProperty("metrics.cumulative", "true");
+    try {
+      DefaultMetricManager cumulative = new DefaultMetricManager(CardinalityLimiter.UNLIMITED, 2);
+      CounterMetric counter = cumulative.counter(MetricName.of("org.test.evict.cumulative"));
+      counter.inc();
+      assertThat(cumulative.collectNonEmptyMetrics()).hasSize(1);
+
+      // the count is still reported but nothing has been recorded since
+      assertThat(cumulative.collectNonEmptyMetrics()).hasSize(1);
+      assertThat(cumulative.collectNonEmptyMetrics()).hasSize(1);
+      assertThat(cumulative.getMetrics()).isEmpty();
+    } finally {
+      System.clearProperty("metrics.cumulative");
+    }
+  }
+}
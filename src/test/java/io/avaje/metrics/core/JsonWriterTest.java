@@ -17,9 +17,13 @@ import io.avaje.metrics.report.JsonWriter;
 import io.avaje.metrics.report.ReportMetrics;
 import io.avaje.metrics.statistics.CounterStatistics;
 import io.avaje.metrics.statistics.GaugeDoubleStatistics;
+import io.avaje.metrics.statistics.MeterStatistics;
 import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.TimedAdapter;
 import io.avaje.metrics.statistics.TimedStatistics;
 import io.avaje.metrics.statistics.ValueStatistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
@@ -35,6 +39,19 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class JsonWriterTest {
 
+  private static boolean trackVariance;
+
+  @BeforeAll
+  static void enableVariance() {
+    trackVariance = ValueCounter.trackVariance;
+    ValueCounter.trackVariance = true;
+  }
+
+  @AfterAll
+  static void restoreVariance() {
+    ValueCounter.trackVariance = trackVariance;
+  }
+
   private static final long NANOS_TO_MICROS = 1000L;
 
   private static final long NANOS_TO_MILLIS = 1000000L;
@@ -58,6 +75,21 @@ class JsonWriterTest {
     assertEquals("{\"name\":\"org.test.CounterFoo.doStuff\",\"value\":10}", counterJson);
   }
 
+  @Test
+  void testMeter() {
+
+    StringWriter writer = new StringWriter();
+    JsonWriter jsonVisitor = newJsonMetricVisitor(writer).withType(true);
+
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    DefaultMeterMetric meter = new DefaultMeterMetric(MetricName.of("org.test.MeterFoo.doStuff"), clock);
+    meter.mark(52);
+    clock.advanceMicros(5_000_000);
+    jsonVisitor.visit((MeterStatistics) collectOne(meter));
+
+    assertEquals("{\"type\":\"mm\",\"name\":\"org.test.MeterFoo.doStuff\",\"count\":52,\"m1\":10.4,\"m5\":10.4,\"m15\":10.4}", writer.toString());
+  }
+
   @Test
   void testGaugeMetric() {
 
@@ -80,7 +112,32 @@ class JsonWriterTest {
     jsonVisitor.visit((ValueStatistics) collectOne(metric));
     String counterJson = writer.toString();
 
-    assertEquals("{\"type\":\"vm\",\"name\":\"org.test.ValueFoo.doStuff\",\"count\":3,\"mean\":14,\"max\":16,\"total\":42}", counterJson);
+    assertEquals("{\"type\":\"vm\",\"name\":\"org.test.ValueFoo.doStuff\",\"count\":3,\"mean\":14,\"max\":16,\"total\":42,\"min\":12,\"stddev\":1.63}", counterJson);
+  }
+
+  @Test
+  void testValueMetric_when_varianceNotTracked_expect_noStddev() {
+
+    StringWriter writer = new StringWriter();
+    JsonWriter jsonVisitor = newJsonMetricVisitor(writer).withType(true);
+
+    ValueCounter.trackVariance = false;
+    try {
+      jsonVisitor.visit((ValueStatistics) collectOne(createValueMetric()));
+    } finally {
+      ValueCounter.trackVariance = true;
+    }
+    assertEquals("{\"type\":\"vm\",\"name\":\"org.test.ValueFoo.doStuff\",\"count\":3,\"mean\":14,\"max\":16,\"total\":42,\"min\":12}", writer.toString());
+  }
+
+  @Test
+  void testTimedAdapter_expect_noMinOrStddev() {
+
+    StringWriter writer = new StringWriter();
+    JsonWriter jsonVisitor = newJsonMetricVisitor(writer);
+
+    jsonVisitor.visit(new TimedAdapter("org.test.Adapted", "org.test.Adapted", 0, 2, 40, 30));
+    assertEquals("{\"name\":\"org.test.Adapted\",\"count\":2,\"mean\":20,\"max\":30,\"total\":40}", writer.toString());
   }
 
   @Test
@@ -95,11 +152,26 @@ class JsonWriterTest {
     String counterJson = writer.toString();
 
     // values converted into microseconds
-    String match = "{\"name\":\"org.test.TimedFoo.doStuff.error\",\"count\":2,\"mean\":210,\"max\":220,\"total\":420}{\"name\":\"org.test.TimedFoo.doStuff\",\"count\":3,\"mean\":120,\"max\":140,\"total\":360}";
+    String match = "{\"name\":\"org.test.TimedFoo.doStuff.error\",\"count\":2,\"mean\":210,\"max\":220,\"total\":420,\"min\":200,\"stddev\":10.0}{\"name\":\"org.test.TimedFoo.doStuff\",\"count\":3,\"mean\":120,\"max\":140,\"total\":360,\"min\":100,\"stddev\":16.33}";
     assertEquals(match, counterJson);
   }
 
 
+  @Test
+  void testHistogramTimedMetric() {
+
+    StringWriter writer = new StringWriter();
+    JsonWriter jsonVisitor = newJsonMetricVisitor(writer);
+
+    TimedMetric metric = new DefaultHistogramTimedMetric(MetricName.of("org.test.HistFoo.doStuff"));
+    metric.addEventDuration(true, 100 * NANOS_TO_MICROS);
+    metric.addEventDuration(true, 120 * NANOS_TO_MICROS);
+    visitAllTimed(metric, jsonVisitor);
+
+    String match = "{\"name\":\"org.test.HistFoo.doStuff\",\"count\":2,\"mean\":110,\"max\":120,\"total\":220,\"min\":100,\"stddev\":10.0,\"p50\":101,\"p95\":120,\"p99\":120,\"p999\":120}";
+    assertEquals(match, writer.toString());
+  }
+
   /**
    * Test using a BucketTimedMetric with all buckets having values.
    */
@@ -113,7 +185,7 @@ class JsonWriterTest {
     visitAllTimed(metric, jsonVisitor);
     String bucketJson = writer.toString();
 
-    String match = "{\"type\":\"tm\",\"name\":\"org.test.BucketTimedFoo.doStuff;bucket=0-150\",\"count\":3,\"mean\":120000,\"max\":140000,\"total\":360000}{\"type\":\"tm\",\"name\":\"org.test.BucketTimedFoo.doStuff;bucket=150\",\"count\":2,\"mean\":210000,\"max\":220000,\"total\":420000}";
+    String match = "{\"type\":\"tm\",\"name\":\"org.test.BucketTimedFoo.doStuff;bucket=0-150\",\"count\":3,\"mean\":120000,\"max\":140000,\"total\":360000,\"min\":100000,\"stddev\":16329.93}{\"type\":\"tm\",\"name\":\"org.test.BucketTimedFoo.doStuff;bucket=150\",\"count\":2,\"mean\":210000,\"max\":220000,\"total\":420000,\"min\":200000,\"stddev\":10000.0}";
     assertThat(bucketJson).contains(match);
   }
 
@@ -131,7 +203,7 @@ class JsonWriterTest {
 
     String bucketJson = writer.toString();
 
-    String match = "{\"name\":\"org.test.BucketTimedFoo.doStuff;bucket=0-150\",\"count\":3,\"mean\":120000,\"max\":140000,\"total\":360000}";
+    String match = "{\"name\":\"org.test.BucketTimedFoo.doStuff;bucket=0-150\",\"count\":3,\"mean\":120000,\"max\":140000,\"total\":360000,\"min\":100000,\"stddev\":16329.93}";
     assertThat(bucketJson).contains(match);
   }
 
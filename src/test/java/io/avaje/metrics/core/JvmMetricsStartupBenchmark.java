@@ -0,0 +1,96 @@
+package io.avaje.metrics.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+
+/**
+ * Benchmark of the startup cost of registering the JVM metrics.
+ * <p>
+ * Each measurement is run in a fresh JVM as the cost is dominated by class loading and MXBean
+ * initialisation. The "eager" mode forces the JVM metrics to be created at registration (the
+ * prior behaviour) and the "lazy" mode only registers them (created on first collection).
+ * </p>
+ * <p>
+ * The first forks are discarded as warm-up (OS file cache, class data sharing archive) and each
+ * fork creates a manager before measuring such that the metrics core classes are already loaded
+ * and only the JVM metrics registration is measured. The lazy mode also reports the cost of the
+ * first collection which is where the JVM metrics are then created.
+ * </p>
+ * <p>
+ * Not run as part of the tests, run the main method.
+ * </p>
+ */
+public class JvmMetricsStartupBenchmark {
+
+  private static final int WARMUP = 3;
+
+  private static final int RUNS = 10;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 1) {
+      long[] result = measure("eager".equals(args[0]));
+      System.out.println(result[0] + " " + result[1]);
+      return;
+    }
+    for (int i = 0; i < WARMUP; i++) {
+      fork("eager");
+      fork("lazy");
+    }
+    long[] eager = new long[RUNS];
+    long[] lazy = new long[RUNS];
+    long[] lazyCollect = new long[RUNS];
+    for (int i = 0; i < RUNS; i++) {
+      eager[i] = fork("eager")[0];
+      long[] result = fork("lazy");
+      lazy[i] = result[0];
+      lazyCollect[i] = result[1];
+    }
+    System.out.printf("registerJvmMetrics() + registerCGroupMetrics() median micros  eager:%d  lazy:%d  (lazy first collection:%d)%n",
+      median(eager), median(lazy), median(lazyCollect));
+  }
+
+  /**
+   * Return the micros taken to register the JVM metrics and the micros of the first collection.
+   */
+  private static long[] measure(boolean eager) {
+    // warm up the metrics core classes such that only the JVM metrics are measured
+    new DefaultMetricManager().collectNonEmptyMetrics();
+
+    DefaultMetricManager manager = new DefaultMetricManager();
+    long start = System.nanoTime();
+    manager.registerJvmMetrics().registerCGroupMetrics();
+    if (eager) {
+      manager.getJvmMetrics();
+    }
+    long registered = System.nanoTime();
+    manager.collectNonEmptyJvmMetrics();
+    long collected = System.nanoTime();
+    return new long[]{(registered - start) / 1000, (collected - registered) / 1000};
+  }
+
+  private static long[] fork(String mode) throws IOException, InterruptedException {
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), JvmMetricsStartupBenchmark.class.getName(), mode)
+      .redirectErrorStream(true)
+      .start();
+    String result = null;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        result = line;
+      }
+    }
+    process.waitFor();
+    String[] values = result.trim().split(" ");
+    return new long[]{Long.parseLong(values[0]), Long.parseLong(values[1])};
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+}
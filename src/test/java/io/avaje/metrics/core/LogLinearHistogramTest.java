@@ -0,0 +1,65 @@
+package io.avaje.metrics.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogLinearHistogramTest {
+
+  @Test
+  void index_when_small_exact() {
+    for (int i = 0; i < 64; i++) {
+      assertEquals(i, LogLinearHistogram.index(i));
+      assertEquals(i, LogLinearHistogram.lowestValue(i));
+      assertEquals(i, LogLinearHistogram.highestValue(i));
+    }
+    assertEquals(0, LogLinearHistogram.index(-10));
+  }
+
+  @Test
+  void index_boundsContainValue() {
+    long value = 1;
+    while (value < (1L << 40)) {
+      int index = LogLinearHistogram.index(value);
+      assertThat(LogLinearHistogram.lowestValue(index)).isLessThanOrEqualTo(value);
+      assertThat(LogLinearHistogram.highestValue(index)).isGreaterThanOrEqualTo(value);
+      value = value * 3 / 2 + 1;
+    }
+  }
+
+  @Test
+  void index_relativeError() {
+    for (long value = 32; value < 10_000_000; value = value * 11 / 10) {
+      int index = LogLinearHistogram.index(value);
+      long high = LogLinearHistogram.highestValue(index);
+      assertThat((double) (high - value) / value).isLessThanOrEqualTo(1 / 32d);
+    }
+  }
+
+  @Test
+  void index_when_large_clamped() {
+    assertEquals(LogLinearHistogram.BUCKET_COUNT - 1, LogLinearHistogram.index(Long.MAX_VALUE));
+    assertEquals(LogLinearHistogram.BUCKET_COUNT - 1, LogLinearHistogram.index((1L << 40) - 1));
+  }
+
+  @Test
+  void percentilesThenReset() {
+    LogLinearHistogram histogram = new LogLinearHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.add(i * 1000);
+    }
+    long[] values = histogram.percentilesThenReset(50, 95, 99, 99.9);
+    assertWithin(500_000, values[0]);
+    assertWithin(950_000, values[1]);
+    assertWithin(990_000, values[2]);
+    assertWithin(999_000, values[3]);
+
+    assertThat(histogram.isEmpty()).isTrue();
+    assertThat(histogram.percentilesThenReset(50)).containsExactly(0);
+  }
+
+  private void assertWithin(long expected, long actual) {
+    assertThat(actual).isBetween(expected, expected + expected / 32);
+  }
+}
@@ -0,0 +1,183 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.CounterMetric;
+import io.avaje.metrics.Metric;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.ValueMetric;
+import io.avaje.metrics.statistics.CounterStatistics;
+import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.TimedStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedMetricStoreTest {
+
+  private final ClockTest.ManualClock clock = new ClockTest.ManualClock();
+
+  private final File file = tempFile();
+
+  private static File tempFile() {
+    try {
+      return File.createTempFile("metrics-mapped", ".dat");
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @AfterEach
+  void deleteFile() {
+    file.delete();
+  }
+
+  private static List<MetricStatistics> collect(Metric metric) {
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    return collector.getList();
+  }
+
+  @Test
+  void read_expect_liveValues() throws IOException {
+    MappedMetricStore store = MappedMetricStore.create(file, 10, clock.currentTimeMillis());
+    CounterMetric counter = new MappedCounterMetricFactory(store, clock, false).createMetric(MetricName.of("org.test.mapped.counter"), new int[0]);
+    ValueMetric value = new MappedValueMetricFactory(store, clock, false).createMetric(MetricName.of("org.test.mapped.value"), new int[0]);
+    TimedMetric timed = new MappedTimedMetricFactory(store, clock, false).createMetric(MetricName.of("org.test.mapped.timed"), new int[0]);
+    assertThat(counter).isInstanceOf(MappedCounterMetric.class);
+    assertThat(store.size()).isEqualTo(3);
+
+    counter.inc();
+    counter.inc(4);
+    value.addEvent(10);
+    value.addEvents(new long[]{30, 5}, 0, 2);
+    timed.addEventDuration(true, 2_000_000);
+    timed.addEventDuration(false, 7_000);
+
+    List<MetricStatistics> stats = MappedMetricReader.read(file);
+    assertThat(stats).hasSize(4);
+    CounterStatistics counterStats = (CounterStatistics) stats.get(0);
+    assertThat(counterStats.getName()).isEqualTo("org.test.mapped.counter");
+    assertThat(counterStats.getCount()).isEqualTo(5);
+
+    TimedStatistics valueStats = (TimedStatistics) stats.get(1);
+    assertThat(valueStats.getName()).isEqualTo("org.test.mapped.value");
+    assertThat(valueStats.getCount()).isEqualTo(3);
+    assertThat(valueStats.getTotal()).isEqualTo(45);
+    assertThat(valueStats.getMax()).isEqualTo(30);
+
+    TimedStatistics errorStats = (TimedStatistics) stats.get(2);
+    assertThat(errorStats.getName()).isEqualTo("org.test.mapped.timed.error");
+    assertThat(errorStats.getTotal()).isEqualTo(7);
+    TimedStatistics successStats = (TimedStatistics) stats.get(3);
+    assertThat(successStats.getName()).isEqualTo("org.test.mapped.timed");
+    assertThat(successStats.getTotal()).isEqualTo(2000);
+  }
+
+  @Test
+  void collect_expect_changeSinceLastCollection() throws IOException {
+    MappedMetricStore store = MappedMetricStore.create(file, 10, clock.currentTimeMillis());
+    ValueMetric value = new MappedValueMetricFactory(store, clock, false).createMetric(MetricName.of("org.test.mapped.collect"), new int[0]);
+
+    value.addEvent(10);
+    value.addEvent(20);
+    TimedStatistics first = (TimedStatistics) collect(value).get(0);
+    assertThat(first.getCount()).isEqualTo(2);
+    assertThat(first.getTotal()).isEqualTo(30);
+    assertThat(collect(value)).isEmpty();
+
+    value.addEvent(5);
+    TimedStatistics second = (TimedStatistics) collect(value).get(0);
+    assertThat(second.getCount()).isEqualTo(1);
+    assertThat(second.getMax()).isEqualTo(5);
+
+    // the external reader sees the values since creation
+    TimedStatistics read = (TimedStatistics) MappedMetricReader.read(file).get(0);
+    assertThat(read.getCount()).isEqualTo(3);
+    assertThat(read.getTotal()).isEqualTo(35);
+
+    value.clear();
+    assertThat(MappedMetricReader.read(file)).isEmpty();
+  }
+
+  @Test
+  void collect_expect_externalMaxNotReset() throws IOException {
+    MappedMetricStore store = MappedMetricStore.create(file, 10, clock.currentTimeMillis());
+    ValueMetric value = new MappedValueMetricFactory(store, clock, false).createMetric(MetricName.of("org.test.mapped.max"), new int[0]);
+
+    value.addEvent(50);
+    assertThat(((TimedStatistics) collect(value).get(0)).getMax()).isEqualTo(50);
+    value.addEvent(7);
+    assertThat(((TimedStatistics) collect(value).get(0)).getMax()).isEqualTo(7);
+
+    // the external max is since creation
+    TimedStatistics read = (TimedStatistics) MappedMetricReader.read(file).get(0);
+    assertThat(read.getMax()).isEqualTo(50);
+  }
+
+  @Test
+  void concurrentAdd_expect_allRecorded() throws Exception {
+    MappedMetricStore store = MappedMetricStore.create(file, 10, clock.currentTimeMillis());
+    ValueMetric value = new MappedValueMetricFactory(store, clock, false).createMetric(MetricName.of("org.test.mapped.concurrent"), new int[0]);
+
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          value.addEvent(3);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    TimedStatistics read = (TimedStatistics) MappedMetricReader.read(file).get(0);
+    assertThat(read.getCount()).isEqualTo(40_000);
+    assertThat(read.getTotal()).isEqualTo(120_000);
+    assertThat(read.getMax()).isEqualTo(3);
+  }
+
+  @Test
+  void rollingWindow_expect_successValues() throws IOException {
+    MappedMetricStore store = MappedMetricStore.create(file, 10, clock.currentTimeMillis());
+    ValueMetric value = new MappedValueMetricFactory(store, clock, false).createMetric(MetricName.of("org.test.mapped.window.value"), new int[0]);
+    TimedMetric timed = new MappedTimedMetricFactory(store, clock, false).createMetric(MetricName.of("org.test.mapped.window.timed"), new int[0]);
+    value.enableRollingWindow(60);
+    timed.enableRollingWindow(60);
+
+    value.addEvent(10);
+    value.addEvents(new long[]{20, 30}, 0, 2);
+    timed.addEventDuration(true, 100_000);
+    timed.addEventDurations(true, new long[]{200_000, 300_000}, 0, 2);
+    timed.addEventDuration(false, 900_000);
+
+    assertThat(value.rollingWindow(60).getCount()).isEqualTo(3);
+    assertThat(value.rollingWindow(60).getTotal()).isEqualTo(60);
+    assertThat(timed.rollingWindow(60).getCount()).isEqualTo(3);
+    assertThat(timed.rollingWindow(60).getTotal()).isEqualTo(600);
+    assertThat(timed.rollingWindow(60).getMax()).isEqualTo(300);
+  }
+
+  @Test
+  void storeFull_expect_heapMetric() throws IOException {
+    MappedMetricStore store = MappedMetricStore.create(file, 1, clock.currentTimeMillis());
+    MappedCounterMetricFactory factory = new MappedCounterMetricFactory(store, clock, false);
+
+    assertThat(factory.createMetric(MetricName.of("org.test.mapped.first"), new int[0])).isInstanceOf(MappedCounterMetric.class);
+    assertThat(factory.createMetric(MetricName.of("org.test.mapped.second"), new int[0])).isInstanceOf(DefaultCounterMetric.class);
+  }
+
+  @Test
+  void read_when_notMetricsFile_expect_exception() {
+    assertThatThrownBy(() -> MappedMetricReader.read(file))
+      .isInstanceOf(IOException.class)
+      .hasMessageStartingWith("Not a metrics file");
+  }
+}
@@ -0,0 +1,98 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures the heap footprint of idle metrics (created but not yet used).
+ * <p>
+ * The footprint is measured as the bytes allocated per instance (which includes the
+ * metric and everything it creates). The limits assume compressed oops.
+ * </p>
+ */
+class MetricFootprintTest {
+
+  private static final int INSTANCES = 2_000;
+
+  private static final MetricName[] NAMES = new MetricName[INSTANCES];
+
+  static {
+    for (int i = 0; i < INSTANCES; i++) {
+      NAMES[i] = MetricName.of("org.test.footprint.m" + i);
+    }
+  }
+
+  @Test
+  void counter_footprint() {
+    long bytes = bytesPerInstance(i -> new DefaultCounterMetric(NAMES[i], SystemClock.INSTANCE));
+    assertThat(bytes).isLessThanOrEqualTo(80);
+  }
+
+  @Test
+  void value_footprint() {
+    long bytes = bytesPerInstance(i -> new DefaultValueMetric(NAMES[i], SystemClock.INSTANCE));
+    assertThat(bytes).isLessThanOrEqualTo(96);
+  }
+
+  @Test
+  void timed_footprint() {
+    long bytes = bytesPerInstance(i -> new DefaultTimedMetric(NAMES[i], SystemClock.INSTANCE));
+    // the error counter is not created until the first error
+    assertThat(bytes).isLessThanOrEqualTo(128);
+  }
+
+  @Test
+  void valueCounter_firstValue_expect_compactStripe() {
+    com.sun.management.ThreadMXBean threadBean = threadBean();
+    long threadId = Thread.currentThread().getId();
+    ValueCounter[] counters = new ValueCounter[INSTANCES];
+    for (int i = 0; i < INSTANCES; i++) {
+      counters[i] = new ValueCounter(NAMES[i]);
+    }
+    // warm up such that allocation from class loading is excluded
+    new ValueCounter(NAMES[0]).add(1);
+
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    for (ValueCounter counter : counters) {
+      counter.add(1);
+    }
+    long allocated = (threadBean.getThreadAllocatedBytes(threadId) - before) / INSTANCES;
+    // stripes array and first stripe of 11 longs rather than a padded 16 long stripe
+    assertThat(allocated).isLessThan(160);
+  }
+
+  /**
+   * Return the bytes allocated per instance created by the function.
+   */
+  private static long bytesPerInstance(IntFunction<Object> create) {
+    com.sun.management.ThreadMXBean threadBean = threadBean();
+    long threadId = Thread.currentThread().getId();
+    Object[] holder = new Object[INSTANCES];
+    // warm up such that allocation from class loading is excluded
+    for (int i = 0; i < INSTANCES; i++) {
+      holder[i] = create.apply(i);
+    }
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < INSTANCES; i++) {
+      holder[i] = create.apply(i);
+    }
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+    assertThat(holder[INSTANCES - 1]).isNotNull();
+    return allocated / INSTANCES;
+  }
+
+  private static com.sun.management.ThreadMXBean threadBean() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "thread allocation measurement not available");
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "thread allocation measurement not supported");
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+    return threadBean;
+  }
+}
@@ -0,0 +1,68 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.CounterMetric;
+import io.avaje.metrics.Metric;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.statistics.MetricStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelCollectTaskTest {
+
+  @Test
+  void compute_expect_serialOrder() {
+    int size = ParallelCollectTask.MIN_LEAF_SIZE * 5 + 7;
+    Metric[] metrics = new Metric[size];
+    for (int i = 0; i < size; i++) {
+      CounterMetric counter = new DefaultCounterMetric(MetricName.of("org.test.parallel.c" + i));
+      if (i % 3 != 0) {
+        counter.inc();
+      }
+      metrics[i] = counter;
+    }
+    List<MetricStatistics> stats = ForkJoinPool.commonPool().invoke(new ParallelCollectTask(metrics, 4));
+
+    assertThat(stats).hasSize(size - (size + 2) / 3);
+    int pos = 0;
+    for (int i = 0; i < size; i++) {
+      if (i % 3 != 0) {
+        assertThat(stats.get(pos++).getName()).isEqualTo("org.test.parallel.c" + i);
+      }
+    }
+  }
+
+  @Test
+  void manager_when_parallel_expect_sameAsSerial() {
+    DefaultMetricManager mgr = new DefaultMetricManager(CardinalityLimiter.UNLIMITED, 2);
+    mgr.setParallelThreshold(1);
+    int size = ParallelCollectTask.MIN_LEAF_SIZE * 3;
+    for (int i = 0; i < size; i++) {
+      mgr.counter(MetricName.of("org.test.parallel.m" + i)).inc();
+    }
+    mgr.counter(MetricName.of("org.test.parallel.idle"));
+
+    List<MetricStatistics> parallel = mgr.collectNonEmptyMetrics();
+    assertThat(parallel).hasSize(size);
+
+    for (Metric metric : mgr.getMetrics()) {
+      ((CounterMetric) metric).inc();
+    }
+    mgr.setParallelThreshold(0);
+    List<MetricStatistics> serial = mgr.collectNonEmptyMetrics();
+    assertThat(serial).hasSize(size + 1);
+    serial.removeIf(stats -> stats.getName().equals("org.test.parallel.idle"));
+    for (int i = 0; i < size; i++) {
+      assertThat(parallel.get(i).getName()).isEqualTo(serial.get(i).getName());
+    }
+
+    // all idle for 2 collections and evicted
+    mgr.setParallelThreshold(1);
+    mgr.collectNonEmptyMetrics();
+    mgr.collectNonEmptyMetrics();
+    assertThat(mgr.getMetrics()).isEmpty();
+  }
+}
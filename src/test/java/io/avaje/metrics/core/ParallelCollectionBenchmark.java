@@ -0,0 +1,66 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedMetric;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmark of serial against parallel collection by registry size to find the crossover point
+ * for <code>metrics.parallelThreshold</code>.
+ * <p>
+ * Each timed metric records an event before every collection such that collection does the
+ * full work of building the statistics.
+ * </p>
+ * <p>
+ * Not run as part of the tests, run the main method (ideally with a quiet machine).
+ * </p>
+ */
+public class ParallelCollectionBenchmark {
+
+  private static final int[] SIZES = {500, 1_000, 5_000, 10_000, 50_000, 100_000, 200_000};
+
+  private static final int RUNS = 30;
+
+  public static void main(String[] args) {
+
+    System.out.printf("parallelism:%d%n", ForkJoinPool.commonPool().getParallelism());
+    for (int size : SIZES) {
+      DefaultMetricManager manager = new DefaultMetricManager(CardinalityLimiter.UNLIMITED, 0);
+      TimedMetric[] metrics = new TimedMetric[size];
+      for (int i = 0; i < size; i++) {
+        metrics[i] = manager.timed(MetricName.of("bench.collect.m" + i));
+      }
+      // warm up
+      run(manager, metrics, 0);
+      run(manager, metrics, 1);
+
+      long serial = run(manager, metrics, 0);
+      long parallel = run(manager, metrics, 1);
+      System.out.printf("metrics:%7d  serial:%8d micros  parallel:%8d micros%n", size, serial, parallel);
+    }
+  }
+
+  /**
+   * Return the median micros to collect the metrics.
+   */
+  static long run(DefaultMetricManager manager, TimedMetric[] metrics, int parallelThreshold) {
+
+    manager.setParallelThreshold(parallelThreshold);
+    long[] micros = new long[RUNS];
+    for (int run = 0; run < RUNS; run++) {
+      for (TimedMetric metric : metrics) {
+        metric.addEventDuration(true, 1_000_000 + run);
+      }
+      long start = System.nanoTime();
+      int count = manager.collectNonEmptyMetrics().size();
+      micros[run] = (System.nanoTime() - start) / 1000;
+      if (count != metrics.length) {
+        throw new IllegalStateException("Expected " + metrics.length + " statistics but got " + count);
+      }
+    }
+    Arrays.sort(micros);
+    return micros[RUNS / 2];
+  }
+}
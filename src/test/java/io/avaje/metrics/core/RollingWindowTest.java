@@ -0,0 +1,206 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.TimedStatistics;
+import io.avaje.metrics.statistics.WindowStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RollingWindowTest {
+
+  private static final long SECOND_MICROS = 1_000_000L;
+
+  @Test
+  void add_withinSecond() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    RollingWindow window = new RollingWindow(clock, 10);
+    window.add(10);
+    window.add(30);
+
+    WindowStatistics stats = window.statistics(1);
+    assertThat(stats.getSeconds()).isEqualTo(1);
+    assertThat(stats.getCount()).isEqualTo(2);
+    assertThat(stats.getTotal()).isEqualTo(40);
+    assertThat(stats.getMax()).isEqualTo(30);
+    assertThat(stats.getMean()).isEqualTo(20);
+  }
+
+  @Test
+  void statistics_lastSeconds() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    RollingWindow window = new RollingWindow(clock, 10);
+    for (int i = 1; i <= 5; i++) {
+      window.add(i * 100);
+      clock.advanceMicros(SECOND_MICROS);
+    }
+    window.add(1);
+
+    assertThat(window.statistics(1).getCount()).isEqualTo(1);
+    WindowStatistics three = window.statistics(3);
+    assertThat(three.getCount()).isEqualTo(3);
+    assertThat(three.getTotal()).isEqualTo(1 + 500 + 400);
+    assertThat(three.getMax()).isEqualTo(500);
+    assertThat(window.statistics(10).getCount()).isEqualTo(6);
+    // clamped to the max seconds
+    assertThat(window.statistics(60).getSeconds()).isEqualTo(10);
+  }
+
+  @Test
+  void rotation_expect_oldSecondsDropped() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    RollingWindow window = new RollingWindow(clock, 3);
+    window.add(100);
+    clock.advanceMicros(3 * SECOND_MICROS);
+    assertThat(window.statistics(3).getCount()).isEqualTo(0);
+    assertThat(window.statistics(3).getMax()).isEqualTo(0);
+
+    // reuses the same slot index as the first value
+    window.add(7);
+    WindowStatistics stats = window.statistics(3);
+    assertThat(stats.getCount()).isEqualTo(1);
+    assertThat(stats.getTotal()).isEqualTo(7);
+  }
+
+  @Test
+  void create_invalidSeconds() {
+    assertThatThrownBy(() -> new RollingWindow(SystemClock.INSTANCE, 0))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void concurrentAdd() throws InterruptedException {
+    RollingWindow window = new RollingWindow(new ClockTest.ManualClock(), 5);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          window.add(2);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    WindowStatistics stats = window.statistics(5);
+    assertThat(stats.getCount()).isEqualTo(40_000);
+    assertThat(stats.getTotal()).isEqualTo(80_000);
+  }
+
+  @Test
+  void batch_rollingWindow_expect_aggregated() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    DefaultTimedMetric timed = new DefaultTimedMetric(MetricName.of("org.test.window.batchTimed"), clock);
+    DefaultValueMetric value = new DefaultValueMetric(MetricName.of("org.test.window.batchValue"), clock);
+    timed.enableRollingWindow(10);
+    value.enableRollingWindow(10);
+
+    timed.addEventDurations(true, new long[]{0, 1_000_000, 3_000_000, 2_000_000}, 1, 3);
+    timed.addEventDurations(false, new long[]{9_000_000}, 0, 1);
+    value.addEvents(new long[]{5, 20, 8, 100}, 0, 3);
+
+    WindowStatistics timedStats = timed.rollingWindow(10);
+    assertThat(timedStats.getCount()).isEqualTo(3);
+    assertThat(timedStats.getTotal()).isEqualTo(6000);
+    assertThat(timedStats.getMax()).isEqualTo(3000);
+    WindowStatistics valueStats = value.rollingWindow(10);
+    assertThat(valueStats.getCount()).isEqualTo(3);
+    assertThat(valueStats.getTotal()).isEqualTo(33);
+    assertThat(valueStats.getMax()).isEqualTo(20);
+  }
+
+  @Test
+  void timedMetric_rollingWindow_expect_collectUnaffected() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    DefaultTimedMetric metric = new DefaultTimedMetric(MetricName.of("org.test.window.timed"), clock);
+    metric.enableRollingWindow(60);
+
+    long start = metric.start();
+    clock.advanceMicros(200);
+    metric.end(start);
+    metric.addEventDuration(false, 5_000_000);
+
+    WindowStatistics stats = metric.rollingWindow(10);
+    assertThat(stats.getCount()).isEqualTo(1);
+    assertThat(stats.getTotal()).isEqualTo(200);
+
+    // reading the window does not reset the collected statistics
+    HelperStatsCollector collector = new HelperStatsCollector();
+    metric.collect(collector);
+    List<MetricStatistics> collected = collector.getList();
+    assertThat(collected).hasSize(2);
+    TimedStatistics success = (TimedStatistics) collected.get(1);
+    assertThat(success.getCount()).isEqualTo(1);
+
+    // collection does not reset the window
+    assertThat(metric.rollingWindow(10).getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void histogramMetric_rollingWindow() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    DefaultHistogramTimedMetric metric = new DefaultHistogramTimedMetric(MetricName.of("org.test.window.histo"), clock);
+    metric.enableRollingWindow(60);
+    metric.addEventDurations(true, new long[]{100_000, 300_000}, 0, 2);
+
+    WindowStatistics stats = metric.rollingWindow(60);
+    assertThat(stats.getCount()).isEqualTo(2);
+    assertThat(stats.getMax()).isEqualTo(300);
+  }
+
+  @Test
+  void bucketMetric_rollingWindow_expect_sumOfBuckets() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    TimedMetric metric = new BucketTimedMetricFactory(clock).createMetric(MetricName.of("org.test.window.bucket"), new int[]{100});
+    metric.enableRollingWindow(60);
+    metric.addEventDuration(true, 50_000_000);
+    metric.addEventDurations(true, new long[]{20_000_000, 150_000_000}, 0, 2);
+    metric.addEventDuration(false, 500_000_000);
+
+    WindowStatistics stats = metric.rollingWindow(60);
+    assertThat(stats.getCount()).isEqualTo(3);
+    assertThat(stats.getTotal()).isEqualTo(220_000);
+    assertThat(stats.getMax()).isEqualTo(150_000);
+  }
+
+  @Test
+  void sampledMetric_rollingWindow() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    DefaultSampledTimedMetric metric = new DefaultSampledTimedMetric(MetricName.of("org.test.window.sampled"), clock, 1d);
+    metric.enableRollingWindow(60);
+    metric.addEventDuration(true, 100_000);
+    metric.addEventDuration(true, 300_000);
+
+    WindowStatistics stats = metric.rollingWindow(60);
+    assertThat(stats.getCount()).isEqualTo(2);
+    assertThat(stats.getTotal()).isEqualTo(400);
+    assertThat(stats.getMax()).isEqualTo(300);
+  }
+
+  @Test
+  void valueMetric_rollingWindow() {
+    ClockTest.ManualClock clock = new ClockTest.ManualClock();
+    DefaultValueMetric metric = new DefaultValueMetric(MetricName.of("org.test.window.value"), clock);
+    metric.enableRollingWindow(60);
+    metric.addEvent(10);
+    metric.addEvents(new long[]{20, 30}, 0, 2);
+
+    WindowStatistics stats = metric.rollingWindow(60);
+    assertThat(stats.getCount()).isEqualTo(3);
+    assertThat(stats.getTotal()).isEqualTo(60);
+    assertThat(stats.getMean()).isEqualTo(20);
+  }
+
+  @Test
+  void rollingWindow_notEnabled() {
+    DefaultValueMetric metric = new DefaultValueMetric(MetricName.of("org.test.window.none"));
+    assertThatThrownBy(() -> metric.rollingWindow(10))
+      .isInstanceOf(IllegalStateException.class);
+  }
+}
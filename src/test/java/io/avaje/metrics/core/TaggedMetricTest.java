@@ -0,0 +1,165 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.CounterMetric;
+import io.avaje.metrics.MetricFamily;
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.Tags;
+import io.avaje.metrics.TimedMetric;
+import io.avaje.metrics.report.CsvWriteVisitor;
+import io.avaje.metrics.report.JsonWriter;
+import io.avaje.metrics.statistics.CounterStatistics;
+import io.avaje.metrics.statistics.MetricStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaggedMetricTest {
+
+  @Test
+  void tags_expect_orderedAndInterned() {
+    Tags tags = Tags.of("tenant", "acme", "status", "200");
+    assertThat(Tags.of("status", "200", "tenant", "acme")).isSameAs(tags);
+    assertThat(Tags.of("status", "200").and("tenant", "acme")).isSameAs(tags);
+    assertThat(tags.toString()).isEqualTo("{status=200,tenant=acme}");
+    assertThat(tags.size()).isEqualTo(2);
+    assertThat(tags.key(0)).isEqualTo("status");
+    assertThat(tags.get("tenant")).isEqualTo("acme");
+    assertThat(tags.get("missing")).isNull();
+
+    assertThat(Tags.of()).isSameAs(Tags.EMPTY);
+    assertThat(Tags.of("status", "200").and("status", "500").toString()).isEqualTo("{status=500}");
+    assertThatThrownBy(() -> Tags.of("status")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void taggedName_expect_distinctFromUntagged() {
+    MetricName name = MetricName.of("org.test.tagged");
+    MetricName tagged = name.tagged("status", "200");
+
+    assertThat(tagged).isNotEqualTo(name);
+    assertThat(tagged).isEqualTo(name.tagged(Tags.of("status", "200")));
+    assertThat(tagged.getSimpleName()).isEqualTo("org.test.tagged");
+    assertThat(tagged.toString()).isEqualTo("org.test.tagged{status=200}");
+    assertThat(tagged.append("error").getTags()).isSameAs(tagged.getTags());
+  }
+
+  @Test
+  void family_expect_sameInstanceAndSeparateMetrics() {
+    DefaultMetricManager mgr = new DefaultMetricManager();
+    MetricFamily<CounterMetric> family = mgr.counterFamily(MetricName.of("org.test.family.counter"));
+
+    CounterMetric ok = family.tagged("status", "200");
+    assertThat(family.tagged("status", "200")).isSameAs(ok);
+    assertThat(family.tagged(Tags.of("status", "200"))).isSameAs(ok);
+    assertThat(mgr.counter(MetricName.of("org.test.family.counter").tagged("status", "200"))).isSameAs(ok);
+
+    CounterMetric error = family.tagged("status", "500");
+    CounterMetric untagged = mgr.counter(MetricName.of("org.test.family.counter"));
+    assertThat(error).isNotSameAs(ok);
+    assertThat(untagged).isNotSameAs(ok);
+
+    ok.inc();
+    ok.inc();
+    error.inc();
+    HelperStatsCollector collector = new HelperStatsCollector();
+    ok.collect(collector);
+    CounterStatistics stats = (CounterStatistics) collector.getList().get(0);
+    assertThat(stats.getName()).isEqualTo("org.test.family.counter");
+    assertThat(stats.getTags()).isSameAs(Tags.of("status", "200"));
+    assertThat(stats.getCount()).isEqualTo(2);
+  }
+
+  @Test
+  void family_when_twoTags_expect_sameInstance() {
+    DefaultMetricManager mgr = new DefaultMetricManager();
+    MetricFamily<TimedMetric> family = mgr.timedFamily(MetricName.of("org.test.family.timed"));
+
+    TimedMetric timed = family.tagged("method", "GET", "status", "200");
+    assertThat(family.tagged("method", "GET", "status", "200")).isSameAs(timed);
+    assertThat(family.tagged("status", "200", "method", "GET")).isSameAs(timed);
+    assertThat(family.tagged(Tags.of("method", "GET", "status", "200"))).isSameAs(timed);
+  }
+
+  @Test
+  void writers_expect_tags() {
+    CounterMetric counter = new DefaultCounterMetric(MetricName.of("org.test.tagged.write").tagged("status", "200"));
+    counter.inc();
+    HelperStatsCollector collector = new HelperStatsCollector();
+    counter.collect(collector);
+    MetricStatistics stats = collector.getList().get(0);
+
+    StringWriter csv = new StringWriter();
+    new CsvWriteVisitor(csv, "10:00:00", 2, ",", "\n", 0).visit((CounterStatistics) stats);
+    assertThat(csv.toString()).isEqualTo("10:00:00,org.test.tagged.write{status=200},1\n");
+
+    StringWriter json = new StringWriter();
+    new JsonWriter(json, Collections.emptyList()).visit((CounterStatistics) stats);
+    assertThat(json.toString()).isEqualTo("{\"name\":\"org.test.tagged.write\",\"tags\":{\"status\":\"200\"},\"value\":1}");
+  }
+
+  @Test
+  void writers_when_tagsContainDelimiterOrQuote_expect_quotedCsvAndEscapedJson() {
+    CounterMetric counter = new DefaultCounterMetric(MetricName.of("org.test.tagged.quote").tagged(Tags.of("status", "200", "tenant", "a\"b")));
+    counter.inc();
+    HelperStatsCollector collector = new HelperStatsCollector();
+    counter.collect(collector);
+    MetricStatistics stats = collector.getList().get(0);
+
+    StringWriter csv = new StringWriter();
+    new CsvWriteVisitor(csv, "10:00:00", 2, ",", "\n", 0).visit((CounterStatistics) stats);
+    assertThat(csv.toString()).isEqualTo("10:00:00,\"org.test.tagged.quote{status=200,tenant=a\"\"b}\",1\n");
+
+    StringWriter json = new StringWriter();
+    new JsonWriter(json, Collections.emptyList()).visit((CounterStatistics) stats);
+    assertThat(json.toString()).isEqualTo("{\"name\":\"org.test.tagged.quote\",\"tags\":{\"status\":\"200\",\"tenant\":\"a\\\"b\"},\"value\":1}");
+  }
+
+  @Test
+  void tagged_when_otherMetricName_expect_defaultTaggedName() {
+    MetricName plain = new PlainName("org.test.tagged.plain");
+    MetricName tagged = plain.tagged("status", "200");
+    assertThat(tagged).isEqualTo(MetricName.of("org.test.tagged.plain").tagged("status", "200"));
+    assertThat(tagged.getTags()).isSameAs(Tags.of("status", "200"));
+  }
+
+  /**
+   * MetricName that does not implement tagged().
+   */
+  private static final class PlainName implements MetricName {
+
+    private final String name;
+
+    PlainName(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getSimpleName() {
+      return name;
+    }
+
+    @Override
+    public MetricName append(String suffix) {
+      return new PlainName(name + "." + suffix);
+    }
+
+    @Override
+    public boolean startsWith(String prefix) {
+      return name.startsWith(prefix);
+    }
+
+    @Override
+    public boolean isError() {
+      return name.endsWith(".error");
+    }
+
+    @Override
+    public int compareTo(MetricName o) {
+      return name.compareTo(o.getSimpleName());
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+import io.avaje.metrics.TimedMetric;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Asserts the start token API does not allocate per event.
+ */
+class TimedMetricAllocationTest {
+
+  private static final int EVENTS = 200_000;
+
+  @Test
+  void timed_startToken_expect_noAllocation() {
+    assertNoAllocation(new DefaultTimedMetric(MetricName.of("org.test.alloc.timed")));
+  }
+
+  @Test
+  void bucket_startToken_expect_noAllocation() {
+    BucketTimedMetricFactory factory = new BucketTimedMetricFactory();
+    assertNoAllocation(factory.createMetric(MetricName.of("org.test.alloc.bucket"), new int[]{10, 100}));
+  }
+
+  @Test
+  void histogram_startToken_expect_noAllocation() {
+    assertNoAllocation(new DefaultHistogramTimedMetric(MetricName.of("org.test.alloc.histogram")));
+  }
+
+  private void assertNoAllocation(TimedMetric metric) {
+    com.sun.management.ThreadMXBean threadBean = threadBean();
+    long threadId = Thread.currentThread().getId();
+
+    // warm up such that allocation from class loading and JIT is excluded
+    recordEvents(metric);
+    recordEvents(metric);
+
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    recordEvents(metric);
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+    // allow for a small fixed allocation by the measurement itself
+    assertThat(allocated / EVENTS).isEqualTo(0);
+    assertThat(allocated).isLessThan(1024);
+  }
+
+  private static void recordEvents(TimedMetric metric) {
+    for (int i = 0; i < EVENTS; i++) {
+      long start = metric.start();
+      if ((i & 7) == 0) {
+        metric.endWithError(start);
+      } else {
+        metric.end(start);
+      }
+    }
+  }
+
+  private static com.sun.management.ThreadMXBean threadBean() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "thread allocation measurement not available");
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "thread allocation measurement not supported");
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+    return threadBean;
+  }
+}
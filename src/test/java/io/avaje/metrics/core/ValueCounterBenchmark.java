@@ -0,0 +1,94 @@
+package io.avaje.metrics.core;
+
+import io.avaje.metrics.MetricName;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Benchmark of ValueCounter.add() against the prior LongAdder based implementation.
+ * <p>
+ * Not run as part of the tests, run the main method (ideally with a quiet machine).
+ * </p>
+ */
+public class ValueCounterBenchmark {
+
+  private static final int[] THREADS = {1, 8, 64};
+
+  private static final long RUN_MILLIS = 2000;
+
+  public static void main(String[] args) throws InterruptedException {
+
+    for (int threads : THREADS) {
+      // warm up
+      run(threads, new ValueCounter(MetricName.of("bench.striped"))::add);
+      run(threads, new LongAdderValueCounter()::add);
+
+      double striped = run(threads, new ValueCounter(MetricName.of("bench.striped"))::add);
+      double adders = run(threads, new LongAdderValueCounter()::add);
+      System.out.printf("threads:%3d  striped:%8.2f ns/op  longAdder:%8.2f ns/op%n", threads, striped, adders);
+    }
+  }
+
+  /**
+   * Return the average nanos per add (across all threads).
+   */
+  static double run(int threadCount, LongConsumer counter) throws InterruptedException {
+
+    CountDownLatch start = new CountDownLatch(1);
+    long[] ops = new long[threadCount];
+    long[] nanos = new long[threadCount];
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      final int idx = t;
+      threads[t] = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        long begin = System.nanoTime();
+        long end = begin + RUN_MILLIS * 1_000_000L;
+        long count = 0;
+        long now;
+        do {
+          for (int i = 0; i < 1000; i++) {
+            counter.accept(i);
+          }
+          count += 1000;
+          now = System.nanoTime();
+        } while (now < end);
+        ops[idx] = count;
+        nanos[idx] = now - begin;
+      });
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    double nanosPerOp = 0;
+    for (int t = 0; t < threadCount; t++) {
+      nanosPerOp += (double) nanos[t] / ops[t];
+    }
+    return nanosPerOp / threadCount;
+  }
+
+  /**
+   * The prior implementation using 2 LongAdder and a LongAccumulator.
+   */
+  static final class LongAdderValueCounter {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    void add(long value) {
+      count.increment();
+      total.add(value);
+      max.accumulate(value);
+    }
+  }
+}
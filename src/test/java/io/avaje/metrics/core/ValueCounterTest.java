@@ -1,9 +1,13 @@
 package io.avaje.metrics.core;
 
 import io.avaje.metrics.MetricName;
+import io.avaje.metrics.statistics.TimedStatistics;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ValueCounterTest {
 
@@ -58,4 +62,119 @@ class ValueCounterTest {
     assertEquals(0, counter.getTotal());
     assertEquals(Long.MIN_VALUE, counter.getMax());
   }
+
+  @Test
+  void concurrentAdd() throws InterruptedException {
+    ValueCounter counter = new ValueCounter(MetricName.of("junk"));
+
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      final long offset = t;
+      threads[t] = new Thread(() -> {
+        for (int i = 1; i <= 10_000; i++) {
+          counter.add(i + offset);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // sum of 1..10000 is 50005000 plus offsets 0..7 times 10000
+    TimedStatistics statistics = counter.collectStatistics();
+    assertEquals(80_000, statistics.getCount());
+    assertEquals(8 * 50_005_000L + 28 * 10_000L, statistics.getTotal());
+    assertEquals(10_007, statistics.getMax());
+
+    assertNull(counter.collectStatistics());
+    assertEquals(Long.MIN_VALUE, counter.getMax());
+  }
+
+  @Test
+  void collect_when_concurrentWriters_expect_consistentSnapshots() throws InterruptedException {
+    ValueCounter counter = new ValueCounter(MetricName.of("junk"));
+
+    final int perThread = 200_000;
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < perThread; i++) {
+          counter.add(7);
+        }
+      });
+      threads[t].start();
+    }
+
+    long collectedCount = 0;
+    boolean running = true;
+    while (running) {
+      running = false;
+      for (Thread thread : threads) {
+        running |= thread.isAlive();
+      }
+      TimedStatistics statistics = counter.collectStatistics();
+      if (statistics != null) {
+        // every value is in exactly one snapshot so total and count always agree
+        assertEquals(statistics.getCount() * 7, statistics.getTotal());
+        assertEquals(7, statistics.getMax());
+        collectedCount += statistics.getCount();
+      }
+    }
+    TimedStatistics remaining = counter.collectStatistics();
+    if (remaining != null) {
+      collectedCount += remaining.getCount();
+    }
+    assertEquals(perThread * threads.length, collectedCount);
+    assertTrue(counter.isEmpty());
+  }
+
+  @Test
+  void minAndVariance() {
+    ValueCounter.trackVariance = true;
+    ValueCounter counter;
+    try {
+      counter = new ValueCounter(MetricName.of("junk"));
+    } finally {
+      ValueCounter.trackVariance = false;
+    }
+    assertTrue(counter.isVariance());
+    assertEquals(Long.MAX_VALUE, counter.getMin());
+
+    counter.add(2);
+    counter.add(4);
+    counter.add(4);
+    counter.add(4);
+    counter.add(5);
+    counter.add(5);
+    counter.add(7);
+    counter.add(9);
+    assertEquals(2, counter.getMin());
+
+    TimedStatistics statistics = counter.collectStatistics();
+    assertEquals(8, statistics.getCount());
+    assertEquals(2, statistics.getMin());
+    assertEquals(9, statistics.getMax());
+    assertEquals(4.0, statistics.getVariance(), 0.000001);
+    assertEquals(2.0, statistics.getStdDev(), 0.000001);
+
+    counter.add(10);
+    statistics = counter.collectStatistics();
+    assertEquals(10, statistics.getMin());
+    assertEquals(0, statistics.getStdDev(), 0.000001);
+  }
+
+  @Test
+  void variance_when_notTracked_expect_nan() {
+    ValueCounter counter = new ValueCounter(MetricName.of("junk"));
+    assertFalse(counter.isVariance());
+    counter.add(2);
+    counter.add(4);
+
+    TimedStatistics statistics = counter.collectStatistics();
+    assertEquals(2, statistics.getCount());
+    assertEquals(6, statistics.getTotal());
+    assertTrue(Double.isNaN(statistics.getVariance()));
+    assertTrue(Double.isNaN(statistics.getStdDev()));
+  }
 }
@@ -38,6 +38,28 @@ class ValueMetricTest {
     assertThat(collect(metric)).isEmpty();
   }
 
+  @Test
+  void addEvents() {
+    ValueMetric metric = MetricManager.value(new DefaultMetricName("org.test.mybatch"));
+    metric.clear();
+
+    metric.addEvents(new long[]{99, 1000, 2000, 1500, 99}, 1, 3);
+    metric.addEvents(new long[]{500}, 0, 0);
+    metric.addEvent(500);
+
+    List<MetricStatistics> stats = collect(metric);
+    assertThat(stats).hasSize(1);
+
+    ValueStatistics statistics = (ValueStatistics) stats.get(0);
+    assertEquals(4, statistics.getCount());
+    assertEquals(5000, statistics.getTotal());
+    assertEquals(2000, statistics.getMax());
+    assertEquals(500, statistics.getMin());
+    assertEquals(1250, statistics.getMean());
+    // variance is not tracked by default
+    assertThat(statistics.getStdDev()).isNaN();
+  }
+
   private List<MetricStatistics> collect(Metric metric) {
     DStatsCollector collector = new DStatsCollector();
     metric.collect(collector);
@@ -0,0 +1,98 @@
+package io.avaje.metrics.processor;
+
+import io.avaje.metrics.MetricManager;
+import io.avaje.metrics.spi.MetricsEnhanced;
+import io.avaje.metrics.statistics.MetricStatistics;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimedProcessorTest {
+
+  private static final String SOURCE = "package org.test.gen;\n"
+    + "import io.avaje.metrics.annotation.NotTimed;\n"
+    + "import io.avaje.metrics.annotation.Timed;\n"
+    + "@Timed(prefix = \"web.api\")\n"
+    + "public class Customer<T> {\n"
+    + "  public Customer(String name) {}\n"
+    + "  public String find(String id) { return \"found:\" + id; }\n"
+    + "  public String find(String id, int max) { return \"found:\" + id + max; }\n"
+    + "  @Timed(name = \"store\", buckets = {100, 200})\n"
+    + "  public void save(T value) throws java.io.IOException { if (value == null) throw new java.io.IOException(\"null\"); }\n"
+    + "  @NotTimed public void skip() {}\n"
+    + "  public static int count(int... values) { return values.length; }\n"
+    + "  public final void done() {}\n"
+    + "  public <E extends Comparable<E>> E max(java.util.List<E> values) { return java.util.Collections.max(values); }\n"
+    + "}\n";
+
+  @Test
+  void generate_expect_holderAndTimedSubclass() throws Exception {
+    File dir = Files.createTempDirectory("metrics-processor").toFile();
+    ClassLoader loader = compile(dir);
+
+    Class<?> holder = loader.loadClass("org.test.gen.Customer_Metrics");
+    List<String> fields = Arrays.stream(holder.getDeclaredFields()).map(Field::getName).collect(Collectors.toList());
+    assertThat(fields).containsExactly("find", "find2", "save", "count", "done", "max");
+    assertThat(holder.getField("find").get(null)).isSameAs(MetricManager.timed("web.api.Customer.find"));
+    assertThat(holder.getField("save").get(null)).isSameAs(MetricManager.timed("web.api.Customer.store", 100, 200));
+
+    Class<?> timed = loader.loadClass("org.test.gen.Customer_Timed");
+    assertThat(timed.getAnnotation(MetricsEnhanced.class)).isNotNull();
+    assertThat(Modifier.isPublic(timed.getModifiers())).isTrue();
+    Object customer = timed.getConstructor(String.class).newInstance("x");
+
+    MetricManager.collectNonEmptyMetrics();
+    assertThat(timed.getMethod("find", String.class).invoke(customer, "1")).isEqualTo("found:1");
+    assertThat(timed.getMethod("max", List.class).invoke(customer, Arrays.asList(1, 3, 2))).isEqualTo(3);
+    Method save = timed.getMethod("save", Object.class);
+    assertThatThrownBy(() -> save.invoke(customer, (Object) null))
+      .isInstanceOf(InvocationTargetException.class)
+      .hasCauseInstanceOf(IOException.class);
+
+    List<String> names = MetricManager.collectNonEmptyMetrics().stream().map(MetricStatistics::getName).collect(Collectors.toList());
+    assertThat(names).contains("web.api.Customer.find", "web.api.Customer.max", "web.api.Customer.store.error");
+  }
+
+  private static ClassLoader compile(File dir) throws Exception {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+      fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(dir));
+      fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singletonList(dir));
+      JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///org/test/gen/Customer.java"), JavaFileObject.Kind.SOURCE) {
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+          return SOURCE;
+        }
+      };
+      StringWriter out = new StringWriter();
+      List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"));
+      JavaCompiler.CompilationTask task = compiler.getTask(out, fileManager, null, options, null, Collections.singletonList(source));
+      task.setProcessors(Collections.singletonList(new TimedProcessor()));
+      assertThat(task.call()).as(out.toString()).isTrue();
+    }
+    return new URLClassLoader(new URL[]{dir.toURI().toURL()}, TimedProcessorTest.class.getClassLoader());
+  }
+}